@@ -39,6 +39,7 @@ import java.io.PrintStream;
 import java.lang.reflect.Field;
 import java.util.*;
 import org.kinkydesign.decibell.annotations.*;
+import org.kinkydesign.decibell.core.ComponentMetadata;
 import org.kinkydesign.decibell.db.engine.*;
 import org.kinkydesign.decibell.db.sieve.JSieve;
 import org.kinkydesign.decibell.exceptions.*;
@@ -72,6 +73,12 @@ import org.kinkydesign.decibell.exceptions.*;
  */
 public abstract class Component<T extends Component> implements Cloneable {
 
+    /**
+     * The hash code of the component, cached for classes annotated as @{@link ImmutableKey }.
+     */
+    private transient int hash;
+    private transient boolean hashComputed = false;
+
     /**
      * Empty constructor for the class Component.
      */
@@ -147,7 +154,9 @@ public abstract class Component<T extends Component> implements Cloneable {
      * @return
      *      An integer identifier of whether the component was registered or not. Returns <code>0</code>
      *      if the given component was registered and <code>1</code> if it was not registered due to a
-     *      duplicate key exception thrown (which was masked).
+     *      duplicate key exception thrown (which was masked). Inside a unit of work
+     *      (see {@link DeciBell#begin() begin}) the registration is only queued, so
+     *      <code>0</code> is always returned.
      * @throws ImproperRegistration
      *      In case the component cannot be registered in the database. This is the
      *      case when the candidate object posseses a null Collection-type field.
@@ -249,6 +258,92 @@ public abstract class Component<T extends Component> implements Cloneable {
         }
     }
 
+    /**
+     * <p  align="justify" style="width:60%">
+     * Like {@link Component#search(org.kinkydesign.decibell.DeciBell) search(db)},
+     * returning the components in the given order and only the given page of them
+     * (see {@link SearchOptions}). Only the rows of the page are read from the
+     * database.
+     * </p>
+     * @param db
+     *      The decibell object which identifies a database connection
+     * @param options
+     *      The order and page of the components found.
+     * @return
+     *      List of objects found in the database
+     */
+    public ArrayList<T> search(DeciBell db, SearchOptions options) {
+        return search(db, null, options);
+    }
+
+    /**
+     * Like {@link Component#search(org.kinkydesign.decibell.DeciBell, org.kinkydesign.decibell.db.sieve.JSieve)
+     * search(db, sieve)}, returning the components in the given order and only the
+     * given page of them (see {@link SearchOptions}).
+     * @param db
+     *      The decibell object which identifies a database connection
+     * @param sieve
+     *      A sieve (filter) for performing complex queries or <code>null</code>.
+     * @param options
+     *      The order and page of the components found.
+     * @return
+     *      List of objects found in the database with respect to the provided sieve.
+     */
+    public ArrayList<T> search(DeciBell db, JSieve<T> sieve, SearchOptions options) {
+        if (Component.class.equals(this.getClass().getSuperclass())) { // Direct subclass of Component
+            SearchEngine<T> engine = new SearchEngine<T>(db, sieve, options);
+            return engine.search(this);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Like {@link Component#search(org.kinkydesign.decibell.DeciBell) search(db)},
+     * but the components are retrieved from the database lazily, as the returned
+     * cursor is iterated, instead of being collected in a list. Suitable for searches
+     * with very large results. The cursor holds a database connection until it is
+     * exhausted or {@link SearchCursor#close() closed}.
+     * </p>
+     * @param db
+     *      The decibell object which identifies a database connection
+     * @return
+     *      A cursor over the objects found in the database
+     * @see SearchEngine#stream(org.kinkydesign.decibell.Component, int)
+     */
+    public SearchCursor<T> stream(DeciBell db) {
+        return new SearchEngine<T>(db).stream(this);
+    }
+
+    /**
+     * Like {@link Component#stream(org.kinkydesign.decibell.DeciBell) stream(db)},
+     * returning only the components which pass the given sieve.
+     * @param db
+     *      The decibell object which identifies a database connection
+     * @param sieve
+     *      A sieve (filter) for performing complex queries.
+     * @return
+     *      A cursor over the objects found in the database with respect to the provided sieve.
+     */
+    public SearchCursor<T> stream(DeciBell db, JSieve<T> sieve) {
+        return new SearchEngine<T>(db, sieve).stream(this);
+    }
+
+    /**
+     * Like {@link Component#stream(org.kinkydesign.decibell.DeciBell) stream(db)},
+     * returning the components in the given order and only the given page of them.
+     * @param db
+     *      The decibell object which identifies a database connection
+     * @param options
+     *      The order and page of the components found.
+     * @return
+     *      A cursor over the objects found in the database
+     */
+    public SearchCursor<T> stream(DeciBell db, SearchOptions options) {
+        return new SearchEngine<T>(db, null, options).stream(this);
+    }
+
     /**
      * <p  align="justify" style="width:60%">
      * Update a single database entry identified by some primary key or unique field
@@ -320,9 +415,8 @@ public abstract class Component<T extends Component> implements Cloneable {
         buffer.append("Class = ");
         buffer.append(c.getName());
         buffer.append("\n");
-        for (Field f : c.getDeclaredFields()) {
+        for (Field f : ComponentMetadata.forClass(c).getFields()) {
             try {
-                f.setAccessible(true);
                 if (f.get(this) instanceof Component) {
                     if (this.equals(f.get(this))) {
                         buffer.append(x);
@@ -414,16 +508,17 @@ public abstract class Component<T extends Component> implements Cloneable {
             return false;
         }
         boolean areEqual = true;
-        for (Field primaryKeyOfThis : getPrimaryKeyFields()) {
-            primaryKeyOfThis.setAccessible(true);
+        for (Field primaryKeyOfThis : getMetadata().getPrimaryKeyFields()) {
             try {
-                if (primaryKeyOfThis.get(this) == null) {
-                    return primaryKeyOfThis.get(obj) == null ? true : false;
+                Object valueOfThis = primaryKeyOfThis.get(this);
+                Object valueOfObj = primaryKeyOfThis.get(obj);
+                if (valueOfThis == null) {
+                    return areEqual && valueOfObj == null;
                 }
-                if (primaryKeyOfThis.get(obj) == null) {
-                    return primaryKeyOfThis.get(this) == null ? true : false;
+                if (valueOfObj == null) {
+                    return false;
                 }
-                areEqual = areEqual && primaryKeyOfThis.get(this).equals(primaryKeyOfThis.get(obj));
+                areEqual = areEqual && valueOfThis.equals(valueOfObj);
             } catch (IllegalAccessException ex) {
                 throw new RuntimeException(ex);
             }
@@ -432,38 +527,40 @@ public abstract class Component<T extends Component> implements Cloneable {
         return areEqual;
     }
 
+    /**
+     * The metadata of the class of this component.
+     * @return
+     *      Reflection metadata, shared by all instances of the class.
+     */
+    public ComponentMetadata getMetadata() {
+        return ComponentMetadata.forClass(getClass());
+    }
+
+    /**
+     * The fields of the component annotated as @{@link PrimaryKey }.
+     * @return
+     *      Unmodifiable list of primary key fields.
+     */
     public List<Field> getPrimaryKeyFields() {
-        List<Field> primaryKeyFields = new LinkedList<Field>();
-        for (Field fieldOfThis : getClass().getDeclaredFields()) {
-            fieldOfThis.setAccessible(true);
-            if (fieldOfThis.getAnnotation(PrimaryKey.class) != null) {
-                primaryKeyFields.add(fieldOfThis);
-            }
-        }
-        return primaryKeyFields;
+        return getMetadata().getPrimaryKeyFields();
     }
 
+    /**
+     * The fields of the component annotated as @{@link ForeignKey }.
+     * @return
+     *      List of foreign key fields.
+     */
     public ArrayList<Field> getForeignKeyFields() {
-        ArrayList<Field> foreignKeys = new ArrayList<Field>();
-        for (Field fieldOfThis : getClass().getDeclaredFields()) {
-            fieldOfThis.setAccessible(true);
-            if (fieldOfThis.getAnnotation(ForeignKey.class) != null) {
-                foreignKeys.add(fieldOfThis);
-            }
-        }
-        return (ArrayList<Field>) foreignKeys;
+        return new ArrayList<Field>(getMetadata().getForeignKeyFields());
     }
 
+    /**
+     * The foreign key fields which reference components of the same class.
+     * @return
+     *      Unmodifiable list of self-referencing fields.
+     */
     public List<Field> getSelfReferencingFields() {
-        List<Field> selfRefForeignKeys = new LinkedList<Field>();
-        for (Field fieldOfThis : getClass().getDeclaredFields()) {
-            fieldOfThis.setAccessible(true);
-            if (fieldOfThis.getAnnotation(ForeignKey.class) != null
-                    && fieldOfThis.getType().equals(getClass())) {
-                selfRefForeignKeys.add(fieldOfThis);
-            }
-        }
-        return selfRefForeignKeys;
+        return getMetadata().getSelfReferencingFields();
     }
 
     /**
@@ -477,14 +574,7 @@ public abstract class Component<T extends Component> implements Cloneable {
      *      Autogenerated field or null if not any.
      */
     public Field getAutogeneratedField() {
-        for (Field fieldOfThis : this.getClass().getDeclaredFields()) {
-            fieldOfThis.setAccessible(true);
-            if (fieldOfThis.getAnnotation(org.kinkydesign.decibell.annotations.Entry.class) != null
-                    && fieldOfThis.getAnnotation(org.kinkydesign.decibell.annotations.Entry.class).autoGenerated()) {
-                return fieldOfThis;
-            }
-        }
-        return null;
+        return getMetadata().getAutogeneratedField();
     }
 
     /**
@@ -501,13 +591,7 @@ public abstract class Component<T extends Component> implements Cloneable {
      *      </p>
      */
     public boolean hasPrimaryKey() {
-        for (Field fieldOfThis : getClass().getDeclaredFields()) {
-            fieldOfThis.setAccessible(true);
-            if (fieldOfThis.getAnnotation(PrimaryKey.class) != null) {
-                return true;
-            }
-        }
-        return false;
+        return getMetadata().hasPrimaryKey();
     }
 
     /**
@@ -520,13 +604,7 @@ public abstract class Component<T extends Component> implements Cloneable {
      *      </p>
      */
     public boolean hasForeignKey() {
-        for (Field fieldOfThis : getClass().getDeclaredFields()) {
-            fieldOfThis.setAccessible(true);
-            if (fieldOfThis.getAnnotation(ForeignKey.class) != null) {
-                return true;
-            }
-        }
-        return false;
+        return getMetadata().hasForeignKey();
     }
 
     /**
@@ -540,14 +618,7 @@ public abstract class Component<T extends Component> implements Cloneable {
      *      </p>
      */
     public boolean isSelfReferencing() {
-        for (Field fieldOfThis : getClass().getDeclaredFields()) {
-            fieldOfThis.setAccessible(true);
-            if (fieldOfThis.getAnnotation(ForeignKey.class) != null
-                    && fieldOfThis.getType().equals(getClass())) {
-                return true;
-            }
-        }
-        return false;
+        return getMetadata().isSelfReferencing();
     }
 
     @Override
@@ -555,9 +626,38 @@ public abstract class Component<T extends Component> implements Cloneable {
         return super.clone();
     }
 
+    /**
+     * <p  align="justify" style="width:60%">
+     * A hash code consistent with {@link Component#equals(java.lang.Object) equals}:
+     * it is computed from the values of the primary key fields (up to the first one
+     * which is <code>null</code>). For classes annotated as @{@link ImmutableKey }
+     * the hash code is computed once and cached.
+     * </p>
+     * @return
+     *      Hash code of the component.
+     */
     @Override
     public int hashCode() {
-        int hash = 7;
-        return hash;
+        if (hashComputed) {
+            return hash;
+        }
+        ComponentMetadata metadata = getMetadata();
+        int h = 7;
+        for (Field primaryKeyOfThis : metadata.getPrimaryKeyFields()) {
+            try {
+                Object valueOfThis = primaryKeyOfThis.get(this);
+                if (valueOfThis == null) {
+                    break;
+                }
+                h = 31 * h + valueOfThis.hashCode();
+            } catch (IllegalAccessException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+        if (metadata.hasImmutableKey()) {
+            hash = h;
+            hashComputed = true;
+        }
+        return h;
     }
 }
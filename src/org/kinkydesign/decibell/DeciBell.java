@@ -37,11 +37,22 @@ package org.kinkydesign.decibell;
 
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import org.kinkydesign.decibell.annotations.Cacheable;
+import org.kinkydesign.decibell.collections.HydrationMode;
+import org.kinkydesign.decibell.core.ComponentMetadata;
+import org.kinkydesign.decibell.core.ComponentRegistry;
 import org.kinkydesign.decibell.db.*;
-import org.kinkydesign.decibell.db.derby.DerbyConnector;
+import org.kinkydesign.decibell.db.derby.DerbyDialect;
 import org.kinkydesign.decibell.db.derby.DerbyTablesGenerator;
+import org.kinkydesign.decibell.db.engine.RegistrationEngine;
+import org.kinkydesign.decibell.db.engine.UnitOfWork;
+import org.kinkydesign.decibell.db.interfaces.JDialect;
+import org.kinkydesign.decibell.exceptions.DuplicateKeyException;
 import org.kinkydesign.decibell.exceptions.ImproperDatabaseException;
+import org.kinkydesign.decibell.exceptions.ImproperRegistration;
 import org.kinkydesign.decibell.exceptions.NoPrimaryKeyException;
+import org.kinkydesign.decibell.exceptions.NoUniqueFieldException;
 import org.reflections.Reflections;
 import org.reflections.scanners.SubTypesScanner;
 import org.reflections.util.*;
@@ -76,6 +87,8 @@ import org.reflections.util.*;
  * the table creation. The class {@link TablesGenerator } undertakes the creation of
  * all necessary tables in the database (Note that this class is abstract; There is
  * a derby-specific implementation of this class, namely {@link DerbyTablesGenerator }.
+ * The implementation is provided by the {@link JDialect dialect} of the database,
+ * which is Derby unless another one is given to the constructor of DeciBell.
  * </p>
  * @author Pantelis Sopasakis
  * @author Charalampos Chomenides
@@ -86,16 +99,34 @@ public class DeciBell {
      * A {@link DeciBell } object is a nice Wrapper to {@link DbConnector } offering
      * increased flexibility. This is the private DbConnector object held by Decibell.
      */
-    private DbConnector connector = new DerbyConnector();
+    private final DbConnector connector;
     private static Map<Class<? extends Component>, DeciBell> componentDBmap =
-            new HashMap<Class<? extends Component>, DeciBell>();
+            new ConcurrentHashMap<Class<? extends Component>, DeciBell>();
     /**
      * The set of all user-specified components (Classes that extend {@link Component }).
      */
     Set<Class<? extends Component>> components = null;
     private boolean verbose = false;
+    private HydrationMode hydrationMode = HydrationMode.JOIN;
+    /**
+     * The unit of work opened by each thread through {@link DeciBell#begin() begin}.
+     */
+    private final ThreadLocal<UnitOfWork> unitOfWork = new ThreadLocal<UnitOfWork>();
 
     public DeciBell() {
+        this(new DerbyDialect());
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Construct a DeciBell object for a database of a certain dialect, for example
+     * {@link org.kinkydesign.decibell.db.h2.H2Dialect H2}.
+     * </p>
+     * @param dialect
+     *      The dialect of the database.
+     */
+    public DeciBell(JDialect dialect) {
+        connector = dialect.newConnector();
     }
 
     /**
@@ -154,8 +185,19 @@ public class DeciBell {
      * <p  align="justify" style="width:60%">
      * Start the connection to the database and, if the database does not exist,
      * create it using the entity-relation structure perscribed by the attached classes
-     * and the annotations therein. Upon startup, some SQL statements are prepared.
+     * and the annotations therein. Upon startup, the statement pool of the database
+     * is set up; SQL statements are prepared on demand. The reflection metadata
+     * of all components (see {@link ComponentMetadata }) is built at this point.
      * </p>
+     * <p  align="justify" style="width:60%">
+     * Tables whose definition has changed are migrated (see {@link DerbyTablesGenerator#construct()
+     * construct}). If some changes cannot be migrated automatically, the database
+     * is started nevertheless and an exception listing the unmigrated tables is
+     * thrown, so that they are migrated manually before the next start.
+     * </p>
+     * @throws ImproperDatabaseException
+     *      If the attached components are not properly defined, or if the tables
+     *      of some components could not be migrated to their current definition.
      */
     public void start() throws ImproperDatabaseException {
         System.err.println("DeciBell >>> Engine Ignition: Beware of the flames!");
@@ -165,11 +207,31 @@ public class DeciBell {
             Reflections reflections = new Reflections("");
             components = reflections.getSubTypesOf(Component.class);
         }
+        ComponentMetadata.prepare(components);
         checkConsistencybefore();
-        TablesGenerator tables = new DerbyTablesGenerator(this, components);
+        TablesGenerator tables = connector.getDialect().newTablesGenerator(this, components);
         tables.construct();
+        ComponentRegistry.getRegistry(connector).seal();
+        for (Class<? extends Component> c : components) {
+            Cacheable cacheable = c.getAnnotation(Cacheable.class);
+            if (cacheable != null) {
+                getEntityCache().enable(c, cacheable.maxSize(), cacheable.timeToLive());
+                if (cacheable.queryCacheSize() > 0) {
+                    getEntityCache().enableQueries(c, cacheable.queryCacheSize(), cacheable.timeToLive());
+                }
+            }
+        }
         StatementPool.getPool(connector);
         System.err.println("DeciBell >>> CONNECT '" + getDatabaseUrl() + "';\n");
+        Map<String, List<String>> unmigrated = tables.getUnmigratedTables();
+        if (!unmigrated.isEmpty()) {
+            StringBuffer message = new StringBuffer("The following tables cannot be migrated automatically "
+                    + "and have to be migrated manually:");
+            for (Map.Entry<String, List<String>> table : unmigrated.entrySet()) {
+                message.append("\n" + table.getKey() + ": " + table.getValue());
+            }
+            throw new ImproperDatabaseException(message.toString());
+        }
     }
 
     /**
@@ -257,6 +319,7 @@ public class DeciBell {
      */
     public void reset() {
         connector.clearDB();
+        getEntityCache().clear();
     }
 
     /**
@@ -267,16 +330,9 @@ public class DeciBell {
     public void stop() {
         connector.disconnect();
         connector.killServer();
-        try {
-            while (connector.isConnected() || connector.isServerRunning()) {
-                Thread.sleep(100);
-            }
-            Thread.sleep(1000); // <== wait a little bit more
-        } catch (InterruptedException ex) {
-            throw new RuntimeException("Interrupted while stopping...", ex);
-        }
     }
 
+
     /**
      * <p  align="justify" style="width:60%">
      * Define an path for the installation folder of the Driver
@@ -289,6 +345,34 @@ public class DeciBell {
         connector.setDriverHome(driverHome);
     }
 
+    /**
+     * <p  align="justify" style="width:60%">
+     * Run the database in-process instead of accessing it through a Derby network
+     * server. In embedded mode the URL of the database connection is
+     * <code>jdbc:derby:{database_name}</code>; no server is started when DeciBell
+     * {@link DeciBell#start() starts} and {@link DeciBell#stop() stop} only shuts
+     * down the database. Note that an embedded database cannot be accessed by other
+     * processes while it is open. Should be invoked before {@link DeciBell#start() start}.
+     * </p>
+     * @param embedded
+     *      Whether the database should run in embedded mode.
+     */
+    public void setEmbedded(boolean embedded) {
+        connector.setEmbedded(embedded);
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Set the maximum time (in milliseconds) to wait for the database server to
+     * start up before giving up. The default is 10 seconds.
+     * </p>
+     * @param serverTimeout
+     *      Server timeout in milliseconds.
+     */
+    public void setServerTimeout(long serverTimeout) {
+        connector.setServerTimeout(serverTimeout);
+    }
+
     /**
      * <p  align="justify" style="width:60%">
      * Choose a driver for the connection to the database server.
@@ -408,6 +492,122 @@ public class DeciBell {
         connector.disconnect();
     }
 
+    /**
+     * <p  align="justify" style="width:60%">
+     * Register a collection of components in the database in a single transaction,
+     * using JDBC batches. Components are written in an order that respects their
+     * foreign key dependencies, so a collection may contain both some components
+     * and the components they reference. This is much faster than registering
+     * the components one by one, especially for large collections.
+     * </p>
+     * @param components
+     *      The components to be registered.
+     * @throws DuplicateKeyException
+     *      In case one of the components is already registered; then none of the
+     *      components is registered.
+     * @throws ImproperRegistration
+     *      In case one of the components cannot be registered; then none of the
+     *      components is registered.
+     * @see RegistrationEngine#registerAll(java.util.Collection)
+     */
+    public void registerAll(Collection<? extends Component> components)
+            throws DuplicateKeyException, ImproperRegistration {
+        new RegistrationEngine(this).registerAll(components);
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Open a unit of work for the current thread. Until the unit of work is
+     * {@link DeciBell#commit() committed} or {@link DeciBell#rollback() rolled back},
+     * the registrations, updates and deletions of components requested by the current
+     * thread are queued instead of being performed. On commit they are written
+     * to the database in a single transaction (see {@link UnitOfWork }). Searches
+     * are not affected and do not see the queued operations.
+     * </p>
+     * @throws IllegalStateException
+     *      In case a unit of work is already open in the current thread.
+     */
+    public void begin() {
+        if (unitOfWork.get() != null) {
+            throw new IllegalStateException("A unit of work is already open in this thread");
+        }
+        unitOfWork.set(new UnitOfWork(this));
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Commit the unit of work of the current thread: all queued operations are
+     * written to the database in a single transaction. Registrations are performed
+     * first, then updates and finally deletions. If any of them fails, none takes
+     * effect. In either case the unit of work is closed.
+     * </p>
+     * @throws DuplicateKeyException
+     *      In case some registered or updated component clashes with an existing one.
+     * @throws ImproperRegistration
+     *      In case some component cannot be registered.
+     * @throws NoUniqueFieldException
+     *      In case some updated or deleted component cannot be identified.
+     * @throws IllegalStateException
+     *      In case there is no open unit of work in the current thread.
+     */
+    public void commit() throws DuplicateKeyException, ImproperRegistration, NoUniqueFieldException {
+        UnitOfWork work = unitOfWork.get();
+        if (work == null) {
+            throw new IllegalStateException("No unit of work is open in this thread");
+        }
+        unitOfWork.remove();
+        work.flush();
+    }
+
+    /**
+     * Discard all operations queued in the unit of work of the current thread and
+     * close it. Nothing is written to the database.
+     * @throws IllegalStateException
+     *      In case there is no open unit of work in the current thread.
+     */
+    public void rollback() {
+        UnitOfWork work = unitOfWork.get();
+        if (work == null) {
+            throw new IllegalStateException("No unit of work is open in this thread");
+        }
+        unitOfWork.remove();
+        work.clear();
+    }
+
+    /**
+     * Whether a unit of work is open in the current thread.
+     * @return
+     *      <code>true</code> between {@link DeciBell#begin() begin} and
+     *      {@link DeciBell#commit() commit} or {@link DeciBell#rollback() rollback}.
+     */
+    public boolean isInTransaction() {
+        return unitOfWork.get() != null;
+    }
+
+    /**
+     * The unit of work open in the current thread.
+     * @return
+     *      The unit of work of the current thread or <code>null</code> if there
+     *      is none.
+     */
+    public UnitOfWork getUnitOfWork() {
+        return unitOfWork.get();
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * The second-level cache of the database. Caching is enabled for the classes
+     * annotated as @{@link Cacheable } upon {@link DeciBell#start() start}; it can
+     * be enabled for other classes using {@link EntityCache#enable(java.lang.Class, int, long)
+     * enable}. The cache also provides hit and miss statistics.
+     * </p>
+     * @return
+     *      The entity cache of the database.
+     */
+    public EntityCache getEntityCache() {
+        return EntityCache.getCache(connector);
+    }
+
     public boolean isVerbose() {
         return verbose;
     }
@@ -416,5 +616,22 @@ public class DeciBell {
         this.verbose = verbose;
     }
 
+    public HydrationMode getHydrationMode() {
+        return hydrationMode;
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Choose how the components referenced by the results of a search are
+     * retrieved from the database. By default ({@link HydrationMode#JOIN}) every
+     * row is fetched along with the rows it references in a single joined query.
+     * </p>
+     * @param hydrationMode
+     *      The hydration strategy used by the search engine.
+     */
+    public void setHydrationMode(HydrationMode hydrationMode) {
+        this.hydrationMode = hydrationMode;
+    }
+
     
 }
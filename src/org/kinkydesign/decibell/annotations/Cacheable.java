@@ -0,0 +1,107 @@
+/**
+ *  Class : Cacheable
+ *  Date  : Oct 18, 2010
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+
+
+package org.kinkydesign.decibell.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ *
+ * <p  align="justify" style="width:60%">
+ * Annotation used to enable the second-level cache for the components of a class
+ * (see {@link org.kinkydesign.decibell.db.EntityCache EntityCache}). Components
+ * of the class retrieved from the database are kept in memory and searches by
+ * primary key are served from the cache. Suitable for reference data which is
+ * read often and seldom modified.
+ * </p>
+ * <p  align="justify" style="width:60%">
+ * Setting {@link Cacheable#queryCacheSize() queryCacheSize} also caches the
+ * results of the searches of the class: the primary keys of the components
+ * found for each distinct prototype.
+ * </p>
+ * <p  align="justify" style="width:60%">
+ * <b>Cached components are shared:</b> a search served from the cache returns
+ * the cached instance itself, the same object to every caller and thread. Cached
+ * components must not be modified in place; a change which is not written to the
+ * database (or whose update fails) would be seen by all later searches. To modify
+ * a component, modify a new instance holding the same primary key and {@link
+ * org.kinkydesign.decibell.Component#update(org.kinkydesign.decibell.DeciBell) update}
+ * it, which evicts the cached one.
+ * </p>
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@Target(ElementType.TYPE)
+@Documented
+public @interface Cacheable {
+
+    /**
+     * The maximum number of cached components of the class. When the limit is
+     * reached, the least recently used components are evicted.
+     * @return
+     *      Maximum size of the cache region of the class.
+     */
+    int maxSize() default 1000;
+
+    /**
+     * The time (in milliseconds) for which a component stays in the cache after
+     * it is retrieved from the database. Use <code>0</code> for components that
+     * never expire (they are still evicted when written by DeciBell).
+     * @return
+     *      Time to live in milliseconds.
+     */
+    long timeToLive() default 0;
+
+    /**
+     * The maximum number of distinct searches of the class whose results are
+     * cached. The default value <code>0</code> disables the caching of search
+     * results. Cached results expire after {@link Cacheable#timeToLive() timeToLive}
+     * too and are dropped whenever a component of the class is written by DeciBell.
+     * @return
+     *      Maximum number of cached search results of the class.
+     */
+    int queryCacheSize() default 0;
+}
@@ -42,6 +42,9 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.db.interfaces.JSerializer;
+import org.kinkydesign.decibell.db.util.BinarySerializer;
+import org.kinkydesign.decibell.db.util.XStreamSerializer;
 
 /**
  *
@@ -155,6 +158,20 @@ public @interface Entry {
      */
     boolean autoGenerated() default false;
 
+    /**
+     * <p align="justify" style="width:60%">
+     * The serializer used to store the values of the field if its type has no
+     * SQL counterpart (e.g. arrays or user-defined classes which are not components).
+     * By default values are stored as XML ({@link XStreamSerializer }); use
+     * {@link BinarySerializer } for a faster and more compact binary form, or
+     * any other implementation of {@link JSerializer }. Ignored for fields of
+     * other types.
+     * </p>
+     * @return
+     *      The class of the serializer.
+     */
+    Class<? extends JSerializer> serializer() default XStreamSerializer.class;
+
     
     
 }
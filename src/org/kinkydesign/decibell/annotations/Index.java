@@ -0,0 +1,105 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ *
+ * <p  align="justify" style="width:60%">
+ * Declares a secondary index on the table of a component, so that searches on
+ * columns which are not keys do not have to scan the whole table. When a field
+ * is annotated, the index is created on the column(s) of the field; a foreign key
+ * to another component is indexed on all columns referencing the other component.
+ * Fields whose annotations share the same {@link Index#name() name} form a single
+ * composite index whose columns follow the order of declaration of the fields.
+ * </p>
+ * <p  align="justify" style="width:60%">
+ * When a class is annotated, the index is created on the columns of the
+ * {@link Index#fields() fields} given by their names, in the given order. Use
+ * {@link Indexes} to declare more than one index on a class. For example:
+ * </p>
+ * <p  align="justify" style="width:60%">
+ * <code>@{@link Index }(name = "byName", fields = {"lastName", "firstName"})</code><br/>
+ * <code>class Customer extends {@link org.kinkydesign.decibell.Component Component} {</code><br/><br/>
+ *
+ *   <code>@{@link PrimaryKey } public int id;</code><br/>
+ *   <code>@{@link Entry } @{@link Index } public String phoneNumber;</code><br/>
+ *   <code>@{@link Entry } public String firstName;</code><br/>
+ *   <code>@{@link Entry } public String lastName;</code><br/><br/>
+ * <code>}</code>
+ * </p>
+ * <p  align="justify" style="width:60%">
+ * Primary keys, unique entries and foreign keys are already indexed by the database
+ * and the relational tables of collections are indexed automatically. Fields which are
+ * serialized (see {@link Entry#serializer() Entry.serializer}) and collections cannot
+ * be indexed.
+ * </p>
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.TYPE})
+@Documented
+public @interface Index {
+
+    /**
+     * The name of the index, unique among the indexes of the class. Defaults to
+     * the name of the annotated field; must be specified when a class is annotated.
+     * @return
+     *      Name of the index.
+     */
+    String name() default "";
+
+    /**
+     * The names of the indexed fields when a class is annotated; ignored when
+     * a field is annotated.
+     * @return
+     *      Names of the indexed fields.
+     */
+    String[] fields() default {};
+
+    /**
+     * Whether the values of the indexed columns must be unique.
+     * @return
+     *      <code>true</code> for a unique index.
+     */
+    boolean unique() default false;
+}
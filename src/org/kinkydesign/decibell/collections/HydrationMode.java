@@ -0,0 +1,68 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.collections;
+
+import org.kinkydesign.decibell.db.engine.Crawler;
+
+/**
+ *
+ * <p  align="justify" style="width:60%">
+ * Strategies available to the {@link Crawler crawler} for the retrieval of the
+ * components that are referenced by some row through its foreign keys. Using
+ * {@link HydrationMode#NESTED_SELECT nested selects}, every foreign key of every
+ * row is resolved with a separate query while in {@link HydrationMode#JOIN join} mode
+ * the row is fetched together with all rows it points at (recursively) in a single
+ * <code>SELECT</code> statement with <code>LEFT OUTER JOIN</code>s.
+ * </p>
+ *
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+public enum HydrationMode {
+
+    /**
+     * Every foreign key is resolved with a separate query (one per row and per
+     * foreign key).
+     */
+    NESTED_SELECT,
+    /**
+     * The master row and its whole foreign key closure are fetched with one joined
+     * query. Cyclic references (including self-references) are still resolved
+     * with nested selects.
+     */
+    JOIN;
+
+}
@@ -0,0 +1,95 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.collections;
+
+import org.kinkydesign.decibell.db.StatementPool;
+
+/**
+ *
+ * <p  align="justify" style="width:60%">
+ * The kinds of prepared statements held by the {@link StatementPool statement pool}.
+ * Each kind has its own limit on the number of statements the pool keeps per
+ * connection (see {@link StatementPool#setLimit(org.kinkydesign.decibell.collections.StatementType, int)
+ * setLimit}).
+ * </p>
+ *
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+public enum StatementType {
+
+    /**
+     * Search statements; one for every table and combination of given fields
+     * in the search prototype.
+     */
+    SEARCH(256),
+    /**
+     * Search by primary key (for relational tables, by master key).
+     */
+    SEARCH_PK(256),
+    /**
+     * Retrieval of a batch of rows given their primary keys; one for every table
+     * and batch size.
+     */
+    SEARCH_KEYS(128),
+    /**
+     * Insertion of a row.
+     */
+    REGISTER(256),
+    /**
+     * Update of a row.
+     */
+    UPDATE(128),
+    /**
+     * Deletion of rows.
+     */
+    DELETE(128);
+
+    private final int defaultLimit;
+
+    private StatementType(int defaultLimit) {
+        this.defaultLimit = defaultLimit;
+    }
+
+    /**
+     * The number of idle statements of this kind which are kept per connection
+     * unless some other limit is set.
+     * @return the default limit.
+     */
+    public int getDefaultLimit() {
+        return defaultLimit;
+    }
+}
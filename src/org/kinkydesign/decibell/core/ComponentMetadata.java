@@ -0,0 +1,226 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.core;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.annotations.Entry;
+import org.kinkydesign.decibell.annotations.ForeignKey;
+import org.kinkydesign.decibell.annotations.ImmutableKey;
+import org.kinkydesign.decibell.annotations.PrimaryKey;
+
+/**
+ * <p  align="justify" style="width:60%">
+ * Immutable description of a {@link Component } class: its declared fields (already
+ * made accessible), the primary key, foreign key and self-referencing fields, the
+ * autogenerated field and the constructor with no parameters. The metadata of
+ * every attached class is built once upon {@link org.kinkydesign.decibell.DeciBell#start()
+ * start}; classes that are not attached are described on first use. Component
+ * methods like {@link Component#equals(java.lang.Object) equals} and the engines
+ * read from here instead of scanning the class with reflection on every call.
+ * </p>
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+public final class ComponentMetadata {
+
+    private static final ConcurrentMap<Class<?>, ComponentMetadata> metadata =
+            new ConcurrentHashMap<Class<?>, ComponentMetadata>();
+    private final Class<? extends Component> componentClass;
+    private final List<Field> fields;
+    private final List<Field> primaryKeyFields;
+    private final List<Field> foreignKeyFields;
+    private final List<Field> selfReferencingFields;
+    private final Field autogeneratedField;
+    private final Constructor<? extends Component> constructor;
+    private final boolean immutableKey;
+
+    private ComponentMetadata(Class<? extends Component> c) {
+        componentClass = c;
+        Field[] declared = c.getDeclaredFields();
+        List<Field> primaryKeys = new ArrayList<Field>();
+        List<Field> foreignKeys = new ArrayList<Field>();
+        List<Field> selfReferences = new ArrayList<Field>();
+        Field autogenerated = null;
+        for (Field field : declared) {
+            field.setAccessible(true);
+            if (field.getAnnotation(PrimaryKey.class) != null) {
+                primaryKeys.add(field);
+            }
+            if (field.getAnnotation(ForeignKey.class) != null) {
+                foreignKeys.add(field);
+                if (field.getType().equals(c)) {
+                    selfReferences.add(field);
+                }
+            }
+            Entry entry = field.getAnnotation(Entry.class);
+            if (autogenerated == null && entry != null && entry.autoGenerated()) {
+                autogenerated = field;
+            }
+        }
+        fields = Collections.unmodifiableList(Arrays.asList(declared));
+        primaryKeyFields = Collections.unmodifiableList(primaryKeys);
+        foreignKeyFields = Collections.unmodifiableList(foreignKeys);
+        selfReferencingFields = Collections.unmodifiableList(selfReferences);
+        autogeneratedField = autogenerated;
+        Constructor<? extends Component> noArgs = null;
+        try {
+            noArgs = c.getDeclaredConstructor();
+            noArgs.setAccessible(true);
+        } catch (NoSuchMethodException ex) {
+            // Reported by DeciBell#start() for attached classes.
+        }
+        constructor = noArgs;
+        immutableKey = c.isAnnotationPresent(ImmutableKey.class);
+    }
+
+    /**
+     * Get the metadata of a component class, describing the class if this has
+     * not been done before.
+     * @param c
+     *      A component class.
+     * @return
+     *      The metadata of the class.
+     */
+    public static ComponentMetadata forClass(Class<? extends Component> c) {
+        ComponentMetadata m = metadata.get(c);
+        if (m == null) {
+            m = new ComponentMetadata(c);
+            ComponentMetadata existing = metadata.putIfAbsent(c, m);
+            if (existing != null) {
+                m = existing;
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Describe a collection of component classes in advance.
+     * @param classes
+     *      Component classes.
+     */
+    public static void prepare(Collection<Class<? extends Component>> classes) {
+        for (Class<? extends Component> c : classes) {
+            forClass(c);
+        }
+    }
+
+    public Class<? extends Component> getComponentClass() {
+        return componentClass;
+    }
+
+    /**
+     * All fields declared in the class (not in its superclasses), accessible.
+     * @return
+     *      Unmodifiable list of the declared fields.
+     */
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    public List<Field> getPrimaryKeyFields() {
+        return primaryKeyFields;
+    }
+
+    public List<Field> getForeignKeyFields() {
+        return foreignKeyFields;
+    }
+
+    public List<Field> getSelfReferencingFields() {
+        return selfReferencingFields;
+    }
+
+    /**
+     * The field annotated as autogenerated (see {@link Entry#autoGenerated()}).
+     * @return
+     *      The autogenerated field or <code>null</code> if there is none.
+     */
+    public Field getAutogeneratedField() {
+        return autogeneratedField;
+    }
+
+    public boolean hasPrimaryKey() {
+        return !primaryKeyFields.isEmpty();
+    }
+
+    public boolean hasForeignKey() {
+        return !foreignKeyFields.isEmpty();
+    }
+
+    public boolean isSelfReferencing() {
+        return !selfReferencingFields.isEmpty();
+    }
+
+    /**
+     * Whether the class is annotated as @{@link ImmutableKey }, so that the hash
+     * code of its instances can be cached.
+     */
+    public boolean hasImmutableKey() {
+        return immutableKey;
+    }
+
+    /**
+     * Create a new instance of the class using its constructor with no parameters.
+     * @return
+     *      New component.
+     * @throws RuntimeException
+     *      If the class has no such constructor or the constructor fails.
+     */
+    public Component newInstance() {
+        if (constructor == null) {
+            throw new RuntimeException("The class " + componentClass.getName() + " does "
+                    + "not have a constructor with no parameters.");
+        }
+        try {
+            return constructor.newInstance();
+        } catch (InstantiationException ex) {
+            throw new RuntimeException(ex);
+        } catch (IllegalAccessException ex) {
+            throw new RuntimeException(ex);
+        } catch (InvocationTargetException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
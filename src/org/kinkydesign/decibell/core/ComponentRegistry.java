@@ -36,12 +36,15 @@
 package org.kinkydesign.decibell.core;
 
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.kinkydesign.decibell.Component;
 import org.kinkydesign.decibell.DeciBell;
 import org.kinkydesign.decibell.db.DbConnector;
@@ -56,6 +59,12 @@ import org.kinkydesign.decibell.db.interfaces.JTableColumn;
  * attached to the {@link DeciBell } there is a corresponding table which is turn is found
  * in the database once it is successfully created. This stands for an easy correspondance
  * between components and tables.
+ * <p  align="justify" style="width:60%">
+ * The registry is populated while the tables are being created and is
+ * {@link ComponentRegistry#seal() sealed} when {@link DeciBell#start() DeciBell
+ * starts}; from then on it is read-only and may be read concurrently without
+ * locking.
+ * </p>
  *
  * @author Pantelis Sopasakis
  * @author Charalampos Chomenides
@@ -67,14 +76,15 @@ public class ComponentRegistry {
      * ComponentRegistry objects that contain all class and table info
      * about a specific database.
      */
-    private static Map<DbConnector, ComponentRegistry> registries = new HashMap<DbConnector,ComponentRegistry>();
+    private static final ConcurrentMap<DbConnector, ComponentRegistry> registries =
+            new ConcurrentHashMap<DbConnector, ComponentRegistry>();
 
     /**
      * Maps Component Classes to their according database tables.
      * Declared as LinkedHashMap because the table ierarchy must be mantained
      * in the table creation process.
      */
-    private Map<Class<? extends Component>,JTable> components = new LinkedHashMap<Class<? extends Component>,JTable>();
+    private volatile Map<Class<? extends Component>,JTable> components = new LinkedHashMap<Class<? extends Component>,JTable>();
 
     /**
      * A Set that holds all relational tables for a specific database.
@@ -82,16 +92,25 @@ public class ComponentRegistry {
      * by DeciBell and server the purpose of creating a many-to-many relation
      * between two other tables.
      */
-    private Set<JRelationalTable> relations = new HashSet<JRelationalTable>();
+    private volatile Set<JRelationalTable> relations = new LinkedHashSet<JRelationalTable>();
 
     /**
-     * Constructor that inserts a new DbConnector to the registry.
+     * Constructor that inserts a new DbConnector to the registry. If there is
+     * already a registry for the connector, it is not replaced.
      * @param con a DbConnector object that represents a specific database.
      */
     public ComponentRegistry(DbConnector con) {
-        if(!registries.containsKey(con)){
-            registries.put(con, this);
-        }
+        registries.putIfAbsent(con, this);
+    }
+
+    /**
+     * Makes the registry read-only. Any later attempt to modify the registry
+     * throws an <code>UnsupportedOperationException</code>. Sealing a registry
+     * twice has no effect.
+     */
+    public synchronized void seal() {
+        components = Collections.unmodifiableMap(new LinkedHashMap<Class<? extends Component>, JTable>(components));
+        relations = Collections.unmodifiableSet(new LinkedHashSet<JRelationalTable>(relations));
     }
 
     /**
@@ -252,7 +271,7 @@ public class ComponentRegistry {
         for (Class c : components.keySet()) {
             for (JTableColumn col : components.get(c).getForeignKeyColumns()) {
                 if (col.getReferencesClass().equals(parent)) {
-                    children.add(col.getReferencesClass());
+                    children.add(c);
                 }
             }
         }
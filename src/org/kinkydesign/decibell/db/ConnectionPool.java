@@ -0,0 +1,465 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedList;
+import org.kinkydesign.decibell.db.interfaces.JConnectionPool;
+
+/**
+ * <p  align="justify" style="width:60%">
+ * The default {@link JConnectionPool connection pool} of a {@link DbConnector}.
+ * The pool holds between {@link ConnectionPool#setMinSize(int) minSize} and
+ * {@link ConnectionPool#setMaxSize(int) maxSize} connections which are opened on
+ * demand using {@link DbConnector#openConnection() openConnection}. Idle connections
+ * are validated before they are handed out to a thread and the ones which stay idle
+ * for longer than {@link ConnectionPool#setIdleTimeout(long) idleTimeout} are
+ * closed as long as the pool holds more than <code>minSize</code> connections.
+ * When all <code>maxSize</code> connections are checked out, a thread waits for
+ * at most {@link ConnectionPool#setCheckoutTimeout(long) checkoutTimeout} milliseconds
+ * for one to be released. If none is released in time, the checkout fails, unless
+ * {@link ConnectionPool#setOverflow(boolean) overflow} is enabled, in which case an
+ * extra connection is opened for the thread and closed as soon as it is released.
+ * A timeout of <code>0</code> makes a saturated pool fail (or overflow) immediately.
+ * </p>
+ * <p  align="justify" style="width:60%">
+ * The pool keeps counters that help monitoring its saturation: the number of
+ * checkouts, how many of them had to wait and for how long, how many threads are
+ * waiting at any time and how many checkouts timed out or overflowed.
+ * </p>
+ * <p  align="justify" style="width:60%">
+ * Connections are returned to the pool in auto-commit mode; any transaction left
+ * open by the thread that held the connection is rolled back.
+ * </p>
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+public class ConnectionPool implements JConnectionPool {
+
+    private final DbConnector connector;
+    private int minSize = 1;
+    private int maxSize = 8;
+    private long idleTimeout = 60000;
+    private long checkoutTimeout = 30000;
+    private int validationTimeout = 2;
+    private boolean overflow = false;
+    /**
+     * Idle connections; the most recently used one first.
+     */
+    private final LinkedList<IdleConnection> idle = new LinkedList<IdleConnection>();
+    /**
+     * Number of open connections (idle, checked out or being opened).
+     */
+    private int size = 0;
+    /**
+     * Connections of earlier generations are closed upon release (see {@link
+     * ConnectionPool#close() close}).
+     */
+    private int generation = 0;
+    private final ThreadLocal<Lease> leases = new ThreadLocal<Lease>();
+    private long checkouts = 0;
+    private long waits = 0;
+    private long waitTime = 0;
+    private long maxWaitTime = 0;
+    private int waiting = 0;
+    private long timeouts = 0;
+    private long overflows = 0;
+
+    /**
+     * Construct a new connection pool for a database connector.
+     * @param connector
+     *      The connector which opens the connections of the pool.
+     */
+    public ConnectionPool(DbConnector connector) {
+        this.connector = connector;
+    }
+
+    public Connection checkout() {
+        Lease lease = leases.get();
+        if (lease != null) {
+            lease.references++;
+            return lease.connection;
+        }
+        lease = take();
+        leases.set(lease);
+        return lease.connection;
+    }
+
+    public void release() {
+        Lease lease = leases.get();
+        if (lease == null) {
+            throw new IllegalStateException("No connection is checked out by this thread");
+        }
+        lease.references--;
+        if (lease.references == 0) {
+            leases.remove();
+            giveBack(lease);
+        }
+    }
+
+    public Connection getCurrentConnection() {
+        Lease lease = leases.get();
+        return lease != null ? lease.connection : null;
+    }
+
+    public synchronized void close() {
+        generation++;
+        for (IdleConnection c : idle) {
+            discard(c.connection);
+        }
+        idle.clear();
+        notifyAll();
+    }
+
+    private Lease take() {
+        long start = System.currentTimeMillis();
+        long deadline = start + checkoutTimeout;
+        boolean waited = false;
+        boolean overflowing = false;
+        int leaseGeneration;
+        synchronized (this) {
+            checkouts++;
+            try {
+                while (true) {
+                    evictIdle();
+                    IdleConnection c = idle.poll();
+                    if (c != null) {
+                        if (isValid(c.connection)) {
+                            return new Lease(c.connection, generation, false);
+                        }
+                        discard(c.connection);
+                        continue;
+                    }
+                    if (size < maxSize) {
+                        size++;
+                        leaseGeneration = generation;
+                        break;
+                    }
+                    long wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0) {
+                        if (overflow) {
+                            overflows++;
+                            overflowing = true;
+                            leaseGeneration = generation;
+                            break;
+                        }
+                        timeouts++;
+                        throw new RuntimeException("Timed out after " + checkoutTimeout
+                                + "ms waiting for one of the " + maxSize + " connections to " + connector.getDatabaseUrl());
+                    }
+                    waited = true;
+                    waiting++;
+                    try {
+                        wait(wait);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException(ex);
+                    } finally {
+                        waiting--;
+                    }
+                }
+            } finally {
+                if (waited) {
+                    long time = System.currentTimeMillis() - start;
+                    waits++;
+                    waitTime += time;
+                    maxWaitTime = Math.max(maxWaitTime, time);
+                }
+            }
+        }
+        /*
+         * The slot is reserved; the connection is opened without holding the
+         * lock of the pool. Overflow connections do not occupy a slot.
+         */
+        try {
+            return new Lease(connector.openConnection(), leaseGeneration, overflowing);
+        } catch (RuntimeException ex) {
+            if (!overflowing) {
+                synchronized (this) {
+                    size--;
+                    notifyAll();
+                }
+            }
+            throw ex;
+        }
+    }
+
+    private synchronized void giveBack(Lease lease) {
+        Connection connection = lease.connection;
+        if (lease.overflow) {
+            try {
+                connection.close();
+            } catch (SQLException ex) {
+                /* The connection is unusable anyway */
+            }
+            return;
+        }
+        boolean reusable = lease.generation == generation;
+        try {
+            if (reusable && !connection.isClosed() && !connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            reusable = reusable && !connection.isClosed();
+        } catch (SQLException ex) {
+            reusable = false;
+        }
+        if (reusable) {
+            idle.addFirst(new IdleConnection(connection, System.currentTimeMillis()));
+        } else {
+            discard(connection);
+        }
+        evictIdle();
+        notifyAll();
+    }
+
+    /**
+     * Close the connections which have been idle for too long, starting from the
+     * least recently used one.
+     */
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        Iterator<IdleConnection> iterator = idle.descendingIterator();
+        while (iterator.hasNext() && size > minSize) {
+            IdleConnection c = iterator.next();
+            if (now - c.since < idleTimeout) {
+                return;
+            }
+            iterator.remove();
+            discard(c.connection);
+        }
+    }
+
+    private void discard(Connection connection) {
+        size--;
+        try {
+            connection.close();
+        } catch (SQLException ex) {
+            /* The connection is unusable anyway */
+        }
+    }
+
+    private boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(validationTimeout);
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    public long getCheckoutTimeout() {
+        return checkoutTimeout;
+    }
+
+    /**
+     * Maximum time (in milliseconds) a thread waits for a connection when all
+     * connections of the pool are checked out. Default is 30000.
+     * @param checkoutTimeout
+     *      Timeout in milliseconds.
+     */
+    public void setCheckoutTimeout(long checkoutTimeout) {
+        this.checkoutTimeout = checkoutTimeout;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Time (in milliseconds) after which an idle connection is closed, provided
+     * that the pool holds more than <code>minSize</code> connections. Default is 60000.
+     * @param idleTimeout
+     *      Timeout in milliseconds.
+     */
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Maximum number of open connections. Default is 8.
+     * @param maxSize
+     *      Maximum number of connections.
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    /**
+     * Number of connections which are kept open even if they are idle. Default is 1.
+     * @param minSize
+     *      Minimum number of connections.
+     */
+    public void setMinSize(int minSize) {
+        this.minSize = minSize;
+    }
+
+    public int getValidationTimeout() {
+        return validationTimeout;
+    }
+
+    /**
+     * Time (in seconds) to wait for the validation of an idle connection before
+     * it is handed out. Default is 2.
+     * @param validationTimeout
+     *      Timeout in seconds.
+     */
+    public void setValidationTimeout(int validationTimeout) {
+        this.validationTimeout = validationTimeout;
+    }
+
+    public boolean isOverflow() {
+        return overflow;
+    }
+
+    /**
+     * Whether a thread which times out waiting for a connection gets an extra
+     * connection (beyond <code>maxSize</code>) instead of an exception. Default
+     * is <code>false</code>.
+     * @param overflow
+     *      Whether to open overflow connections.
+     */
+    public void setOverflow(boolean overflow) {
+        this.overflow = overflow;
+    }
+
+    /**
+     * Number of open connections (not counting overflow connections).
+     * @return the number of idle and checked out connections.
+     */
+    public synchronized int getSize() {
+        return size;
+    }
+
+    /**
+     * Number of idle connections.
+     * @return the number of connections which are not checked out.
+     */
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Number of checkouts of connections from the pool (nested checkouts of a
+     * thread which already holds a connection are not counted).
+     * @return the number of checkouts.
+     */
+    public synchronized long getCheckoutCount() {
+        return checkouts;
+    }
+
+    /**
+     * Number of checkouts which had to wait for a connection to be released.
+     * @return the number of checkouts that waited.
+     */
+    public synchronized long getWaitCount() {
+        return waits;
+    }
+
+    /**
+     * Total time (in milliseconds) spent by threads waiting for a connection.
+     * @return the total wait time.
+     */
+    public synchronized long getWaitTime() {
+        return waitTime;
+    }
+
+    /**
+     * Longest time (in milliseconds) a thread has waited for a connection.
+     * @return the maximum wait time.
+     */
+    public synchronized long getMaxWaitTime() {
+        return maxWaitTime;
+    }
+
+    /**
+     * Number of threads waiting for a connection at the moment.
+     * @return the number of waiting threads.
+     */
+    public synchronized int getWaitingCount() {
+        return waiting;
+    }
+
+    /**
+     * Number of checkouts which failed because no connection was released in time.
+     * @return the number of timeouts.
+     */
+    public synchronized long getTimeoutCount() {
+        return timeouts;
+    }
+
+    /**
+     * Number of overflow connections opened so far.
+     * @return the number of overflows.
+     */
+    public synchronized long getOverflowCount() {
+        return overflows;
+    }
+
+    private static class Lease {
+
+        private final Connection connection;
+        private final int generation;
+        private final boolean overflow;
+        private int references = 1;
+
+        private Lease(Connection connection, int generation, boolean overflow) {
+            this.connection = connection;
+            this.generation = generation;
+            this.overflow = overflow;
+        }
+    }
+
+    private static class IdleConnection {
+
+        private final Connection connection;
+        private final long since;
+
+        private IdleConnection(Connection connection, long since) {
+            this.connection = connection;
+            this.since = since;
+        }
+    }
+}
@@ -40,10 +40,20 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import org.kinkydesign.decibell.db.interfaces.JConnectionPool;
+import org.kinkydesign.decibell.db.interfaces.JDialect;
 
 /**
  * A Connector to a database. Each connector represents a specific database
  * and is used as a token to be associated with it.
+ * <p  align="justify" style="width:60%">
+ * Besides its own connection, which is used to create and manage the structure
+ * of the database, the connector holds a {@link JConnectionPool pool of connections}
+ * for the operations on components. A thread {@link DbConnector#acquireConnection()
+ * acquires} a connection from the pool, and as long as it holds it, all statements
+ * created by the connector (see {@link DbConnector#prepareStatement(java.lang.String)
+ * prepareStatement}) are created on that connection.
+ * </p>
  * 
  * @author Pantelis Sopasakis
  * @author Charalampos Chomenides
@@ -60,7 +70,10 @@ public abstract class DbConnector {
     private String host;
     private int port;
     private String databaseDriver;
+    private boolean embedded = false;
+    private long serverTimeout = 10000;
     private Connection connection;
+    private JConnectionPool connectionPool;
     private final Runtime runtime = Runtime.getRuntime();
 
     /**
@@ -167,6 +180,43 @@ public abstract class DbConnector {
         return urlBase + host + ":" + port + "/" + dbName + ";user=" + user;
     }
 
+    /**
+     * Returns true if the database is run in-process by the connector instead
+     * of being accessed through a database server.
+     * @return True if the connector works in embedded mode.
+     */
+    public boolean isEmbedded() {
+        return embedded;
+    }
+
+    /**
+     * Chooses whether the database is run in-process (embedded mode) or accessed
+     * through a database server. In embedded mode no server is started, pinged
+     * or killed by the connector. Should be invoked before connecting.
+     * @param embedded true for embedded mode.
+     */
+    public void setEmbedded(boolean embedded) {
+        this.embedded = embedded;
+    }
+
+    /**
+     * Returns the maximum time (in milliseconds) the connector waits for the
+     * database server to start up.
+     * @return the server timeout in milliseconds.
+     */
+    public long getServerTimeout() {
+        return serverTimeout;
+    }
+
+    /**
+     * Sets the maximum time (in milliseconds) the connector waits for the
+     * database server to start up. The default is 10 seconds.
+     * @param serverTimeout the server timeout in milliseconds.
+     */
+    public void setServerTimeout(long serverTimeout) {
+        this.serverTimeout = serverTimeout;
+    }
+
     /**
      * Sets an SQL Connection to the connector.
      * @param connection a java.sql.Connection object for the connector
@@ -259,6 +309,13 @@ public abstract class DbConnector {
         this.user = user;
     }
 
+    /**
+     * Returns the {@link JDialect dialect} of the database the connector
+     * connects to.
+     * @return the dialect of the database.
+     */
+    public abstract JDialect getDialect();
+
     /**
      * Starts a new connection with the database. No action is taken
      * if the driver is already connected to the database.
@@ -282,7 +339,58 @@ public abstract class DbConnector {
      */
     public abstract void clearDB();
 
+    /**
+     * Opens a new connection to the database. Used by the {@link JConnectionPool
+     * connection pool} of the connector.
+     * @return a new connection to the database.
+     */
+    protected abstract Connection openConnection();
+
+    /**
+     * Returns the pool of connections of the connector. If no pool has been set,
+     * a {@link ConnectionPool} with the default settings is created.
+     * @return the connection pool.
+     */
+    public synchronized JConnectionPool getConnectionPool() {
+        if (connectionPool == null) {
+            connectionPool = new ConnectionPool(this);
+        }
+        return connectionPool;
+    }
+
+    /**
+     * Sets the pool of connections of the connector. Should be invoked before
+     * any component operation takes place.
+     * @param connectionPool a connection pool.
+     */
+    public synchronized void setConnectionPool(JConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    /**
+     * Checks out a connection from the pool for the current thread. Until it is
+     * {@link DbConnector#releaseConnection() released}, the connection is returned
+     * by {@link DbConnector#getConnection() getConnection}.
+     * @return the connection checked out by the current thread.
+     */
+    public Connection acquireConnection() {
+        return getConnectionPool().checkout();
+    }
+
+    /**
+     * Releases the connection checked out by the current thread using
+     * {@link DbConnector#acquireConnection() acquireConnection}.
+     */
+    public void releaseConnection() {
+        getConnectionPool().release();
+    }
+
     public void disconnect() {
+        synchronized (this) {
+            if (connectionPool != null) {
+                connectionPool.close();
+            }
+        }
         if (connection != null) {
             try {
                 connection.close();
@@ -294,11 +402,15 @@ public abstract class DbConnector {
     }
 
     /**
-     * Returns the java.sql.Connection object contained in the DbConnector.
+     * Returns the java.sql.Connection object contained in the DbConnector. If the
+     * current thread has {@link DbConnector#acquireConnection() acquired} a connection
+     * from the pool, this connection is returned instead.
      * @return the connector's java.sql.Connection
      */
     public Connection getConnection() {
-        return connection;
+        JConnectionPool pool = connectionPool;
+        Connection current = pool != null ? pool.getCurrentConnection() : null;
+        return current != null ? current : connection;
     }
 
     /**
@@ -320,10 +432,10 @@ public abstract class DbConnector {
     public void execute(String sql) {
         Statement stmt = null;
         try {
-            stmt = connection.createStatement();
+            stmt = getConnection().createStatement();
             stmt.execute(sql);
         } catch (SQLException ex) {
-            if (!ex.getSQLState().equals("X0Y32") && !ex.getSQLState().equals("42Y55")) {
+            if (!getDialect().isAlreadyExisting(ex) && !getDialect().isNotExisting(ex)) {
                 System.out.println(ex.getSQLState());
                 System.err.println("BUGGY : " + sql);
                 throw new RuntimeException(ex);
@@ -347,7 +459,7 @@ public abstract class DbConnector {
      * @throws SQLException
      */
     public PreparedStatement prepareStatement(String sql) throws SQLException {
-        return connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+        return getConnection().prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
     }
 
     /**
@@ -356,7 +468,7 @@ public abstract class DbConnector {
      * @throws SQLException
      */
     public Statement createStatement() throws SQLException {
-        return connection.createStatement();
+        return getConnection().createStatement();
     }
 
     /**
@@ -365,7 +477,7 @@ public abstract class DbConnector {
      * @throws SQLException
      */
     public Blob createBlob() throws SQLException {
-        return connection.createBlob();
+        return getConnection().createBlob();
     }
 
     @Override
@@ -0,0 +1,581 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.db;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.core.ComponentRegistry;
+import org.kinkydesign.decibell.db.interfaces.JRelationalTable;
+import org.kinkydesign.decibell.db.interfaces.JTable;
+import org.kinkydesign.decibell.db.interfaces.JTableColumn;
+
+/**
+ * <p  align="justify" style="width:60%">
+ * A second-level cache of components, keyed by primary key, for all databases
+ * running by DeciBell in the System (one cache per {@link DbConnector }). Caching
+ * is enabled per class, either with the annotation @{@link org.kinkydesign.decibell.annotations.Cacheable
+ * Cacheable} or using the method {@link EntityCache#enable(java.lang.Class, int, long) enable}.
+ * Searches by primary key and the retrieval of referenced components are served
+ * from the cache when possible; every component retrieved from the database is
+ * put in the cache of its class.
+ * </p>
+ * <p  align="justify" style="width:60%">
+ * Each cached class has a region bounded in size: when it is full, the components
+ * which have not been used for the longest time are evicted. Entries may also
+ * expire after a given time to live. The registration, update and deletion engines
+ * invalidate the entries of the components they write, as well as the regions
+ * of the classes whose components (directly or indirectly) reference them. Writes
+ * performed outside DeciBell are not detected; use a time to live for tables which
+ * may be modified that way.
+ * </p>
+ * <p  align="justify" style="width:60%">
+ * The results of searches may be cached as well, per class (see {@link
+ * EntityCache#enableQueries(java.lang.Class, int, long) enableQueries}): for every
+ * distinct prototype (the fields given and their values) the cache holds the
+ * primary keys of the components found. A repeated search then only needs to
+ * retrieve the components by primary key, which are usually in the cache too,
+ * so no statement is executed at all. The cached results of a class are dropped
+ * whenever a component of the class is written by DeciBell.
+ * </p>
+ * <p  align="justify" style="width:60%">
+ * Cached components are shared among all callers and threads that retrieve them
+ * and must be treated as read-only: a change made in place and never written (or
+ * whose write fails) would be seen by every later search. To modify a component,
+ * modify a new instance with the same primary key and {@link
+ * Component#update(org.kinkydesign.decibell.DeciBell) update} it. The cache is
+ * intended for reference data, which is read often and seldom written.
+ * </p>
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+public final class EntityCache {
+
+    private static final ConcurrentMap<DbConnector, EntityCache> caches =
+            new ConcurrentHashMap<DbConnector, EntityCache>();
+    private final DbConnector con;
+    private final ConcurrentMap<Class<? extends Component>, Region<Component>> regions =
+            new ConcurrentHashMap<Class<? extends Component>, Region<Component>>();
+    private final ConcurrentMap<Class<? extends Component>, Region<List<List<Object>>>> queryRegions =
+            new ConcurrentHashMap<Class<? extends Component>, Region<List<List<Object>>>>();
+    /**
+     * For every class, the classes whose cached components may hold components of
+     * that class.
+     */
+    private final ConcurrentMap<Class<? extends Component>, Set<Class<? extends Component>>> dependents =
+            new ConcurrentHashMap<Class<? extends Component>, Set<Class<? extends Component>>>();
+
+    private EntityCache(DbConnector con) {
+        this.con = con;
+    }
+
+    /**
+     * Returns the cache associated with the specified DbConnector.
+     * @param con a DbConnector that represents a database managed by DeciBell.
+     * @return the EntityCache object associated with the specified DbConnector.
+     */
+    public static EntityCache getCache(DbConnector con) {
+        EntityCache cache = caches.get(con);
+        if (cache == null) {
+            cache = new EntityCache(con);
+            EntityCache existing = caches.putIfAbsent(con, cache);
+            if (existing != null) {
+                cache = existing;
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Enable caching for the components of a class. If the class is already cached,
+     * its region is replaced by a new (empty) one.
+     * @param c
+     *      The component class.
+     * @param maxSize
+     *      The maximum number of cached components of the class.
+     * @param timeToLive
+     *      The time (in milliseconds) for which a component stays in the cache
+     *      after it is retrieved, or <code>0</code> if it never expires.
+     */
+    public void enable(Class<? extends Component> c, int maxSize, long timeToLive) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The size of a cache region must be positive");
+        }
+        regions.put(c, new Region<Component>(maxSize, timeToLive));
+    }
+
+    /**
+     * Disable caching for the components of a class.
+     * @param c
+     *      The component class.
+     */
+    public void disable(Class<? extends Component> c) {
+        regions.remove(c);
+    }
+
+    public boolean isEnabled(Class<? extends Component> c) {
+        return regions.containsKey(c);
+    }
+
+    /**
+     * Get a component from the cache.
+     * @param c
+     *      The class of the component.
+     * @param key
+     *      The values of the primary key columns of its table, in the order of
+     *      {@link JTable#getPrimaryKeyColumns() getPrimaryKeyColumns}.
+     * @return
+     *      The cached component or <code>null</code> if it is not in the cache
+     *      (or the class is not cached).
+     */
+    public Component get(Class<? extends Component> c, List<Object> key) {
+        Region<Component> region = regions.get(c);
+        return region == null ? null : region.get(key);
+    }
+
+    /**
+     * The current generations of the cached components of all cached classes. The
+     * generation of a class changes every time components of the class are
+     * invalidated; take the generations before reading from the database and pass
+     * the generation of the class to {@link EntityCache#put(java.lang.Class, java.util.List,
+     * org.kinkydesign.decibell.Component, long) put}, so that components read before
+     * a write are not cached after the write.
+     * @return
+     *      The generations of the cached classes.
+     */
+    public Map<Class<? extends Component>, Long> getGenerations() {
+        Map<Class<? extends Component>, Long> generations = new HashMap<Class<? extends Component>, Long>();
+        for (Map.Entry<Class<? extends Component>, Region<Component>> region : regions.entrySet()) {
+            generations.put(region.getKey(), region.getValue().generation.get());
+        }
+        return generations;
+    }
+
+    /**
+     * Put a component in the cache, if its class is cached and its components
+     * have not been invalidated since <code>generation</code>.
+     * @param c
+     *      The class of the component.
+     * @param key
+     *      The values of the primary key columns of its table.
+     * @param component
+     *      The component.
+     * @param generation
+     *      The generation of the class before the component was read from the
+     *      database (see {@link EntityCache#getGenerations() getGenerations}).
+     */
+    public void put(Class<? extends Component> c, List<Object> key, Component component, long generation) {
+        Region<Component> region = regions.get(c);
+        if (region != null) {
+            region.put(key, component, generation);
+        }
+    }
+
+    /**
+     * Enable caching for the results of the searches of a class. If the results
+     * of the class are already cached, the cached results are dropped.
+     * @param c
+     *      The component class.
+     * @param maxSize
+     *      The maximum number of distinct searches whose results are cached.
+     * @param timeToLive
+     *      The time (in milliseconds) for which a result stays in the cache, or
+     *      <code>0</code> if it never expires.
+     */
+    public void enableQueries(Class<? extends Component> c, int maxSize, long timeToLive) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The size of a cache region must be positive");
+        }
+        queryRegions.put(c, new Region<List<List<Object>>>(maxSize, timeToLive));
+    }
+
+    public void disableQueries(Class<? extends Component> c) {
+        queryRegions.remove(c);
+    }
+
+    public boolean isQueryCacheEnabled(Class<? extends Component> c) {
+        return queryRegions.containsKey(c);
+    }
+
+    /**
+     * Get the cached result of a search.
+     * @param c
+     *      The class of the prototype.
+     * @param query
+     *      Identifies the search: which fields of the prototype are given and their values.
+     * @return
+     *      The primary keys of the components found (in the order they were found)
+     *      or <code>null</code> if the result is not cached.
+     */
+    public List<List<Object>> getQuery(Class<? extends Component> c, List<Object> query) {
+        Region<List<List<Object>>> region = queryRegions.get(c);
+        return region == null ? null : region.get(query);
+    }
+
+    /**
+     * The current generation of the cached results of a class. It changes every
+     * time the results are invalidated; pass it to {@link EntityCache#putQuery(java.lang.Class,
+     * java.util.List, java.util.List, long) putQuery} so that results obtained
+     * before a write are not cached after the write.
+     * @param c
+     *      The class of the prototype.
+     * @return
+     *      The generation of the results of the class.
+     */
+    public long getQueryGeneration(Class<? extends Component> c) {
+        Region<List<List<Object>>> region = queryRegions.get(c);
+        return region == null ? 0 : region.generation.get();
+    }
+
+    /**
+     * Cache the result of a search, unless the results of the class have been
+     * invalidated since <code>generation</code>.
+     * @param c
+     *      The class of the prototype.
+     * @param query
+     *      Identifies the search.
+     * @param keys
+     *      The primary keys of the components found.
+     * @param generation
+     *      The generation of the results before the search was executed.
+     */
+    public void putQuery(Class<? extends Component> c, List<Object> query, List<List<Object>> keys, long generation) {
+        Region<List<List<Object>>> region = queryRegions.get(c);
+        if (region != null) {
+            region.put(query, keys, generation);
+        }
+    }
+
+    /**
+     * Invalidate the entry of a component that was written to the database, and
+     * the regions of all classes which reference its class.
+     * @param component
+     *      The component that was registered, updated or deleted.
+     */
+    public void invalidate(Component component) {
+        if (regions.isEmpty() && queryRegions.isEmpty()) {
+            return;
+        }
+        Class<? extends Component> c = component.getClass();
+        invalidateQueries(c);
+        Region<Component> region = regions.get(c);
+        if (region != null) {
+            JTable table = ComponentRegistry.getRegistry(con).get(c);
+            region.remove(keyOf(component, table));
+        }
+        invalidateDependents(c);
+    }
+
+    /**
+     * Invalidate all cached components of a class and of the classes which
+     * reference it.
+     * @param c
+     *      The component class.
+     */
+    public void invalidateAll(Class<? extends Component> c) {
+        if (regions.isEmpty() && queryRegions.isEmpty()) {
+            return;
+        }
+        invalidateQueries(c);
+        Region<Component> region = regions.get(c);
+        if (region != null) {
+            region.clear();
+        }
+        invalidateDependents(c);
+    }
+
+    /**
+     * Remove all components from the cache. Caching remains enabled.
+     */
+    public void clear() {
+        for (Region<Component> region : regions.values()) {
+            region.clear();
+        }
+        for (Region<List<List<Object>>> region : queryRegions.values()) {
+            region.clear();
+        }
+    }
+
+    /**
+     * The number of lookups served from the cache.
+     */
+    public long getHitCount() {
+        long hits = 0;
+        for (Region<Component> region : regions.values()) {
+            hits += region.hits.get();
+        }
+        return hits;
+    }
+
+    /**
+     * The number of lookups of cached classes that were not served from the cache.
+     */
+    public long getMissCount() {
+        long misses = 0;
+        for (Region<Component> region : regions.values()) {
+            misses += region.misses.get();
+        }
+        return misses;
+    }
+
+    /**
+     * The number of components evicted from the cache because a region was full
+     * or the components had expired.
+     */
+    public long getEvictionCount() {
+        long evictions = 0;
+        for (Region<Component> region : regions.values()) {
+            evictions += region.evictions.get();
+        }
+        return evictions;
+    }
+
+    /**
+     * The number of components in the cache.
+     */
+    public int getSize() {
+        int size = 0;
+        for (Region<Component> region : regions.values()) {
+            size += region.size();
+        }
+        return size;
+    }
+
+    public long getHitCount(Class<? extends Component> c) {
+        Region<Component> region = regions.get(c);
+        return region == null ? 0 : region.hits.get();
+    }
+
+    public long getMissCount(Class<? extends Component> c) {
+        Region<Component> region = regions.get(c);
+        return region == null ? 0 : region.misses.get();
+    }
+
+    /**
+     * The number of searches served from the cache.
+     */
+    public long getQueryHitCount() {
+        long hits = 0;
+        for (Region<List<List<Object>>> region : queryRegions.values()) {
+            hits += region.hits.get();
+        }
+        return hits;
+    }
+
+    /**
+     * The number of searches of classes with cached results that were not
+     * served from the cache.
+     */
+    public long getQueryMissCount() {
+        long misses = 0;
+        for (Region<List<List<Object>>> region : queryRegions.values()) {
+            misses += region.misses.get();
+        }
+        return misses;
+    }
+
+    public int getSize(Class<? extends Component> c) {
+        Region<Component> region = regions.get(c);
+        return region == null ? 0 : region.size();
+    }
+
+    /**
+     * The primary key of a component, as the values of the primary key columns
+     * of its table (for foreign key columns, the value of the referenced column).
+     * @param component
+     *      The component.
+     * @param table
+     *      The table of the component.
+     * @return
+     *      The key of the component in the cache.
+     */
+    public static List<Object> keyOf(Component component, JTable table) {
+        List<Object> key = new ArrayList<Object>();
+        for (JTableColumn column : table.getPrimaryKeyColumns()) {
+            Object value = column.getAccessor().get(component);
+            if (column.isForeignKey() && value != null) {
+                value = column.getReferenceColumn().getAccessor().get(value);
+            }
+            key.add(value);
+        }
+        return key;
+    }
+
+    private void invalidateQueries(Class<? extends Component> c) {
+        Region<List<List<Object>>> region = queryRegions.get(c);
+        if (region != null) {
+            region.clear();
+        }
+    }
+
+    private void invalidateDependents(Class<? extends Component> c) {
+        for (Class<? extends Component> dependent : getDependents(c)) {
+            Region<Component> region = regions.get(dependent);
+            if (region != null) {
+                region.clear();
+            }
+        }
+    }
+
+    private Set<Class<? extends Component>> getDependents(Class<? extends Component> c) {
+        Set<Class<? extends Component>> found = dependents.get(c);
+        if (found == null) {
+            found = new HashSet<Class<? extends Component>>();
+            ComponentRegistry registry = ComponentRegistry.getRegistry(con);
+            LinkedList<Class<? extends Component>> pending = new LinkedList<Class<? extends Component>>();
+            pending.add(c);
+            while (!pending.isEmpty()) {
+                Class<? extends Component> referenced = pending.removeFirst();
+                for (Class<? extends Component> referencing : getReferencing(registry, referenced)) {
+                    if (found.add(referencing)) {
+                        pending.add(referencing);
+                    }
+                }
+            }
+            found.remove(c);
+            dependents.putIfAbsent(c, found);
+        }
+        return found;
+    }
+
+    /**
+     * The classes which reference the given one through a foreign key or a
+     * collection.
+     */
+    private Set<Class<? extends Component>> getReferencing(ComponentRegistry registry, Class<? extends Component> c) {
+        Set<Class<? extends Component>> referencing = registry.getChildren(c);
+        for (JRelationalTable relationalTable : registry.getRelationTables()) {
+            Field onField = relationalTable.getOnField();
+            Type type = onField.getGenericType();
+            if (type instanceof ParameterizedType
+                    && c.equals(((ParameterizedType) type).getActualTypeArguments()[0])) {
+                referencing.add((Class<? extends Component>) onField.getDeclaringClass());
+            }
+        }
+        return referencing;
+    }
+
+    /**
+     * The cached components (or search results) of a class.
+     */
+    private static final class Region<V> {
+
+        private final int maxSize;
+        private final long timeToLive;
+        private final LinkedHashMap<List<Object>, CachedValue<V>> entries =
+                new LinkedHashMap<List<Object>, CachedValue<V>>(16, 0.75f, true);
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+        /**
+         * Incremented every time entries are removed from the region.
+         */
+        private final AtomicLong generation = new AtomicLong();
+
+        Region(int maxSize, long timeToLive) {
+            this.maxSize = maxSize;
+            this.timeToLive = timeToLive;
+        }
+
+        synchronized V get(List<Object> key) {
+            CachedValue<V> cached = entries.get(key);
+            if (cached != null && cached.expires != 0 && cached.expires < System.currentTimeMillis()) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+                cached = null;
+            }
+            if (cached == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return cached.value;
+        }
+
+        synchronized void put(List<Object> key, V value) {
+            long expires = timeToLive > 0 ? System.currentTimeMillis() + timeToLive : 0;
+            entries.put(key, new CachedValue<V>(value, expires));
+            while (entries.size() > maxSize) {
+                Map.Entry<List<Object>, CachedValue<V>> eldest = entries.entrySet().iterator().next();
+                entries.remove(eldest.getKey());
+                evictions.incrementAndGet();
+            }
+        }
+
+        synchronized void put(List<Object> key, V value, long expectedGeneration) {
+            if (generation.get() == expectedGeneration) {
+                put(key, value);
+            }
+        }
+
+        synchronized void remove(List<Object> key) {
+            generation.incrementAndGet();
+            entries.remove(key);
+        }
+
+        synchronized void clear() {
+            generation.incrementAndGet();
+            entries.clear();
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+
+    private static final class CachedValue<V> {
+
+        private final V value;
+        private final long expires;
+
+        CachedValue(V value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+}
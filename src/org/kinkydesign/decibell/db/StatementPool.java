@@ -35,16 +35,26 @@
  */
 package org.kinkydesign.decibell.db;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.kinkydesign.decibell.DeciBell;
-import org.kinkydesign.decibell.core.ComponentRegistry;
+import org.kinkydesign.decibell.collections.StatementType;
 import org.kinkydesign.decibell.db.interfaces.JRelationalTable;
 import org.kinkydesign.decibell.db.interfaces.JTable;
 import org.kinkydesign.decibell.db.query.SQLQuery;
+import org.kinkydesign.decibell.db.query.SelectQuery;
 import org.kinkydesign.decibell.db.util.Pair;
 import org.kinkydesign.decibell.db.util.StatementFactory;
 
@@ -55,45 +65,54 @@ import org.kinkydesign.decibell.db.util.StatementFactory;
  * The Pool holds all PreparedStatement objects created by the DbConnectors and
  * associates them with the SQLQuery on which they were created and the JTable
  * in which they belong.
+ * <p  align="justify" style="width:60%">
+ * Statements are bound to the connection they were prepared on, so the pool keeps
+ * a separate set of statements for every connection of the {@link
+ * org.kinkydesign.decibell.db.interfaces.JConnectionPool connection pool} of the
+ * connector. All methods of the pool operate on the statements of the connection
+ * which is held by the current thread (see {@link DbConnector#acquireConnection()
+ * acquireConnection}), so a statement must be recycled before the thread releases
+ * its connection.
+ * </p>
+ * <p  align="justify" style="width:60%">
+ * Statements are prepared lazily: a statement is created the first time it is
+ * requested and no recycled statement of the same kind is available. Recycled
+ * statements are cached for later use; the number of cached statements of each
+ * {@link StatementType kind} is bounded per connection (see {@link
+ * StatementPool#setLimit(org.kinkydesign.decibell.collections.StatementType, int)
+ * setLimit}) and when the limit is reached, the statements which have not been used
+ * for the longest time are closed.
+ * </p>
+ * <p  align="justify" style="width:60%">
+ * The pool counts the statements it prepares, reuses and evicts as well as the
+ * statements which are checked out at any time, so that its saturation can be
+ * monitored (see {@link StatementPool#getActiveCount() getActiveCount}).
+ * </p>
  *
  * @author Pantelis Sopasakis
  * @author Charalampos Chomenides
  */
 public final class StatementPool {
 
-    /**
-     * The size of each pool. DeciBell totals 5
-     * pools of equal capacity.
-     */
-    public static final int poolSize = 30;
-    /**
-     * Size of the queue for requests for Prepared Statements.
-     */
-    public static final int queueSize = 100;
-
-    private static Map<DbConnector, StatementPool> pools = new HashMap<DbConnector, StatementPool>();
-
-    private static final Object lock = new Object();
+    private static final ConcurrentMap<DbConnector, StatementPool> pools =
+            new ConcurrentHashMap<DbConnector, StatementPool>();
 
     private DbConnector con = null;
-    private Map<JTable, ArrayBlockingQueue<Pair<PreparedStatement, SQLQuery>>> search =
-            new HashMap<JTable, ArrayBlockingQueue<Pair<PreparedStatement, SQLQuery>>>();
-    private Map<JTable, ArrayBlockingQueue<Pair<PreparedStatement, SQLQuery>>> searchpk =
-            new HashMap<JTable, ArrayBlockingQueue<Pair<PreparedStatement, SQLQuery>>>();
-    private Map<JTable, ArrayBlockingQueue<Pair<PreparedStatement, SQLQuery>>> update =
-            new HashMap<JTable, ArrayBlockingQueue<Pair<PreparedStatement, SQLQuery>>>();
-    private Map<JTable, ArrayBlockingQueue<Pair<PreparedStatement, SQLQuery>>> register =
-            new HashMap<JTable, ArrayBlockingQueue<Pair<PreparedStatement, SQLQuery>>>();
-    private Map<JTable, ArrayBlockingQueue<Pair<PreparedStatement, SQLQuery>>> delete =
-            new HashMap<JTable, ArrayBlockingQueue<Pair<PreparedStatement, SQLQuery>>>();
+    /**
+     * The statements of the pool, per connection of the connector.
+     */
+    private final ConcurrentMap<Connection, ConnectionStatements> statements =
+            new ConcurrentHashMap<Connection, ConnectionStatements>();
+    private final Map<StatementType, Integer> limits = new EnumMap<StatementType, Integer>(StatementType.class);
+    private final AtomicLong prepared = new AtomicLong();
+    private final AtomicLong reused = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong active = new AtomicLong();
 
     private StatementPool(DbConnector con) {
         this.con = con;
-        for (JTable t : ComponentRegistry.getRegistry(con).values()) {
-            initTable(t);
-        }
-        for (JRelationalTable rel : ComponentRegistry.getRegistry(con).getRelationTables()) {
-            initRelTable(rel);
+        for (StatementType type : StatementType.values()) {
+            limits.put(type, type.getDefaultLimit());
         }
     }
 
@@ -103,12 +122,15 @@ public final class StatementPool {
      * @return the StatementPool object associated with the specified DbConnector.
      */
     public static StatementPool getPool(DbConnector con) {
-        if (pools.get(con) == null) {
-            synchronized (lock) {
-                pools.put(con, new StatementPool(con));
+        StatementPool pool = pools.get(con);
+        if (pool == null) {
+            StatementPool created = new StatementPool(con);
+            pool = pools.putIfAbsent(con, created);
+            if (pool == null) {
+                pool = created;
             }
         }
-        return pools.get(con);
+        return pool;
     }
 
     /**
@@ -120,211 +142,498 @@ public final class StatementPool {
         return pools.get(db.getDbConnector());
     }
 
+    /**
+     * The maximum number of idle statements of some kind which are cached per
+     * connection.
+     * @param type the kind of statements.
+     * @return the limit for this kind of statements.
+     */
+    public int getLimit(StatementType type) {
+        synchronized (limits) {
+            return limits.get(type);
+        }
+    }
+
+    /**
+     * Sets the maximum number of idle statements of some kind which are cached per
+     * connection. Statements which are recycled when the limit has been reached
+     * cause the least recently used statements of the same kind to be closed.
+     * @param type the kind of statements.
+     * @param limit the limit for this kind of statements.
+     */
+    public void setLimit(StatementType type, int limit) {
+        synchronized (limits) {
+            limits.put(type, limit);
+        }
+    }
+
+    /**
+     * Number of statements prepared by the pool so far.
+     * @return the number of prepared statements.
+     */
+    public long getPreparedCount() {
+        return prepared.get();
+    }
+
+    /**
+     * Number of checkouts that were served by a cached statement.
+     * @return the number of reused statements.
+     */
+    public long getReusedCount() {
+        return reused.get();
+    }
+
+    /**
+     * Number of statements closed because their kind reached its limit or because
+     * they could not be recycled.
+     * @return the number of evicted statements.
+     */
+    public long getEvictedCount() {
+        return evicted.get();
+    }
+
+    /**
+     * Number of statements which are checked out and not yet recycled. A number
+     * that keeps growing indicates statements which are never recycled.
+     * @return the number of active statements.
+     */
+    public long getActiveCount() {
+        return active.get();
+    }
+
+    /**
+     * Number of cached (idle) statements, over all connections.
+     * @return the number of idle statements.
+     */
+    public int getIdleCount() {
+        int idle = 0;
+        for (ConnectionStatements connectionStatements : statements.values()) {
+            idle += connectionStatements.size();
+        }
+        return idle;
+    }
+
     /**
      * <p  align="justify" style="width:60%">
      * Removes a register operation type PreparedStatement-SQLQuery pair from the pool
      * for a given JTable. This pair holds both the PreparedStatement and the
      * Query specifics to assist in feeding the prepared statement with values.
-     * This method will block when the pool is empty of prepared statements for
-     * the specific type.
+     * If no such statement is available, a new one is prepared.
      * </p>
      * @param t the JTable for which a register type prepared statement is needed.
      * @return a PreparedStatement-SQLQuer pair of type Register for the given JTable.
      */
     public Pair<PreparedStatement, SQLQuery> getRegister(JTable t) {
-        try {
-            return register.get(t).take();
-        } catch (InterruptedException ex) {
-            return getRegister(t);
-        }
+        return checkout(StatementType.REGISTER, t, null);
     }
 
     /**
      * Recycles a PreparedStatement-SQLQuery pair of register type in the pool,
      * after it's parameters are cleared. Use of this method is MANDATORY after
-     * using getRegister method. If PreparedStatements are not recycled the system
-     * will hang when the pool runs empty.
+     * using getRegister method, otherwise the statement is never reused.
      * @param pair the Entry pair that needs recycling.
      * @param t the JTable in which the Entry belongs.
      */
     public void recycleRegister(Pair<PreparedStatement, SQLQuery> pair, JTable t) {
-        try {
-            pair.getKey().clearParameters();
-            register.get(t).add(pair);
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
-        }
+        recycle(StatementType.REGISTER, t, null, pair);
     }
 
     /**
      * Removes a search operation type PreparedStatement-SQLQuery pair from the pool
      * for a given JTable. This pair holds both the PreparedStatement and the
      * Query specifics to assist in feeding the prepared statement with values.
-     * This method will block when the pool is empty of prepared statements for
-     * the specific type.
+     * If no such statement is available, a new one is prepared.
      * @param t the JTable for which a search type prepared statement is needed.
      * @return a PreparedStatement-SQLQuer pair of type Search for the given JTable.
      */
     public Pair<PreparedStatement, SQLQuery> getSearch(JTable t) {
-        try {
-            return (Pair<PreparedStatement, SQLQuery>) search.get(t).take();
-        } catch (InterruptedException ex) {
-            return getSearch(t);
-        }
+        return checkout(StatementType.SEARCH, t, null);
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Removes a search operation type PreparedStatement-SQLQuery pair from the pool
+     * for a given JTable and search mask (see {@link StatementFactory#createSearch(
+     * org.kinkydesign.decibell.db.interfaces.JTable, java.util.BitSet, org.kinkydesign.decibell.db.DbConnector)
+     * createSearch}). There is a different statement for every combination of given
+     * fields in a search prototype. If no such statement is available, a new one
+     * is prepared. The statement must be recycled using {@link StatementPool#recycleSearch(
+     * org.kinkydesign.decibell.db.util.Pair, org.kinkydesign.decibell.db.interfaces.JTable)
+     * recycleSearch}.
+     * </p>
+     * @param t the JTable for which a search type prepared statement is needed.
+     * @param searchMask the search mask describing the propositions of the statement.
+     * @return a PreparedStatement-SQLQuer pair of type Search for the given JTable.
+     */
+    public Pair<PreparedStatement, SQLQuery> getSearch(JTable t, BitSet searchMask) {
+        return checkout(StatementType.SEARCH, t, searchMask);
     }
 
     /**
      * Recycles a PreparedStatement-SQLQuery pair of search type in the pool,
      * after it's parameters are cleared. Use of this method is MANDATORY after
-     * using getSearch method. If PreparedStatements are not recycled the system
-     * will hang when the pool runs empty.
+     * using one of the getSearch methods, otherwise the statement is never reused.
      * @param pair the Entry pair that needs recycling.
      * @param t the JTable in which the Entry belongs.
      */
     public void recycleSearch(Pair<PreparedStatement, SQLQuery> pair, JTable t) {
-        try {
-            pair.getKey().clearParameters();
-            search.get(t).add(pair);
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
+        SelectQuery query = (SelectQuery) pair.getValue();
+        recycle(StatementType.SEARCH, t, searchVariant(query.getSearchMask(), query.getCondition(),
+                query.getOrdering(), query.isOffset(), query.isFetch()), pair);
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Removes a search operation type PreparedStatement-SQLQuery pair from the pool
+     * for a given JTable, search mask and additional condition (see {@link SelectQuery#setCondition(java.lang.String)
+     * setCondition}). The statement must be recycled using {@link StatementPool#recycleSearch(
+     * org.kinkydesign.decibell.db.util.Pair, org.kinkydesign.decibell.db.interfaces.JTable)
+     * recycleSearch}.
+     * </p>
+     * @param t the JTable for which a search type prepared statement is needed.
+     * @param searchMask the search mask.
+     * @param condition a boolean SQL expression or <code>null</code>.
+     * @return a PreparedStatement-SQLQuery pair of type Search for the given JTable.
+     */
+    public Pair<PreparedStatement, SQLQuery> getSearch(JTable t, BitSet searchMask, String condition) {
+        return getSearch(t, searchMask, condition, null, false, false);
+    }
+
+    /**
+     * Removes a search operation type PreparedStatement-SQLQuery pair from the pool
+     * for a given JTable, search mask, additional condition, order of the rows and
+     * paging (see {@link StatementFactory#createSearch(org.kinkydesign.decibell.db.interfaces.JTable,
+     * java.util.BitSet, java.lang.String, java.lang.String, boolean, boolean, org.kinkydesign.decibell.db.DbConnector)
+     * createSearch}). The statement must be recycled using {@link StatementPool#recycleSearch(
+     * org.kinkydesign.decibell.db.util.Pair, org.kinkydesign.decibell.db.interfaces.JTable)
+     * recycleSearch}.
+     * @param t the JTable for which a search type prepared statement is needed.
+     * @param searchMask the search mask.
+     * @param condition a boolean SQL expression or <code>null</code>.
+     * @param ordering the <code>ORDER BY</code> list or <code>null</code>.
+     * @param offset whether the statement skips a number of rows.
+     * @param fetch whether the statement returns a limited number of rows.
+     * @return a PreparedStatement-SQLQuery pair of type Search for the given JTable.
+     */
+    public Pair<PreparedStatement, SQLQuery> getSearch(JTable t, BitSet searchMask, String condition,
+            String ordering, boolean offset, boolean fetch) {
+        return checkout(StatementType.SEARCH, t, searchVariant(searchMask, condition, ordering, offset, fetch));
+    }
+
+    /**
+     * Search statements are identified by their search mask and, if they have any,
+     * their additional condition, order and paging.
+     */
+    private static Object searchVariant(BitSet searchMask, String condition, String ordering,
+            boolean offset, boolean fetch) {
+        if (condition == null && ordering == null && !offset && !fetch) {
+            return searchMask;
         }
+        return Arrays.asList(searchMask.clone(), condition, ordering, offset, fetch);
     }
 
     /**
      * Removes a search-primary-keys-only operation type PreparedStatement-SQLQuery pair from the pool
      * for a given JTable. This pair holds both the PreparedStatement and the
      * Query specifics to assist in feeding the prepared statement with values.
-     * This method will block when the pool is empty of prepared statements for
-     * the specific type.
+     * For relational tables, the statement looks up the rows that belong to a
+     * master component (see {@link StatementFactory#createSearchMaster(
+     * org.kinkydesign.decibell.db.interfaces.JRelationalTable, org.kinkydesign.decibell.db.DbConnector)
+     * createSearchMaster}). If no such statement is available, a new one is prepared.
      * @param t the JTable for which a search-primary-keys-only type prepared statement is needed.
      * @return a PreparedStatement-SQLQuer pair of type Search-primary-keys-only for the given JTable.
      */
     public Pair<PreparedStatement, SQLQuery> getSearchPK(JTable t) {
-        try {
-            return searchpk.get(t).take();
-        } catch (InterruptedException ex) {
-            return getSearchPK(t);
-        }
+        return checkout(StatementType.SEARCH_PK, t, null);
     }
 
     /**
      * Recycles a PreparedStatement-SQLQuery pair of search-primary-keys-only type in the pool,
      * after it's parameters are cleared. Use of this method is MANDATORY after
-     * using getSearchPK method. If PreparedStatements are not recycled the system
-     * will hang when the pool runs empty.
+     * using getSearchPK method, otherwise the statement is never reused.
      * @param pair the Entry pair that needs recycling.
      * @param t the JTable in which the Entry belongs.
      */
     public void recycleSearchPK(Pair<PreparedStatement, SQLQuery> pair, JTable t) {
-        try {
-            pair.getKey().clearParameters();
-            searchpk.get(t).add(pair);
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
-        }
+        recycle(StatementType.SEARCH_PK, t, null, pair);
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Removes a batch-lookup type PreparedStatement-SQLQuery pair from the pool
+     * for a given JTable and number of primary keys (see {@link StatementFactory#createSearchKeys(
+     * org.kinkydesign.decibell.db.interfaces.JTable, int, org.kinkydesign.decibell.db.DbConnector)
+     * createSearchKeys}). If no such statement is available, a new one is prepared.
+     * </p>
+     * @param t the JTable for which a batch-lookup type prepared statement is needed.
+     * @param batchSize the number of primary keys the statement looks up.
+     * @return a PreparedStatement-SQLQuer pair of type Batch-Lookup for the given JTable.
+     */
+    public Pair<PreparedStatement, SQLQuery> getSearchKeys(JTable t, int batchSize) {
+        return checkout(StatementType.SEARCH_KEYS, t, batchSize);
+    }
+
+    /**
+     * Recycles a PreparedStatement-SQLQuery pair of batch-lookup type in the pool,
+     * after it's parameters are cleared.
+     * @param pair the Entry pair that needs recycling.
+     * @param t the JTable in which the Entry belongs.
+     */
+    public void recycleSearchKeys(Pair<PreparedStatement, SQLQuery> pair, JTable t) {
+        recycle(StatementType.SEARCH_KEYS, t, ((SelectQuery) pair.getValue()).getKeyBatchSize(), pair);
     }
 
     /**
      * Removes an update operation type PreparedStatement-SQLQuery pair from the pool
      * for a given JTable. This pair holds both the PreparedStatement and the
      * Query specifics to assist in feeding the prepared statement with values.
-     * This method will block when the pool is empty of prepared statements for
-     * the specific type.
+     * If no such statement is available, a new one is prepared.
      * @param t the JTable for which an update type prepared statement is needed.
      * @return a PreparedStatement-SQLQuer pair of type Update for the given JTable.
      */
     public Pair<PreparedStatement, SQLQuery> getUpdate(JTable t) {
-        try {
-            return update.get(t).take();
-        } catch (InterruptedException ex) {
-            return getUpdate(t);
-        }
+        return checkout(StatementType.UPDATE, t, null);
     }
 
     /**
      * Recycles a PreparedStatement-SQLQuery pair of update type in the pool,
      * after it's parameters are cleared. Use of this method is MANDATORY after
-     * using getUpdate method. If PreparedStatements are not recycled the system
-     * will hang when the pool runs empty.
+     * using getUpdate method, otherwise the statement is never reused.
      * @param pair the Entry pair that needs recycling.
      * @param t the JTable in which the Entry belongs.
      */
     public void recycleUpdate(Pair<PreparedStatement, SQLQuery> pair, JTable t) {
-        try {
-            pair.getKey().clearParameters();
-            update.get(t).add(pair);
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
-        }
+        recycle(StatementType.UPDATE, t, null, pair);
     }
 
     /**
      * Removes a delete operation type PreparedStatement-SQLQuery pair from the pool
      * for a given JTable. This pair holds both the PreparedStatement and the
      * Query specifics to assist in feeding the prepared statement with values.
-     * This method will block when the pool is empty of prepared statements for
-     * the specific type.
+     * If no such statement is available, a new one is prepared.
      * @param t the JTable for which a delete type prepared statement is needed.
      * @return a PreparedStatement-SQLQuer pair of type Delete for the given JTable.
      */
     public Pair<PreparedStatement, SQLQuery> getDelete(JTable t) {
-        try {
-            return delete.get(t).take();
-        } catch (InterruptedException ex) {
-            return getDelete(t);
-        }
+        return checkout(StatementType.DELETE, t, null);
     }
 
     /**
      * Recycles a PreparedStatement-SQLQuery pair of delete type in the pool,
      * after it's parameters are cleared. Use of this method is MANDATORY after
-     * using getDelete method. If PreparedStatements are not recycled the system
-     * will hang when the pool runs empty.
+     * using getDelete method, otherwise the statement is never reused.
      * @param pair the Entry pair that needs recycling.
      * @param t the JTable in which the Entry belongs.
      */
     public void recycleDelete(Pair<PreparedStatement, SQLQuery> pair, JTable t) {
+        recycle(StatementType.DELETE, t, null, pair);
+    }
+
+    private Pair<PreparedStatement, SQLQuery> checkout(StatementType type, JTable t, Object variant) {
+        Pair<PreparedStatement, SQLQuery> pair = getStatements().poll(type, new StatementKey(t, variant));
+        if (pair == null) {
+            pair = create(type, t, variant);
+            prepared.incrementAndGet();
+        } else {
+            reused.incrementAndGet();
+        }
+        active.incrementAndGet();
+        return pair;
+    }
+
+    /**
+     * Return a statement to the cache. Recycling never fails: if the statement
+     * cannot be reset (e.g. its connection is broken) it is closed and dropped.
+     */
+    private void recycle(StatementType type, JTable t, Object variant, Pair<PreparedStatement, SQLQuery> pair) {
+        active.decrementAndGet();
         try {
             pair.getKey().clearParameters();
-            delete.get(t).add(pair);
+            pair.getKey().clearBatch();
         } catch (SQLException ex) {
-            throw new RuntimeException(ex);
+            evicted.incrementAndGet();
+            try {
+                pair.getKey().close();
+            } catch (SQLException closeEx) {
+                /* The statement is unusable anyway */
+            }
+            return;
         }
+        evicted.addAndGet(getStatements().offer(type, new StatementKey(t, variant), pair, getLimit(type)));
+    }
+
+    private Pair<PreparedStatement, SQLQuery> create(StatementType type, JTable t, Object variant) {
+        switch (type) {
+            case SEARCH:
+                if (variant instanceof List) {
+                    List<?> searchVariant = (List<?>) variant;
+                    return StatementFactory.createSearch(t, (BitSet) ((BitSet) searchVariant.get(0)).clone(),
+                            (String) searchVariant.get(1), (String) searchVariant.get(2),
+                            (Boolean) searchVariant.get(3), (Boolean) searchVariant.get(4), con);
+                }
+                return variant == null
+                        ? StatementFactory.createSearch(t, con)
+                        : StatementFactory.createSearch(t, (BitSet) ((BitSet) variant).clone(), con);
+            case SEARCH_PK:
+                return t instanceof JRelationalTable
+                        ? StatementFactory.createSearchMaster((JRelationalTable) t, con)
+                        : StatementFactory.createSearchPK(t, con);
+            case SEARCH_KEYS:
+                return StatementFactory.createSearchKeys(t, (Integer) variant, con);
+            case REGISTER:
+                return StatementFactory.createRegister(t, con);
+            case UPDATE:
+                return StatementFactory.createUpdate(t, con);
+            case DELETE:
+                return StatementFactory.createDelete(t, con);
+            default:
+                throw new IllegalArgumentException("Unknown statement type " + type);
+        }
+    }
+
+    private ConnectionStatements getStatements() {
+        Connection connection = con.getConnection();
+        ConnectionStatements connectionStatements = statements.get(connection);
+        if (connectionStatements == null) {
+            discardClosedConnections();
+            ConnectionStatements created = new ConnectionStatements();
+            connectionStatements = statements.putIfAbsent(connection, created);
+            if (connectionStatements == null) {
+                connectionStatements = created;
+            }
+        }
+        return connectionStatements;
     }
 
     /**
-     * Inializes the pool for a given table by creating PreparedStatement objects
-     * for all query types and inserting them to the pool.
-     * @param table the JTable to be initiated.
+     * Forget the statements of connections which have been closed (e.g. evicted
+     * from the connection pool).
      */
-    private void initTable(JTable table) {
-        search.put(table, new ArrayBlockingQueue<Pair<PreparedStatement, SQLQuery>>(queueSize));
-        searchpk.put(table, new ArrayBlockingQueue<Pair<PreparedStatement, SQLQuery>>(queueSize));
-        register.put(table, new ArrayBlockingQueue<Pair<PreparedStatement, SQLQuery>>(queueSize));
-        delete.put(table, new ArrayBlockingQueue<Pair<PreparedStatement, SQLQuery>>(queueSize));
-        update.put(table, new ArrayBlockingQueue<Pair<PreparedStatement, SQLQuery>>(queueSize));
-        for (int i = 0; i < poolSize; i++) {
-            register.get(table).add(StatementFactory.createRegister(table, con));
-            delete.get(table).add(StatementFactory.createDelete(table, con));
-            search.get(table).add(StatementFactory.createSearch(table, con));
-            searchpk.get(table).add(StatementFactory.createSearchPK(table, con));
-            update.get(table).add(StatementFactory.createUpdate(table, con));
+    private void discardClosedConnections() {
+        Iterator<Connection> connections = statements.keySet().iterator();
+        while (connections.hasNext()) {
+            try {
+                if (connections.next().isClosed()) {
+                    connections.remove();
+                }
+            } catch (SQLException ex) {
+                connections.remove();
+            }
         }
     }
 
     /**
-     * Inializes the pool for a given relational table by creating PreparedStatement objects
-     * for all query types and inserting them to the pool.
-     * @param table the JRelationalTable to be initiated.
+     * Identifies the statements of a kind which are interchangeable: they are
+     * created for the same table and, for some kinds of statements, the same
+     * variant (search mask or batch size).
      */
-    private void initRelTable(JRelationalTable table) {
-        search.put(table, new ArrayBlockingQueue<Pair<PreparedStatement, SQLQuery>>(queueSize));
-        register.put(table, new ArrayBlockingQueue<Pair<PreparedStatement, SQLQuery>>(queueSize));
-        delete.put(table, new ArrayBlockingQueue<Pair<PreparedStatement, SQLQuery>>(queueSize));
-        for (int i = 0; i < poolSize; i++) {
-            register.get(table).add(StatementFactory.createRegister(table, con));
-            delete.get(table).add(StatementFactory.createDelete(table, con));
-            search.get(table).add(StatementFactory.createSearch(table, con));
+    private static final class StatementKey {
+
+        private final JTable table;
+        private final Object variant;
+
+        private StatementKey(JTable table, Object variant) {
+            this.table = table;
+            this.variant = variant instanceof BitSet ? ((BitSet) variant).clone() : variant;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof StatementKey)) {
+                return false;
+            }
+            StatementKey other = (StatementKey) obj;
+            return table.equals(other.table)
+                    && (variant == null ? other.variant == null : variant.equals(other.variant));
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 3;
+            hash = 41 * hash + table.hashCode();
+            hash = 41 * hash + (variant != null ? variant.hashCode() : 0);
+            return hash;
+        }
+    }
+
+    /**
+     * The idle prepared statements of a single connection, per kind of statement,
+     * in least recently used order.
+     */
+    private static final class ConnectionStatements {
+
+        private final Map<StatementType, LinkedHashMap<StatementKey, LinkedList<Pair<PreparedStatement, SQLQuery>>>> idle =
+                new EnumMap<StatementType, LinkedHashMap<StatementKey, LinkedList<Pair<PreparedStatement, SQLQuery>>>>(StatementType.class);
+        private final Map<StatementType, Integer> sizes = new EnumMap<StatementType, Integer>(StatementType.class);
+
+        private ConnectionStatements() {
+            for (StatementType type : StatementType.values()) {
+                idle.put(type, new LinkedHashMap<StatementKey, LinkedList<Pair<PreparedStatement, SQLQuery>>>(16, 0.75f, true));
+                sizes.put(type, 0);
+            }
+        }
+
+        private synchronized Pair<PreparedStatement, SQLQuery> poll(StatementType type, StatementKey key) {
+            LinkedList<Pair<PreparedStatement, SQLQuery>> available = idle.get(type).get(key);
+            if (available == null || available.isEmpty()) {
+                return null;
+            }
+            sizes.put(type, sizes.get(type) - 1);
+            return available.removeFirst();
+        }
+
+        /**
+         * Cache an idle statement; returns the number of statements that were
+         * closed to respect the limit.
+         */
+        private synchronized int offer(StatementType type, StatementKey key, Pair<PreparedStatement, SQLQuery> pair, int limit) {
+            LinkedHashMap<StatementKey, LinkedList<Pair<PreparedStatement, SQLQuery>>> cache = idle.get(type);
+            int size = sizes.get(type);
+            int closed = 0;
+            /*
+             * Evict the least recently used statements until there is room
+             */
+            Iterator<LinkedList<Pair<PreparedStatement, SQLQuery>>> lists = cache.values().iterator();
+            while (size >= limit && lists.hasNext()) {
+                LinkedList<Pair<PreparedStatement, SQLQuery>> list = lists.next();
+                while (size >= limit && !list.isEmpty()) {
+                    close(list.removeLast());
+                    size--;
+                    closed++;
+                }
+                if (list.isEmpty()) {
+                    lists.remove();
+                }
+            }
+            if (size >= limit) {
+                sizes.put(type, size);
+                close(pair);
+                return closed + 1;
+            }
+            LinkedList<Pair<PreparedStatement, SQLQuery>> available = cache.get(key);
+            if (available == null) {
+                available = new LinkedList<Pair<PreparedStatement, SQLQuery>>();
+                cache.put(key, available);
+            }
+            available.addFirst(pair);
+            sizes.put(type, size + 1);
+            return closed;
+        }
+
+        private synchronized int size() {
+            int size = 0;
+            for (int typeSize : sizes.values()) {
+                size += typeSize;
+            }
+            return size;
+        }
+
+        private void close(Pair<PreparedStatement, SQLQuery> pair) {
+            try {
+                pair.getKey().close();
+            } catch (SQLException ex) {
+                /* The statement is dropped anyway */
+            }
         }
     }
 }
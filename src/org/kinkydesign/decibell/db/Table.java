@@ -39,7 +39,9 @@ import java.util.HashMap;
 import org.kinkydesign.decibell.db.interfaces.JTable;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.kinkydesign.decibell.db.interfaces.JRelationalTable;
@@ -60,6 +62,8 @@ public abstract class Table implements JTable {
     private String schemaName = null;
     private Set<JRelationalTable> relations = new HashSet<JRelationalTable>();
     private JTableColumn autoGeneratedColumn = null;
+    private Map<String, List<JTableColumn>> indexes = new LinkedHashMap<String, List<JTableColumn>>();
+    private Set<String> uniqueIndexes = new HashSet<String>();
 
     /**
      * Construct a new Table object.
@@ -324,6 +328,35 @@ public abstract class Table implements JTable {
         return uniqueColumns;
     }
 
+    /**
+     * Declares a secondary index on some columns of the table. The index is created
+     * along with the table (see {@link JTable#getIndexCreationSQL() getIndexCreationSQL}).
+     * @param name name of the index, unique among the indexes of the table.
+     * @param columns the indexed columns, in order.
+     * @param unique whether the values of the indexed columns must be unique.
+     */
+    public void addIndex(String name, List<JTableColumn> columns, boolean unique) {
+        if (columns == null || columns.isEmpty()) {
+            throw new RuntimeException("The index " + name + " of the table " + getTableName()
+                    + " has no columns");
+        }
+        if (indexes.containsKey(name)) {
+            throw new RuntimeException("The table " + getTableName() + " has already an index named " + name);
+        }
+        indexes.put(name, columns);
+        if (unique) {
+            uniqueIndexes.add(name);
+        }
+    }
+
+    public Map<String, List<JTableColumn>> getIndexes() {
+        return indexes;
+    }
+
+    public boolean isUniqueIndex(String name) {
+        return uniqueIndexes.contains(name);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null || !obj.getClass().equals(this.getClass())) {
@@ -40,7 +40,9 @@ import org.kinkydesign.decibell.collections.OnModification;
 import org.kinkydesign.decibell.collections.SQLType;
 import org.kinkydesign.decibell.Component;
 import org.kinkydesign.decibell.db.interfaces.JTable;
+import org.kinkydesign.decibell.db.interfaces.JSerializer;
 import org.kinkydesign.decibell.db.interfaces.JTableColumn;
+import org.kinkydesign.decibell.db.util.FieldAccessor;
 
 
 /**
@@ -76,7 +78,10 @@ final public class TableColumn implements Cloneable, JTableColumn {
     private OnModification onDelete = null;
     private JTable masterTable = null;
     private Field field = null;
+    private FieldAccessor accessor = null;
+    private JSerializer serializer = null;
     private String numericNull = "-1";
+    private double numericNullValue = -1;
 
     /**
      * Constructs a new TableColumn object.
@@ -447,7 +452,6 @@ final public class TableColumn implements Cloneable, JTableColumn {
      * @return the Component's Field on which this column was created.
      */
     public Field getField() {
-        field.setAccessible(true);
         return field;
     }
 
@@ -457,7 +461,19 @@ final public class TableColumn implements Cloneable, JTableColumn {
      */
     public void setField(Field field) {
         this.field = field;
-        this.field.setAccessible(true);
+        this.accessor = FieldAccessor.forField(field);
+    }
+
+    public FieldAccessor getAccessor() {
+        return accessor;
+    }
+
+    public JSerializer getSerializer() {
+        return serializer;
+    }
+
+    public void setSerializer(JSerializer serializer) {
+        this.serializer = serializer;
     }
 
     /**
@@ -506,6 +522,11 @@ final public class TableColumn implements Cloneable, JTableColumn {
 
     public void setNumericNull(String numericNull) {
         this.numericNull = numericNull;
+        try {
+            numericNullValue = Double.parseDouble(getNumericNull());
+        } catch (NumberFormatException ex) {
+            numericNullValue = Double.NaN;
+        }
     }
 
     public String getNumericNull() {
@@ -513,6 +534,10 @@ final public class TableColumn implements Cloneable, JTableColumn {
         return numericNull;
     }
 
+    public double getNumericNullValue() {
+        return numericNullValue;
+    }
+
     public boolean isSelfReferencing() {
         if (isForeignKey() && getReferenceTable().equals(getMasterTable())){
             return true;
@@ -38,7 +38,9 @@ package org.kinkydesign.decibell.db;
 import java.lang.reflect.Field;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.kinkydesign.decibell.core.ComponentRegistry;
 import org.kinkydesign.decibell.collections.TypeMap;
@@ -77,6 +79,13 @@ public abstract class TablesGenerator {
      */
     protected Set<Field> relations = new HashSet<Field>();
 
+    /**
+     * The tables whose definition in the database differs from their model in a
+     * way that could not be migrated automatically, mapped to the list of their
+     * unmigrated changes.
+     */
+    protected Map<String, List<String>> unmigratedTables = new LinkedHashMap<String, List<String>>();
+
     /**
      * Constructs a new TablesGenerator for a specific database and a set
      * of components.
@@ -97,6 +106,17 @@ public abstract class TablesGenerator {
      */
     public abstract void construct();
 
+    /**
+     * The tables which could not be migrated automatically by {@link
+     * TablesGenerator#construct() construct} and have to be migrated manually.
+     * @return
+     *      Map from the full name of each such table to the changes which have
+     *      not been migrated; empty if every table matches its model.
+     */
+    public Map<String, List<String>> getUnmigratedTables() {
+        return unmigratedTables;
+    }
+
     /**
      * Returns true if a given class is a sub class of Component.class
      * @param c a Class that needs to learn if it inherits Component.class
@@ -35,27 +35,38 @@
  */
 package org.kinkydesign.decibell.db.derby;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.sql.Connection;
 import java.sql.Driver;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.apache.derby.drda.NetworkServerControl;
 import org.apache.derby.jdbc.ClientDataSource;
 import org.kinkydesign.decibell.core.ComponentRegistry;
 import org.kinkydesign.decibell.db.DbConnector;
 import org.kinkydesign.decibell.db.Table;
+import org.kinkydesign.decibell.db.interfaces.JDialect;
 
 /**
- *
+ * <p  align="justify" style="width:60%">
+ * Connector to a Derby database. By default the database is accessed through a
+ * Derby network server which is started (and killed) by the connector inside the
+ * current JVM using a {@link NetworkServerControl}. In
+ * {@link DbConnector#setEmbedded(boolean) embedded mode} the database is opened
+ * in-process using the URL <code>jdbc:derby:{database_name}</code>, so no server
+ * is spawned and no network hop is involved in the queries.
+ * </p>
  * @author Pantelis Sopasakis
  * @author Charalampos Chomenides
  */
 public class DerbyConnector extends DbConnector {
 
+    private static final JDialect DIALECT = new DerbyDialect();
+    private NetworkServerControl serverControl;
+
     public DerbyConnector() {
         super();
         setUser("itsme");
@@ -76,68 +87,57 @@ public class DerbyConnector extends DbConnector {
 
     }
 
+    public JDialect getDialect() {
+        return DIALECT;
+    }
+
+    @Override
+    public String getDatabaseUrl() {
+        if (isEmbedded()) {
+            return "jdbc:derby:" + getDbName();
+        }
+        return super.getDatabaseUrl();
+    }
+
     public void connect() {
         if (!isConnected()) {
-            try {
+            if (!isEmbedded()) {
                 startDerbyServer();
-                loadDriver();
-                establishConnection();
-
-            } catch (IOException ex) {
-                throw new RuntimeException(ex);
             }
+            loadDriver();
+            establishConnection();
         }
 
     }
 
     public void killServer() {
+        if (isEmbedded()) {
+            shutdownDatabase();
+            return;
+        }
         System.err.print("KILLING DERBY JDBC SERVER...");
-        final String[] derby_kill_command = {
-            getJavacmd(), getJavaOptions(),
-            "-jar", getDriverHome() + "/lib/derbyrun.jar", "server", "shutdown"
-        };
         try {
-            Process killing = Runtime.getRuntime().exec(derby_kill_command);
-            killing.waitFor();
-            int N_TRIES = 5, i = 0;
-            while (killing.exitValue() != 0 && i < N_TRIES) {
-                Thread.sleep(1000);
-                i++;
+            /*
+             * Shutting down returns as soon as the server stops answering pings.
+             */
+            getServerControl().shutdown();
+        } catch (Exception ex) {
+            if (isServerRunning()) {
+                throw new RuntimeException(ex);
             }
-            Thread.sleep(1500);
-        } catch (InterruptedException ex) {
-            Logger.getLogger(DerbyConnector.class.getName()).log(Level.SEVERE, null, ex);
-        } catch (IOException ex) {
-            throw new RuntimeException(ex);
         }
         System.err.print(" DERBY IS DOWN!\n");
     }
 
     public boolean isServerRunning() {
-        final String[] derby_ping_command = {
-            getJavacmd(), getJavaOptions(),
-            "-jar", getDriverHome() + "/lib/derbyrun.jar", "server", "ping",
-            "-p", Integer.toString(getPort())};
-        BufferedReader br = null;
+        if (isEmbedded()) {
+            return false;
+        }
         try {
-            Process derby_ping = Runtime.getRuntime().exec(derby_ping_command);
-            br = new BufferedReader(new InputStreamReader(derby_ping.getInputStream()));
-            if (br.readLine().contains("Connection obtained")) {
-                return true;
-            } else {
-                return false;
-            }
-        } catch (IOException ex) {
-            ex.printStackTrace();
+            getServerControl().ping();
+            return true;
+        } catch (Exception ex) {
             return false;
-        } finally {
-            try {
-                if (br != null) {
-                    br.close();
-                }
-            } catch (IOException ex) {
-                throw new RuntimeException("Could not close the Buffered Reader!",ex);
-            }
         }
     }
 
@@ -152,29 +152,65 @@ public class DerbyConnector extends DbConnector {
             Table t = (Table) tables[i];
             execute("DROP TABLE " + t.getFullTableName());
         }
+        execute("DROP TABLE " + getUser() + ".DECIBELL_SCHEMA_TAB");
         execute("DROP TABLE " + getUser() + ".DECIBELL_INIT_TAB");
         execute("DROP SCHEMA " + getUser() + " RESTRICT");
     }
 
-    private void startDerbyServer() throws IOException {
-        /**
-         * We tried the following, but encountered some problems. In particular it
-         * was impossible to connect to the database from the console when the
-         * application was connected already!
-         */
-        final String[] derby_start_command = {
-            getJavacmd(),
-            getJavaOptions(),
-            "-jar", getDriverHome() + "/lib/derbyrun.jar", "server", "start",
-            "-p", Integer.toString(getPort()),};
-        boolean derby_alive = isServerRunning();
-        while (!derby_alive) {
-            getRuntime().exec(derby_start_command);
+    /**
+     * Shuts down the embedded database. Derby signals a successful shutdown of
+     * a single database with the SQL state <code>08006</code>.
+     */
+    private void shutdownDatabase() {
+        try {
+            DriverManager.getConnection(getDatabaseUrl() + ";shutdown=true", getConnectionProperties());
+        } catch (SQLException ex) {
+            if (!"08006".equals(ex.getSQLState()) && !"XJ004".equals(ex.getSQLState())) {
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    /**
+     * Returns the control of the Derby network server listening on the host and
+     * port of the connector.
+     * @return the network server control.
+     */
+    private synchronized NetworkServerControl getServerControl() throws Exception {
+        if (serverControl == null) {
+            serverControl = new NetworkServerControl(InetAddress.getByName(getHost()), getPort());
+        }
+        return serverControl;
+    }
+
+    /**
+     * Starts the Derby network server inside the current JVM, unless a server is
+     * already listening on the port of the connector, and waits until it answers
+     * pings. A RuntimeException is thrown if the server is not up within the
+     * {@link DbConnector#getServerTimeout() server timeout}.
+     */
+    private void startDerbyServer() {
+        if (isServerRunning()) {
+            return;
+        }
+        try {
+            getServerControl().start(null);
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+        long deadline = System.currentTimeMillis() + getServerTimeout();
+        long backoff = 5;
+        while (!isServerRunning()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new RuntimeException("The Derby network server did not start within "
+                        + getServerTimeout() + "ms on " + getHost() + ":" + getPort());
+            }
             try {
-                Thread.sleep(400);
+                Thread.sleep(backoff);
             } catch (InterruptedException ex) {
+                throw new RuntimeException("Interrupted while starting...", ex);
             }
-            derby_alive = isServerRunning();
+            backoff = Math.min(2 * backoff, 100);
         }
     }
 
@@ -207,12 +243,8 @@ public class DerbyConnector extends DbConnector {
     private void establishConnection() {
         int NUMBER_TRIES = 10;
         int i = 0;
-        Properties databaseConnectionProps = new Properties();
-        databaseConnectionProps.setProperty("user", getUser());
-        databaseConnectionProps.setProperty("password", getPassword());
-        databaseConnectionProps.setProperty("securityMechanism", Integer.toString(ClientDataSource.STRONG_PASSWORD_SUBSTITUTE_SECURITY));
         try {
-            setConnection(DriverManager.getConnection(getDatabaseUrl(), databaseConnectionProps));
+            setConnection(DriverManager.getConnection(getDatabaseUrl(), getConnectionProperties()));
         } catch (SQLException ex) {
             if (ex.getErrorCode() == 40000) {
                 createDataBase();
@@ -235,6 +267,24 @@ public class DerbyConnector extends DbConnector {
         }
     }
 
+    protected Connection openConnection() {
+        try {
+            return DriverManager.getConnection(getDatabaseUrl(), getConnectionProperties());
+        } catch (SQLException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private Properties getConnectionProperties() {
+        Properties databaseConnectionProps = new Properties();
+        databaseConnectionProps.setProperty("user", getUser());
+        databaseConnectionProps.setProperty("password", getPassword());
+        if (!isEmbedded()) {
+            databaseConnectionProps.setProperty("securityMechanism", Integer.toString(ClientDataSource.STRONG_PASSWORD_SUBSTITUTE_SECURITY));
+        }
+        return databaseConnectionProps;
+    }
+
     /**
      * This method is called when the specified database does not exist and it is
      * created. The directive <code>create=true</code> is used within the URL
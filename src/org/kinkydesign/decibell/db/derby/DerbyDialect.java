@@ -0,0 +1,174 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.db.derby;
+
+import java.sql.SQLException;
+import java.util.Set;
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.DeciBell;
+import org.kinkydesign.decibell.collections.SQLType;
+import org.kinkydesign.decibell.db.DbConnector;
+import org.kinkydesign.decibell.db.TablesGenerator;
+import org.kinkydesign.decibell.db.derby.query.DerbyDeleteQuery;
+import org.kinkydesign.decibell.db.derby.query.DerbyInsertQuery;
+import org.kinkydesign.decibell.db.derby.query.DerbyJoin;
+import org.kinkydesign.decibell.db.derby.query.DerbySelectQuery;
+import org.kinkydesign.decibell.db.derby.query.DerbyUpdateQuery;
+import org.kinkydesign.decibell.db.derby.util.DerbyInfinity;
+import org.kinkydesign.decibell.db.interfaces.JDialect;
+import org.kinkydesign.decibell.db.interfaces.JTable;
+import org.kinkydesign.decibell.db.query.DeleteQuery;
+import org.kinkydesign.decibell.db.query.InsertQuery;
+import org.kinkydesign.decibell.db.query.Join;
+import org.kinkydesign.decibell.db.query.SelectQuery;
+import org.kinkydesign.decibell.db.query.UpdateQuery;
+
+/**
+ * <p  align="justify" style="width:60%">
+ * The {@link JDialect dialect} of the Derby JDBC server; this is the default
+ * dialect of DeciBell.
+ * </p>
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+public class DerbyDialect implements JDialect {
+
+    /**
+     * Table/view already exists in schema.
+     */
+    private static final String __Existing_State__ = "X0Y32";
+    /**
+     * Table/view does not exist (on drop, on select and because of a missing schema).
+     */
+    private static final String
+            __Missing_State__ = "42Y55",
+            __MissingTable_State__ = "42X05",
+            __MissingSchema_State__ = "42Y07";
+    private static final String __DuplicateKey_State__ = "23505";
+
+    public DbConnector newConnector() {
+        return new DerbyConnector();
+    }
+
+    public TablesGenerator newTablesGenerator(DeciBell db, Set<Class<? extends Component>> components) {
+        return new DerbyTablesGenerator(db, components);
+    }
+
+    public SelectQuery newSelectQuery(JTable table) {
+        return new DerbySelectQuery(table);
+    }
+
+    public InsertQuery newInsertQuery(JTable table) {
+        return new DerbyInsertQuery(table);
+    }
+
+    public UpdateQuery newUpdateQuery(JTable table) {
+        return new DerbyUpdateQuery(table);
+    }
+
+    public DeleteQuery newDeleteQuery(JTable table) {
+        return new DerbyDeleteQuery(table);
+    }
+
+    public Join newJoin() {
+        return new DerbyJoin();
+    }
+
+    public String getTypeName(SQLType type) {
+        return type.toString();
+    }
+
+    /**
+     * The constraints of the columns are named after the columns, as
+     * <code>&lt;column&gt;_CONSTRAINT</code>.
+     */
+    public String getCheckConstraintsSQL() {
+        return "SELECT SUBSTR(C.CONSTRAINTNAME, 1, LENGTH(C.CONSTRAINTNAME) - 11), K.CHECKDEFINITION "
+                + "FROM SYS.SYSCONSTRAINTS C "
+                + "JOIN SYS.SYSCHECKS K ON C.CONSTRAINTID = K.CONSTRAINTID "
+                + "JOIN SYS.SYSTABLES T ON C.TABLEID = T.TABLEID "
+                + "JOIN SYS.SYSSCHEMAS S ON T.SCHEMAID = S.SCHEMAID "
+                + "WHERE S.SCHEMANAME = ? AND T.TABLENAME = ? AND C.CONSTRAINTNAME LIKE '%!_CONSTRAINT' ESCAPE '!'";
+    }
+
+    public Number getLeftInfinity(SQLType type) {
+        switch (type) {
+            case INTEGER:
+                return DerbyInfinity.getLeftInt();
+            case SMALLINT:
+                return DerbyInfinity.getLeftShort();
+            case BIGINT:
+                return DerbyInfinity.getLeftLong();
+            case REAL:
+                return DerbyInfinity.getLeftFloat();
+            case DOUBLE:
+                return DerbyInfinity.getLeftDouble();
+            default:
+                return null;
+        }
+    }
+
+    public Number getRightInfinity(SQLType type) {
+        switch (type) {
+            case INTEGER:
+                return DerbyInfinity.getRightInt();
+            case SMALLINT:
+                return DerbyInfinity.getRightShort();
+            case BIGINT:
+                return DerbyInfinity.getRightLong();
+            case REAL:
+                return DerbyInfinity.getRightFloat();
+            case DOUBLE:
+                return DerbyInfinity.getRightDouble();
+            default:
+                return null;
+        }
+    }
+
+    public boolean isAlreadyExisting(SQLException ex) {
+        return __Existing_State__.equals(ex.getSQLState());
+    }
+
+    public boolean isNotExisting(SQLException ex) {
+        return __Missing_State__.equals(ex.getSQLState())
+                || __MissingTable_State__.equals(ex.getSQLState())
+                || __MissingSchema_State__.equals(ex.getSQLState());
+    }
+
+    public boolean isDuplicateKey(SQLException ex) {
+        return __DuplicateKey_State__.equals(ex.getSQLState());
+    }
+}
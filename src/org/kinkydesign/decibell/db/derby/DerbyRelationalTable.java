@@ -39,6 +39,7 @@
 package org.kinkydesign.decibell.db.derby;
 
 import java.util.Set;
+import org.kinkydesign.decibell.db.interfaces.JDialect;
 import org.kinkydesign.decibell.db.interfaces.JRelationalTable;
 import java.lang.reflect.Field;
 import java.util.LinkedHashSet;
@@ -61,6 +62,15 @@ public class DerbyRelationalTable extends DerbyTable implements JRelationalTable
         super();
     }
 
+    /**
+     * Construct a new relational table whose columns are defined using the datatypes
+     * of some dialect which accepts the SQL of Derby.
+     * @param dialect the dialect which names the datatypes of the columns.
+     */
+    public DerbyRelationalTable(JDialect dialect) {
+        super(dialect);
+    }
+
     /**
      *
      * @param onField
@@ -77,7 +87,6 @@ public class DerbyRelationalTable extends DerbyTable implements JRelationalTable
     }
 
     public Field getOnField() {
-        this.onField.setAccessible(true);
         return onField;
     }
 
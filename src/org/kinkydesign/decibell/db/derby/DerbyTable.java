@@ -39,11 +39,13 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.kinkydesign.decibell.collections.LogicalOperator;
 import org.kinkydesign.decibell.collections.Qualifier;
 import org.kinkydesign.decibell.collections.SQLType;
 import org.kinkydesign.decibell.db.Table;
+import org.kinkydesign.decibell.db.interfaces.JDialect;
 import org.kinkydesign.decibell.db.interfaces.JTableColumn;
 
 import static org.kinkydesign.decibell.db.derby.util.DerbyKeyWord.*;
@@ -60,12 +62,32 @@ import static org.kinkydesign.decibell.db.derby.util.DerbyKeyWord.*;
  */
 public class DerbyTable extends Table {
 
+    private static final JDialect DEFAULT_DIALECT = new DerbyDialect();
+    /**
+     * Maximum length of the names of indexes.
+     */
+    private static final int MAX_NAME_LENGTH = 128;
+    /**
+     * The dialect which names the datatypes of the columns.
+     */
+    private final JDialect dialect;
+
     /**
      * 
      * Construct a new Table object.
      */
     public DerbyTable() {
+        this(DEFAULT_DIALECT);
+    }
+
+    /**
+     * Construct a new Table object whose columns are defined using the datatypes
+     * of some dialect which accepts the SQL of Derby.
+     * @param dialect the dialect which names the datatypes of the columns.
+     */
+    public DerbyTable(JDialect dialect) {
         super();
+        this.dialect = dialect;
     }
 
     /**
@@ -79,32 +101,7 @@ public class DerbyTable extends Table {
         bufferSQL.append(CREATE_TABLE + SPACE + getTableName() + NEWLINE + LEFT_PAR + SPACE);
         Iterator<JTableColumn> it = super.getTableColumns().iterator();
         while (it.hasNext()) {
-            JTableColumn column = it.next();
-            bufferSQL.append(column.getColumnName() + SPACE + column.getColumnType().toString() + SPACE);
-
-            if (column.isUnique()) {
-                bufferSQL.append(UNIQUE + SPACE);
-            }
-            if (column.isNotNull() || column.isPrimaryKey()) {
-                bufferSQL.append(NOT_NULL + SPACE);
-            }
-            if (column.isAutoGenerated()) {
-                bufferSQL.append(AUTO_GEN + SPACE);
-            }
-
-            if (column.hasDefault()) {
-                String DEFAULT_VALUE = "";
-                if (column.isTypeNumeric()) {
-                    DEFAULT_VALUE = column.getDefaultValue();
-                } else {
-                    DEFAULT_VALUE = SINGLE_QUOTE + column.getDefaultValue() + SINGLE_QUOTE;
-                }
-                bufferSQL.append(DEFAULT + SPACE + DEFAULT_VALUE + SPACE);
-            }
-
-            if (column.isConstrained()) {
-                bufferSQL.append(getConstraint(column) + SPACE);
-            }
+            bufferSQL.append(getColumnDefinition(it.next()));
             if (it.hasNext()) {
                 bufferSQL.append(COMMA + NEWLINE);
             }
@@ -169,6 +166,92 @@ public class DerbyTable extends Table {
         return bufferSQL.toString();
     }
 
+    /**
+     * Constructs the SQL commands that create the secondary indexes of the table.
+     * The name of each index is prefixed by the name of the table, as index
+     * names are unique within the schema.
+     * @return SQL Index Creation Strings for Derby
+     */
+    public List<String> getIndexCreationSQL() {
+        List<String> indexSQL = new LinkedList<String>();
+        for (Map.Entry<String, List<JTableColumn>> index : getIndexes().entrySet()) {
+            StringBuffer bufferSQL = new StringBuffer();
+            bufferSQL.append((isUniqueIndex(index.getKey()) ? CREATE_UNIQUE_INDEX : CREATE_INDEX) + SPACE);
+            bufferSQL.append(getTableSchema() + DOT + getIndexName(index.getKey()) + SPACE);
+            bufferSQL.append(ON + SPACE + getFullTableName() + SPACE + LEFT_PAR);
+            Iterator<JTableColumn> it = index.getValue().iterator();
+            while (it.hasNext()) {
+                bufferSQL.append(it.next().getColumnName());
+                if (it.hasNext()) {
+                    bufferSQL.append(COMMA);
+                }
+            }
+            bufferSQL.append(RIGHT_PAR);
+            indexSQL.add(bufferSQL.toString());
+        }
+        return indexSQL;
+    }
+
+    public String getIndexName(String name) {
+        String indexName = getTableName() + UNDERSCORE + name + UNDERSCORE + "IDX";
+        if (indexName.length() > MAX_NAME_LENGTH) {
+            String hash = Integer.toHexString(indexName.hashCode());
+            indexName = indexName.substring(0, MAX_NAME_LENGTH - hash.length() - 1) + UNDERSCORE + hash;
+        }
+        return indexName;
+    }
+
+    /**
+     * Constructs the SQL command that adds a column to the existing table. Key
+     * columns cannot be added this way, as the primary and foreign key constraints
+     * are part of the table definition.
+     * @param column the column to be added
+     * @return SQL Column Addition String for Derby
+     */
+    public String getColumnAdditionSQL(JTableColumn column) {
+        return ALTER_TABLE + SPACE + getTableName() + SPACE + ADD_COLUMN + SPACE + getColumnDefinition(column);
+    }
+
+    /**
+     * Private Method that constructs the definition of a column, as it appears
+     * in the creation of the table.
+     * @param column the specified TableColumn
+     * @return SQL String defining the column
+     */
+    private String getColumnDefinition(JTableColumn column) {
+        StringBuffer definition = new StringBuffer();
+        definition.append(column.getColumnName() + SPACE + dialect.getTypeName(column.getColumnType()) + SPACE);
+
+        if (column.isUnique()) {
+            definition.append(UNIQUE + SPACE);
+        }
+        if (column.isNotNull() || column.isPrimaryKey()) {
+            definition.append(NOT_NULL + SPACE);
+        }
+        if (column.isAutoGenerated()) {
+            definition.append(AUTO_GEN + SPACE);
+        }
+
+        if (column.hasDefault()) {
+            String DEFAULT_VALUE = "";
+            if (column.isTypeNumeric()) {
+                DEFAULT_VALUE = column.getDefaultValue();
+            } else {
+                DEFAULT_VALUE = SINGLE_QUOTE + column.getDefaultValue() + SINGLE_QUOTE;
+            }
+            definition.append(DEFAULT + SPACE + DEFAULT_VALUE + SPACE);
+        }
+
+        if (column.isConstrained()) {
+            definition.append(getConstraint(column) + SPACE);
+        }
+        return definition.toString();
+    }
+
+    public String getColumnConstraintSQL(JTableColumn column) {
+        return getConstraint(column);
+    }
+
     /**
      * Constructs the Deletion SQL command required to delete this table.
      * @return SQL Table Deletion String for Derby
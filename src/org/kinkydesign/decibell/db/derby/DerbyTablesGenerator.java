@@ -35,17 +35,34 @@
  */
 package org.kinkydesign.decibell.db.derby;
 
+import java.io.UnsupportedEncodingException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.kinkydesign.decibell.annotations.Constraint;
 import org.kinkydesign.decibell.annotations.Entry;
 import org.kinkydesign.decibell.annotations.ForeignKey;
+import org.kinkydesign.decibell.annotations.Index;
+import org.kinkydesign.decibell.annotations.Indexes;
 import org.kinkydesign.decibell.annotations.PrimaryKey;
 import org.kinkydesign.decibell.core.ComponentRegistry;
 import org.kinkydesign.decibell.collections.OnModification;
@@ -55,14 +72,17 @@ import org.kinkydesign.decibell.DeciBell;
 import org.kinkydesign.decibell.annotations.NumericNull;
 import org.kinkydesign.decibell.annotations.TableName;
 import org.kinkydesign.decibell.collections.LogicalOperator;
+import org.kinkydesign.decibell.collections.Qualifier;
 import org.kinkydesign.decibell.collections.SQLType;
 import org.kinkydesign.decibell.db.DbConnector;
 import org.kinkydesign.decibell.db.TablesGenerator;
 import org.kinkydesign.decibell.db.Table;
 import org.kinkydesign.decibell.db.TableColumn;
 import org.kinkydesign.decibell.db.interfaces.JRelationalTable;
+import org.kinkydesign.decibell.db.interfaces.JSerializer;
 import org.kinkydesign.decibell.db.interfaces.JTable;
 import org.kinkydesign.decibell.db.interfaces.JTableColumn;
+import org.kinkydesign.decibell.db.util.XStreamSerializer;
 
 import static org.kinkydesign.decibell.db.derby.util.DerbyKeyWord.*;
 
@@ -94,6 +114,19 @@ public class DerbyTablesGenerator extends TablesGenerator {
      */
     private List<JTableColumn> selfReferencingCols =
             new LinkedList<JTableColumn>();
+    /**
+     * The serializer of the fields which have no SQL counterpart, unless another
+     * one is specified in their @{@link Entry } annotation.
+     */
+    private static final JSerializer DEFAULT_SERIALIZER = new XStreamSerializer();
+    /**
+     * The table holding the fingerprints of the tables of the database and its
+     * columns.
+     */
+    private static final String
+            SCHEMA_TABLE = "DECIBELL_SCHEMA_TAB",
+            SCHEMA_TABLE_NAME = "TAB_NAME",
+            SCHEMA_FINGERPRINT = "FINGERPRINT";
 
     /**
      * <p  align="justify" style="width:60%">
@@ -111,50 +144,433 @@ public class DerbyTablesGenerator extends TablesGenerator {
     }
 
     private void initSchema() {
-        JTable initTable = new DerbyTable();
+        JTable initTable = new DerbyTable(db.getDbConnector().getDialect());
         initTable.setTableName(db.getDbConnector().getUser(), "DECIBELL_INIT_TAB");
         JTableColumn initColumn = new TableColumn("AA");
         initColumn.setColumnType(SQLType.SMALLINT);
         initTable.addColumn(initColumn);
-        String initCreationSQL = initTable.getCreationSQL();
-        db.getDbConnector().execute(initCreationSQL);
-        if (db.isVerbose()) {
-            System.out.println(initCreationSQL);
+        createTable(initTable);
+
+        JTable schemaTable = new DerbyTable(db.getDbConnector().getDialect());
+        schemaTable.setTableName(db.getDbConnector().getUser(), SCHEMA_TABLE);
+        JTableColumn nameColumn = new TableColumn(SCHEMA_TABLE_NAME);
+        nameColumn.setColumnType(SQLType.VARCHAR);
+        nameColumn.setPrimaryKey(true);
+        schemaTable.addColumn(nameColumn);
+        JTableColumn fingerprintColumn = new TableColumn(SCHEMA_FINGERPRINT);
+        fingerprintColumn.setColumnType(SQLType.VARCHAR);
+        schemaTable.addColumn(fingerprintColumn);
+        createTable(schemaTable);
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Constructs the tables of the attached components. The fingerprint of each
+     * table, that is a hash of the SQL commands creating the table and its indexes,
+     * is stored in the database, so that a database whose structure has not changed
+     * is started with a single query and no DDL at all. A table whose fingerprint
+     * has changed is migrated: new columns (other than keys) and new indexes are
+     * added. Other changes, like dropped columns or changed column types, are not
+     * migrated automatically; such tables are listed by {@link
+     * TablesGenerator#getUnmigratedTables() getUnmigratedTables} and their
+     * fingerprint is not stored until they match their model.
+     * </p>
+     */
+    public void construct() {
+        for (Class<? extends Component> c : components) {
+            tableCreation(c);
+        }
+        relTableCreation();
+
+        Map<String, String> fingerprints = readFingerprints();
+        if (fingerprints == null) {
+            /*
+             * First, create an 'initialization' table, just to
+             * initialize the schema and avoid some exceptions...
+             */
+            initSchema();
+            fingerprints = new HashMap<String, String>();
+        }
+
+        List<JTable> tables = new ArrayList<JTable>(ComponentRegistry.getRegistry(db.getDbConnector()).values());
+        tables.addAll(registry.getRelationTables());
+        Map<String, String> changed = new LinkedHashMap<String, String>();
+        for (JTable table : tables) {
+            String fingerprint = getFingerprint(table);
+            String stored = fingerprints.get(table.getTableName());
+            if (fingerprint.equals(stored)) {
+                continue;
+            }
+            if (stored == null) {
+                createTable(table);
+            } else if (!migrateTable(table)) {
+                continue;
+            }
+            changed.put(table.getTableName(), fingerprint);
         }
+        writeFingerprints(changed, fingerprints.keySet());
+    }
 
+    /*
+     * Read the fingerprints of the tables stored in the database, or return
+     * null if the database has not been initialized yet.
+     */
+    private Map<String, String> readFingerprints() {
+        Map<String, String> fingerprints = new HashMap<String, String>();
+        Statement stmt = null;
+        try {
+            stmt = db.getDbConnector().createStatement();
+            ResultSet rs = stmt.executeQuery(SELECT + SPACE + SCHEMA_TABLE_NAME + COMMA + SCHEMA_FINGERPRINT + SPACE
+                    + FROM + SPACE + db.getDbConnector().getUser() + DOT + SCHEMA_TABLE);
+            while (rs.next()) {
+                fingerprints.put(rs.getString(1), rs.getString(2));
+            }
+            rs.close();
+            return fingerprints;
+        } catch (SQLException ex) {
+            if (db.getDbConnector().getDialect().isNotExisting(ex)) {
+                return null;
+            }
+            throw new RuntimeException(ex);
+        } finally {
+            if (stmt != null) {
+                try {
+                    stmt.close();
+                } catch (SQLException ex) {
+                    throw new RuntimeException("Could not close the SQL statement!", ex);
+                }
+            }
+        }
     }
 
-    public void construct() {
+    /*
+     * Store the fingerprints of the created and migrated tables.
+     */
+    private void writeFingerprints(Map<String, String> changed, Set<String> stored) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        String schemaTable = db.getDbConnector().getUser() + DOT + SCHEMA_TABLE;
+        PreparedStatement insert = null;
+        PreparedStatement update = null;
+        try {
+            insert = db.getDbConnector().getConnection().prepareStatement(INSERT_INTO + SPACE + schemaTable + SPACE
+                    + LEFT_PAR + SCHEMA_TABLE_NAME + COMMA + SCHEMA_FINGERPRINT + RIGHT_PAR + SPACE
+                    + VALUES + SPACE + LEFT_PAR + QUESTION_MARK + COMMA + QUESTION_MARK + RIGHT_PAR);
+            update = db.getDbConnector().getConnection().prepareStatement(UPDATE + SPACE + schemaTable + SPACE
+                    + SET + SPACE + SCHEMA_FINGERPRINT + Qualifier.EQUAL + QUESTION_MARK + SPACE
+                    + WHERE + SPACE + SCHEMA_TABLE_NAME + Qualifier.EQUAL + QUESTION_MARK);
+            for (Map.Entry<String, String> entry : changed.entrySet()) {
+                if (stored.contains(entry.getKey())) {
+                    update.setString(1, entry.getValue());
+                    update.setString(2, entry.getKey());
+                    update.addBatch();
+                } else {
+                    insert.setString(1, entry.getKey());
+                    insert.setString(2, entry.getValue());
+                    insert.addBatch();
+                }
+            }
+            insert.executeBatch();
+            update.executeBatch();
+        } catch (SQLException ex) {
+            throw new RuntimeException(ex);
+        } finally {
+            try {
+                if (insert != null) {
+                    insert.close();
+                }
+                if (update != null) {
+                    update.close();
+                }
+            } catch (SQLException ex) {
+                throw new RuntimeException("Could not close the SQL statement!", ex);
+            }
+        }
+    }
+
+    /*
+     * The fingerprint of a table: a SHA-1 hash of the SQL commands that create
+     * the table and its indexes.
+     */
+    private String getFingerprint(JTable table) {
+        StringBuffer ddl = new StringBuffer(table.getCreationSQL());
+        for (String indexSQL : table.getIndexCreationSQL()) {
+            ddl.append(NEWLINE + indexSQL);
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-1").digest(ddl.toString().getBytes("UTF-8"));
+            StringBuffer fingerprint = new StringBuffer();
+            for (byte b : hash) {
+                fingerprint.append(Integer.toHexString((b & 0xff) | 0x100).substring(1));
+            }
+            return fingerprint.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        } catch (UnsupportedEncodingException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /*
+     * Migrate a table whose definition has changed. The table in the database is
+     * compared with the model: the columns which do not exist in the database are
+     * added, and the secondary indexes which are missing or defined differently
+     * are (re)created. Any other difference (column types, NOT NULL, UNIQUE, CHECK
+     * and DEFAULT clauses or keys) is reported and false is returned, so that the
+     * fingerprint of the table is not stored until the table is migrated manually.
+     */
+    private boolean migrateTable(JTable table) {
+        String schema = table.getTableSchema().toUpperCase();
+        String tableName = table.getTableName().toUpperCase();
+        Map<String, String> types = new HashMap<String, String>();
+        Map<String, Boolean> nullable = new HashMap<String, Boolean>();
+        Map<String, String> defaults = new HashMap<String, String>();
+        Set<String> primaryKeys = new HashSet<String>();
+        Map<String, String> foreignKeys = new HashMap<String, String>();
+        Map<String, List<String>> indexes = new HashMap<String, List<String>>();
+        Set<String> uniqueIndexes = new HashSet<String>();
+        Map<String, String> checks = new HashMap<String, String>();
+        try {
+            DatabaseMetaData metaData = db.getDbConnector().getConnection().getMetaData();
+            ResultSet rs = metaData.getColumns(null, schema, tableName, null);
+            while (rs.next()) {
+                String column = rs.getString("COLUMN_NAME").toUpperCase();
+                types.put(column, normalizeType(rs.getString("TYPE_NAME")));
+                nullable.put(column, rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls);
+                defaults.put(column, rs.getString("COLUMN_DEF"));
+            }
+            rs.close();
+            if (types.isEmpty()) {
+                createTable(table);
+                return true;
+            }
+            rs = metaData.getPrimaryKeys(null, schema, tableName);
+            while (rs.next()) {
+                primaryKeys.add(rs.getString("COLUMN_NAME").toUpperCase());
+            }
+            rs.close();
+            rs = metaData.getImportedKeys(null, schema, tableName);
+            while (rs.next()) {
+                foreignKeys.put(rs.getString("FKCOLUMN_NAME").toUpperCase(), rs.getString("PKTABLE_NAME").toUpperCase());
+            }
+            rs.close();
+            rs = metaData.getIndexInfo(null, schema, tableName, false, false);
+            while (rs.next()) {
+                String index = rs.getString("INDEX_NAME");
+                if (index == null) {
+                    continue;
+                }
+                index = index.toUpperCase();
+                List<String> columns = indexes.get(index);
+                if (columns == null) {
+                    columns = new ArrayList<String>();
+                    indexes.put(index, columns);
+                }
+                columns.add(rs.getShort("ORDINAL_POSITION") - 1, rs.getString("COLUMN_NAME").toUpperCase());
+                if (!rs.getBoolean("NON_UNIQUE")) {
+                    uniqueIndexes.add(index);
+                }
+            }
+            rs.close();
+            PreparedStatement ps = db.getDbConnector().getConnection().prepareStatement(
+                    db.getDbConnector().getDialect().getCheckConstraintsSQL());
+            try {
+                ps.setString(1, schema);
+                ps.setString(2, tableName);
+                rs = ps.executeQuery();
+                while (rs.next()) {
+                    checks.put(rs.getString(1).toUpperCase(), normalizeCheck(rs.getString(2)));
+                }
+                rs.close();
+            } finally {
+                ps.close();
+            }
+        } catch (SQLException ex) {
+            throw new RuntimeException(ex);
+        }
+
         /*
-         * First, create an 'initialization' table, just to
-         * initialize the schema and avoid some exceptions...
+         * The columns having a single-column unique index: the UNIQUE columns, the
+         * primary key if it consists of a single column and the columns of unique
+         * secondary indexes on a single column. Derby backs the UNIQUE constraints
+         * of nullable columns with non-unique indexes, so the indexes on a single
+         * column which do not back a foreign key or a secondary index count too.
          */
-        initSchema();
+        Set<String> secondaryIndexes = new HashSet<String>();
+        for (String index : table.getIndexes().keySet()) {
+            secondaryIndexes.add(table.getIndexName(index).toUpperCase());
+        }
+        Set<String> uniqueColumns = new HashSet<String>();
+        for (Map.Entry<String, List<String>> index : indexes.entrySet()) {
+            if (index.getValue().size() != 1) {
+                continue;
+            }
+            String column = index.getValue().get(0);
+            if (uniqueIndexes.contains(index.getKey())
+                    || (!secondaryIndexes.contains(index.getKey()) && !foreignKeys.containsKey(column))) {
+                uniqueColumns.add(column);
+            }
+        }
+        Set<String> expectedUnique = new HashSet<String>();
+        for (JTableColumn column : table.getTableColumns()) {
+            if (column.isUnique()) {
+                expectedUnique.add(column.getColumnName().toUpperCase());
+            }
+        }
+        if (table.getPrimaryKeyColumns().size() == 1) {
+            expectedUnique.add(table.getPrimaryKeyColumns().iterator().next().getColumnName().toUpperCase());
+        }
+        for (Map.Entry<String, List<JTableColumn>> index : table.getIndexes().entrySet()) {
+            if (table.isUniqueIndex(index.getKey()) && index.getValue().size() == 1) {
+                expectedUnique.add(index.getValue().get(0).getColumnName().toUpperCase());
+            }
+        }
 
-        for (Class<? extends Component> c : components) {
-            tableCreation(c);
+        boolean migrated = true;
+        Set<String> leftover = new LinkedHashSet<String>(types.keySet());
+        Set<String> expectedPrimaryKeys = new HashSet<String>();
+        for (JTableColumn column : table.getTableColumns()) {
+            String name = column.getColumnName().toUpperCase();
+            if (column.isPrimaryKey()) {
+                expectedPrimaryKeys.add(name);
+            }
+            if (!leftover.remove(name)) {
+                if (column.isPrimaryKey() || column.isForeignKey() || column.isAutoGenerated()) {
+                    migrated = reportChange(table, "the key column " + column.getColumnName() + " cannot be added");
+                } else {
+                    executeDDL(table.getColumnAdditionSQL(column));
+                }
+                continue;
+            }
+            String type = normalizeType(db.getDbConnector().getDialect().getTypeName(column.getColumnType()));
+            if (!type.equals(types.get(name))) {
+                migrated = reportChange(table, "the type of the column " + column.getColumnName()
+                        + " has changed to " + column.getColumnType());
+            }
+            boolean notNull = column.isNotNull() || column.isPrimaryKey() || column.isAutoGenerated();
+            if (notNull == nullable.get(name)) {
+                migrated = reportChange(table, "the column " + column.getColumnName()
+                        + (notNull ? " has become" : " is no longer") + " NOT NULL");
+            }
+            if (expectedUnique.contains(name) != uniqueColumns.contains(name)) {
+                migrated = reportChange(table, "the column " + column.getColumnName()
+                        + (column.isUnique() ? " has become" : " is no longer") + " UNIQUE");
+            }
+            if (!column.isAutoGenerated() && !sameDefault(column, defaults.get(name))) {
+                migrated = reportChange(table, "the DEFAULT value of the column " + column.getColumnName() + " has changed");
+            }
+            String check = column.isConstrained() ? normalizeCheck(table.getColumnConstraintSQL(column)) : null;
+            String storedCheck = checks.get(name);
+            if (check == null ? storedCheck != null : !check.equals(storedCheck)) {
+                migrated = reportChange(table, "the CHECK constraint of the column " + column.getColumnName() + " has changed");
+            }
+            if (column.isForeignKey()
+                    && !column.getReferenceTableName().toUpperCase().equals(foreignKeys.get(name))) {
+                migrated = reportChange(table, "the column " + column.getColumnName() + " references a different table");
+            }
+        }
+        if (!expectedPrimaryKeys.equals(primaryKeys)) {
+            migrated = reportChange(table, "the primary key has changed");
+        }
+        if (!leftover.isEmpty()) {
+            System.err.println("DeciBell >>> The columns " + leftover + " of the table " + table.getFullTableName()
+                    + " are no longer used but they are kept in the database.");
         }
-        relTableCreation();
 
-        String SQL;
-        Iterator<JTable> it = ComponentRegistry.getRegistry(db.getDbConnector()).values().iterator();
-        while (it.hasNext()) {
-            SQL = it.next().getCreationSQL();
-            db.getDbConnector().execute(SQL);
-            if (db.isVerbose()) {
-                System.out.println(SQL);
+        /*
+         * Create the missing secondary indexes and recreate those defined on
+         * different columns.
+         */
+        Iterator<String> indexSQL = table.getIndexCreationSQL().iterator();
+        for (Map.Entry<String, List<JTableColumn>> index : table.getIndexes().entrySet()) {
+            String SQL = indexSQL.next();
+            String indexName = table.getIndexName(index.getKey()).toUpperCase();
+            List<String> columns = new ArrayList<String>();
+            for (JTableColumn column : index.getValue()) {
+                columns.add(column.getColumnName().toUpperCase());
+            }
+            List<String> stored = indexes.get(indexName);
+            if (stored != null && stored.equals(columns)
+                    && uniqueIndexes.contains(indexName) == table.isUniqueIndex(index.getKey())) {
+                continue;
             }
+            if (stored != null) {
+                executeDDL(DROP_INDEX + SPACE + table.getTableSchema() + DOT + table.getIndexName(index.getKey()));
+            }
+            executeDDL(SQL);
+        }
+        return migrated;
+    }
+
+    /*
+     * Record a change in the definition of a table which cannot be migrated
+     * automatically (see getUnmigratedTables); returns false.
+     */
+    private boolean reportChange(JTable table, String change) {
+        List<String> changes = unmigratedTables.get(table.getFullTableName());
+        if (changes == null) {
+            changes = new ArrayList<String>();
+            unmigratedTables.put(table.getFullTableName(), changes);
+        }
+        changes.add(change);
+        return false;
+    }
+
+    private void executeDDL(String SQL) {
+        db.getDbConnector().execute(SQL);
+        if (db.isVerbose()) {
+            System.out.println(SQL);
+        }
+    }
+
+    /*
+     * The name of a type without its length and blanks, e.g. VARCHARFORBITDATA
+     * for VARCHAR (32672) FOR BIT DATA.
+     */
+    private static String normalizeType(String type) {
+        return type.replaceAll("\\(.*?\\)|\\s", "").toUpperCase();
+    }
+
+    /*
+     * A CHECK condition without its CONSTRAINT ... CHECK prefix, parentheses,
+     * quotes, blanks and trailing zeros of decimals, so that the conditions of
+     * the model and those reported by the database can be compared.
+     */
+    private static String normalizeCheck(String check) {
+        int index = check.toUpperCase().indexOf(CHECK + SPACE);
+        if (index >= 0) {
+            check = check.substring(index + CHECK.length());
+        }
+        return check.replaceAll("[()\"\\s]", "").replaceAll("(\\d)\\.0+(?!\\d)", "$1").toUpperCase();
+    }
+
+    private static boolean sameDefault(JTableColumn column, String stored) {
+        if (stored != null) {
+            stored = stored.trim();
         }
+        if (!column.hasDefault()) {
+            return stored == null || stored.isEmpty() || stored.equalsIgnoreCase("NULL");
+        }
+        String expected = column.isTypeNumeric() ? column.getDefaultValue() : SINGLE_QUOTE + column.getDefaultValue() + SINGLE_QUOTE;
+        return expected.equals(stored);
+    }
 
-        Iterator<JRelationalTable> relit = registry.getRelationTables().iterator();
-        while (relit.hasNext()) {
-            SQL = relit.next().getCreationSQL();
-            db.getDbConnector().execute(SQL);
+    /*
+     * Create a table and its secondary indexes in the database.
+     */
+    private void createTable(JTable table) {
+        String SQL = table.getCreationSQL();
+        db.getDbConnector().execute(SQL);
+        if (db.isVerbose()) {
+            System.out.println(SQL);
+        }
+        for (String indexSQL : table.getIndexCreationSQL()) {
+            db.getDbConnector().execute(indexSQL);
             if (db.isVerbose()) {
-                System.out.println(SQL);
+                System.out.println(indexSQL);
             }
         }
-
     }
 
     /*
@@ -170,6 +586,17 @@ public class DerbyTablesGenerator extends TablesGenerator {
             column.setDefaultValue(entry.defaultValue());
         }
         column.setAutoGenerated(entry.autoGenerated());
+        if (column.getSerializer() != null && !entry.serializer().equals(XStreamSerializer.class)) {
+            try {
+                JSerializer serializer = entry.serializer().newInstance();
+                column.setSerializer(serializer);
+                column.setColumnType(serializer.getSQLType());
+            } catch (InstantiationException ex) {
+                throw new RuntimeException(ex);
+            } catch (IllegalAccessException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
     }
 
     private void handleConstraint(JTableColumn column, Annotation ann) {
@@ -198,6 +625,92 @@ public class DerbyTablesGenerator extends TablesGenerator {
         }
     }
 
+    /*
+     * Declare the secondary indexes of the table as given by the @Index annotations
+     * on the class and its fields. Field annotations sharing the same name are
+     * merged into a composite index.
+     */
+    private void handleIndexes(Class<? extends Component> c, Table table) {
+        Map<String, List<JTableColumn>> indexColumns = new LinkedHashMap<String, List<JTableColumn>>();
+        Set<String> uniqueIndexes = new HashSet<String>();
+        for (Field field : c.getDeclaredFields()) {
+            Index index = field.getAnnotation(Index.class);
+            if (index == null) {
+                continue;
+            }
+            String name = index.name().isEmpty() ? field.getName() : index.name();
+            List<JTableColumn> columns = indexColumns.get(name);
+            if (columns == null) {
+                columns = new ArrayList<JTableColumn>();
+                indexColumns.put(name, columns);
+            }
+            columns.addAll(getIndexedColumns(c, table, field.getName()));
+            if (index.unique()) {
+                uniqueIndexes.add(name);
+            }
+        }
+
+        List<Index> classIndexes = new ArrayList<Index>();
+        if (c.getAnnotation(Index.class) != null) {
+            classIndexes.add(c.getAnnotation(Index.class));
+        }
+        if (c.getAnnotation(Indexes.class) != null) {
+            classIndexes.addAll(Arrays.asList(c.getAnnotation(Indexes.class).value()));
+        }
+        for (Index index : classIndexes) {
+            if (index.name().isEmpty() || index.fields().length == 0) {
+                throw new RuntimeException("The class " + c.getName() + " declares an index "
+                        + "without specifying its name and fields");
+            }
+            if (indexColumns.containsKey(index.name())) {
+                throw new RuntimeException("The class " + c.getName() + " declares more than one "
+                        + "index named " + index.name());
+            }
+            List<JTableColumn> columns = new ArrayList<JTableColumn>();
+            for (String fieldName : index.fields()) {
+                columns.addAll(getIndexedColumns(c, table, fieldName));
+            }
+            indexColumns.put(index.name(), columns);
+            if (index.unique()) {
+                uniqueIndexes.add(index.name());
+            }
+        }
+
+        for (Map.Entry<String, List<JTableColumn>> index : indexColumns.entrySet()) {
+            table.addIndex(index.getKey(), index.getValue(), uniqueIndexes.contains(index.getKey()));
+        }
+    }
+
+    private List<JTableColumn> getIndexedColumns(Class<? extends Component> c, Table table, String fieldName) {
+        List<JTableColumn> columns = new ArrayList<JTableColumn>();
+        for (JTableColumn column : table.getTableColumns()) {
+            if (column.getField() != null && column.getField().getName().equals(fieldName)) {
+                if (column.getSerializer() != null) {
+                    throw new RuntimeException("The field " + fieldName + " of the class " + c.getName()
+                            + " is serialized and cannot be indexed");
+                }
+                columns.add(column);
+            }
+        }
+        if (columns.isEmpty()) {
+            throw new RuntimeException("The field " + fieldName + " of the class " + c.getName()
+                    + " is not stored in the table " + table.getTableName() + " and cannot be indexed "
+                    + "(note that the relational tables of collections are indexed automatically)");
+        }
+        return columns;
+    }
+
+    /*
+     * Index a relational table on the given leading columns followed by the
+     * trailing ones, so that the rows of a collection are read from the index.
+     */
+    private void addRelationIndex(JRelationalTable table, String name,
+            Set<JTableColumn> leading, Set<JTableColumn> trailing) {
+        Set<JTableColumn> columns = new LinkedHashSet<JTableColumn>(leading);
+        columns.addAll(trailing);
+        table.addIndex(name, new ArrayList<JTableColumn>(columns), false);
+    }
+
     private void checkCollectionConsistency(Field field) {
         Type type = field.getGenericType();
         if (!(type instanceof ParameterizedType)) {
@@ -245,7 +758,7 @@ public class DerbyTablesGenerator extends TablesGenerator {
     }
 
     private void tableCreation(Class<? extends Component> c) {
-        Table table = new DerbyTable();
+        Table table = new DerbyTable(db.getDbConnector().getDialect());
         // if c already in the registry, it is created - return
         if (registry.containsClass(c)) {
             return;
@@ -275,6 +788,9 @@ public class DerbyTablesGenerator extends TablesGenerator {
             JTableColumn column = new TableColumn();  // Construct the column that corresponds to the current field
             column.setColumnName(field.getName());
             column.setColumnType(TypeMap.getSQLType(field.getType()));
+            if (column.getColumnType().equals(SQLType.LONG_VARCHAR)) {
+                column.setSerializer(DEFAULT_SERIALIZER);
+            }
 
             Annotation ann = null;
 
@@ -373,6 +889,8 @@ public class DerbyTablesGenerator extends TablesGenerator {
             }
         }
 
+        handleIndexes(c, table);
+
         // Put the table in the registry...      
         registry.put((Class<? extends Component>) c, table);
     }
@@ -382,7 +900,14 @@ public class DerbyTablesGenerator extends TablesGenerator {
     private void relTableCreation() {
 
         for (Field f : relations) {
-            JRelationalTable table = new DerbyRelationalTable();
+            JRelationalTable table = new DerbyRelationalTable(db.getDbConnector().getDialect());
+            /*
+             * The master and slave columns are recorded while they are created;
+             * they cannot be told apart by their reference table when the
+             * collection refers to its own class.
+             */
+            Set<JTableColumn> masterColumns = new LinkedHashSet<JTableColumn>();
+            Set<JTableColumn> slaveColumns = new LinkedHashSet<JTableColumn>();
             ParameterizedType pt = (ParameterizedType) f.getGenericType();
             for (Type arg : pt.getActualTypeArguments()) {
                 Class carg = (Class) arg;
@@ -411,6 +936,7 @@ public class DerbyTablesGenerator extends TablesGenerator {
                     column.setAutoGenerated(false);
                     //      column.setField(f);
                     table.addColumn(column);
+                    masterColumns.add(column);
                     if (isList(f.getType())) {
                         column.setPrimaryKey(false);
                         column.setAutoGenerated(false);
@@ -437,6 +963,7 @@ public class DerbyTablesGenerator extends TablesGenerator {
                         column.setAutoGenerated(false);
                     }
                     table.addColumn(column);
+                    slaveColumns.add(column);
                 }
                 master.addRelation(table);
                 //  slave.addRelation(table);
@@ -451,6 +978,14 @@ public class DerbyTablesGenerator extends TablesGenerator {
             metaCol.setColumnType(SQLType.VARCHAR);
             table.addColumn(metaCol);
 
+            /*
+             * Besides the indexes backing the foreign keys, index the table on
+             * its master and on its slave columns so that the collections of a
+             * component, and the collections containing a component, are covered.
+             */
+            addRelationIndex(table, "MASTER", masterColumns, slaveColumns);
+            addRelationIndex(table, "SLAVE", slaveColumns, masterColumns);
+
             registry.setRelationTable(table);
         }
     }
@@ -85,12 +85,19 @@ public class DerbyJoin extends Join {
     @Override
     public String getSQL() {
         StringBuffer sql = new StringBuffer();
-        sql.append(types.get(getJoinType()) + SPACE + getRemoteTable().getTableName() +
-                SPACE + ON + SPACE);
+        sql.append(types.get(getJoinType()) + SPACE + getRemoteTable().getTableName() + SPACE);
+        if (getRemoteAlias() != null) {
+            sql.append(getRemoteAlias() + SPACE);
+        }
+        sql.append(ON + SPACE);
         Iterator<Entry<TableColumn, TableColumn>> it = column2column.entrySet().iterator();
         while (it.hasNext()){
             Entry<TableColumn, TableColumn> e = it.next();
-            sql.append(e.getKey().getFullName() + Qualifier.EQUAL + e.getValue().getFullName() + SPACE);
+            String baseColumn = getBaseAlias() != null
+                    ? getBaseAlias() + DOT + e.getKey().getColumnName() : e.getKey().getFullName();
+            String remoteColumn = getRemoteAlias() != null
+                    ? getRemoteAlias() + DOT + e.getValue().getColumnName() : e.getValue().getFullName();
+            sql.append(baseColumn + Qualifier.EQUAL + remoteColumn + SPACE);
             if (it.hasNext()){
                 sql.append(LogicalOperator.AND + SPACE);
             }
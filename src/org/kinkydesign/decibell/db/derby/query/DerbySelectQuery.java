@@ -39,6 +39,7 @@ package org.kinkydesign.decibell.db.derby.query;
 
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.Set;
 import org.kinkydesign.decibell.collections.LogicalOperator;
 import org.kinkydesign.decibell.collections.Qualifier;
 import org.kinkydesign.decibell.collections.SQLType;
@@ -67,13 +68,15 @@ import static org.kinkydesign.decibell.db.derby.util.DerbyKeyWord.*;
  * The general structure of a <code>SELECT</code> query in Derby is:
  * <blockquote>
  * <pre>
- * SELECT [LIST OF COLUMNS] FROM [TABLE] WHERE [LIST OF PROPOSITIONS] [JOIN STATEMENT]
+ * SELECT [LIST OF COLUMNS] FROM [TABLE] [JOIN STATEMENT] WHERE [LIST OF PROPOSITIONS]
  * </pre></blockquote>
  * </p>
  *
  * <p  align="justify" style="width:60%">
- * <code>UNION</code>, <code>INTERSECT</code>, and <code>EXCEPT</code> and <code>FETCH</code> 
- * expressions are not supported for the time but will be added in some later version.
+ * The rows may be ordered (see {@link SelectQuery#setOrdering(java.lang.String) setOrdering})
+ * and paged using <code>OFFSET ? ROWS FETCH NEXT ? ROWS ONLY</code>. <code>UNION</code>,
+ * <code>INTERSECT</code>, and <code>EXCEPT</code> expressions are not supported for the
+ * time but will be added in some later version.
  * </p>
  *
  * @author Pantelis Sopasakis
@@ -100,15 +103,39 @@ public class DerbySelectQuery extends SelectQuery {
     public String getSQL(boolean searchPKonly) {
         JTable table = getTable();
         StringBuffer sql = new StringBuffer();
-        sql.append(SELECT + SPACE + STAR + SPACE + FROM + SPACE + table.getTableName() + SPACE);
-
-        for (int i=joins.size()-1;i>=0;i--) {
-            sql.append(joins.get(i).getSQL() + SPACE);
+        sql.append(SELECT + SPACE);
+        if (joins.isEmpty()) {
+            sql.append(STAR);
+        } else {
+            /*
+             * The columns are listed explicitly so that their position in the
+             * result set is known (see SelectQuery#getColumnOffset).
+             */
+            Iterator<JTableColumn> columnIter = table.getTableColumns().iterator();
+            while (columnIter.hasNext()) {
+                sql.append(columnIter.next().getFullName());
+                if (columnIter.hasNext()) {
+                    sql.append(COMMA + SPACE);
+                }
+            }
+            for (Join j : joins) {
+                for (JTableColumn c : j.getRemoteTable().getTableColumns()) {
+                    sql.append(COMMA + SPACE + (j.getRemoteAlias() != null
+                            ? j.getRemoteAlias() + DOT + c.getColumnName() : c.getFullName()));
+                }
+            }
         }
+        sql.append(SPACE + FROM + SPACE + table.getTableName() + SPACE);
+
         for (Join j : joins){
             sql.append(j.getSQL() + SPACE);
         }
 
+        if (keyBatchSize > 0) {
+            sql.append(WHERE + SPACE + getKeyBatchCondition(table));
+            return sql.toString();
+        }
+
         if (searchPKonly) {
             ArrayList<Proposition> props = new ArrayList<Proposition>();
             for (JTableColumn c : table.getPrimaryKeyColumns()) {
@@ -120,7 +147,10 @@ public class DerbySelectQuery extends SelectQuery {
             }
             setPropositions(props);
         }
-        sql.append(WHERE + SPACE);
+        String condition = getCondition();
+        if (!propositions.isEmpty() || condition != null) {
+            sql.append(WHERE + SPACE);
+        }
 
         Iterator<Proposition> propIter = propositions.iterator();
         while (propIter.hasNext()) {
@@ -129,9 +159,55 @@ public class DerbySelectQuery extends SelectQuery {
                 sql.append(SPACE + LogicalOperator.AND + SPACE);
             }
         }
+        if (condition != null) {
+            if (!propositions.isEmpty()) {
+                sql.append(SPACE + LogicalOperator.AND + SPACE);
+            }
+            sql.append(LEFT_PAR + condition + RIGHT_PAR);
+        }
+        if (getOrdering() != null) {
+            sql.append(SPACE + ORDER_BY + SPACE + getOrdering());
+        }
+        if (isOffset()) {
+            sql.append(SPACE + OFFSET + SPACE + QUESTION_MARK + SPACE + ROWS);
+        }
+        if (isFetch()) {
+            sql.append(SPACE + FETCH_NEXT + SPACE + QUESTION_MARK + SPACE + ROWS_ONLY);
+        }
         return sql.toString();
     }
 
+    private String getKeyBatchCondition(JTable table) {
+        StringBuffer condition = new StringBuffer();
+        Set<JTableColumn> keyColumns = table.getPrimaryKeyColumns();
+        if (keyColumns.size() == 1) {
+            condition.append(keyColumns.iterator().next().getFullName() + SPACE + IN + SPACE + LEFT_PAR);
+            for (int i = 0; i < keyBatchSize; i++) {
+                condition.append(QUESTION_MARK);
+                if (i < keyBatchSize - 1) {
+                    condition.append(COMMA + SPACE);
+                }
+            }
+            condition.append(RIGHT_PAR);
+            return condition.toString();
+        }
+        for (int i = 0; i < keyBatchSize; i++) {
+            condition.append(LEFT_PAR);
+            Iterator<JTableColumn> keyIter = keyColumns.iterator();
+            while (keyIter.hasNext()) {
+                condition.append(keyIter.next().getFullName() + SPACE + Qualifier.EQUAL + SPACE + QUESTION_MARK);
+                if (keyIter.hasNext()) {
+                    condition.append(SPACE + LogicalOperator.AND + SPACE);
+                }
+            }
+            condition.append(RIGHT_PAR);
+            if (i < keyBatchSize - 1) {
+                condition.append(SPACE + LogicalOperator.OR + SPACE);
+            }
+        }
+        return condition.toString();
+    }
+
     public void setInfinity(JTableColumn column) {
         SQLType columnType = column.getColumnType();
         switch (columnType) {
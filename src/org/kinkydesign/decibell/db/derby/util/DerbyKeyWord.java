@@ -202,11 +202,71 @@ public final class DerbyKeyWord {
      * DROP TABLE
      */
     public static final String DROP_TABLE = "DROP TABLE";
+    /**
+     *
+     * DROP INDEX
+     */
+    public static final String DROP_INDEX = "DROP INDEX";
+    /**
+     *
+     * ALTER TABLE
+     */
+    public static final String ALTER_TABLE = "ALTER TABLE";
+    /**
+     *
+     * ADD COLUMN
+     */
+    public static final String ADD_COLUMN = "ADD COLUMN";
+    /**
+     *
+     * CREATE INDEX
+     */
+    public static final String CREATE_INDEX = "CREATE INDEX";
+    /**
+     *
+     * CREATE UNIQUE INDEX
+     */
+    public static final String CREATE_UNIQUE_INDEX = "CREATE UNIQUE INDEX";
     /**
      *
      * IN
      */
     public static final String IN = "IN";
+    /**
+     *
+     * ORDER BY
+     */
+    public static final String ORDER_BY = "ORDER BY";
+    /**
+     *
+     * ASC
+     */
+    public static final String ASC = "ASC";
+    /**
+     *
+     * DESC
+     */
+    public static final String DESC = "DESC";
+    /**
+     *
+     * OFFSET
+     */
+    public static final String OFFSET = "OFFSET";
+    /**
+     *
+     * ROWS
+     */
+    public static final String ROWS = "ROWS";
+    /**
+     *
+     * FETCH NEXT
+     */
+    public static final String FETCH_NEXT = "FETCH NEXT";
+    /**
+     *
+     * ROWS ONLY
+     */
+    public static final String ROWS_ONLY = "ROWS ONLY";
     /**
      *
      * A single quote : '
@@ -0,0 +1,298 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.db.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.collections.LogicalOperator;
+import org.kinkydesign.decibell.collections.Qualifier;
+import org.kinkydesign.decibell.collections.SQLType;
+import org.kinkydesign.decibell.db.interfaces.JTable;
+import org.kinkydesign.decibell.db.interfaces.JTableColumn;
+import org.kinkydesign.decibell.db.query.Proposition;
+import org.kinkydesign.decibell.db.sieve.Criterion;
+import org.kinkydesign.decibell.db.sieve.EarlySieve;
+import org.kinkydesign.decibell.db.sieve.JSieve;
+
+/**
+ * <p  align="justify" style="width:60%">
+ * A sieve split into the part which is checked by the database and the part
+ * which is checked in memory. {@link Criterion Criteria} are translated to an SQL
+ * condition as far as possible: a condition on a field translates if the field
+ * is stored in a (non-foreign-key, non-serialized) column of the table, the value
+ * is not <code>null</code> and its type matches the column. If the operands of
+ * the criterion are joined with <code>AND</code>, every operand that translates is
+ * checked by the database and the rest in memory; otherwise the criterion is
+ * either translated as a whole or checked in memory as a whole.
+ * </p>
+ * <p  align="justify" style="width:60%">
+ * Strings which are <code>null</code> are stored as a special value (see
+ * <code>RegistrationEngine.__NULL__</code>), so conditions on string columns exclude
+ * this value explicitly, as they would be false for a <code>null</code> field.
+ * </p>
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+final class CompiledSieve<T extends Component> {
+
+    private static final CompiledSieve NO_SIEVE = new CompiledSieve(null, Collections.emptyList(),
+            Collections.<JTableColumn>emptyList(), null, false);
+    private final String condition;
+    private final List<Object> parameters;
+    private final List<JTableColumn> parameterColumns;
+    private final JSieve<T> residual;
+    private final boolean early;
+
+    private CompiledSieve(String condition, List<Object> parameters, List<JTableColumn> parameterColumns,
+            JSieve<T> residual, boolean early) {
+        this.condition = condition;
+        this.parameters = parameters;
+        this.parameterColumns = parameterColumns;
+        this.residual = residual;
+        this.early = early;
+    }
+
+    /**
+     * Splits a sieve for the searches of a table.
+     * @param sieve
+     *      The sieve of a search or <code>null</code>.
+     * @param table
+     *      The table of the searched components.
+     * @return
+     *      The compiled sieve.
+     */
+    static <T extends Component> CompiledSieve<T> compile(JSieve<T> sieve, JTable table) {
+        if (sieve == null) {
+            return NO_SIEVE;
+        }
+        if (!(sieve instanceof Criterion)) {
+            return new CompiledSieve<T>(null, Collections.emptyList(), Collections.<JTableColumn>emptyList(),
+                    sieve, sieve instanceof EarlySieve);
+        }
+        Criterion<T> criterion = (Criterion<T>) sieve;
+        List<Object> parameters = new ArrayList<Object>();
+        List<JTableColumn> columns = new ArrayList<JTableColumn>();
+        if (criterion.isNegated() || criterion.getOperators().contains(LogicalOperator.OR)) {
+            String condition = translate(criterion, table, parameters, columns);
+            return condition != null
+                    ? new CompiledSieve<T>(condition, parameters, columns, null, false)
+                    : new CompiledSieve<T>(null, parameters, columns, criterion, isSimple(criterion, table));
+        }
+        StringBuilder condition = new StringBuilder();
+        final List<Object> remaining = new ArrayList<Object>();
+        boolean early = true;
+        for (Object operand : criterion.getOperands()) {
+            String translated = translate(operand, table, parameters, columns);
+            if (translated == null) {
+                remaining.add(operand);
+                early &= isSimple(operand, table);
+            } else {
+                if (condition.length() > 0) {
+                    condition.append(' ').append(LogicalOperator.AND).append(' ');
+                }
+                condition.append(translated);
+            }
+        }
+        JSieve<T> residual = null;
+        if (!remaining.isEmpty()) {
+            residual = new JSieve<T>() {
+
+                public boolean sieve(T component) {
+                    for (Object operand : remaining) {
+                        boolean satisfied = operand instanceof Criterion.Term
+                                ? ((Criterion.Term) operand).evaluate(component)
+                                : ((Criterion<T>) operand).sieve(component);
+                        if (!satisfied) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            };
+        }
+        return new CompiledSieve<T>(condition.length() > 0 ? condition.toString() : null,
+                parameters, columns, residual, residual != null && early);
+    }
+
+    /**
+     * Translates an operand of a criterion to SQL, adding its parameters to the
+     * given lists, or returns <code>null</code> (leaving the lists unchanged) if
+     * it does not translate.
+     */
+    private static String translate(Object operand, JTable table, List<Object> parameters, List<JTableColumn> columns) {
+        if (operand instanceof Criterion.Term) {
+            return translate((Criterion.Term) operand, table, parameters, columns);
+        }
+        Criterion<?> criterion = (Criterion<?>) operand;
+        List<Object> groupParameters = new ArrayList<Object>();
+        List<JTableColumn> groupColumns = new ArrayList<JTableColumn>();
+        StringBuilder sql = new StringBuilder();
+        if (criterion.isNegated()) {
+            sql.append(LogicalOperator.NOT).append(' ');
+        }
+        sql.append('(');
+        List<Object> operands = criterion.getOperands();
+        for (int i = 0; i < operands.size(); i++) {
+            String translated = translate(operands.get(i), table, groupParameters, groupColumns);
+            if (translated == null) {
+                return null;
+            }
+            if (i > 0) {
+                sql.append(' ').append(criterion.getOperators().get(i - 1)).append(' ');
+            }
+            sql.append(translated);
+        }
+        sql.append(')');
+        parameters.addAll(groupParameters);
+        columns.addAll(groupColumns);
+        return sql.toString();
+    }
+
+    private static String translate(Criterion.Term term, JTable table, List<Object> parameters, List<JTableColumn> columns) {
+        JTableColumn column = findColumn(term.getFieldName(), table);
+        Qualifier qualifier = term.getQualifier();
+        Object value = term.getValue();
+        if (column == null || column.isForeignKey() || column.getSerializer() != null
+                || Qualifier.IS.equals(qualifier) || Qualifier.IS_NOT.equals(qualifier)) {
+            return null;
+        }
+        boolean string = isString(column);
+        if (string ? !(value instanceof String) : !isCompatibleNumber(column, value)) {
+            return null;
+        }
+        Proposition proposition = new Proposition();
+        proposition.setTableColumn(column);
+        proposition.setQualifier(qualifier);
+        proposition.setUnknown();
+        parameters.add(value);
+        columns.add(column);
+        if (!string) {
+            return proposition.toString();
+        }
+        Proposition notNull = new Proposition();
+        notNull.setTableColumn(column);
+        notNull.setQualifier(Qualifier.NOT_EQUAL);
+        notNull.setUnknown();
+        parameters.add(RegistrationEngine.__NULL__);
+        columns.add(column);
+        return "(" + proposition + " " + LogicalOperator.AND + " " + notNull + ")";
+    }
+
+    /**
+     * Operands which refer only to columns of the table which are not foreign keys.
+     */
+    private static boolean isSimple(Object operand, JTable table) {
+        if (operand instanceof Criterion.Term) {
+            JTableColumn column = findColumn(((Criterion.Term) operand).getFieldName(), table);
+            return column != null && !column.isForeignKey();
+        }
+        for (Object nested : ((Criterion<?>) operand).getOperands()) {
+            if (!isSimple(nested, table)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The column of a table in which a field is stored (the first one, for foreign
+     * keys), or <code>null</code>.
+     */
+    static JTableColumn findColumn(String fieldName, JTable table) {
+        for (JTableColumn column : table.getTableColumns()) {
+            if (column.getField().getName().equals(fieldName)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isString(JTableColumn column) {
+        SQLType type = column.getColumnType();
+        return SQLType.VARCHAR.equals(type) || SQLType.CHAR.equals(type) || SQLType.LONG_VARCHAR.equals(type);
+    }
+
+    /**
+     * Numbers are bound with the type of the column, so integer columns accept
+     * only integer values.
+     */
+    private static boolean isCompatibleNumber(JTableColumn column, Object value) {
+        if (!column.isTypeNumeric() || !(value instanceof Number)) {
+            return false;
+        }
+        SQLType type = column.getColumnType();
+        if (SQLType.INTEGER.equals(type) || SQLType.BIGINT.equals(type) || SQLType.SMALLINT.equals(type)) {
+            return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+        }
+        return true;
+    }
+
+    /**
+     * The condition to be added to the <code>WHERE</code> clause of the search
+     * statement or <code>null</code>.
+     */
+    String getCondition() {
+        return condition;
+    }
+
+    List<Object> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * The columns with the type of which each parameter is bound.
+     */
+    List<JTableColumn> getParameterColumns() {
+        return parameterColumns;
+    }
+
+    /**
+     * The part of the sieve which is checked in memory or <code>null</code>.
+     */
+    JSieve<T> getResidual() {
+        return residual;
+    }
+
+    /**
+     * Whether the residual sieve may be applied before the foreign keys and
+     * collections of the components are retrieved.
+     */
+    boolean isEarly() {
+        return early;
+    }
+}
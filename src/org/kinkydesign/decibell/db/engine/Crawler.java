@@ -37,16 +37,19 @@ package org.kinkydesign.decibell.db.engine;
 
 import com.google.common.collect.Collections2;
 import com.google.common.collect.Sets;
-import com.thoughtworks.xstream.XStream;
 import java.lang.reflect.*;
 import java.sql.*;
 import java.util.*;
 import java.util.ArrayList;
 import org.kinkydesign.decibell.*;
 import org.kinkydesign.decibell.collections.SQLType;
+import org.kinkydesign.decibell.core.ComponentMetadata;
+import org.kinkydesign.decibell.db.EntityCache;
 import org.kinkydesign.decibell.db.StatementPool;
 import org.kinkydesign.decibell.db.interfaces.*;
 import org.kinkydesign.decibell.db.query.*;
+import org.kinkydesign.decibell.db.sieve.EarlySieve;
+import org.kinkydesign.decibell.db.sieve.JSieve;
 import org.kinkydesign.decibell.db.util.*;
 
 /**
@@ -58,14 +61,31 @@ import org.kinkydesign.decibell.db.util.*;
  * relational tables (that correspond to java Collections) and self-references are
  * also retrieved throug the lookup.
  * </p>
+ * <p  align="justify" style="width:60%">
+ * Every crawler keeps an {@link IdentityMap identity map} of the components it
+ * has built, so a component referenced by several rows is retrieved only once
+ * and shared by reference. Use a new Crawler for every search operation.
+ * </p>
  * @author Pantelis Sopasakis
  * @author Charalampos Chomenides
  */
 public class Crawler {
 
     private static final String __NULL__ = RegistrationEngine.__NULL__;
+    /**
+     * Sizes of the chunks in which primary keys are looked up when the members
+     * of a collection are retrieved.
+     */
+    private static final int[] KEY_BATCH_SIZES = {1, 4, 16, 64, 256};
     private final DeciBell db;
     private final StatementPool pool;
+    private final IdentityMap identityMap = new IdentityMap();
+    private final EntityCache cache;
+    /**
+     * The generations of the cached classes before the rows were read.
+     */
+    private Map<Class<? extends Component>, Long> generations;
+    private JSieve<Component> sieve = null;
 
     /**
      * <p  align="justify" style="width:60%">
@@ -88,6 +108,8 @@ public class Crawler {
     public Crawler(final DeciBell db, final StatementPool pool) {
         this.db = db;
         this.pool = pool;
+        this.cache = EntityCache.getCache(db.getDbConnector());
+        this.generations = cache.getGenerations();
     }
 
     /**
@@ -104,6 +126,39 @@ public class Crawler {
         this(db, StatementPool.getPool(db));
     }
 
+    /**
+     * <p  align="justify" style="width:60%">
+     * Set an {@link EarlySieve early sieve} for the components retrieved by {@link
+     * Crawler#crawlDatabase(java.sql.ResultSet, java.lang.Class, org.kinkydesign.decibell.db.interfaces.JTable)
+     * crawlDatabase}: a row whose component does not pass the sieve is rejected as soon
+     * as the simple fields of the component are read, before its foreign keys and
+     * collections are retrieved, and <code>crawlDatabase</code> returns <code>null</code>.
+     * The sieve does not apply to referenced components.
+     * </p>
+     * @param sieve
+     *      A sieve which inspects only the simple fields of the components, or
+     *      <code>null</code>.
+     */
+    void setSieve(JSieve<? extends Component> sieve) {
+        this.sieve = (JSieve<Component>) sieve;
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Set the generations of the cached classes (see {@link EntityCache#getGenerations()
+     * getGenerations}) taken before the rows given to this crawler were read. The
+     * components retrieved are put in the cache only if their class has not been
+     * invalidated since. By default the generations are taken when the crawler is
+     * constructed, so a crawler should be constructed before the statement whose
+     * rows it crawls is executed.
+     * </p>
+     * @param generations
+     *      The generations of the cached classes.
+     */
+    void setGenerations(Map<Class<? extends Component>, Long> generations) {
+        this.generations = generations;
+    }
+
     /**
      * <p  align="justify" style="width:60%">
      * Crawl in the database to retrieve the component corresponding to some
@@ -121,113 +176,250 @@ public class Crawler {
      *      Retrieved data from the database as a component.
      */
     public Component crawlDatabase(ResultSet dbData, Class<? extends Component> clazz, JTable masterTable) {
+        try {
+            return crawl(readRow(dbData, masterTable), clazz, masterTable, null, null, null, sieve);
+        } catch (final SQLException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Retrieve the component corresponding to a row which was fetched using a
+     * joined search statement (see {@link StatementFactory#createSearch(
+     * org.kinkydesign.decibell.db.interfaces.JTable, java.util.BitSet, org.kinkydesign.decibell.db.DbConnector)
+     * StatementFactory.createSearch}). The components referenced by the master
+     * row are materialized from the same result set, so no further queries are
+     * needed for the foreign keys that participate in the joins of the query.
+     * Foreign keys that are not joined (e.g. self-references) are resolved with
+     * nested queries.
+     * </p>
+     * @param dbData
+     *      A row of the result set of the joined query.
+     * @param clazz
+     *      The class of the component corresponding to the master table of the query.
+     * @param joinedQuery
+     *      The query that produced the result set.
+     * @return
+     *      Retrieved data from the database as a component.
+     */
+    public Component crawlDatabase(ResultSet dbData, Class<? extends Component> clazz, SelectQuery joinedQuery) {
+        try {
+            JTable masterTable = joinedQuery.getTable();
+            return crawl(readRow(dbData, masterTable, joinedQuery.getColumnOffset(null)),
+                    clazz, masterTable, dbData, joinedQuery, null, sieve);
+        } catch (final SQLException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Reads the values of all columns of a table from the current row of a result
+     * set, by column name.
+     */
+    private Map<String, Object> readRow(ResultSet rs, JTable table) throws SQLException {
+        Map<String, Object> row = new HashMap<String, Object>();
+        for (JTableColumn column : table.getTableColumns()) {
+            row.put(column.getColumnName(), rs.getObject(column.getColumnName()));
+        }
+        return row;
+    }
+
+    /**
+     * Reads the values of all columns of a table from the current row of a result
+     * set, by position, starting from <code>offset</code>.
+     */
+    private Map<String, Object> readRow(ResultSet rs, JTable table, int offset) throws SQLException {
+        Map<String, Object> row = new HashMap<String, Object>();
+        for (JTableColumn column : table.getTableColumns()) {
+            row.put(column.getColumnName(), rs.getObject(offset++));
+        }
+        return row;
+    }
+
+    private Component crawl(Map<String, Object> dbData, Class<? extends Component> clazz, JTable masterTable,
+            ResultSet joinedData, SelectQuery joinedQuery, String alias, JSieve<Component> sieve) throws SQLException {
 
         try {
 
-            Constructor constructor = clazz.getConstructor();
-            constructor.setAccessible(true);
-            Component component = (Component) constructor.newInstance();
+            List<Object> key = getPrimaryKey(dbData, masterTable);
+            Component found = identityMap.get(clazz, key);
+            if (found != null) {
+                return sieve == null || sieve.sieve(found) ? found : null;
+            }
+            found = cache.get(clazz, key);
+            if (found != null) {
+                identityMap.put(clazz, key, found);
+                return sieve == null || sieve.sieve(found) ? found : null;
+            }
+
+            Component component = ComponentMetadata.forClass(clazz).newInstance();
+            identityMap.put(clazz, key, component);
 
             Set<JTableColumn> masterTableColumns = masterTable.getTableColumns();
 
             // This handles normal entries (NON FKs)
             for (JTableColumn column : masterTableColumns) {
-                Field columnField = column.getField();
+                FieldAccessor accessor = column.getAccessor();
                 if (column.isForeignKey()) {
                     continue;
                 }
 
-                Object retrievedObject = dbData.getObject(column.getColumnName());
+                Object retrievedObject = dbData.get(column.getColumnName());
                 if (__NULL__.equals(retrievedObject)) {
-                    columnField.set(component, null);
+                    accessor.set(component, null);
                 } else {
-                    if (column.getColumnType().equals(SQLType.LONG_VARCHAR)) {
-                        XStream xstream = new XStream();
-                        Object valueForField = xstream.fromXML(retrievedObject.toString());
-                        columnField.set(component, valueForField);
+                    if (column.getSerializer() != null) {
+                        accessor.set(component, column.getSerializer().deserialize(retrievedObject));
                     } else {
-                        columnField.set(component, retrievedObject);
+                        accessor.set(component, retrievedObject);
                     }
                 }
             }
 
+            if (sieve != null && !sieve.sieve(component)) {
+                identityMap.remove(clazz, key);
+                return null;
+            }
 
             retrieveCollections(dbData, component, masterTable);
             // Now handle FKs:
             Set<Set<JTableColumn>> groupedFKs = masterTable.getForeignColumnsByGroup();
 
             for (Set<JTableColumn> group : groupedFKs) {
-                Iterator<JTableColumn> groupedFkIterator = group.iterator();
-                JTable referencesTable = group.iterator().next().getReferenceTable();
-                Pair<PreparedStatement, SQLQuery> entry = pool.getSearch(referencesTable);
-                PreparedStatement ps = entry.getKey();
-                SQLQuery query = entry.getValue();
-                pool.recycleSearch(entry, masterTable);
-
-                int ps_INDEX = 1;
-                String columnName = null;
-                for (Proposition proposition : query.getPropositions()) {
-
-                    if (proposition.getTableColumn().isPrimaryKey()) {
-                        if (proposition.getTableColumn().isTypeNumeric()) {
-                            columnName = (columnName == null) ? groupedFkIterator.next().getColumnName() : columnName;
-                            proposition.setInt(dbData.getInt(columnName));
-                            ps.setObject(ps_INDEX, dbData.getObject(columnName));
-                            ps.setObject(ps_INDEX++, dbData.getObject(columnName));
-                            continue;
-                        } else {
-                            columnName = groupedFkIterator.next().getColumnName();
-                            ps.setObject(ps_INDEX, dbData.getString(columnName));
-                        }
-                    } else {
-                        Infinity infinity = new Infinity(db);
-                        ps.setObject(ps_INDEX, infinity.getInfinity(proposition));
-                    }
-                    ps_INDEX++;
-                }
-                ResultSet newRS = ps.executeQuery();
-                newRS.next();
-
-                boolean foundSelfRef = false;
-                if (masterTable.isSelfReferencing()) {
-                    foundSelfRef = true;
-                    List<JTableColumn> selfRefColumns = masterTable.getSelfReferences();
-                    for (JTableColumn src : selfRefColumns) {
-                        foundSelfRef = foundSelfRef && newRS.getObject(src.getColumnName()).
-                                equals(dbData.getObject(src.getReferenceColumn().getColumnName()));
-                    }
+                JTableColumn groupColumn = group.iterator().next();
+                Join join = findJoin(joinedQuery, alias, groupColumn);
+                if (join == null) {
+                    resolveForeignKey(dbData, component, group);
+                    continue;
                 }
-
-                if (foundSelfRef) {
-                    group.iterator().next().getField().set(component, component);
+                JTable referencesTable = join.getRemoteTable();
+                Map<String, Object> referencedRow =
+                        readRow(joinedData, referencesTable, joinedQuery.getColumnOffset(join));
+                if (isEmptyRow(referencedRow, referencesTable)) {
+                    groupColumn.getField().set(component, null);
                 } else {
-                    group.iterator().next().getField().set(
-                            component, crawlDatabase(newRS, group.iterator().next().getReferencesClass(),
-                            group.iterator().next().getReferenceTable()));
+                    groupColumn.getField().set(component, crawl(referencedRow, groupColumn.getReferencesClass(),
+                            referencesTable, joinedData, joinedQuery, join.getRemoteAlias(), null));
                 }
-
-                newRS.close();
+            }
+            Long generation = generations.get(clazz);
+            if (generation != null) {
+                cache.put(clazz, key, component, generation);
             }
             return component;
         } catch (final IllegalAccessException ex) {
             throw new RuntimeException(ex);
-        } catch (final InstantiationException ex) {
-            throw new RuntimeException(ex);
-        } catch (InvocationTargetException ex) {
-            throw new RuntimeException(ex);
-        } catch (final NoSuchMethodException ex) {
-            throw new RuntimeException(ex);
-        } catch (final SQLException ex) {
-            throw new RuntimeException(ex);
         }
     }
 
-    private void retrieveCollections(ResultSet dbData, Component masterComponent, JTable masterTable) {
+    /**
+     * The values of the primary key columns in a row of a table.
+     */
+    private List<Object> getPrimaryKey(Map<String, Object> row, JTable table) {
+        List<Object> key = new ArrayList<Object>();
+        for (JTableColumn keyColumn : table.getPrimaryKeyColumns()) {
+            key.add(row.get(keyColumn.getColumnName()));
+        }
+        return key;
+    }
+
+    /**
+     * Find the join of the query that corresponds to a foreign key group of the
+     * table with correlation name <code>alias</code>.
+     */
+    private Join findJoin(SelectQuery joinedQuery, String alias, JTableColumn groupColumn) {
+        if (joinedQuery == null) {
+            return null;
+        }
+        for (Join join : joinedQuery.getJoins()) {
+            boolean sameBase = alias == null ? join.getBaseAlias() == null : alias.equals(join.getBaseAlias());
+            if (sameBase && join.getBaseColumns().contains(groupColumn)) {
+                return join;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A row produced by an outer join which did not match any row of the remote
+     * table has <code>NULL</code> in all of its primary key columns.
+     */
+    private boolean isEmptyRow(Map<String, Object> row, JTable table) {
+        for (JTableColumn column : table.getPrimaryKeyColumns()) {
+            if (row.get(column.getColumnName()) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Resolves a foreign key of a row by means of a nested search in the referenced table.
+     */
+    private void resolveForeignKey(Map<String, Object> dbData, Component component, Set<JTableColumn> group) throws SQLException, IllegalAccessException {
+        JTableColumn groupColumn = group.iterator().next();
+        JTable referencesTable = groupColumn.getReferenceTable();
+
+        Map<JTableColumn, Object> keyValues = new HashMap<JTableColumn, Object>();
+        for (JTableColumn fkColumn : group) {
+            Object value = dbData.get(fkColumn.getColumnName());
+            if (value == null) {
+                groupColumn.getField().set(component, null);
+                return;
+            }
+            keyValues.put(fkColumn.getReferenceColumn(), value);
+        }
+        List<Object> key = new ArrayList<Object>();
+        for (JTableColumn keyColumn : referencesTable.getPrimaryKeyColumns()) {
+            key.add(keyValues.get(keyColumn));
+        }
+        Component found = identityMap.get(groupColumn.getReferencesClass(), key);
+        if (found == null) {
+            found = cache.get(groupColumn.getReferencesClass(), key);
+        }
+        if (found != null) {
+            groupColumn.getField().set(component, found);
+            return;
+        }
+
+        Map<String, Object> referencedRow = null;
+        Pair<PreparedStatement, SQLQuery> entry = pool.getSearchPK(referencesTable);
+        try {
+            PreparedStatement ps = entry.getKey();
+            SQLQuery query = entry.getValue();
+            int ps_INDEX = 1;
+            for (Proposition proposition : query.getPropositions()) {
+                JTableColumn keyColumn = proposition.getTableColumn();
+                ps.setObject(ps_INDEX++, keyValues.get(keyColumn), keyColumn.getColumnType().getType());
+            }
+            ResultSet newRS = ps.executeQuery();
+            try {
+                if (newRS.next()) {
+                    referencedRow = readRow(newRS, referencesTable);
+                }
+            } finally {
+                newRS.close();
+            }
+        } finally {
+            pool.recycleSearchPK(entry, referencesTable);
+        }
+
+        if (referencedRow == null) {
+            groupColumn.getField().set(component, null);
+            return;
+        }
+
+        groupColumn.getField().set(component,
+                crawl(referencedRow, groupColumn.getReferencesClass(), referencesTable, null, null, null, null));
+    }
+
+    private void retrieveCollections(Map<String, Object> dbData, Component masterComponent, JTable masterTable) {
 
 
         Set<JRelationalTable> relations = masterTable.getRelations();
         for (JRelationalTable relationalTable : relations) {
-            Pair<PreparedStatement, SQLQuery> entry = pool.getSearch(relationalTable);
+            Pair<PreparedStatement, SQLQuery> entry = pool.getSearchPK(relationalTable);
             PreparedStatement ps = entry.getKey();
             SQLQuery query = entry.getValue();
             Field onField = relationalTable.getOnField();
@@ -237,95 +429,84 @@ public class Crawler {
             ResultSet relRs = null;
             try {
                 try {
+                    // The propositions are equalities on the master columns
                     for (Proposition proposition : query.getPropositions()) {
                         JTableColumn relColumn = proposition.getTableColumn();
-                        if (relColumn.getColumnName().equals("METACOLUMN")) {
-                            continue;
-                        }
-
-                        Field f = relColumn.getField();
-                        if (!relationalTable.getMasterTable().equals(relColumn.getReferenceTable())) {
-                            Infinity inf = new Infinity(db);
-                            ps.setObject(ps_REL_INDEX, inf.getInfinity(proposition), relColumn.getColumnType().getType());
-                        } else {
-                            ps.setObject(ps_REL_INDEX, dbData.getObject(relColumn.getReferenceColumnName()),
-                                    relColumn.getColumnType().getType());
-                        }
-                        ps_REL_INDEX++;
+                        ps.setObject(ps_REL_INDEX++, dbData.get(relColumn.getReferenceColumnName()),
+                                relColumn.getColumnType().getType());
                     }
                     relRs = ps.executeQuery();
 
-                } catch (final SQLException ex) {
-                    throw ex;
-                } finally {
-                    pool.recycleSearch(entry, relationalTable);
-                }
-
-
-                String collectionJavaType = null;
-
-                ArrayList relList = new ArrayList();
-
-                while (relRs.next()) {
-                    Class fclass = relationalTable.getSlaveColumns().iterator().next().
-                            getField().getDeclaringClass();
-                    Constructor fconstuctor = fclass.getDeclaredConstructor();
-                    fconstuctor.setAccessible(true);
-                    Object fobj = fconstuctor.newInstance();
-
-                    for (JTableColumn col : relationalTable.getSlaveColumns()) {
-                        Field ffield = col.getField();
-                        ffield.setAccessible(true);
-                        ffield.set(fobj, relRs.getObject(col.getColumnName()));
+                    String collectionJavaType = null;
+                    Set<JTableColumn> slaveColumns = relationalTable.getSlaveColumns();
+                    JTable slaveTable = slaveColumns.iterator().next().getReferenceTable();
+                    Class<? extends Component> slaveClass = (Class<? extends Component>)
+                            slaveColumns.iterator().next().getField().getDeclaringClass();
+
+                    /*
+                     * Gather the keys of all members of the collection...
+                     */
+                    List<List<Object>> slaveKeys = new ArrayList<List<Object>>();
+                    while (relRs.next()) {
+                        List<Object> key = new ArrayList<Object>();
+                        for (JTableColumn keyColumn : slaveTable.getPrimaryKeyColumns()) {
+                            for (JTableColumn col : slaveColumns) {
+                                if (keyColumn.equals(col.getReferenceColumn())) {
+                                    key.add(relRs.getObject(col.getColumnName()));
+                                }
+                            }
+                        }
+                        slaveKeys.add(key);
+                        collectionJavaType = relRs.getString("METACOLUMN");
                     }
-
-                    Component component = (Component) fobj;
-                    ArrayList tempList;
-                    if (component.equals(masterComponent)) {
-                        tempList = new ArrayList();
-                        onField.set(component, new ArrayList());
-                        ((Collection)onField.get(component)).add(component);
-                        tempList.add(component);
-                    } else {
-                        tempList = component.search(db);
+                    relRs.close();
+                    relRs = null;
+                    pool.recycleSearchPK(entry, relationalTable);
+                    entry = null;
+
+                    /*
+                     * ...and fetch them in batches.
+                     */
+                    Map<List<Object>, Component> slaves =
+                            loadByKeys(new LinkedHashSet<List<Object>>(slaveKeys), slaveClass, slaveTable);
+
+                    ArrayList relList = new ArrayList();
+                    for (List<Object> key : slaveKeys) {
+                        if (slaves.containsKey(key)) {
+                            relList.add(slaves.get(key));
+                        }
                     }
 
-                    collectionJavaType = relRs.getString("METACOLUMN");
+                    Collection relCollection = null;
 
-                    if (tempList.isEmpty()) {
-                        onField.set(masterComponent, Class.forName(collectionJavaType).getConstructor().newInstance());
-                    } else if (tempList.size() > 1) {
-                        throw new RuntimeException("Single foreign object list has size > 1");
+                    if (collectionJavaType != null) {
+                        Class onClass = Class.forName(collectionJavaType);
+                        Constructor con = onClass.getConstructor();
+                        Object obj = con.newInstance();
+                        relCollection = (Collection) obj;
+                        relCollection.addAll(relList);
+                    } else {
+                        Class collectionType = onField.getType();
+                        try {
+                            relCollection = (Collection) collectionType.getConstructor().newInstance();
+                        } catch (NoSuchMethodException nsme) { // The class is abstract (e.g. List) and cannot be instantiated.
+                            if (List.class.isAssignableFrom(onField.getType())) {
+                                relCollection = Collections.EMPTY_LIST;
+                            } else if (Set.class.isAssignableFrom(onField.getType())) {
+                                relCollection = Collections.EMPTY_SET;
+                            } else {
+                                relCollection = null;
+                            }
+                        }
                     }
-                    relList.addAll(tempList);
-
-                }
 
-                Collection relCollection = null;
-
-                if (collectionJavaType != null) {
-                    Class onClass = Class.forName(collectionJavaType);
-                    Constructor con = onClass.getConstructor();
-                    Object obj = con.newInstance();
-                    relCollection = (Collection) obj;
-                    relCollection.addAll(relList);
-                } else {
-                    Class collectionType = onField.getType();
-                    try {
-                        relCollection = (Collection) collectionType.getConstructor().newInstance();
-                    } catch (NoSuchMethodException nsme) { // The class is abstract (e.g. List) and cannot be instantiated.
-                        if (List.class.isAssignableFrom(onField.getType())) {
-                            relCollection = Collections.EMPTY_LIST;
-                        } else if (Set.class.isAssignableFrom(onField.getType())) {                            
-                            relCollection = Collections.EMPTY_SET;
-                        } else {
-                            relCollection = null;
-                        }
+                    onField.set(masterComponent, relCollection);
+                } finally {
+                    if (entry != null) {
+                        pool.recycleSearchPK(entry, relationalTable);
                     }
                 }
 
-                onField.set(masterComponent, relCollection);
-
             } catch (final IllegalAccessException ex) {
                 throw new RuntimeException(ex);
             } catch (final InstantiationException ex) {
@@ -350,4 +531,98 @@ public class Crawler {
         }
 
     }
+
+    /**
+     * Retrieves the components with the given primary keys, in the order of the
+     * keys. Components already built by this crawler or held in the {@link EntityCache
+     * entity cache} are not looked up in the database.
+     * @return
+     *      The components found or <code>null</code> if some key was not found.
+     */
+    List<Component> loadAll(List<List<Object>> keys, Class<? extends Component> clazz, JTable table)
+            throws SQLException {
+        Map<List<Object>, Component> loaded = loadByKeys(new LinkedHashSet<List<Object>>(keys), clazz, table);
+        List<Component> found = new ArrayList<Component>(keys.size());
+        for (List<Object> key : keys) {
+            Component component = loaded.get(key);
+            if (component == null) {
+                return null;
+            }
+            found.add(component);
+        }
+        return found;
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Fetch the rows of a table that correspond to a set of primary keys and build
+     * the corresponding components. The keys are looked up in chunks whose size is
+     * one of {@link Crawler#KEY_BATCH_SIZES KEY_BATCH_SIZES}, so that only a few
+     * statements per table need to be prepared; the last chunk is padded by repeating
+     * its last key.
+     * </p>
+     * @param keys
+     *      Primary keys to look up. Each key lists its values in the order of the
+     *      primary key columns of the table.
+     * @param clazz
+     *      The class of the components stored in the table.
+     * @param table
+     *      The table where the rows are looked up.
+     * @return
+     *      Map from each primary key found in the table to the corresponding component.
+     */
+    private Map<List<Object>, Component> loadByKeys(Set<List<Object>> keys, Class<? extends Component> clazz, JTable table)
+            throws SQLException {
+        Map<List<Object>, Component> loaded = new HashMap<List<Object>, Component>();
+        List<List<Object>> pending = new ArrayList<List<Object>>();
+        for (List<Object> key : keys) {
+            Component found = identityMap.get(clazz, key);
+            if (found == null) {
+                found = cache.get(clazz, key);
+            }
+            if (found != null) {
+                loaded.put(key, found);
+            } else {
+                pending.add(key);
+            }
+        }
+        int from = 0;
+        while (from < pending.size()) {
+            int remaining = pending.size() - from;
+            int batchSize = KEY_BATCH_SIZES[KEY_BATCH_SIZES.length - 1];
+            for (int size : KEY_BATCH_SIZES) {
+                if (size >= remaining) {
+                    batchSize = size;
+                    break;
+                }
+            }
+            int to = Math.min(from + batchSize, pending.size());
+
+            Pair<PreparedStatement, SQLQuery> entry = pool.getSearchKeys(table, batchSize);
+            try {
+                PreparedStatement ps = entry.getKey();
+                SelectQuery query = (SelectQuery) entry.getValue();
+                int ps_INDEX = 1;
+                for (int i = 0; i < batchSize; i++) {
+                    List<Object> key = pending.get(Math.min(from + i, to - 1));
+                    for (Object value : key) {
+                        ps.setObject(ps_INDEX++, value);
+                    }
+                }
+                ResultSet rs = ps.executeQuery();
+                try {
+                    while (rs.next()) {
+                        Map<String, Object> row = readRow(rs, table, query.getColumnOffset(null));
+                        loaded.put(getPrimaryKey(row, table), crawl(row, clazz, table, rs, query, null, null));
+                    }
+                } finally {
+                    rs.close();
+                }
+            } finally {
+                pool.recycleSearchKeys(entry, table);
+            }
+            from = to;
+        }
+        return loaded;
+    }
 }
@@ -37,20 +37,22 @@
  */
 package org.kinkydesign.decibell.db.engine;
 
-import com.thoughtworks.xstream.XStream;
 import java.lang.reflect.Field;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.Map.Entry;
+import java.util.List;
 import org.kinkydesign.decibell.Component;
 import org.kinkydesign.decibell.DeciBell;
 import org.kinkydesign.decibell.collections.SQLType;
 import org.kinkydesign.decibell.core.ComponentRegistry;
+import org.kinkydesign.decibell.db.EntityCache;
 import org.kinkydesign.decibell.db.StatementPool;
 import org.kinkydesign.decibell.db.Table;
+import org.kinkydesign.decibell.db.interfaces.JTable;
 import org.kinkydesign.decibell.db.interfaces.JTableColumn;
 import org.kinkydesign.decibell.db.query.Proposition;
 import org.kinkydesign.decibell.db.query.SQLQuery;
+import org.kinkydesign.decibell.db.util.FieldAccessor;
 import org.kinkydesign.decibell.db.util.Infinity;
 import org.kinkydesign.decibell.db.util.Pair;
 import org.kinkydesign.decibell.exceptions.NoUniqueFieldException;
@@ -79,38 +81,89 @@ public class DeletionEngine {
         pool = StatementPool.getPool(db.getDbConnector());
     }
 
-    
+    /**
+     * <p  align="justify" style="width:60%">
+     * Delete a component from the database. If a {@link UnitOfWork unit of work}
+     * is open in the current thread, the deletion is queued and performed when the
+     * unit of work is committed.
+     * </p>
+     * @param toBeDeleted
+     *      The component to be deleted.
+     * @throws NoUniqueFieldException
+     *      In case there is no identifier for the component to be deleted.
+     */
     public void delete(Component toBeDeleted) throws NoUniqueFieldException {
-        Class c = toBeDeleted.getClass();
+        UnitOfWork work = db.getUnitOfWork();
+        if (work != null) {
+            work.delete(toBeDeleted);
+            return;
+        }
+        Table table = (Table) registry.get(toBeDeleted.getClass());
+        db.getDbConnector().acquireConnection();
+        Pair<PreparedStatement, SQLQuery> entry = pool.getDelete(table);
+        try {
+            bindDelete(entry.getKey(), entry.getValue(), toBeDeleted);
+            entry.getKey().execute();
+            EntityCache.getCache(db.getDbConnector()).invalidateAll(toBeDeleted.getClass());
+        } catch (SQLException ex) {
+            throw new RuntimeException(ex);
+        } finally {
+            pool.recycleDelete(entry, table);
+            db.getDbConnector().releaseConnection();
+        }
+    }
 
-        Table table = (Table) registry.get(c);
+    /**
+     * Delete a list of components of the same table using a JDBC batch. The
+     * components are deleted in the given order using the connection held by
+     * the current thread; the caller is responsible for the transaction.
+     * @param table
+     *      The table of the components.
+     * @param toBeDeleted
+     *      The components to be deleted.
+     * @throws NoUniqueFieldException
+     *      In case there is no identifier for some component to be deleted.
+     */
+    void deleteAll(JTable table, List<Component> toBeDeleted) throws NoUniqueFieldException {
+        db.getDbConnector().acquireConnection();
         Pair<PreparedStatement, SQLQuery> entry = pool.getDelete(table);
         PreparedStatement ps = entry.getKey();
-        SQLQuery query = entry.getValue();
+        try {
+            for (Component component : toBeDeleted) {
+                bindDelete(ps, entry.getValue(), component);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            if (!toBeDeleted.isEmpty()) {
+                EntityCache.getCache(db.getDbConnector()).invalidateAll(toBeDeleted.get(0).getClass());
+            }
+        } catch (SQLException ex) {
+            throw new RuntimeException(ex);
+        } finally {
+            pool.recycleDelete(entry, table);
+            db.getDbConnector().releaseConnection();
+        }
+    }
 
+    private void bindDelete(PreparedStatement ps, SQLQuery query, Component toBeDeleted) throws SQLException {
         try {
             int i = 1;
             for (Proposition p : query.getPropositions()) {
                 JTableColumn col = p.getTableColumn();
-                Field field = col.getField();
-                field.setAccessible(true);
-                Object obj = null;
+                FieldAccessor accessor = col.getAccessor();
                 try {
-                    obj = field.get(toBeDeleted);
-                    Infinity inf = new Infinity(db.getDbConnector());
                     if (col.isForeignKey()) {
                         Field f = col.getReferenceColumn().getField();
-                        f.setAccessible(true);
-                        ps.setObject(i, (Object) f.get(obj), col.getColumnType().getType());                        
-                    } else if (obj == null
-                            || (col.isTypeNumeric() && ((Double.parseDouble(obj.toString())) == Double.parseDouble(col.getNumericNull())))) {
+                        ps.setObject(i, (Object) f.get(accessor.get(toBeDeleted)), col.getColumnType().getType());
+                    } else if (accessor.isNull(toBeDeleted)
+                            || (col.isTypeNumeric() && accessor.isNumericNull(toBeDeleted, col.getNumericNullValue()))) {
+                        Infinity inf = new Infinity(db.getDbConnector());
                         ps.setObject(i, inf.getInfinity(p), col.getColumnType().getType());
-                    } else if (!col.getColumnType().equals(SQLType.LONG_VARCHAR)) {
-                        ps.setObject(i, obj, col.getColumnType().getType());
+                    } else if (col.getSerializer() == null) {
+                        accessor.bind(ps, i, toBeDeleted, col.getColumnType().getType());
                     } else {
-                        XStream xstream = new XStream();
-                        String xml = xstream.toXML(obj);
-                        ps.setString(i, xml);
+                        Object serialized = col.getSerializer().serialize(accessor.get(toBeDeleted));
+                        ps.setObject(i, serialized, col.getColumnType().getType());
                     }
                 } catch (NullPointerException ex) {
                     Infinity inf = new Infinity(db.getDbConnector());
@@ -118,14 +171,10 @@ public class DeletionEngine {
                 }
                 i++;
             }
-            ps.execute();
-            pool.recycleDelete(entry, table);
         } catch (IllegalArgumentException ex) {
             throw new RuntimeException(ex);
         } catch (IllegalAccessException ex) {
             throw new RuntimeException(ex);
-        } catch (SQLException ex) {
-            throw new RuntimeException(ex);
         }
     }
 }
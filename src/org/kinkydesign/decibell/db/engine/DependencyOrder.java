@@ -0,0 +1,166 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.db.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.core.ComponentRegistry;
+import org.kinkydesign.decibell.db.interfaces.JTable;
+import org.kinkydesign.decibell.db.interfaces.JTableColumn;
+
+/**
+ * <p  align="justify" style="width:60%">
+ * Orders components according to their foreign key dependencies, so that the
+ * components which are referenced by others come first. Used to write collections
+ * of components in the database (referenced rows have to be inserted before the
+ * rows which reference them and deleted after them).
+ * </p>
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+final class DependencyOrder {
+
+    private DependencyOrder() {
+    }
+
+    /**
+     * Group components by table, with the tables ordered so that referenced tables
+     * come before the tables that reference them. Within a self-referencing table,
+     * every component comes after the components of the list it references.
+     * @param registry
+     *      The registry of the database.
+     * @param components
+     *      The components to be ordered.
+     * @return
+     *      The components grouped by table, in dependency order.
+     */
+    static Map<JTable, List<Component>> groupByTable(ComponentRegistry registry, Collection<? extends Component> components) {
+        Map<Class<? extends Component>, List<Component>> byClass =
+                new LinkedHashMap<Class<? extends Component>, List<Component>>();
+        for (Component component : components) {
+            List<Component> list = byClass.get(component.getClass());
+            if (list == null) {
+                list = new ArrayList<Component>();
+                byClass.put(component.getClass(), list);
+            }
+            list.add(component);
+        }
+        Map<JTable, List<Component>> ordered = new LinkedHashMap<JTable, List<Component>>();
+        Set<Class<? extends Component>> visited = new HashSet<Class<? extends Component>>();
+        for (Class<? extends Component> c : byClass.keySet()) {
+            visitTable(registry, c, byClass, visited, ordered);
+        }
+        return ordered;
+    }
+
+    /**
+     * The reverse of {@link DependencyOrder#groupByTable(org.kinkydesign.decibell.core.ComponentRegistry,
+     * java.util.Collection) groupByTable}: the components which reference others come first.
+     * @param registry
+     *      The registry of the database.
+     * @param components
+     *      The components to be ordered.
+     * @return
+     *      The components grouped by table, in reverse dependency order.
+     */
+    static Map<JTable, List<Component>> groupByTableReversed(ComponentRegistry registry, Collection<? extends Component> components) {
+        List<Map.Entry<JTable, List<Component>>> entries =
+                new ArrayList<Map.Entry<JTable, List<Component>>>(groupByTable(registry, components).entrySet());
+        Collections.reverse(entries);
+        Map<JTable, List<Component>> reversed = new LinkedHashMap<JTable, List<Component>>();
+        for (Map.Entry<JTable, List<Component>> entry : entries) {
+            List<Component> list = new ArrayList<Component>(entry.getValue());
+            Collections.reverse(list);
+            reversed.put(entry.getKey(), list);
+        }
+        return reversed;
+    }
+
+    private static void visitTable(ComponentRegistry registry, Class<? extends Component> c,
+            Map<Class<? extends Component>, List<Component>> byClass,
+            Set<Class<? extends Component>> visited, Map<JTable, List<Component>> ordered) {
+        if (!visited.add(c)) {
+            return;
+        }
+        for (Class<? extends Component> parent : registry.getParents(c)) {
+            if (!parent.equals(c)) {
+                visitTable(registry, parent, byClass, visited, ordered);
+            }
+        }
+        List<Component> list = byClass.get(c);
+        if (list != null) {
+            JTable table = registry.get(c);
+            ordered.put(table, table.isSelfReferencing() ? orderBySelfReference(table, list) : list);
+        }
+    }
+
+    private static List<Component> orderBySelfReference(JTable table, List<Component> components) {
+        Set<Component> pending = Collections.newSetFromMap(new IdentityHashMap<Component, Boolean>());
+        pending.addAll(components);
+        List<Component> ordered = new ArrayList<Component>(components.size());
+        for (Component component : components) {
+            visitComponent(table, component, pending, ordered);
+        }
+        return ordered;
+    }
+
+    private static void visitComponent(JTable table, Component component, Set<Component> pending, List<Component> ordered) {
+        if (!pending.remove(component)) {
+            return;
+        }
+        try {
+            for (JTableColumn column : table.getForeignKeyColumns()) {
+                if (column.isSelfReferencing()) {
+                    Object referenced = column.getField().get(component);
+                    if (referenced != null && referenced != component) {
+                        visitComponent(table, (Component) referenced, pending, ordered);
+                    }
+                }
+            }
+        } catch (IllegalAccessException ex) {
+            throw new RuntimeException(ex);
+        }
+        ordered.add(component);
+    }
+}
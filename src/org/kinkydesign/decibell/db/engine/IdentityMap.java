@@ -0,0 +1,127 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.db.engine;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.kinkydesign.decibell.Component;
+
+/**
+ * <p  align="justify" style="width:60%">
+ * An identity map holds the components that have been built during a search
+ * operation, indexed by their class and the values of their primary key (as
+ * these are stored in the database). The {@link Crawler crawler} consults the map
+ * before looking up a row, so that a component which is referenced by many
+ * rows is retrieved from the database only once and all rows point to the same
+ * java object. Since components are registered in the map before their foreign
+ * keys and collections are resolved, the map also terminates the retrieval of
+ * cyclic references.
+ * </p>
+ * <p  align="justify" style="width:60%">
+ * Identity maps are not thread-safe and are meant to live as long as a single
+ * search operation.
+ * </p>
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+public class IdentityMap {
+
+    private final Map<Class<? extends Component>, Map<List<Object>, Component>> components =
+            new HashMap<Class<? extends Component>, Map<List<Object>, Component>>();
+
+    public IdentityMap() {
+    }
+
+    /**
+     * Returns the component of the given class with the given primary key.
+     * @param clazz
+     *      The class of the component.
+     * @param key
+     *      Values of the primary key columns of the component, in the order of
+     *      the primary key columns of its table.
+     * @return
+     *      The component found in the map or <code>null</code> if no such
+     *      component has been built yet.
+     */
+    public Component get(Class<? extends Component> clazz, List<Object> key) {
+        Map<List<Object>, Component> componentsOfClass = components.get(clazz);
+        if (componentsOfClass == null) {
+            return null;
+        }
+        return componentsOfClass.get(key);
+    }
+
+    /**
+     * Registers a component in the map.
+     * @param clazz
+     *      The class of the component.
+     * @param key
+     *      Values of the primary key columns of the component, in the order of
+     *      the primary key columns of its table.
+     * @param component
+     *      The component.
+     */
+    public void put(Class<? extends Component> clazz, List<Object> key, Component component) {
+        Map<List<Object>, Component> componentsOfClass = components.get(clazz);
+        if (componentsOfClass == null) {
+            componentsOfClass = new HashMap<List<Object>, Component>();
+            components.put(clazz, componentsOfClass);
+        }
+        componentsOfClass.put(key, component);
+    }
+
+    /**
+     * Removes a component from the map.
+     * @param clazz
+     *      The class of the component.
+     * @param key
+     *      Values of the primary key columns of the component.
+     */
+    public void remove(Class<? extends Component> clazz, List<Object> key) {
+        Map<List<Object>, Component> componentsOfClass = components.get(clazz);
+        if (componentsOfClass != null) {
+            componentsOfClass.remove(key);
+        }
+    }
+
+    /**
+     * Removes all components from the map.
+     */
+    public void clear() {
+        components.clear();
+    }
+}
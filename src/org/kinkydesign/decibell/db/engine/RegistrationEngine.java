@@ -35,7 +35,6 @@
  */
 package org.kinkydesign.decibell.db.engine;
 
-import com.thoughtworks.xstream.XStream;
 import java.lang.reflect.Field;
 import java.sql.*;
 import java.util.*;
@@ -45,6 +44,7 @@ import org.kinkydesign.decibell.core.ComponentRegistry;
 import org.kinkydesign.decibell.db.*;
 import org.kinkydesign.decibell.db.interfaces.*;
 import org.kinkydesign.decibell.db.query.SQLQuery;
+import org.kinkydesign.decibell.db.util.FieldAccessor;
 import org.kinkydesign.decibell.db.util.Pair;
 import org.kinkydesign.decibell.exceptions.*;
 
@@ -64,7 +64,11 @@ public class RegistrationEngine {
     private final ComponentRegistry registry;
     private final StatementPool pool;
     static final String __NULL__ = new String(new byte[]{1}); // package-restricted access
-    private static final String __DuplicateKey_State__ = "23505";
+    /**
+     * Maximum number of rows sent to the database in a single JDBC batch by
+     * {@link RegistrationEngine#registerAll(java.util.Collection) registerAll}.
+     */
+    private static final int BATCH_SIZE = 1000;
 
     /**
      * <p  align="justify" style="width:60%">
@@ -96,20 +100,212 @@ public class RegistrationEngine {
      *      field which is <code>null</code>. This is because, when a collection
      *      is written in the database, DeciBell also stores the specific implementation
      *      of that list, to be able afterwards to retrieve these data in the proper form.
+     *      If a {@link UnitOfWork unit of work} is open in the current thread, the
+     *      component is only queued and these exceptions are thrown upon commit.
      */
     public void register(Component toBeWritten)
             throws DuplicateKeyException, ImproperRegistration {
+        UnitOfWork work = db.getUnitOfWork();
+        if (work != null) {
+            work.register(toBeWritten);
+            return;
+        }
+        db.getDbConnector().acquireConnection();
         try {
             save(toBeWritten);
+            EntityCache.getCache(db.getDbConnector()).invalidate(toBeWritten);
         } catch (SQLException ex) {
-            if (ex.getSQLState().equals(__DuplicateKey_State__)) {
+            if (isDuplicateKey(ex)) {
                 throw new DuplicateKeyException(toBeWritten, db.getDbConnector(), ex);
             } else {
                 throw new RuntimeException(ex);
             }
+        } finally {
+            db.getDbConnector().releaseConnection();
+        }
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Register a collection of components in a database identified by a {@link DeciBell }
+     * object. The components are grouped by table and the tables are written so that
+     * the components which are referenced by others (through foreign keys) are
+     * registered first; within a self-referencing table, referenced components
+     * precede the ones that reference them. Rows are inserted using JDBC batches
+     * and the whole operation is performed in a single transaction: if any of the
+     * components cannot be registered, none is. Components of tables with an
+     * autogenerated key are inserted one by one, as the generated keys of a batch
+     * are not available; their keys are set to the corresponding fields as in
+     * {@link RegistrationEngine#register(org.kinkydesign.decibell.Component) register}.
+     * </p>
+     * <p  align="justify" style="width:60%">
+     * If the connection of the current thread is already in a transaction, the
+     * components are written within that transaction, which is neither committed
+     * nor rolled back by this method. If a {@link UnitOfWork unit of work} is open
+     * in the current thread, the components are only queued.
+     * </p>
+     * @param toBeWritten
+     *      The components to be registered. All referenced components must be either
+     *      already registered or contained in the collection.
+     * @throws DuplicateKeyException
+     *      In case one of the components is already in the database.
+     * @throws ImproperRegistration
+     *      In case one of the components cannot be registered (see {@link
+     *      RegistrationEngine#register(org.kinkydesign.decibell.Component) register}).
+     */
+    public void registerAll(Collection<? extends Component> toBeWritten)
+            throws DuplicateKeyException, ImproperRegistration {
+        UnitOfWork work = db.getUnitOfWork();
+        if (work != null) {
+            for (Component component : toBeWritten) {
+                work.register(component);
+            }
+            return;
+        }
+        Connection connection = db.getDbConnector().acquireConnection();
+        boolean ownTransaction = false;
+        boolean done = false;
+        try {
+            ownTransaction = connection.getAutoCommit();
+            if (ownTransaction) {
+                connection.setAutoCommit(false);
+            }
+            Map<JTable, List<Component>> tables = DependencyOrder.groupByTable(registry, toBeWritten);
+            for (Map.Entry<JTable, List<Component>> tableComponents : tables.entrySet()) {
+                saveAll(tableComponents.getKey(), tableComponents.getValue());
+            }
+            for (Map.Entry<JTable, List<Component>> tableComponents : tables.entrySet()) {
+                registerAllCollections(tableComponents.getKey(), tableComponents.getValue());
+            }
+            if (ownTransaction) {
+                connection.commit();
+            }
+            done = true;
+            EntityCache cache = EntityCache.getCache(db.getDbConnector());
+            for (Component component : toBeWritten) {
+                cache.invalidate(component);
+            }
+        } catch (SQLException ex) {
+            throw new RuntimeException(ex);
+        } finally {
+            try {
+                if (ownTransaction) {
+                    if (!done) {
+                        connection.rollback();
+                    }
+                    connection.setAutoCommit(true);
+                }
+            } catch (SQLException ex) {
+                if (done) {
+                    throw new RuntimeException(ex);
+                } // otherwise the original exception propagates
+            } finally {
+                db.getDbConnector().releaseConnection();
+            }
+        }
+    }
+
+    /**
+     * Insert the rows of the components of a table using batches (or row by row
+     * if the table has an autogenerated key).
+     */
+    private void saveAll(JTable table, List<Component> components)
+            throws DuplicateKeyException, ImproperRegistration, SQLException {
+        Pair<PreparedStatement, SQLQuery> entry = pool.getRegister(table);
+        PreparedStatement ps = entry.getKey();
+        SQLQuery sqlQuery = entry.getValue();
+        try {
+            if (table.getAutogeneratedColumn() != null) {
+                for (Component component : components) {
+                    bindRegister(component, ps, sqlQuery);
+                    try {
+                        ps.executeUpdate();
+                    } catch (SQLException ex) {
+                        if (isDuplicateKey(ex)) {
+                            throw new DuplicateKeyException(component, db.getDbConnector(), ex);
+                        }
+                        throw ex;
+                    }
+                    getAutogeneratedFieldValue(component, table, ps);
+                }
+                return;
+            }
+            int from = 0;
+            while (from < components.size()) {
+                List<Component> chunk = components.subList(from, Math.min(from + BATCH_SIZE, components.size()));
+                for (Component component : chunk) {
+                    bindRegister(component, ps, sqlQuery);
+                    ps.addBatch();
+                }
+                executeBatch(ps, chunk);
+                from += chunk.size();
+            }
+        } finally {
+            pool.recycleRegister(entry, table);
+        }
+    }
+
+    private void registerAllCollections(JTable table, List<Component> components)
+            throws DuplicateKeyException, SQLException {
+        for (JRelationalTable relationalTable : table.getRelations()) {
+            Pair<PreparedStatement, SQLQuery> entry = pool.getRegister(relationalTable);
+            try {
+                PreparedStatement ps = entry.getKey();
+                int rows = 0;
+                for (Component component : components) {
+                    addRelationalRows(component, relationalTable, ps);
+                    rows += ((Collection) relationalTable.getOnField().get(component)).size();
+                    if (rows >= BATCH_SIZE) {
+                        executeBatch(ps, null);
+                        rows = 0;
+                    }
+                }
+                executeBatch(ps, null);
+            } catch (IllegalAccessException ex) {
+                throw new RuntimeException(ex);
+            } finally {
+                pool.recycleRegister(entry, relationalTable);
+            }
+        }
+    }
+
+    /**
+     * Execute a batch; a duplicate key is reported for the first component of
+     * the batch whose row failed (if the components are known).
+     */
+    private void executeBatch(PreparedStatement ps, List<Component> components)
+            throws DuplicateKeyException, SQLException {
+        try {
+            ps.executeBatch();
+        } catch (BatchUpdateException ex) {
+            if (!isDuplicateKey(ex)) {
+                throw ex;
+            }
+            if (components == null) {
+                throw new DuplicateKeyException(ex);
+            }
+            int[] counts = ex.getUpdateCounts();
+            int failed = counts.length;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == Statement.EXECUTE_FAILED) {
+                    failed = i;
+                    break;
+                }
+            }
+            throw new DuplicateKeyException(components.get(Math.min(failed, components.size() - 1)),
+                    db.getDbConnector(), ex);
         }
     }
 
+    private boolean isDuplicateKey(SQLException ex) {
+        for (SQLException e = ex; e != null; e = e.getNextException()) {
+            if (db.getDbConnector().getDialect().isDuplicateKey(e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void save(Component whatToWrite)
             throws DuplicateKeyException, ImproperRegistration, SQLException {
 
@@ -119,10 +315,25 @@ public class RegistrationEngine {
         PreparedStatement ps = entry.getKey();
         SQLQuery sqlQuery = entry.getValue();
 
+        try {
+            bindRegister(whatToWrite, ps, sqlQuery);
+            ps.executeUpdate();
+            getAutogeneratedFieldValue(whatToWrite, table, ps);
+        } finally {
+            pool.recycleRegister(entry, table);
+        }
+        // Finally register data in the relational tables.
+        registerCollections(whatToWrite, table);
+    }
+
+    /**
+     * Set the parameters of a register statement to the values of a component.
+     */
+    private void bindRegister(Component whatToWrite, PreparedStatement ps, SQLQuery sqlQuery)
+            throws ImproperRegistration, SQLException {
         int ps_INDEX = 1;
         for (JTableColumn column : sqlQuery.getColumns()) {
             Field columnField = column.getField();
-            columnField.setAccessible(true);
 
             /*
              * CASE: Numeric and not a FK
@@ -135,8 +346,8 @@ public class RegistrationEngine {
                 handleSimpleStrings(whatToWrite, ps, column, columnField, ps_INDEX);
             } /*
              * CASE: Object (XML) and not FK
-             */ else if (!column.isForeignKey() && column.getColumnType().equals(SQLType.LONG_VARCHAR)) {   // XStream (NOT FOREIGN)
-                handleSimpleXStream(whatToWrite, ps, column, columnField, ps_INDEX);
+             */ else if (!column.isForeignKey() && column.getSerializer() != null) {   // Serialized (NOT FOREIGN)
+                handleSimpleSerialized(whatToWrite, ps, column, columnField, ps_INDEX);
             } /*
              * CASE: Foreign Key and not collection
              */ else if (column.isForeignKey() && !Collection.class.isAssignableFrom(columnField.getType())) {
@@ -152,11 +363,6 @@ public class RegistrationEngine {
             }
             ps_INDEX++;
         }
-        ps.executeUpdate();
-        getAutogeneratedFieldValue(whatToWrite, table, ps);
-        pool.recycleRegister(entry, table);
-        // Finally register data in the relational tables.
-        registerCollections(whatToWrite, table);
     }
 
     private void checkNullity(Component whatToWrite, Field columnField) throws ImproperRegistration {
@@ -175,23 +381,20 @@ public class RegistrationEngine {
 
     private void handleSimpleNumerics(Component whatTowrite, PreparedStatement ps, JTableColumn column, Field columnField, int ps_INDEX)
             throws ImproperRegistration, SQLException {
-        try {
-            double valueToBeWritten = Double.parseDouble(columnField.get(whatTowrite).toString());
-            double numericNullValue = Double.parseDouble(column.getNumericNull());
-            String columnDefaultValue = column.getDefaultValue();
+        FieldAccessor accessor = column.getAccessor();
+        double valueToBeWritten = accessor.getDouble(whatTowrite);
+        double numericNullValue = column.getNumericNullValue();
+        String columnDefaultValue = column.getDefaultValue();
 
-            if (numericNullValue == valueToBeWritten && columnDefaultValue == null) {
-                throw new ImproperRegistration("You cannot write the value " + numericNullValue
-                        + " in the database (value of field:" + columnField.getName() + ") "
-                        + "because it is used as the Numeric Null value for this field in the class "
-                        + whatTowrite.getClass().getName() + ".");
-            } else if (numericNullValue == valueToBeWritten && columnDefaultValue != null) {
-                ps.setObject(ps_INDEX, columnDefaultValue, column.getColumnType().getType());
-            } else if (numericNullValue != valueToBeWritten) {
-                ps.setObject(ps_INDEX, valueToBeWritten, column.getColumnType().getType());
-            }
-        } catch (IllegalAccessException ex) {
-            throw new RuntimeException(ex);
+        if (numericNullValue == valueToBeWritten && columnDefaultValue == null) {
+            throw new ImproperRegistration("You cannot write the value " + numericNullValue
+                    + " in the database (value of field:" + columnField.getName() + ") "
+                    + "because it is used as the Numeric Null value for this field in the class "
+                    + whatTowrite.getClass().getName() + ".");
+        } else if (numericNullValue == valueToBeWritten && columnDefaultValue != null) {
+            ps.setObject(ps_INDEX, columnDefaultValue, column.getColumnType().getType());
+        } else if (numericNullValue != valueToBeWritten) {
+            accessor.bind(ps, ps_INDEX, whatTowrite, column.getColumnType().getType());
         }
     }
 
@@ -212,16 +415,17 @@ public class RegistrationEngine {
         }
     }
 
-    private void handleSimpleXStream(Component whatTowrite, PreparedStatement ps, JTableColumn column, Field columnField, int ps_INDEX)
+    private void handleSimpleSerialized(Component whatTowrite, PreparedStatement ps, JTableColumn column, Field columnField, int ps_INDEX)
             throws ImproperRegistration, SQLException {
         try {
             Object valueToBeWritten = columnField.get(whatTowrite);
-            if (valueToBeWritten == null) {
+            if (valueToBeWritten == null && column.getColumnType().equals(SQLType.LONG_VARCHAR)) {
                 ps.setObject(ps_INDEX, __NULL__, column.getColumnType().getType());
+            } else if (valueToBeWritten == null) {
+                ps.setNull(ps_INDEX, column.getColumnType().getType());
             } else {
-                XStream xstream = new XStream();
-                String serializedObject_XML = xstream.toXML(valueToBeWritten);
-                ps.setString(ps_INDEX, serializedObject_XML);
+                Object serialized = column.getSerializer().serialize(valueToBeWritten);
+                ps.setObject(ps_INDEX, serialized, column.getColumnType().getType());
             }
         } catch (IllegalAccessException ex) {
             throw new RuntimeException(ex);
@@ -263,43 +467,49 @@ public class RegistrationEngine {
 
     private void registerCollections(Component whatTowrite, JTable table)
             throws ImproperRegistration, SQLException {
+        for (JRelationalTable relationalTable : table.getRelations()) { // Iterate over all relational tables (i.e. over all collections in MASTER).
+            Pair<PreparedStatement, SQLQuery> entry = pool.getRegister(relationalTable);
+            try {
+                PreparedStatement ps = entry.getKey();
+                addRelationalRows(whatTowrite, relationalTable, ps);
+                ps.executeBatch();
+            } finally {
+                pool.recycleRegister(entry, relationalTable);
+            }
+        }
+    }
 
-        Set<JRelationalTable> relationalTables = table.getRelations();
-        Pair<PreparedStatement, SQLQuery> entry = null;
-        PreparedStatement ps = null;
-
+    /**
+     * Add to the batch of a register statement of a relational table one row for
+     * every element of the corresponding collection of the master component.
+     */
+    private void addRelationalRows(Component whatTowrite, JRelationalTable relationalTable, PreparedStatement ps)
+            throws SQLException {
         try {
-            for (JRelationalTable relationalTable : relationalTables) { // Iterate over all relational tables (i.e. over all collections in MASTER).
-                entry = pool.getRegister(relationalTable);
-                ps = entry.getKey();
-                Field onField = relationalTable.getOnField(); // <-- The collection
-                Collection collection = (Collection) onField.get(whatTowrite);
-                for (Object o : collection) {
-                    int ps_INDEX = 1;
-                    for (JTableColumn column : relationalTable.getTableColumns()) {
-                        if (column.getColumnName().equals("METACOLUMN")) {
-                            ps.setObject(ps_INDEX, collection.getClass().getName(), SQLType.VARCHAR.getType());
-                            ps_INDEX++;
-                            continue;
-                        }
-                        Field f = column.getField();
-                        if (column.getReferenceTable().equals(relationalTable.getMasterTable())) {
-                            ps.setObject(ps_INDEX,
-                                    getForeignKeyValue(whatTowrite, column.getReferenceColumn(), f));
-                        } else {
-                            ps.setObject(ps_INDEX, getForeignKeyValue((Component) o, column.getReferenceColumn(), f), column.getColumnType().getType());
-                        }
+            Field onField = relationalTable.getOnField(); // <-- The collection
+            Collection collection = (Collection) onField.get(whatTowrite);
+            for (Object o : collection) {
+                int ps_INDEX = 1;
+                for (JTableColumn column : relationalTable.getTableColumns()) {
+                    if (column.getColumnName().equals("METACOLUMN")) {
+                        ps.setObject(ps_INDEX, collection.getClass().getName(), SQLType.VARCHAR.getType());
                         ps_INDEX++;
+                        continue;
                     }
-                    ps.addBatch();
+                    Field f = column.getField();
+                    if (column.getReferenceTable().equals(relationalTable.getMasterTable())) {
+                        ps.setObject(ps_INDEX,
+                                getForeignKeyValue(whatTowrite, column.getReferenceColumn(), f));
+                    } else {
+                        ps.setObject(ps_INDEX, getForeignKeyValue((Component) o, column.getReferenceColumn(), f), column.getColumnType().getType());
+                    }
+                    ps_INDEX++;
                 }
-                ps.executeBatch();
-                pool.recycleRegister(entry, relationalTable);
+                ps.addBatch();
             }
         } catch (IllegalAccessException ex) {
             throw new RuntimeException(ex);
         }
-
     }
 
     private void getAutogeneratedFieldValue(Component component, JTable table, PreparedStatement ps) throws SQLException {
@@ -0,0 +1,186 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.db.engine;
+
+import java.io.Closeable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.DeciBell;
+import org.kinkydesign.decibell.db.StatementPool;
+import org.kinkydesign.decibell.db.interfaces.JTable;
+import org.kinkydesign.decibell.db.query.SQLQuery;
+import org.kinkydesign.decibell.db.query.SelectQuery;
+import org.kinkydesign.decibell.db.util.Pair;
+
+/**
+ * <p  align="justify" style="width:60%">
+ * The result of a streaming search (see {@link SearchEngine#stream(org.kinkydesign.decibell.Component)
+ * stream}). Rows are read from the open result set and turned into components
+ * one at a time, as the cursor is iterated, so that arbitrarily large results are
+ * processed in constant memory. Components are not shared between rows: every
+ * row is retrieved by a new {@link Crawler}.
+ * </p>
+ * <p  align="justify" style="width:60%">
+ * The cursor holds a connection and a pooled statement until it is closed. It
+ * is closed automatically when it is exhausted or fails; otherwise it must be
+ * closed explicitly, in a <code>finally</code> block:
+ * </p>
+ * <pre>
+ * SearchCursor&lt;Person&gt; persons = new Person().stream(db);
+ * try {
+ *      while (persons.hasNext()) {
+ *          export(persons.next());
+ *      }
+ * } finally {
+ *      persons.close();
+ * }
+ * </pre>
+ * <p  align="justify" style="width:60%">
+ * The connection belongs to the thread that opened the cursor, so the cursor
+ * must be iterated and closed by that thread.
+ * </p>
+ * @param <T>
+ *      The type of the components found.
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+public class SearchCursor<T extends Component> implements Iterator<T>, Closeable {
+
+    private final DeciBell db;
+    private final StatementPool pool;
+    private final JTable table;
+    private final Class<? extends Component> clazz;
+    private final Pair<PreparedStatement, SQLQuery> entry;
+    private final ResultSet resultSet;
+    private final boolean joined;
+    private final SearchPlan<T> plan;
+    private final SearchPlan<T>.Filter filter;
+    private final Map<Class<? extends Component>, Long> generations;
+    private T next = null;
+    private boolean closed = false;
+
+    SearchCursor(DeciBell db, StatementPool pool, JTable table, Class<? extends Component> clazz,
+            Pair<PreparedStatement, SQLQuery> entry, ResultSet resultSet, boolean joined, SearchPlan<T> plan,
+            Map<Class<? extends Component>, Long> generations) {
+        this.db = db;
+        this.pool = pool;
+        this.table = table;
+        this.clazz = clazz;
+        this.entry = entry;
+        this.resultSet = resultSet;
+        this.joined = joined;
+        this.plan = plan;
+        this.filter = plan.newFilter(plan.isEarly());
+        this.generations = generations;
+    }
+
+    public boolean hasNext() {
+        while (next == null && !closed) {
+            try {
+                if (filter.isFull() || !resultSet.next()) {
+                    close();
+                    break;
+                }
+                Crawler crawler = new Crawler(db, pool);
+                crawler.setGenerations(generations);
+                if (plan.isEarly()) {
+                    crawler.setSieve(plan.getResidual());
+                }
+                T componentFromDB = joined
+                        ? (T) crawler.crawlDatabase(resultSet, clazz, (SelectQuery) entry.getValue())
+                        : (T) crawler.crawlDatabase(resultSet, clazz, table);
+                if (componentFromDB != null && filter.accept(componentFromDB)) {
+                    next = componentFromDB;
+                }
+            } catch (SQLException ex) {
+                close();
+                throw new RuntimeException(ex);
+            } catch (RuntimeException ex) {
+                close();
+                throw ex;
+            }
+        }
+        return next != null;
+    }
+
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T found = next;
+        next = null;
+        return found;
+    }
+
+    /**
+     * Components cannot be removed through a cursor.
+     * @throws UnsupportedOperationException
+     *      Always.
+     */
+    public void remove() {
+        throw new UnsupportedOperationException("Components cannot be removed through a search cursor");
+    }
+
+    /**
+     * Closes the result set, returns the statement to the pool and releases the
+     * connection. Closing a closed cursor has no effect.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        next = null;
+        try {
+            resultSet.close();
+            entry.getKey().setFetchSize(0);
+        } catch (SQLException ex) {
+            /* The statement is reset (or dropped) when recycled */
+        } finally {
+            pool.recycleSearch(entry, table);
+            db.getDbConnector().releaseConnection();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+}
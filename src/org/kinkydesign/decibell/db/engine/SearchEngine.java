@@ -35,14 +35,12 @@
  */
 package org.kinkydesign.decibell.db.engine;
 
-import com.thoughtworks.xstream.XStream;
 import java.lang.reflect.*;
 import java.sql.*;
 import java.util.*;
 import java.util.ArrayList;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 import org.kinkydesign.decibell.*;
+import org.kinkydesign.decibell.collections.HydrationMode;
 import org.kinkydesign.decibell.collections.SQLType;
 import org.kinkydesign.decibell.core.ComponentRegistry;
 import org.kinkydesign.decibell.db.*;
@@ -69,10 +67,15 @@ import org.kinkydesign.decibell.db.util.*;
 public class SearchEngine<T extends Component> {
 
     private JSieve<T> sieve = null;
+    private SearchOptions options = null;
     private final DeciBell db;
     private final StatementPool pool;
     private final ComponentRegistry registry;
     private static final String __NULL__ = RegistrationEngine.__NULL__;
+    /**
+     * The number of rows fetched at a time by streaming searches.
+     */
+    public static final int DEFAULT_FETCH_SIZE = 100;
 
     public SearchEngine(final DeciBell db) {
         this.db = db;
@@ -85,6 +88,21 @@ public class SearchEngine<T extends Component> {
         this.sieve = sieve;
     }
 
+    /**
+     * Initialize a search engine which orders and pages the components found.
+     * @param db
+     *      The database.
+     * @param sieve
+     *      A sieve for the components found or <code>null</code>.
+     * @param options
+     *      The order and page of the components found or <code>null</code>.
+     * @see SearchOptions
+     */
+    public SearchEngine(final DeciBell db, final JSieve<T> sieve, final SearchOptions options) {
+        this(db, sieve);
+        this.options = options;
+    }
+
     /**
      *
      * @param prototype
@@ -94,6 +112,7 @@ public class SearchEngine<T extends Component> {
      */
     public ArrayList<T> search(Component prototype) {
         JTable table = registry.get(prototype.getClass());
+        db.getDbConnector().acquireConnection();
         try {
             if (isComponentTerminal(prototype, table)) {
                 return doSearchTerminal(prototype);
@@ -103,6 +122,79 @@ public class SearchEngine<T extends Component> {
             }
         } catch (SQLException ex) {
             throw new RuntimeException(ex);
+        } finally {
+            db.getDbConnector().releaseConnection();
+        }
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Search for components resembling the prototype without retrieving them all
+     * at once: the components are read from the database as the returned {@link
+     * SearchCursor cursor} is iterated. Use it for results that do not fit in
+     * memory, e.g. exports and batch jobs. The cursor must be closed. Streaming
+     * searches are never served from the cache.
+     * </p>
+     * @param prototype
+     *      Object to search for in the database (its foreign keys and collections
+     *      must be <code>null</code>).
+     * @return
+     *      A cursor over the components found.
+     * @see SearchEngine#stream(org.kinkydesign.decibell.Component, int)
+     */
+    public SearchCursor<T> stream(Component prototype) {
+        return stream(prototype, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Search for components resembling the prototype; the components are read
+     * from the database as the returned cursor is iterated.
+     * @param prototype
+     *      Object to search for in the database (its foreign keys and collections
+     *      must be <code>null</code>).
+     * @param fetchSize
+     *      The number of rows fetched from the database at a time.
+     * @return
+     *      A cursor over the components found.
+     * @throws IllegalArgumentException
+     *      If the prototype has a foreign key or a collection which is not null.
+     */
+    public SearchCursor<T> stream(Component prototype, int fetchSize) {
+        JTable table = registry.get(prototype.getClass());
+        if (!isComponentTerminal(prototype, table)) {
+            throw new IllegalArgumentException("Streaming searches require a prototype without "
+                    + "foreign keys and collections");
+        }
+        boolean joined = HydrationMode.JOIN.equals(db.getHydrationMode())
+                && !table.getForeignKeyColumns().isEmpty();
+        BitSet searchMask = getSearchMask(prototype, table);
+        searchMask.set(SelectQuery.MASK_JOINED, joined);
+        SearchPlan<T> plan = SearchPlan.create(sieve, options, table);
+
+        db.getDbConnector().acquireConnection();
+        Pair<PreparedStatement, SQLQuery> entry = null;
+        SearchCursor<T> cursor = null;
+        try {
+            entry = checkout(table, searchMask, plan);
+            PreparedStatement ps = entry.getKey();
+            bind(ps, entry.getValue(), getBoundValues(prototype, table, searchMask), plan);
+            ps.setFetchSize(fetchSize);
+            Map<Class<? extends Component>, Long> generations = EntityCache.getCache(db.getDbConnector()).getGenerations();
+            ResultSet resultSet = ps.executeQuery();
+            cursor = new SearchCursor<T>(db, pool, table, prototype.getClass(), entry, resultSet, joined, plan,
+                    generations);
+            return cursor;
+        } catch (SQLException ex) {
+            throw new RuntimeException(ex);
+        } catch (IllegalAccessException ex) {
+            throw new RuntimeException(ex);
+        } finally {
+            if (cursor == null) {
+                if (entry != null) {
+                    pool.recycleSearch(entry, table);
+                }
+                db.getDbConnector().releaseConnection();
+            }
         }
     }
 
@@ -113,113 +205,282 @@ public class SearchEngine<T extends Component> {
             return null;
         }
 
-        ArrayList<T> resultList = new ArrayList<T>();
+        if (options == null && isPrimaryKeyLookup(component, table)) {
+            return doSearchPrimaryKey(component, table);
+        }
 
-        Pair<PreparedStatement, SQLQuery> entry = pool.getSearch(table);
-        PreparedStatement ps = entry.getKey();
-        SQLQuery query = entry.getValue();
-        Infinity infinity = new Infinity(db);
+        ArrayList<T> resultList = new ArrayList<T>();
 
-        int ps_INDEX = 1;
+        boolean joined = HydrationMode.JOIN.equals(db.getHydrationMode())
+                && !table.getForeignKeyColumns().isEmpty();
+        BitSet searchMask = getSearchMask(component, table);
+        searchMask.set(SelectQuery.MASK_JOINED, joined);
+        SearchPlan<T> plan = SearchPlan.create(sieve, options, table);
+        List<Object> values;
+        try {
+            values = getBoundValues(component, table, searchMask);
+        } catch (IllegalAccessException ex) {
+            throw new RuntimeException(ex);
+        }
 
-        for (Proposition proposition : query.getPropositions()) {
-            Object whatever = infinity.getInfinity(proposition);
-            JTableColumn column = proposition.getTableColumn();
-            Field field = column.getField();
-
-            if (!column.isForeignKey() && column.isTypeNumeric()) {
-                handleTerminalNumeric(component, ps, column, field, ps_INDEX, whatever);
-            } else if (!column.isForeignKey() && column.getColumnType().equals(SQLType.VARCHAR)) {
-                handleTerminalString(component, ps, column, field, ps_INDEX, whatever);
-            } else if (!column.isForeignKey() && column.getColumnType().equals(SQLType.LONG_VARCHAR)) {
-                handleTerminalXML(component, ps, column, field, ps_INDEX, whatever);
-            } else if (column.isForeignKey()) {
-                handleTerminalFK(component, ps, column, field, ps_INDEX, whatever);
-            } else {
-                throw new RuntimeException("WTF!?");
+        /*
+         * The query cache is checked before a search statement is checked out.
+         * Searches whose limit is applied in memory stop reading before the end
+         * of the rows, so their keys are not cached.
+         */
+        EntityCache cache = EntityCache.getCache(db.getDbConnector());
+        List<Object> cacheKey = null;
+        long generation = 0;
+        if (!plan.isLimitedInMemory() && cache.isQueryCacheEnabled(component.getClass())) {
+            cacheKey = getQueryCacheKey(searchMask, plan, values);
+            generation = cache.getQueryGeneration(component.getClass());
+            List<List<Object>> keys = cache.getQuery(component.getClass(), cacheKey);
+            if (keys != null) {
+                List<Component> found = new Crawler(db, pool).loadAll(keys, component.getClass(), table);
+                if (found != null) {
+                    SearchPlan<T>.Filter filter = plan.newFilter(false);
+                    for (Component componentFromCache : found) {
+                        if (filter.accept((T) componentFromCache)) {
+                            resultList.add((T) componentFromCache);
+                        }
+                    }
+                    return resultList;
+                }
             }
-            ps_INDEX++;
         }
 
-        ResultSet resultSet = ps.executeQuery();
+        Pair<PreparedStatement, SQLQuery> entry = checkout(table, searchMask, plan);
+        PreparedStatement ps = entry.getKey();
+        SQLQuery query = entry.getValue();
+        ResultSet resultSet = null;
 
         try {
+            bind(ps, query, values, plan);
+
+            /*
+             * The cached keys must include the components rejected by the
+             * residual sieve, so the sieve is not applied early when the
+             * result is cached.
+             */
+            List<List<Object>> keys = cacheKey == null ? null : new ArrayList<List<Object>>();
+            boolean early = plan.isEarly() && keys == null;
+            SearchPlan<T>.Filter filter = plan.newFilter(early);
             Crawler crawler = new Crawler(db, pool);
-            while (resultSet.next()) {
-                T componentFromDB = (T) crawler.crawlDatabase(resultSet, component.getClass(), table);//componentFromDB(resultSet, component.getClass(), table);
-                if (sieve == null || sieve.sieve(componentFromDB)) {
+            resultSet = ps.executeQuery();
+            if (early) {
+                crawler.setSieve(plan.getResidual());
+            }
+            while (!filter.isFull() && resultSet.next()) {
+                T componentFromDB = joined
+                        ? (T) crawler.crawlDatabase(resultSet, component.getClass(), (SelectQuery) query)
+                        : (T) crawler.crawlDatabase(resultSet, component.getClass(), table);
+                if (componentFromDB == null) {
+                    continue;
+                }
+                if (keys != null) {
+                    keys.add(EntityCache.keyOf(componentFromDB, table));
+                }
+                if (filter.accept(componentFromDB)) {
                     resultList.add(componentFromDB);
                 }
             }
-        } catch (final SQLException ex) {
-            throw ex;
+            if (keys != null) {
+                cache.putQuery(component.getClass(), cacheKey, keys, generation);
+            }
         } finally {
+            if (resultSet != null) {
+                resultSet.close();
+            }
             pool.recycleSearch(entry, table);
-            resultSet.close();
         }
 
         return resultList;
     }
 
-    private void handleTerminalNumeric(Component component, PreparedStatement ps, JTableColumn column, Field field, int ps_INDEX, Object whatever)
-            throws SQLException {
-        try {
-            double providedValue = Double.parseDouble(field.get(component).toString());
-            double numericNullValue = Double.parseDouble(column.getNumericNull());
-            if (providedValue == numericNullValue) {
-                ps.setObject(ps_INDEX, whatever, column.getColumnType().getType());
-            } else {
-                ps.setObject(ps_INDEX, providedValue, column.getColumnType().getType());
+    private Pair<PreparedStatement, SQLQuery> checkout(JTable table, BitSet searchMask, SearchPlan<T> plan) {
+        return pool.getSearch(table, searchMask, plan.getCondition(), plan.getOrdering(),
+                plan.isOffsetInDatabase(), plan.isFetchInDatabase());
+    }
+
+    /**
+     * The values of the prototype bound to the parameters of the search statement
+     * of a search mask, i.e. the values of the populated columns in the order of
+     * the propositions of the statement (see {@link SelectQuery#setSearchMask(java.util.BitSet)
+     * setSearchMask}).
+     */
+    private List<Object> getBoundValues(Component component, JTable table, BitSet searchMask)
+            throws IllegalAccessException {
+        List<Object> values = new ArrayList<Object>();
+        int columnIndex = 0;
+        for (JTableColumn column : table.getTableColumns()) {
+            if (searchMask.get(SelectQuery.populatedBit(columnIndex))) {
+                Object providedValue = column.getField().get(component);
+                if (column.getSerializer() != null) {
+                    providedValue = column.getSerializer().serialize(providedValue);
+                }
+                values.add(providedValue);
             }
-        } catch (IllegalAccessException ex) {
-            throw new RuntimeException(ex);
+            columnIndex++;
         }
+        return values;
     }
 
-    private void handleTerminalString(Component component, PreparedStatement ps, JTableColumn column, Field field, int ps_INDEX, Object whatever)
+    /**
+     * Binds the values of the prototype followed by the parameters of the plan
+     * (its condition and page).
+     */
+    private void bind(PreparedStatement ps, SQLQuery query, List<Object> values, SearchPlan<T> plan)
             throws SQLException {
-        try {
-            String providedValue = (String) field.get(component);
-            if (providedValue == null) {
-                ps.setObject(ps_INDEX, whatever, column.getColumnType().getType());
-            } else {
-                ps.setObject(ps_INDEX, providedValue, column.getColumnType().getType());
-            }
-        } catch (IllegalAccessException ex) {
-            throw new RuntimeException(ex);
+        int ps_INDEX = 1;
+        for (Proposition proposition : query.getPropositions()) {
+            ps.setObject(ps_INDEX, values.get(ps_INDEX - 1), proposition.getTableColumn().getColumnType().getType());
+            ps_INDEX++;
         }
+        plan.bind(ps, ps_INDEX);
     }
 
-    private void handleTerminalXML(Component component, PreparedStatement ps, JTableColumn column, Field field, int ps_INDEX, Object whatever)
-            throws SQLException {
-        try {
-            Object providedObject = field.get(component);
-            if (providedObject == null) {
-                ps.setObject(ps_INDEX, whatever, column.getColumnType().getType());
-            } else {
-                XStream xstream = new XStream();
-                String xmlSerializedObject = xstream.toXML(providedObject);
-                ps.setObject(ps_INDEX, xmlSerializedObject, column.getColumnType().getType());
+    /**
+     * Identifies a search in the query cache: the given fields of the prototype,
+     * the condition, order and page of the plan and the values of the parameters.
+     * The hydration mode does not affect which components are found, so it is not
+     * part of the key.
+     */
+    private List<Object> getQueryCacheKey(BitSet searchMask, SearchPlan<T> plan, List<Object> values) {
+        BitSet mask = (BitSet) searchMask.clone();
+        mask.clear(SelectQuery.MASK_JOINED);
+        List<Object> key = new ArrayList<Object>();
+        key.add(mask);
+        key.add(plan.getCondition());
+        key.add(plan.getOrdering());
+        key.addAll(plan.getPage());
+        key.addAll(values);
+        key.addAll(plan.getParameters());
+        return key;
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Computes the search mask of a prototype (see {@link SelectQuery#setSearchMask(java.util.BitSet)
+     * setSearchMask}), i.e. which of its columns participate in the <code>WHERE</code>
+     * clause of the search statement and how. Only given fields produce a proposition:
+     * numeric fields that differ from their numeric null value and non-null strings
+     * or objects. Strings that contain the wildcards <code>%</code> or <code>_</code>
+     * and XML-serialized objects are matched with <code>LIKE</code>, while everything
+     * else is tested for equality. Foreign keys of a terminal component are always null
+     * and produce no proposition.
+     * </p>
+     */
+    private BitSet getSearchMask(Component component, JTable table) {
+        BitSet searchMask = new BitSet();
+        int columnIndex = 0;
+        for (JTableColumn column : table.getTableColumns()) {
+            if (!column.isForeignKey() && isSearchable(column)) {
+                Object value = getGivenValue(component, column);
+                if (value != null) {
+                    searchMask.set(SelectQuery.populatedBit(columnIndex));
+                    if (column.getColumnType().equals(SQLType.LONG_VARCHAR) || isPattern(value)) {
+                        searchMask.set(SelectQuery.patternBit(columnIndex));
+                    }
+                }
             }
-        } catch (IllegalAccessException ex) {
-            throw new RuntimeException(ex);
+            columnIndex++;
         }
+        return searchMask;
+    }
 
+    /**
+     * The value of a field of the prototype, or <code>null</code> if the field is
+     * not given (numeric fields are not given when equal to their numeric null).
+     */
+    private Object getGivenValue(Component component, JTableColumn column) {
+        FieldAccessor accessor = column.getAccessor();
+        if (column.isTypeNumeric() && accessor.isNumericNull(component, column.getNumericNullValue())) {
+            return null;
+        }
+        return accessor.get(component);
     }
 
-    private void handleTerminalFK(Component component, PreparedStatement ps, JTableColumn column, Field field, int ps_INDEX, Object whatever) {
+    /**
+     * Columns of serialized values can be searched only if they are stored as text.
+     */
+    private boolean isSearchable(JTableColumn column) {
+        return column.getSerializer() == null || column.getColumnType().equals(SQLType.LONG_VARCHAR);
+    }
+
+    private boolean isPattern(Object value) {
+        return value instanceof String
+                && (((String) value).indexOf('%') >= 0 || ((String) value).indexOf('_') >= 0);
+    }
+
+    /**
+     * Search by primary key; a single index lookup instead of the range/pattern
+     * matching performed by the general search statement.
+     */
+    private ArrayList<T> doSearchPrimaryKey(Component component, JTable table) throws SQLException {
+        ArrayList<T> resultList = new ArrayList<T>();
+        EntityCache cache = EntityCache.getCache(db.getDbConnector());
+        if (cache.isEnabled(component.getClass())) {
+            T cached = (T) cache.get(component.getClass(), EntityCache.keyOf(component, table));
+            if (cached != null) {
+                if (sieve == null || sieve.sieve(cached)) {
+                    resultList.add(cached);
+                }
+                return resultList;
+            }
+        }
+        Pair<PreparedStatement, SQLQuery> entry = pool.getSearchPK(table);
+        ResultSet resultSet = null;
         try {
-            // Terminals do not have declared FK fields. Check it out and proceed with `whatever`
-            Object providedValue = field.get(component);
-            if (providedValue != null) {
-                throw new RuntimeException("[BUG] Not a terminal component!");
+            PreparedStatement ps = entry.getKey();
+            int ps_INDEX = 1;
+            for (Proposition proposition : entry.getValue().getPropositions()) {
+                JTableColumn column = proposition.getTableColumn();
+                ps.setObject(ps_INDEX++, column.getField().get(component), column.getColumnType().getType());
+            }
+            Crawler crawler = new Crawler(db, pool);
+            resultSet = ps.executeQuery();
+            while (resultSet.next()) {
+                T componentFromDB = (T) crawler.crawlDatabase(resultSet, component.getClass(), table);
+                if (sieve == null || sieve.sieve(componentFromDB)) {
+                    resultList.add(componentFromDB);
+                }
             }
-            ps.setObject(ps_INDEX, whatever, column.getColumnType().getType());
-        } catch (SQLException ex) {
-            Logger.getLogger(SearchEngine.class.getName()).log(Level.SEVERE, null, ex);
         } catch (IllegalAccessException ex) {
             throw new RuntimeException(ex);
+        } finally {
+            if (resultSet != null) {
+                resultSet.close();
+            }
+            pool.recycleSearchPK(entry, table);
+        }
+        return resultList;
+    }
+
+    /**
+     * A prototype describes a lookup by primary key if all its primary key fields
+     * are given (strings without wildcards) and no other field is.
+     */
+    private boolean isPrimaryKeyLookup(Component component, JTable table) {
+        if (table.getPrimaryKeyColumns().isEmpty()) {
+            return false;
+        }
+        for (JTableColumn column : table.getTableColumns()) {
+            if (column.isForeignKey()) {
+                if (column.isPrimaryKey()) {
+                    return false;
+                }
+                continue;
+            }
+            Object value = getGivenValue(component, column);
+            if (column.isPrimaryKey()) {
+                if (value == null || isPattern(value)) {
+                    return false;
+                }
+            } else if (value != null) {
+                return false;
+            }
         }
+        return true;
     }
 
     private boolean isComponentTerminal(Component component, JTable table) {
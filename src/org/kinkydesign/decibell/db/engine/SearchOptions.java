@@ -0,0 +1,215 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.db.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.kinkydesign.decibell.Component;
+
+/**
+ *
+ * <p  align="justify" style="width:60%">
+ * Options of a search: the order of the components found and which page of them
+ * is returned. For example, the third page of 50 persons ordered by name is
+ * retrieved as follows:
+ * </p>
+ * <pre>
+ * SearchOptions options = new SearchOptions().orderBy("name").page(2, 50);
+ * ArrayList&lt;Person&gt; persons = new Person().search(db, options);
+ * </pre>
+ * <p  align="justify" style="width:60%">
+ * The components are ordered by the given fields and then by their primary key,
+ * so that the order is always total and the pages do not overlap. The database
+ * still has to skip the rows of all previous pages, so for deep pages prefer
+ * {@link SearchOptions#after(org.kinkydesign.decibell.Component) keyset pagination}:
+ * the next page is requested by giving the last component of the previous one,
+ * and only the rows after it are read.
+ * </p>
+ * <pre>
+ * SearchOptions options = new SearchOptions().orderBy("name").limit(50);
+ * ArrayList&lt;Person&gt; page = new Person().search(db, options);
+ * while (!page.isEmpty()) {
+ *      show(page);
+ *      page = new Person().search(db, options.after(page.get(page.size() - 1)));
+ * }
+ * </pre>
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+public class SearchOptions {
+
+    private final List<String> orderFields = new ArrayList<String>();
+    private final List<Boolean> ascending = new ArrayList<Boolean>();
+    private int offset = 0;
+    private int limit = -1;
+    private Component after = null;
+
+    public SearchOptions() {
+    }
+
+    /**
+     * Order the components by a field, in ascending order. Fields given in
+     * subsequent invocations break the ties.
+     * @param fieldName
+     *      The name of a field of the components, which is not a foreign key or
+     *      a collection.
+     * @return
+     *      This object.
+     */
+    public SearchOptions orderBy(String fieldName) {
+        return orderBy(fieldName, true);
+    }
+
+    /**
+     * Order the components by a field.
+     * @param fieldName
+     *      The name of a field of the components, which is not a foreign key or
+     *      a collection.
+     * @param ascending
+     *      <code>true</code> for ascending and <code>false</code> for descending order.
+     * @return
+     *      This object.
+     */
+    public SearchOptions orderBy(String fieldName, boolean ascending) {
+        if (fieldName == null) {
+            throw new NullPointerException("The name of the field must be given");
+        }
+        this.orderFields.add(fieldName);
+        this.ascending.add(ascending);
+        return this;
+    }
+
+    /**
+     * Skip the first components found.
+     * @param offset
+     *      The number of components to skip.
+     * @return
+     *      This object.
+     */
+    public SearchOptions offset(int offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("The offset cannot be negative");
+        }
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * Return at most the given number of components.
+     * @param limit
+     *      The maximum number of components returned.
+     * @return
+     *      This object.
+     */
+    public SearchOptions limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("The limit cannot be negative");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Return a page of components.
+     * @param page
+     *      The index of the page, starting from <code>0</code>.
+     * @param pageSize
+     *      The number of components per page.
+     * @return
+     *      This object.
+     */
+    public SearchOptions page(int page, int pageSize) {
+        if (page < 0) {
+            throw new IllegalArgumentException("The index of the page cannot be negative");
+        }
+        limit(pageSize);
+        return offset(page * pageSize);
+    }
+
+    /**
+     * Return only the components which follow the given one in the order of the
+     * search; usually the last component of the previous page. The fields by which
+     * the components are ordered, including the primary key, must be set in the
+     * given component.
+     * @param last
+     *      A component of the searched class or <code>null</code> to start from the
+     *      first component.
+     * @return
+     *      This object.
+     */
+    public SearchOptions after(Component last) {
+        this.after = last;
+        return this;
+    }
+
+    /**
+     * The fields by which the components are ordered.
+     * @return
+     *      Unmodifiable list of field names.
+     */
+    public List<String> getOrderFields() {
+        return Collections.unmodifiableList(orderFields);
+    }
+
+    /**
+     * Whether the components are ordered by the i-th field in ascending order.
+     * @param i
+     *      The index of a field in {@link SearchOptions#getOrderFields() getOrderFields()}.
+     * @return
+     *      <code>true</code> for ascending order.
+     */
+    public boolean isAscending(int i) {
+        return ascending.get(i);
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * The maximum number of components returned.
+     * @return
+     *      The limit or <code>-1</code> if there is none.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    public Component getAfter() {
+        return after;
+    }
+}
@@ -0,0 +1,339 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.db.engine;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.collections.LogicalOperator;
+import org.kinkydesign.decibell.collections.Qualifier;
+import org.kinkydesign.decibell.collections.SQLType;
+import org.kinkydesign.decibell.db.interfaces.JTable;
+import org.kinkydesign.decibell.db.interfaces.JTableColumn;
+import org.kinkydesign.decibell.db.query.Proposition;
+import org.kinkydesign.decibell.db.sieve.JSieve;
+
+/**
+ * <p  align="justify" style="width:60%">
+ * How a search with a sieve and {@link SearchOptions options} is carried out:
+ * the condition added to the search statement (the {@link CompiledSieve compiled
+ * sieve} and, for keyset pagination, the condition which selects the rows after
+ * the given component), the order of the rows and the page. The page is selected
+ * by the database, unless part of the sieve is checked in memory; then the rows
+ * are skipped and counted in memory (see {@link SearchPlan.Filter Filter}).
+ * </p>
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+final class SearchPlan<T extends Component> {
+
+    private final CompiledSieve<T> sieve;
+    private final String condition;
+    private final List<Object> parameters;
+    private final List<JTableColumn> parameterColumns;
+    private final String ordering;
+    private final int offset;
+    private final int limit;
+    /**
+     * Whether the page is selected by the database.
+     */
+    private final boolean paged;
+
+    private SearchPlan(CompiledSieve<T> sieve, String condition, List<Object> parameters,
+            List<JTableColumn> parameterColumns, String ordering, int offset, int limit) {
+        this.sieve = sieve;
+        this.condition = condition;
+        this.parameters = parameters;
+        this.parameterColumns = parameterColumns;
+        this.ordering = ordering;
+        this.offset = offset;
+        this.limit = limit;
+        this.paged = sieve.getResidual() == null;
+    }
+
+    /**
+     * Plans the searches of a table.
+     * @param sieve
+     *      The sieve of the search or <code>null</code>.
+     * @param options
+     *      The options of the search or <code>null</code>.
+     * @param table
+     *      The table of the searched components.
+     * @return
+     *      The plan of the search.
+     * @throws IllegalArgumentException
+     *      If the components are ordered by a field which is not stored in a simple
+     *      column, or keyset pagination is requested for a table without primary key.
+     */
+    static <T extends Component> SearchPlan<T> create(JSieve<T> sieve, SearchOptions options, JTable table) {
+        CompiledSieve<T> compiled = CompiledSieve.compile(sieve, table);
+        String condition = compiled.getCondition();
+        if (options == null) {
+            return new SearchPlan<T>(compiled, condition, compiled.getParameters(),
+                    compiled.getParameterColumns(), null, 0, -1);
+        }
+        List<Object> parameters = new ArrayList<Object>(compiled.getParameters());
+        List<JTableColumn> parameterColumns = new ArrayList<JTableColumn>(compiled.getParameterColumns());
+
+        List<JTableColumn> sortColumns = new ArrayList<JTableColumn>();
+        List<Boolean> ascending = new ArrayList<Boolean>();
+        List<String> orderFields = options.getOrderFields();
+        for (int i = 0; i < orderFields.size(); i++) {
+            JTableColumn column = CompiledSieve.findColumn(orderFields.get(i), table);
+            if (column == null || column.isForeignKey() || column.getSerializer() != null) {
+                throw new IllegalArgumentException("Cannot order by the field " + orderFields.get(i));
+            }
+            if (!sortColumns.contains(column)) {
+                sortColumns.add(column);
+                ascending.add(options.isAscending(i));
+            }
+        }
+        for (JTableColumn keyColumn : table.getPrimaryKeyColumns()) {
+            if (!sortColumns.contains(keyColumn)) {
+                sortColumns.add(keyColumn);
+                ascending.add(true);
+            }
+        }
+
+        if (options.getAfter() != null) {
+            if (table.getPrimaryKeyColumns().isEmpty()) {
+                throw new IllegalArgumentException("Keyset pagination requires a primary key");
+            }
+            String seek = getSeekCondition(sortColumns, ascending, options.getAfter(), parameters, parameterColumns);
+            condition = condition == null ? seek
+                    : "(" + condition + ") " + LogicalOperator.AND + " (" + seek + ")";
+        }
+
+        StringBuilder ordering = new StringBuilder();
+        for (int i = 0; i < sortColumns.size(); i++) {
+            if (i > 0) {
+                ordering.append(", ");
+            }
+            ordering.append(sortColumns.get(i).getFullName()).append(ascending.get(i) ? " ASC" : " DESC");
+        }
+        return new SearchPlan<T>(compiled, condition, parameters, parameterColumns,
+                ordering.length() > 0 ? ordering.toString() : null, options.getOffset(), options.getLimit());
+    }
+
+    /**
+     * The rows which follow a component in the order of the sort columns:
+     * <code>(c1 &gt; v1) OR (c1 = v1 AND c2 &gt; v2) OR ...</code>, with
+     * <code>&lt;</code> for the columns in descending order.
+     */
+    private static String getSeekCondition(List<JTableColumn> sortColumns, List<Boolean> ascending, Component after,
+            List<Object> parameters, List<JTableColumn> parameterColumns) {
+        List<Object> values = new ArrayList<Object>();
+        for (JTableColumn column : sortColumns) {
+            values.add(getSortValue(column, after));
+        }
+        StringBuilder seek = new StringBuilder();
+        for (int i = 0; i < sortColumns.size(); i++) {
+            if (i > 0) {
+                seek.append(' ').append(LogicalOperator.OR).append(' ');
+            }
+            seek.append('(');
+            for (int j = 0; j < i; j++) {
+                seek.append(proposition(sortColumns.get(j), Qualifier.EQUAL));
+                seek.append(' ').append(LogicalOperator.AND).append(' ');
+                parameters.add(values.get(j));
+                parameterColumns.add(sortColumns.get(j));
+            }
+            seek.append(proposition(sortColumns.get(i), ascending.get(i) ? Qualifier.GREATER_THAN : Qualifier.LESS_THAN));
+            seek.append(')');
+            parameters.add(values.get(i));
+            parameterColumns.add(sortColumns.get(i));
+        }
+        return seek.toString();
+    }
+
+    /**
+     * The value of a sort column for a component, as stored in the database.
+     */
+    private static Object getSortValue(JTableColumn column, Component component) {
+        Object value = column.getAccessor().get(component);
+        if (column.isForeignKey() && value != null) {
+            value = column.getReferenceColumn().getAccessor().get(value);
+        }
+        if (value == null) {
+            SQLType type = column.getColumnType();
+            if (SQLType.VARCHAR.equals(type) || SQLType.CHAR.equals(type) || SQLType.LONG_VARCHAR.equals(type)) {
+                return RegistrationEngine.__NULL__;
+            }
+            throw new IllegalArgumentException("The field " + column.getField().getName()
+                    + " of the component after which the search starts is not set");
+        }
+        return value;
+    }
+
+    private static String proposition(JTableColumn column, Qualifier qualifier) {
+        Proposition proposition = new Proposition();
+        proposition.setTableColumn(column);
+        proposition.setQualifier(qualifier);
+        proposition.setUnknown();
+        return proposition.toString();
+    }
+
+    /**
+     * The condition to be added to the <code>WHERE</code> clause of the search
+     * statement or <code>null</code>.
+     */
+    String getCondition() {
+        return condition;
+    }
+
+    /**
+     * The parameters of the condition.
+     */
+    List<Object> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * The <code>ORDER BY</code> list of the search statement or <code>null</code>.
+     */
+    String getOrdering() {
+        return ordering;
+    }
+
+    boolean isOffsetInDatabase() {
+        return paged && offset > 0;
+    }
+
+    boolean isFetchInDatabase() {
+        return paged && limit >= 0;
+    }
+
+    /**
+     * Whether the limit of the search is applied in memory, so the rows of the
+     * search statement are not read to the end.
+     */
+    boolean isLimitedInMemory() {
+        return !paged && limit >= 0;
+    }
+
+    /**
+     * The offset and limit of the search (whether they are applied by the database or not).
+     */
+    List<Object> getPage() {
+        List<Object> page = new ArrayList<Object>(2);
+        page.add(offset);
+        page.add(limit);
+        return page;
+    }
+
+    /**
+     * The part of the sieve which is checked in memory or <code>null</code>.
+     */
+    JSieve<T> getResidual() {
+        return sieve.getResidual();
+    }
+
+    /**
+     * Whether the residual sieve may be applied before the foreign keys and
+     * collections of the components are retrieved.
+     */
+    boolean isEarly() {
+        return sieve.isEarly();
+    }
+
+    /**
+     * Binds the parameters of the condition and the page, starting at the given
+     * index.
+     * @return
+     *      The index of the next parameter.
+     */
+    int bind(PreparedStatement ps, int index) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            ps.setObject(index++, parameters.get(i), parameterColumns.get(i).getColumnType().getType());
+        }
+        if (isOffsetInDatabase()) {
+            ps.setInt(index++, offset);
+        }
+        if (isFetchInDatabase()) {
+            ps.setInt(index++, limit);
+        }
+        return index;
+    }
+
+    /**
+     * Creates a filter for the components read by a search.
+     * @param sieved
+     *      Whether the residual sieve has already been applied to the components.
+     */
+    Filter newFilter(boolean sieved) {
+        return new Filter(sieved);
+    }
+
+    /**
+     * Applies the residual sieve and, if the page is not selected by the database,
+     * the offset and limit of a search to the components read, in turn.
+     */
+    final class Filter {
+
+        private final boolean sieved;
+        private int skipped = 0;
+        private int accepted = 0;
+
+        private Filter(boolean sieved) {
+            this.sieved = sieved;
+        }
+
+        /**
+         * Whether a component belongs to the result of the search.
+         */
+        boolean accept(T component) {
+            JSieve<T> residual = getResidual();
+            if (!sieved && residual != null && !residual.sieve(component)) {
+                return false;
+            }
+            if (!paged && skipped < offset) {
+                skipped++;
+                return false;
+            }
+            accepted++;
+            return true;
+        }
+
+        /**
+         * Whether the result is complete, so no more components need to be read.
+         */
+        boolean isFull() {
+            return isLimitedInMemory() && accepted >= limit;
+        }
+    }
+}
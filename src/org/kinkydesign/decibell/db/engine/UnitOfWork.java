@@ -0,0 +1,202 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.db.engine;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.DeciBell;
+import org.kinkydesign.decibell.core.ComponentRegistry;
+import org.kinkydesign.decibell.db.EntityCache;
+import org.kinkydesign.decibell.db.interfaces.JTable;
+import org.kinkydesign.decibell.exceptions.DuplicateKeyException;
+import org.kinkydesign.decibell.exceptions.ImproperRegistration;
+import org.kinkydesign.decibell.exceptions.NoUniqueFieldException;
+
+/**
+ * <p  align="justify" style="width:60%">
+ * A unit of work collects the registrations, updates and deletions requested by
+ * a thread between {@link DeciBell#begin() begin} and {@link DeciBell#commit() commit}
+ * and writes them to the database in a single transaction. While a unit of work
+ * is open, {@link Component#register(org.kinkydesign.decibell.DeciBell) register},
+ * {@link Component#update(org.kinkydesign.decibell.DeciBell) update} and
+ * {@link Component#delete(org.kinkydesign.decibell.DeciBell) delete} only queue
+ * the component; nothing is sent to the database until the unit of work is
+ * committed and searches do not see the queued operations.
+ * </p>
+ * <p  align="justify" style="width:60%">
+ * On commit, the queued operations are flushed in the following order: first all
+ * registrations (in batches, referenced components first), then all updates and
+ * finally all deletions (in batches, referencing components first). The queued
+ * components are written with the values they hold at the time of the commit.
+ * If any of the operations fails, the transaction is rolled back and none of them
+ * takes effect.
+ * </p>
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+public class UnitOfWork {
+
+    private final DeciBell db;
+    private final List<Component> registered = new ArrayList<Component>();
+    private final List<Component> updated = new ArrayList<Component>();
+    private final List<Component> deleted = new ArrayList<Component>();
+
+    /**
+     * Create a new (empty) unit of work for the database identified by the given
+     * DeciBell object.
+     * @param db
+     *      The DeciBell object that identifies the database.
+     */
+    public UnitOfWork(final DeciBell db) {
+        this.db = db;
+    }
+
+    void register(Component component) {
+        registered.add(component);
+    }
+
+    void update(Component component) {
+        updated.add(component);
+    }
+
+    void delete(Component component) {
+        deleted.add(component);
+    }
+
+    /**
+     * The number of operations queued in this unit of work.
+     * @return
+     *      Number of pending registrations, updates and deletions.
+     */
+    public int size() {
+        return registered.size() + updated.size() + deleted.size();
+    }
+
+    /**
+     * Discard all queued operations.
+     */
+    public void clear() {
+        registered.clear();
+        updated.clear();
+        deleted.clear();
+    }
+
+    /**
+     * Evict the committed components from the second-level cache. The engines
+     * evict them as they write, but a concurrent search may have cached the
+     * previous state of a component before the transaction was committed.
+     */
+    private void invalidateCache() {
+        EntityCache cache = EntityCache.getCache(db.getDbConnector());
+        for (Component component : registered) {
+            cache.invalidate(component);
+        }
+        for (Component component : updated) {
+            cache.invalidate(component);
+        }
+        for (Component component : deleted) {
+            cache.invalidateAll(component.getClass());
+        }
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Write all queued operations to the database in a single transaction. This
+     * method must not be invoked while the unit of work is still bound to the
+     * current thread (see {@link DeciBell#commit() commit}), otherwise the
+     * operations would be queued again instead of being executed. The queue is
+     * cleared in any case.
+     * </p>
+     * @throws DuplicateKeyException
+     *      In case some registered or updated component clashes with an existing one.
+     * @throws ImproperRegistration
+     *      In case some component cannot be registered.
+     * @throws NoUniqueFieldException
+     *      In case some updated or deleted component cannot be identified.
+     */
+    public void flush() throws DuplicateKeyException, ImproperRegistration, NoUniqueFieldException {
+        if (size() == 0) {
+            return;
+        }
+        ComponentRegistry registry = ComponentRegistry.getRegistry(db.getDbConnector());
+        Connection connection = db.getDbConnector().acquireConnection();
+        boolean done = false;
+        try {
+            connection.setAutoCommit(false);
+            if (!registered.isEmpty()) {
+                new RegistrationEngine(db).registerAll(registered);
+            }
+            if (!updated.isEmpty()) {
+                UpdateEngine updateEngine = new UpdateEngine(db);
+                for (List<Component> components : DependencyOrder.groupByTable(registry, updated).values()) {
+                    for (Component component : components) {
+                        updateEngine.update(component);
+                    }
+                }
+            }
+            if (!deleted.isEmpty()) {
+                DeletionEngine deletionEngine = new DeletionEngine(db);
+                for (Map.Entry<JTable, List<Component>> tableComponents
+                        : DependencyOrder.groupByTableReversed(registry, deleted).entrySet()) {
+                    deletionEngine.deleteAll(tableComponents.getKey(), tableComponents.getValue());
+                }
+            }
+            connection.commit();
+            done = true;
+            invalidateCache();
+        } catch (SQLException ex) {
+            throw new RuntimeException(ex);
+        } finally {
+            clear();
+            try {
+                if (!done) {
+                    connection.rollback();
+                }
+                connection.setAutoCommit(true);
+            } catch (SQLException ex) {
+                if (done) {
+                    throw new RuntimeException(ex);
+                } // otherwise the original exception propagates
+            } finally {
+                db.getDbConnector().releaseConnection();
+            }
+        }
+    }
+}
@@ -37,7 +37,6 @@
  */
 package org.kinkydesign.decibell.db.engine;
 
-import com.thoughtworks.xstream.XStream;
 import java.lang.reflect.Field;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
@@ -47,12 +46,14 @@ import org.kinkydesign.decibell.Component;
 import org.kinkydesign.decibell.DeciBell;
 import org.kinkydesign.decibell.collections.SQLType;
 import org.kinkydesign.decibell.core.ComponentRegistry;
+import org.kinkydesign.decibell.db.EntityCache;
 import org.kinkydesign.decibell.db.StatementPool;
 import org.kinkydesign.decibell.db.Table;
 import org.kinkydesign.decibell.db.interfaces.JRelationalTable;
 import org.kinkydesign.decibell.db.interfaces.JTableColumn;
 import org.kinkydesign.decibell.db.query.Proposition;
 import org.kinkydesign.decibell.db.query.SQLQuery;
+import org.kinkydesign.decibell.db.util.FieldAccessor;
 import org.kinkydesign.decibell.db.util.Infinity;
 import org.kinkydesign.decibell.db.util.Pair;
 import org.kinkydesign.decibell.exceptions.DuplicateKeyException;
@@ -75,15 +76,35 @@ public class UpdateEngine {
         pool = StatementPool.getPool(db.getDbConnector());
     }
 
+    /**
+     * Update a component in the database. If a {@link UnitOfWork unit of work} is
+     * open in the current thread, the update is queued and performed when the unit
+     * of work is committed.
+     * @param whatToUpdate
+     *      The component to be updated.
+     * @throws NoUniqueFieldException
+     *      In case there is no identifier for the component to be updated.
+     * @throws DuplicateKeyException
+     *      In case the update would make the component clash with another one.
+     */
     public void update(Component whatToUpdate) throws NoUniqueFieldException, DuplicateKeyException {
+        UnitOfWork work = db.getUnitOfWork();
+        if (work != null) {
+            work.update(whatToUpdate);
+            return;
+        }
+        db.getDbConnector().acquireConnection();
         try {
             doUpdate(whatToUpdate);
+            EntityCache.getCache(db.getDbConnector()).invalidate(whatToUpdate);
         } catch (SQLException ex) {
-            if (ex.getSQLState().equals("23505")) {
+            if (db.getDbConnector().getDialect().isDuplicateKey(ex)) {
                 throw new DuplicateKeyException(whatToUpdate, db.getDbConnector(), ex);
             } else {
                 throw new RuntimeException(ex);
             }
+        } finally {
+            db.getDbConnector().releaseConnection();
         }
     }
 
@@ -99,7 +120,6 @@ public class UpdateEngine {
              */
             for (Set<JTableColumn> group : table.getForeignColumnsByGroup()) {
                 Field fkField = group.iterator().next().getField();
-                fkField.setAccessible(true);
                 Object obj = fkField.get(whatToUpdate);
                 Component component = (Component) obj;
                 if (!whatToUpdate.equals(component)) {
@@ -108,72 +128,69 @@ public class UpdateEngine {
             }
 
             Pair<PreparedStatement, SQLQuery> entry = pool.getUpdate(table);
-            PreparedStatement ps = entry.getKey();
-            SQLQuery query = entry.getValue();
+            try {
+                PreparedStatement ps = entry.getKey();
+                SQLQuery query = entry.getValue();
 
-            /*
-             * Updating normal entries
-             */
-            int ps_INDEX = 1;
-            for (Proposition p : query.getPropositions()) {
-                JTableColumn col = p.getTableColumn();
-                Field field = col.getField();
-                field.setAccessible(true);
-                Object obj = null;
-                try {
-                    obj = field.get(whatToUpdate);
-                    if (col.isForeignKey()) {
-                        Field f = col.getReferenceColumn().getField();
-                        f.setAccessible(true);
-                        ps.setObject(ps_INDEX, (Object) f.get(obj), col.getColumnType().getType());
-                    } else if (obj == null
-                            || (col.isTypeNumeric() && ((Double.parseDouble(obj.toString())) == Double.parseDouble(col.getNumericNull())))) {
+                /*
+                 * Updating normal entries
+                 */
+                int ps_INDEX = 1;
+                for (Proposition p : query.getPropositions()) {
+                    JTableColumn col = p.getTableColumn();
+                    FieldAccessor accessor = col.getAccessor();
+                    try {
+                        if (col.isForeignKey()) {
+                            Field f = col.getReferenceColumn().getField();
+                            ps.setObject(ps_INDEX, (Object) f.get(accessor.get(whatToUpdate)), col.getColumnType().getType());
+                        } else if (accessor.isNull(whatToUpdate)
+                                || (col.isTypeNumeric() && accessor.isNumericNull(whatToUpdate, col.getNumericNullValue()))) {
+                            ps.setNull(ps_INDEX, col.getColumnType().getType());
+                        } else if (col.getSerializer() == null) {
+                            accessor.bind(ps, ps_INDEX, whatToUpdate, col.getColumnType().getType());
+                        } else {
+                            Object serialized = col.getSerializer().serialize(accessor.get(whatToUpdate));
+                            ps.setObject(ps_INDEX, serialized, col.getColumnType().getType());
+                        }
+                    } catch (NullPointerException ex) {
                         ps.setNull(ps_INDEX, col.getColumnType().getType());
-                    } else if (!col.getColumnType().equals(SQLType.LONG_VARCHAR)) {
-                        ps.setObject(ps_INDEX, obj, col.getColumnType().getType());
-                    } else {
-                        XStream xstream = new XStream();
-                        String xml = xstream.toXML(obj);
-                        ps.setString(ps_INDEX, xml);
                     }
-                } catch (NullPointerException ex) {
-                    ps.setNull(ps_INDEX, col.getColumnType().getType());
+                    ps_INDEX++;
                 }
-                ps_INDEX++;
+                ps.execute();
+            } finally {
+                pool.recycleUpdate(entry, table);
             }
-            ps.execute();
-            pool.recycleUpdate(entry, table);
 
             /*
              * Deleting entries from relational table first
              */
             for (JRelationalTable relTable : table.getRelations()) {
                 entry = pool.getDelete(relTable);
-                ps = entry.getKey();
-                query = entry.getValue();
-                ps_INDEX = 1;
-                for (Proposition p : query.getPropositions()) {
-                    JTableColumn col = p.getTableColumn();
-                    Field f = col.getField();
-                    f.setAccessible(true);
-                    if (col.getReferenceTable().equals(relTable.getMasterTable())) {
-                        ps.setObject(ps_INDEX, (Object) f.get(whatToUpdate), col.getColumnType().getType());
-                    } else {
-                        Infinity inf = new Infinity(db.getDbConnector());
-                        ps.setObject(ps_INDEX, inf.getInfinity(p), col.getColumnType().getType());
+                try {
+                    PreparedStatement ps = entry.getKey();
+                    SQLQuery query = entry.getValue();
+                    int ps_INDEX = 1;
+                    for (Proposition p : query.getPropositions()) {
+                        JTableColumn col = p.getTableColumn();
+                        Field f = col.getField();
+                        if (col.getReferenceTable().equals(relTable.getMasterTable())) {
+                            ps.setObject(ps_INDEX, (Object) f.get(whatToUpdate), col.getColumnType().getType());
+                        } else {
+                            Infinity inf = new Infinity(db.getDbConnector());
+                            ps.setObject(ps_INDEX, inf.getInfinity(p), col.getColumnType().getType());
+                        }
+                        ps_INDEX++;
                     }
-                    ps_INDEX++;
+                    ps.execute();
+                } finally {
+                    pool.recycleDelete(entry, relTable);
                 }
-                ps.execute();
-                pool.recycleDelete(entry, relTable);
 
                 /*
                  * Registering new entries to relational table
                  */
-                entry = pool.getRegister(relTable);
-                ps = entry.getKey();
                 Field field = relTable.getOnField();
-                field.setAccessible(true);
                 Object obj = null;
                 try {
                     obj = field.get(whatToUpdate);
@@ -183,29 +200,33 @@ public class UpdateEngine {
                 if (obj == null) {
                     continue;
                 }
-                Collection collection = (Collection) obj;
-                for (Object o : collection) {
-                    ps_INDEX = 1;
-                    for (JTableColumn col : relTable.getTableColumns()) {
-                        if (col.getColumnName().equals("METACOLUMN")) {
-                            Field f = relTable.getOnField();
-                            ps.setObject(ps_INDEX, (Object) obj.getClass().getName(), SQLType.VARCHAR.getType());
+                entry = pool.getRegister(relTable);
+                try {
+                    PreparedStatement ps = entry.getKey();
+                    Collection collection = (Collection) obj;
+                    for (Object o : collection) {
+                        int ps_INDEX = 1;
+                        for (JTableColumn col : relTable.getTableColumns()) {
+                            if (col.getColumnName().equals("METACOLUMN")) {
+                                Field f = relTable.getOnField();
+                                ps.setObject(ps_INDEX, (Object) obj.getClass().getName(), SQLType.VARCHAR.getType());
+                                ps_INDEX++;
+                                continue;
+                            }
+                            Field f = col.getField();
+                            if (col.getReferenceTable().equals(relTable.getMasterTable())) {
+                                ps.setObject(ps_INDEX, (Object) f.get(whatToUpdate), col.getColumnType().getType());
+                            } else {
+                                ps.setObject(ps_INDEX, (Object) f.get(o), col.getColumnType().getType());
+                            }
                             ps_INDEX++;
-                            continue;
-                        }
-                        Field f = col.getField();
-                        f.setAccessible(true);
-                        if (col.getReferenceTable().equals(relTable.getMasterTable())) {
-                            ps.setObject(ps_INDEX, (Object) f.get(whatToUpdate), col.getColumnType().getType());
-                        } else {
-                            ps.setObject(ps_INDEX, (Object) f.get(o), col.getColumnType().getType());
                         }
-                        ps_INDEX++;
+                        ps.addBatch();
                     }
-                    ps.addBatch();
+                    ps.executeBatch();
+                } finally {
+                    pool.recycleRegister(entry, relTable);
                 }
-                ps.executeBatch();
-                pool.recycleRegister(entry, relTable);
             }
         } catch (IllegalAccessException ex) {
             throw new RuntimeException(ex);
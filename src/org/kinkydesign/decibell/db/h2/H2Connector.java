@@ -0,0 +1,139 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.db.h2;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import org.kinkydesign.decibell.core.ComponentRegistry;
+import org.kinkydesign.decibell.db.DbConnector;
+import org.kinkydesign.decibell.db.Table;
+import org.kinkydesign.decibell.db.interfaces.JDialect;
+
+/**
+ * <p  align="justify" style="width:60%">
+ * Connector to an H2 database which runs inside the JVM of the application. The
+ * URL of the database is <code>jdbc:h2:{database_name}</code>; database names
+ * which are neither absolute nor prefixed (e.g. <code>mem:</code> for in-memory
+ * databases) are resolved against the working directory. The database is created
+ * upon the first connection, as well as the schema of the user which is made the
+ * default schema of every connection (as in Derby), so no server needs to be started
+ * or killed. The H2 driver (<code>org.h2.Driver</code>) must be
+ * included in the classpath (see {@link H2Dialect} for the supported versions).
+ * </p>
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+public class H2Connector extends DbConnector {
+
+    private static final JDialect DIALECT = new H2Dialect();
+
+    public H2Connector() {
+        super();
+        setUser("itsme");
+        setPassword("letmein");
+        setUrlBase("jdbc:h2:");
+        setDbName("db");
+        setJavacmd("java");
+        setJavaOptions("");
+        setDriverHome("");
+        setHost("localhost");
+        setPort(9092);
+        setDatabaseDriver("org.h2.Driver");
+        setEmbedded(true);
+    }
+
+    public JDialect getDialect() {
+        return DIALECT;
+    }
+
+    @Override
+    public String getDatabaseUrl() {
+        String dbName = getDbName();
+        if (!dbName.contains(":") && !dbName.startsWith("/")
+                && !dbName.startsWith(".") && !dbName.startsWith("~")) {
+            dbName = "./" + dbName;
+        }
+        return getUrlBase() + dbName + ";INIT=CREATE SCHEMA IF NOT EXISTS " + getUser()
+                + "\\;SET SCHEMA " + getUser();
+    }
+
+    public void connect() {
+        if (!isConnected()) {
+            try {
+                Class.forName(getDatabaseDriver());
+            } catch (ClassNotFoundException ex) {
+                throw new RuntimeException(ex);
+            }
+            setConnection(openConnection());
+        }
+    }
+
+    /**
+     * H2 closes the database as soon as its last connection is closed, so there
+     * is no server to be killed.
+     */
+    public void killServer() {
+    }
+
+    public boolean isServerRunning() {
+        return false;
+    }
+
+    public void clearDB() {
+        Object[] tables = ComponentRegistry.getRegistry(this).getRelationTables().toArray();
+        for (int i = tables.length - 1; i >= 0; i--) {
+            Table t = (Table) tables[i];
+            execute("DROP TABLE " + t.getFullTableName());
+        }
+        tables = ComponentRegistry.getRegistry(this).values().toArray();
+        for (int i = tables.length - 1; i >= 0; i--) {
+            Table t = (Table) tables[i];
+            execute("DROP TABLE " + t.getFullTableName());
+        }
+        execute("DROP TABLE " + getUser() + ".DECIBELL_SCHEMA_TAB");
+        execute("DROP TABLE " + getUser() + ".DECIBELL_INIT_TAB");
+        execute("DROP SCHEMA " + getUser() + " RESTRICT");
+    }
+
+    protected Connection openConnection() {
+        try {
+            return DriverManager.getConnection(getDatabaseUrl(), getUser(), getPassword());
+        } catch (SQLException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.db.h2;
+
+import java.sql.SQLException;
+import java.util.Set;
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.DeciBell;
+import org.kinkydesign.decibell.collections.SQLType;
+import org.kinkydesign.decibell.db.DbConnector;
+import org.kinkydesign.decibell.db.TablesGenerator;
+import org.kinkydesign.decibell.db.derby.DerbyTablesGenerator;
+import org.kinkydesign.decibell.db.derby.query.DerbyDeleteQuery;
+import org.kinkydesign.decibell.db.derby.query.DerbyInsertQuery;
+import org.kinkydesign.decibell.db.derby.query.DerbyJoin;
+import org.kinkydesign.decibell.db.derby.query.DerbySelectQuery;
+import org.kinkydesign.decibell.db.derby.query.DerbyUpdateQuery;
+import org.kinkydesign.decibell.db.interfaces.JDialect;
+import org.kinkydesign.decibell.db.interfaces.JTable;
+import org.kinkydesign.decibell.db.query.DeleteQuery;
+import org.kinkydesign.decibell.db.query.InsertQuery;
+import org.kinkydesign.decibell.db.query.Join;
+import org.kinkydesign.decibell.db.query.SelectQuery;
+import org.kinkydesign.decibell.db.query.UpdateQuery;
+
+/**
+ * <p  align="justify" style="width:60%">
+ * The {@link JDialect dialect} of the H2 database engine, which runs inside the
+ * JVM of the application (see {@link H2Connector}). H2 understands the standard
+ * SQL produced by the Derby query builders and tables generator, including
+ * <code>GENERATED ALWAYS AS IDENTITY</code> columns and <code>OFFSET/FETCH</code>
+ * clauses, so these are reused; what differs is the naming of some datatypes, the
+ * bounds of the numeric ones and the SQL states of the errors.
+ * </p>
+ * <p  align="justify" style="width:60%">
+ * Supported versions: H2 1.4.198 (the first one to accept <code>OFFSET/FETCH</code>)
+ * up to, but excluding, 2.0. The {@link H2Dialect#getCheckConstraintsSQL() check
+ * constraints} of the tables are read from <code>INFORMATION_SCHEMA.COLUMNS.CHECK_CONSTRAINT</code>,
+ * which H2 2.x no longer provides, so tables could not be compared with their
+ * model when their schema changes.
+ * </p>
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+public class H2Dialect implements JDialect {
+
+    /**
+     * Table or view already exists (error code 42101).
+     */
+    private static final String __Existing_State__ = "42S01";
+    /**
+     * Table or view not found (error code 42102).
+     */
+    private static final String __Missing_State__ = "42S02";
+    private static final String __DuplicateKey_State__ = "23505";
+    private static final int
+            TABLE_NOT_FOUND_WITH_CANDIDATES = 42103,
+            TABLE_NOT_FOUND_DATABASE_EMPTY = 42104,
+            INDEX_ALREADY_EXISTS = 42111,
+            SCHEMA_ALREADY_EXISTS = 90078,
+            SCHEMA_NOT_FOUND = 90079;
+
+    public DbConnector newConnector() {
+        return new H2Connector();
+    }
+
+    public TablesGenerator newTablesGenerator(DeciBell db, Set<Class<? extends Component>> components) {
+        return new DerbyTablesGenerator(db, components);
+    }
+
+    public SelectQuery newSelectQuery(JTable table) {
+        return new DerbySelectQuery(table);
+    }
+
+    public InsertQuery newInsertQuery(JTable table) {
+        return new DerbyInsertQuery(table);
+    }
+
+    public UpdateQuery newUpdateQuery(JTable table) {
+        return new DerbyUpdateQuery(table);
+    }
+
+    public DeleteQuery newDeleteQuery(JTable table) {
+        return new DerbyDeleteQuery(table);
+    }
+
+    public Join newJoin() {
+        return new DerbyJoin();
+    }
+
+    public String getTypeName(SQLType type) {
+        switch (type) {
+            case LONG_VARCHAR:
+                return "VARCHAR";
+            case VARBINARY:
+                return "VARBINARY(32672)";
+            case LONG_VARBINARY:
+                return "VARBINARY";
+            case BIT:
+                return "BOOLEAN";
+            default:
+                return type.toString();
+        }
+    }
+
+    /**
+     * H2 keeps the constraints declared in column definitions with the columns.
+     */
+    public String getCheckConstraintsSQL() {
+        return "SELECT COLUMN_NAME, CHECK_CONSTRAINT FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ? AND CHECK_CONSTRAINT <> ''";
+    }
+
+    /**
+     * The numeric datatypes of H2 have the same bounds as the corresponding
+     * Java types.
+     */
+    public Number getLeftInfinity(SQLType type) {
+        switch (type) {
+            case INTEGER:
+                return Integer.MIN_VALUE;
+            case SMALLINT:
+                return Short.MIN_VALUE;
+            case BIGINT:
+                return Long.MIN_VALUE;
+            case REAL:
+                return -Float.MAX_VALUE;
+            case DOUBLE:
+                return -Double.MAX_VALUE;
+            default:
+                return null;
+        }
+    }
+
+    public Number getRightInfinity(SQLType type) {
+        switch (type) {
+            case INTEGER:
+                return Integer.MAX_VALUE;
+            case SMALLINT:
+                return Short.MAX_VALUE;
+            case BIGINT:
+                return Long.MAX_VALUE;
+            case REAL:
+                return Float.MAX_VALUE;
+            case DOUBLE:
+                return Double.MAX_VALUE;
+            default:
+                return null;
+        }
+    }
+
+    public boolean isAlreadyExisting(SQLException ex) {
+        return __Existing_State__.equals(ex.getSQLState())
+                || ex.getErrorCode() == INDEX_ALREADY_EXISTS
+                || ex.getErrorCode() == SCHEMA_ALREADY_EXISTS;
+    }
+
+    public boolean isNotExisting(SQLException ex) {
+        return __Missing_State__.equals(ex.getSQLState())
+                || ex.getErrorCode() == TABLE_NOT_FOUND_WITH_CANDIDATES
+                || ex.getErrorCode() == TABLE_NOT_FOUND_DATABASE_EMPTY
+                || ex.getErrorCode() == SCHEMA_NOT_FOUND;
+    }
+
+    public boolean isDuplicateKey(SQLException ex) {
+        return __DuplicateKey_State__.equals(ex.getSQLState());
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.db.interfaces;
+
+import java.sql.Connection;
+
+/**
+ * <p  align="justify" style="width:60%">
+ * A pool of connections to a database. Connections are checked out per thread:
+ * a thread which already holds a connection gets the same one on subsequent
+ * checkouts (so that nested operations, e.g. the retrieval of referenced components
+ * during a search, share their connection and the statements prepared on it), and
+ * the connection returns to the pool when the thread has released it as many times
+ * as it checked it out.
+ * </p>
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+public interface JConnectionPool {
+
+    /**
+     * Check out a connection for the current thread. If the thread already holds
+     * a connection, the same connection is returned.
+     * @return a connection to the database.
+     */
+    Connection checkout();
+
+    /**
+     * Release the connection held by the current thread. Every invokation of
+     * {@link JConnectionPool#checkout() checkout} must be followed by exactly
+     * one invokation of this method.
+     */
+    void release();
+
+    /**
+     * The connection held by the current thread.
+     * @return the connection checked out by the current thread or <code>null</code>
+     * if the thread holds no connection.
+     */
+    Connection getCurrentConnection();
+
+    /**
+     * Close all idle connections of the pool. Connections which are checked out
+     * at the time are closed as soon as they are released.
+     */
+    void close();
+}
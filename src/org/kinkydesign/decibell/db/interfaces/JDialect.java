@@ -0,0 +1,195 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.db.interfaces;
+
+import java.sql.SQLException;
+import java.util.Set;
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.DeciBell;
+import org.kinkydesign.decibell.collections.SQLType;
+import org.kinkydesign.decibell.db.DbConnector;
+import org.kinkydesign.decibell.db.TablesGenerator;
+import org.kinkydesign.decibell.db.query.DeleteQuery;
+import org.kinkydesign.decibell.db.query.InsertQuery;
+import org.kinkydesign.decibell.db.query.Join;
+import org.kinkydesign.decibell.db.query.SelectQuery;
+import org.kinkydesign.decibell.db.query.UpdateQuery;
+
+/**
+ * <p  align="justify" style="width:60%">
+ * A dialect gathers everything DeciBell needs to know about a particular database
+ * engine: how to connect to it, how to generate the tables of the attached
+ * components, how to build the queries on them, which are the bounds of its numeric
+ * datatypes and how its errors are to be interpreted. The dialect of a {@link DeciBell }
+ * object is chosen upon its construction (see {@link DeciBell#DeciBell(JDialect)
+ * DeciBell(JDialect)}) and is available through {@link DbConnector#getDialect()
+ * DbConnector.getDialect()}. Implementations must be stateless and thread-safe.
+ * </p>
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+public interface JDialect {
+
+    /**
+     * Creates a new connector to a database of this dialect.
+     * @return
+     *      A new database connector with the default settings of the dialect.
+     */
+    DbConnector newConnector();
+
+    /**
+     * Creates the generator of the tables of a set of components.
+     * @param db
+     *      The DeciBell object identifying the database in which the tables are created.
+     * @param components
+     *      The attached components.
+     * @return
+     *      A new tables generator.
+     */
+    TablesGenerator newTablesGenerator(DeciBell db, Set<Class<? extends Component>> components);
+
+    /**
+     * Creates a new SELECT query on a table.
+     * @param table
+     *      The table to be searched.
+     * @return
+     *      A new select query.
+     */
+    SelectQuery newSelectQuery(JTable table);
+
+    /**
+     * Creates a new INSERT query on a table.
+     * @param table
+     *      The table in which rows are inserted.
+     * @return
+     *      A new insert query.
+     */
+    InsertQuery newInsertQuery(JTable table);
+
+    /**
+     * Creates a new UPDATE query on a table.
+     * @param table
+     *      The table to be updated.
+     * @return
+     *      A new update query.
+     */
+    UpdateQuery newUpdateQuery(JTable table);
+
+    /**
+     * Creates a new DELETE query on a table.
+     * @param table
+     *      The table from which rows are deleted.
+     * @return
+     *      A new delete query.
+     */
+    DeleteQuery newDeleteQuery(JTable table);
+
+    /**
+     * Creates a new join between two tables, to be added to a {@link SelectQuery }.
+     * @return
+     *      A new join.
+     */
+    Join newJoin();
+
+    /**
+     * The name of a datatype as it appears in the column definitions of the
+     * <code>CREATE TABLE</code> statements.
+     * @param type
+     *      An SQL type.
+     * @return
+     *      The name of the type in this dialect.
+     */
+    String getTypeName(SQLType type);
+
+    /**
+     * A query listing the CHECK constraints of the columns of a table. The query
+     * has two parameters, the schema and the name of the table (in upper case),
+     * and returns the name of each constrained column and its condition.
+     * @return
+     *      The SQL query.
+     */
+    String getCheckConstraintsSQL();
+
+    /**
+     * The minimum value accepted by a numeric datatype. It is used as an infinite
+     * lower bound in searches (see {@link org.kinkydesign.decibell.db.util.Infinity Infinity}).
+     * @param type
+     *      A numeric SQL type.
+     * @return
+     *      The minimum value or <code>null</code> if the type is not numeric.
+     */
+    Number getLeftInfinity(SQLType type);
+
+    /**
+     * The maximum value accepted by a numeric datatype. It is used as an infinite
+     * upper bound in searches (see {@link org.kinkydesign.decibell.db.util.Infinity Infinity}).
+     * @param type
+     *      A numeric SQL type.
+     * @return
+     *      The maximum value or <code>null</code> if the type is not numeric.
+     */
+    Number getRightInfinity(SQLType type);
+
+    /**
+     * Whether an exception was thrown because an object (table, schema) to be
+     * created already exists.
+     * @param ex
+     *      An exception thrown by the database.
+     * @return
+     *      <code>true</code> if the object already exists.
+     */
+    boolean isAlreadyExisting(SQLException ex);
+
+    /**
+     * Whether an exception was thrown because an object (table, schema) to be
+     * dropped or queried does not exist.
+     * @param ex
+     *      An exception thrown by the database.
+     * @return
+     *      <code>true</code> if the object does not exist.
+     */
+    boolean isNotExisting(SQLException ex);
+
+    /**
+     * Whether an exception was thrown because of a violation of a primary key or
+     * unique constraint.
+     * @param ex
+     *      An exception thrown by the database.
+     * @return
+     *      <code>true</code> if the exception reports a duplicate key.
+     */
+    boolean isDuplicateKey(SQLException ex);
+}
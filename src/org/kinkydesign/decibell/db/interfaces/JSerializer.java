@@ -0,0 +1,80 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.db.interfaces;
+
+import org.kinkydesign.decibell.collections.SQLType;
+
+/**
+ * <p  align="justify" style="width:60%">
+ * Converts the values of fields which have no SQL counterpart (see {@link
+ * org.kinkydesign.decibell.collections.TypeMap TypeMap}) to a form that can be
+ * stored in a single column and back. The serializer of a field is chosen
+ * through {@link org.kinkydesign.decibell.annotations.Entry#serializer() Entry.serializer};
+ * implementations must have a public constructor with no parameters and must be
+ * thread-safe, as one instance is shared by all operations on a column.
+ * </p>
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+public interface JSerializer {
+
+    /**
+     * The SQL type of the column in which the serialized values are stored.
+     * @return
+     *      The column type; either a character type (values serialized as
+     *      <code>String</code>) or a binary type (values serialized as <code>byte[]</code>).
+     */
+    SQLType getSQLType();
+
+    /**
+     * Serialize a value.
+     * @param value
+     *      The value of the field (not <code>null</code>).
+     * @return
+     *      The value to be stored in the column.
+     */
+    Object serialize(Object value);
+
+    /**
+     * Restore a value from its serialized form.
+     * @param stored
+     *      The value read from the column.
+     * @return
+     *      The value of the field or <code>null</code> if <code>stored</code> is
+     *      <code>null</code>.
+     */
+    Object deserialize(Object stored);
+}
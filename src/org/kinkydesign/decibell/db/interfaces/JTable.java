@@ -68,6 +68,55 @@ public interface JTable {
      */
     String getDeletionSQL();
 
+    /**
+     * Get the SQL command that adds a new (non-key) column to the existing table.
+     * @param column a column of the table.
+     * @return SQL command for column addition.
+     */
+    String getColumnAdditionSQL(JTableColumn column);
+
+    /**
+     * Get the CHECK constraint of a column, as it appears in the column definition.
+     * @param column a column of the table.
+     * @return SQL constraint of the column, or an empty string if the column is
+     * not constrained.
+     */
+    String getColumnConstraintSQL(JTableColumn column);
+
+    /**
+     * Declare a secondary index on some columns of the table.
+     * @param name name of the index, unique among the indexes of the table.
+     * @param columns the indexed columns, in order.
+     * @param unique whether the values of the indexed columns must be unique.
+     */
+    void addIndex(String name, List<JTableColumn> columns, boolean unique);
+
+    /**
+     * The secondary indexes of the table.
+     * @return map from the names of the indexes to their columns.
+     */
+    Map<String, List<JTableColumn>> getIndexes();
+
+    /**
+     * Whether an index of the table is unique.
+     * @param name name of the index.
+     * @return <code>true</code> if the index is unique.
+     */
+    boolean isUniqueIndex(String name);
+
+    /**
+     * The name of a secondary index of the table in the database.
+     * @param name name of the index.
+     * @return name of the index in the database, without the schema.
+     */
+    String getIndexName(String name);
+
+    /**
+     * Get the SQL commands for the creation of the secondary indexes of the table.
+     * @return SQL commands for index creation.
+     */
+    List<String> getIndexCreationSQL();
+
     Set<JTableColumn> getForeignKeyColumns();
 
     Set<JTableColumn> getPrimaryKeyColumns();
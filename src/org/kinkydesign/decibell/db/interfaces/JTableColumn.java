@@ -43,6 +43,7 @@ import org.kinkydesign.decibell.collections.SQLType;
 import org.kinkydesign.decibell.Component;
 import org.kinkydesign.decibell.DeciBell;
 import org.kinkydesign.decibell.annotations.ForeignKey;
+import org.kinkydesign.decibell.db.util.FieldAccessor;
 
 /**
  *
@@ -121,6 +122,35 @@ public interface JTableColumn {
      */
     Field getField();
 
+    /**
+     * <p  align="justify" style="width:60%">
+     * An accessor for the field of the column, used to read and write its values
+     * without repeated reflective lookups (and without boxing for <code>int</code>,
+     * <code>long</code> and <code>double</code> fields).
+     * </p>
+     * @return
+     *      The accessor of the field or <code>null</code> if the column has no field.
+     */
+    FieldAccessor getAccessor();
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * The serializer used to store the values of the column, if the type of its
+     * field has no SQL counterpart.
+     * </p>
+     * @return
+     *      The serializer of the column or <code>null</code> if the values are
+     *      stored as they are.
+     */
+    JSerializer getSerializer();
+
+    /**
+     * Set the serializer used to store the values of the column.
+     * @param serializer
+     *      The serializer or <code>null</code> if the values are stored as they are.
+     */
+    void setSerializer(JSerializer serializer);
+
     /**
      *
      * <p  align="justify" style="width:60%">
@@ -559,6 +589,15 @@ public interface JTableColumn {
      */
     String getNumericNull();
 
+    /**
+     * <p align="justify" style="width:60%">
+     * Returns this column's NumericNull value as a number, parsed once when
+     * the NumericNull value is set.
+     * </p>
+     * @return this column's NumericNull value or <code>NaN</code> if it is not numeric.
+     */
+    double getNumericNullValue();
+
     /**
      * Whether the column is a self-referencing column of the table in
      * which it belongs, i.e. if it is a foreign key column referencing the
@@ -35,8 +35,9 @@
  */
 package org.kinkydesign.decibell.db.query;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import org.kinkydesign.decibell.db.Table;
 import org.kinkydesign.decibell.db.TableColumn;
 import org.kinkydesign.decibell.db.interfaces.JTable;
@@ -47,7 +48,17 @@ import org.kinkydesign.decibell.db.interfaces.JTable;
  */
 public abstract class Join {
 
-    protected Map<TableColumn, TableColumn> column2column = new HashMap<TableColumn, TableColumn>();
+    protected Map<TableColumn, TableColumn> column2column = new LinkedHashMap<TableColumn, TableColumn>();
+    /**
+     * Correlation name under which the base table is referenced in the query. If
+     * <code>null</code>, the (unqualified) name of the base table is used.
+     */
+    private String baseAlias = null;
+    /**
+     * Correlation name for the remote table. If <code>null</code>, the remote table
+     * is referenced by its name.
+     */
+    private String remoteAlias = null;
 
     public enum JOIN_TYPE {
 
@@ -83,6 +94,38 @@ public abstract class Join {
         return column2column.values().iterator().next().getMasterTable();
     }
 
+    public String getBaseAlias() {
+        return baseAlias;
+    }
+
+    public void setBaseAlias(String baseAlias) {
+        this.baseAlias = baseAlias;
+    }
+
+    public String getRemoteAlias() {
+        return remoteAlias;
+    }
+
+    /**
+     * Set a correlation name for the remote table. Aliases are necessary when the
+     * same table appears more than once in a query, e.g. when two foreign keys
+     * of a table point to the same remote table.
+     * @param remoteAlias
+     *      Correlation name for the remote table.
+     */
+    public void setRemoteAlias(String remoteAlias) {
+        this.remoteAlias = remoteAlias;
+    }
+
+    /**
+     * The columns of the base table that participate in the join condition.
+     * @return
+     *      Set of columns of the base table.
+     */
+    public Set<TableColumn> getBaseColumns() {
+        return column2column.keySet();
+    }
+
     public abstract String getSQL();
 
     public void addColumns(TableColumn baseColumn, TableColumn remoteColumn) {
@@ -38,6 +38,7 @@
 package org.kinkydesign.decibell.db.query;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
@@ -57,6 +58,30 @@ public abstract class SelectQuery implements SQLQuery {
     private JTable table;
     protected ArrayList<Proposition> propositions = new ArrayList<Proposition>();
     protected ArrayList<Join> joins = new ArrayList<Join>();
+    /**
+     * Number of primary keys looked up at once, or 0 if the query is not a
+     * batch lookup.
+     */
+    protected int keyBatchSize = 0;
+    /**
+     * The search mask from which the propositions were generated, if any.
+     */
+    private BitSet searchMask = null;
+    /**
+     * An additional condition of the <code>WHERE</code> clause, in SQL, or <code>null</code>.
+     */
+    private String condition = null;
+    /**
+     * The <code>ORDER BY</code> list of the query, in SQL, or <code>null</code>.
+     */
+    private String ordering = null;
+    private boolean offset = false;
+    private boolean fetch = false;
+    /**
+     * Bit of a search mask which indicates that the foreign key closure of the
+     * table is joined to the query.
+     */
+    public static final int MASK_JOINED = 0;
 
     public SelectQuery(){
 
@@ -99,6 +124,170 @@ public abstract class SelectQuery implements SQLQuery {
         joins.add(join);
     }
 
+    /**
+     * The bit of a search mask which is set when the column at position
+     * <code>columnIndex</code> (in {@link JTable#getTableColumns() getTableColumns()})
+     * participates in the <code>WHERE</code> clause.
+     * @param columnIndex
+     *      The position of a column in its table.
+     * @return
+     *      Index of a bit in the search mask.
+     */
+    public static int populatedBit(int columnIndex) {
+        return 2 * columnIndex + 1;
+    }
+
+    /**
+     * The bit of a search mask which is set when the column at position
+     * <code>columnIndex</code> is matched against a pattern (using <code>LIKE</code>)
+     * rather than tested for equality.
+     * @param columnIndex
+     *      The position of a column in its table.
+     * @return
+     *      Index of a bit in the search mask.
+     */
+    public static int patternBit(int columnIndex) {
+        return 2 * columnIndex + 2;
+    }
+
+    public BitSet getSearchMask() {
+        return searchMask;
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Replace the propositions of the query with the ones described by a search mask.
+     * A proposition is created only for the columns whose {@link SelectQuery#populatedBit(int)
+     * populated bit} is set; it is an equality unless the {@link SelectQuery#patternBit(int)
+     * pattern bit} of the column is set, in which case a <code>LIKE</code> proposition
+     * is created. So, unlike the default propositions of a select query, no parameter
+     * has to be padded with infinity values.
+     * </p>
+     * @param searchMask
+     *      The search mask.
+     */
+    public void setSearchMask(BitSet searchMask) {
+        this.searchMask = searchMask;
+        propositions = new ArrayList<Proposition>();
+        int columnIndex = 0;
+        for (JTableColumn column : table.getTableColumns()) {
+            if (searchMask.get(populatedBit(columnIndex))) {
+                Proposition p = new Proposition();
+                p.setTableColumn(column);
+                p.setQualifier(searchMask.get(patternBit(columnIndex)) ? Qualifier.LIKE : Qualifier.EQUAL);
+                p.setUnknown();
+                propositions.add(p);
+            }
+            columnIndex++;
+        }
+    }
+
+    public String getCondition() {
+        return condition;
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Set an additional condition which is joined to the propositions of the query
+     * with <code>AND</code>, e.g. a {@link org.kinkydesign.decibell.db.sieve.Criterion
+     * criterion} translated to SQL. Its parameters (if any) follow the parameters
+     * of the propositions.
+     * </p>
+     * @param condition
+     *      A boolean SQL expression or <code>null</code>.
+     */
+    public void setCondition(String condition) {
+        this.condition = condition;
+    }
+
+    public String getOrdering() {
+        return ordering;
+    }
+
+    /**
+     * Set the order of the rows selected by the query.
+     * @param ordering
+     *      A list of columns (full names), each followed by <code>ASC</code> or
+     *      <code>DESC</code>, separated by commas, or <code>null</code>.
+     */
+    public void setOrdering(String ordering) {
+        this.ordering = ordering;
+    }
+
+    public boolean isOffset() {
+        return offset;
+    }
+
+    /**
+     * Whether the query skips a number of rows, given as a parameter which follows
+     * the parameters of the <code>WHERE</code> clause.
+     * @param offset
+     *      <code>true</code> if the query has an <code>OFFSET</code> clause.
+     */
+    public void setOffset(boolean offset) {
+        this.offset = offset;
+    }
+
+    public boolean isFetch() {
+        return fetch;
+    }
+
+    /**
+     * Whether the query returns at most a number of rows, given as its last parameter.
+     * @param fetch
+     *      <code>true</code> if the query has a <code>FETCH</code> clause.
+     */
+    public void setFetch(boolean fetch) {
+        this.fetch = fetch;
+    }
+
+    public int getKeyBatchSize() {
+        return keyBatchSize;
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Turn this query into a batch lookup by primary key: the propositions of the
+     * query are replaced by a condition that matches any of <code>keyBatchSize</code>
+     * primary keys of the table. The parameters of the statement are the primary
+     * key values of each key in turn, each key listing its values in the order
+     * of {@link JTable#getPrimaryKeyColumns() getPrimaryKeyColumns()}.
+     * </p>
+     * @param keyBatchSize
+     *      The number of primary keys looked up by the query.
+     */
+    public void setKeyBatchSize(int keyBatchSize) {
+        this.keyBatchSize = keyBatchSize;
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * When the query has joins, the columns of the base table are selected first
+     * followed by the columns of every remote table in the order the joins are
+     * listed; the columns of each table appear in the order returned by
+     * {@link JTable#getTableColumns() getTableColumns()}. This method returns the
+     * (1-based) index in the result set where the columns of a joined table start.
+     * </p>
+     * @param join
+     *      One of the joins of this query or <code>null</code> for the base table.
+     * @return
+     *      The index of the first column of the corresponding table in the result set.
+     */
+    public int getColumnOffset(Join join) {
+        int offset = 1;
+        if (join == null) {
+            return offset;
+        }
+        offset += table.getTableColumns().size();
+        for (Join j : joins) {
+            if (j == join) {
+                return offset;
+            }
+            offset += j.getRemoteTable().getTableColumns().size();
+        }
+        throw new IllegalArgumentException("The join you provided does not belong to this query");
+    }
+
     public abstract String getSQL(boolean searchPKonly);
 
     public Proposition removeProposition(Proposition proposition) {
@@ -0,0 +1,354 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.db.sieve;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.collections.LogicalOperator;
+import org.kinkydesign.decibell.collections.Qualifier;
+import org.kinkydesign.decibell.core.ComponentMetadata;
+
+/**
+ *
+ * <p  align="justify" style="width:60%">
+ * A declarative sieve, built from conditions on the fields of the components
+ * (a field name, a {@link Qualifier qualifier} and a value) joined with the logical
+ * operators {@link LogicalOperator#AND AND} and {@link LogicalOperator#OR OR}.
+ * Unlike other sieves, a criterion can be translated to SQL: the search engine
+ * adds it to the <code>WHERE</code> clause of the search statement, so that
+ * rejected rows are never fetched. Conditions which cannot be translated (e.g.
+ * on foreign keys or serialized fields, or comparisons with <code>null</code>)
+ * are checked in memory; if they refer to simple fields only, they are checked
+ * before the foreign keys and collections of the components are retrieved (see
+ * {@link EarlySieve}). For example:
+ * </p>
+ * <pre>
+ * Criterion&lt;Person&gt; adults = Criterion.where("age", Qualifier.GREATER_EQUAL, 18);
+ * adults.and(Criterion.&lt;Person&gt;where("name", Qualifier.LIKE, "A%").or("name", Qualifier.LIKE, "B%"));
+ * ArrayList&lt;Person&gt; found = new Person().search(db, adults);
+ * </pre>
+ * <p  align="justify" style="width:60%">
+ * As in SQL, <code>AND</code> binds more tightly than <code>OR</code>; nested
+ * criteria act as parenthesized groups. A field whose value is <code>null</code>
+ * satisfies only the qualifier {@link Qualifier#IS IS} (with a <code>null</code>
+ * value).
+ * </p>
+ * @param <T>
+ *      The type of the sieved components.
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+public class Criterion<T extends Component> implements JSieve<T> {
+
+    /**
+     * The operands of the criterion: {@link Term terms} and nested criteria.
+     */
+    private final List<Object> operands = new ArrayList<Object>();
+    /**
+     * The i-th operator joins the operands i and i+1.
+     */
+    private final List<LogicalOperator> operators = new ArrayList<LogicalOperator>();
+    private boolean negated = false;
+
+    private Criterion() {
+    }
+
+    /**
+     * Create a criterion consisting of a single condition.
+     * @param fieldName
+     *      The name of a field of the components.
+     * @param qualifier
+     *      The relation between the value of the field and the given value.
+     * @param value
+     *      The value to compare with; must be <code>null</code> for the qualifiers
+     *      {@link Qualifier#IS IS} and {@link Qualifier#IS_NOT IS_NOT} only and
+     *      a string for {@link Qualifier#LIKE LIKE}.
+     * @return
+     *      The new criterion.
+     */
+    public static <T extends Component> Criterion<T> where(String fieldName, Qualifier qualifier, Object value) {
+        Criterion<T> criterion = new Criterion<T>();
+        criterion.operands.add(new Term(fieldName, qualifier, value));
+        return criterion;
+    }
+
+    /**
+     * Create a criterion which is satisfied by the components that do not satisfy
+     * the given one. Further conditions added to the returned criterion are not
+     * negated.
+     * @param criterion
+     *      The negated criterion.
+     * @return
+     *      The new criterion.
+     */
+    public static <T extends Component> Criterion<T> not(Criterion<T> criterion) {
+        Criterion<T> negation = new Criterion<T>();
+        negation.operands.add(criterion);
+        negation.negated = true;
+        Criterion<T> result = new Criterion<T>();
+        result.operands.add(negation);
+        return result;
+    }
+
+    public Criterion<T> and(String fieldName, Qualifier qualifier, Object value) {
+        return add(LogicalOperator.AND, new Term(fieldName, qualifier, value));
+    }
+
+    public Criterion<T> or(String fieldName, Qualifier qualifier, Object value) {
+        return add(LogicalOperator.OR, new Term(fieldName, qualifier, value));
+    }
+
+    public Criterion<T> and(Criterion<T> group) {
+        return add(LogicalOperator.AND, group);
+    }
+
+    public Criterion<T> or(Criterion<T> group) {
+        return add(LogicalOperator.OR, group);
+    }
+
+    private Criterion<T> add(LogicalOperator operator, Object operand) {
+        if (operand == this) {
+            throw new IllegalArgumentException("A criterion cannot contain itself");
+        }
+        operators.add(operator);
+        operands.add(operand);
+        return this;
+    }
+
+    /**
+     * The operands of the criterion; each one is either a {@link Term Term} or
+     * a nested Criterion.
+     * @return
+     *      Unmodifiable list of operands.
+     */
+    public List<Object> getOperands() {
+        return Collections.unmodifiableList(operands);
+    }
+
+    /**
+     * The operators joining the operands; the i-th operator joins the operands
+     * i and i+1.
+     * @return
+     *      Unmodifiable list of operators (either AND or OR).
+     */
+    public List<LogicalOperator> getOperators() {
+        return Collections.unmodifiableList(operators);
+    }
+
+    public boolean isNegated() {
+        return negated;
+    }
+
+    /**
+     * Evaluates the criterion on a component in memory.
+     * @param component
+     *      Component to be sieved.
+     * @return
+     *      <code>true</code> if the component satisfies the criterion.
+     */
+    public boolean sieve(T component) {
+        boolean result = false;
+        boolean conjunction = evaluate(operands.get(0), component);
+        for (int i = 0; i < operators.size(); i++) {
+            if (LogicalOperator.OR.equals(operators.get(i))) {
+                result |= conjunction;
+                conjunction = evaluate(operands.get(i + 1), component);
+            } else {
+                conjunction = conjunction && evaluate(operands.get(i + 1), component);
+            }
+        }
+        result |= conjunction;
+        return negated ? !result : result;
+    }
+
+    private boolean evaluate(Object operand, T component) {
+        if (operand instanceof Term) {
+            return ((Term) operand).evaluate(component);
+        }
+        return ((Criterion<T>) operand).sieve(component);
+    }
+
+    /**
+     * A condition on a single field: <code>field qualifier value</code>.
+     */
+    public static final class Term {
+
+        private final String fieldName;
+        private final Qualifier qualifier;
+        private final Object value;
+        private final Pattern pattern;
+
+        private Term(String fieldName, Qualifier qualifier, Object value) {
+            if (fieldName == null || qualifier == null) {
+                throw new NullPointerException("The field and the qualifier of a condition must be given");
+            }
+            boolean nullQualifier = Qualifier.IS.equals(qualifier) || Qualifier.IS_NOT.equals(qualifier);
+            if (nullQualifier != (value == null)) {
+                throw new IllegalArgumentException("Use the qualifier IS or IS NOT with null and only with null");
+            }
+            if (Qualifier.LIKE.equals(qualifier) && !(value instanceof String)) {
+                throw new IllegalArgumentException("The qualifier LIKE applies only to strings");
+            }
+            this.fieldName = fieldName;
+            this.qualifier = qualifier;
+            this.value = value;
+            this.pattern = Qualifier.LIKE.equals(qualifier) ? toRegex((String) value) : null;
+        }
+
+        public String getFieldName() {
+            return fieldName;
+        }
+
+        public Qualifier getQualifier() {
+            return qualifier;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        /**
+         * The field of a class on which the condition applies.
+         * @param c
+         *      A component class.
+         * @return
+         *      The field of the class with the name of this term.
+         * @throws IllegalArgumentException
+         *      If the class has no such field.
+         */
+        public Field getField(Class<? extends Component> c) {
+            for (Field field : ComponentMetadata.forClass(c).getFields()) {
+                if (field.getName().equals(fieldName)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("The class " + c.getName() + " has no field " + fieldName);
+        }
+
+        /**
+         * Evaluates the condition on a component in memory.
+         * @param component
+         *      A component having the field of the condition.
+         * @return
+         *      <code>true</code> if the value of the field satisfies the condition.
+         */
+        public boolean evaluate(Component component) {
+            Object actual;
+            try {
+                actual = getField(component.getClass()).get(component);
+            } catch (IllegalAccessException ex) {
+                throw new RuntimeException(ex);
+            }
+            switch (qualifier) {
+                case IS:
+                    return actual == null;
+                case IS_NOT:
+                    return actual != null;
+                default:
+                    if (actual == null) {
+                        return false;
+                    }
+            }
+            switch (qualifier) {
+                case LIKE:
+                    return pattern.matcher(actual.toString()).matches();
+                case EQUAL:
+                    return compare(actual) == 0;
+                case NOT_EQUAL:
+                    return compare(actual) != 0;
+                case GREATER_THAN:
+                    return compare(actual) > 0;
+                case GREATER_EQUAL:
+                    return compare(actual) >= 0;
+                case LESS_THAN:
+                    return compare(actual) < 0;
+                case LESS_EQUAL:
+                    return compare(actual) <= 0;
+                default:
+                    throw new IllegalArgumentException("Unsupported qualifier " + qualifier);
+            }
+        }
+
+        private int compare(Object actual) {
+            if (actual instanceof Number && value instanceof Number) {
+                if (isIntegral(actual) && isIntegral(value)) {
+                    long a = ((Number) actual).longValue(), b = ((Number) value).longValue();
+                    return a < b ? -1 : (a == b ? 0 : 1);
+                }
+                return Double.compare(((Number) actual).doubleValue(), ((Number) value).doubleValue());
+            }
+            if (actual instanceof Comparable && actual.getClass().isInstance(value)) {
+                return ((Comparable<Object>) actual).compareTo(value);
+            }
+            if (Qualifier.EQUAL.equals(qualifier) || Qualifier.NOT_EQUAL.equals(qualifier)) {
+                return actual.equals(value) ? 0 : 1;
+            }
+            throw new IllegalArgumentException("Cannot compare the field " + fieldName + " with " + value);
+        }
+
+        private static boolean isIntegral(Object number) {
+            return number instanceof Integer || number instanceof Long
+                    || number instanceof Short || number instanceof Byte;
+        }
+
+        /**
+         * Translates a pattern of the SQL operator LIKE to a regular expression.
+         */
+        private static Pattern toRegex(String like) {
+            StringBuilder regex = new StringBuilder();
+            StringBuilder literal = new StringBuilder();
+            for (char c : like.toCharArray()) {
+                if (c == '%' || c == '_') {
+                    if (literal.length() > 0) {
+                        regex.append(Pattern.quote(literal.toString()));
+                        literal.setLength(0);
+                    }
+                    regex.append(c == '%' ? ".*" : ".");
+                } else {
+                    literal.append(c);
+                }
+            }
+            if (literal.length() > 0) {
+                regex.append(Pattern.quote(literal.toString()));
+            }
+            return Pattern.compile(regex.toString(), Pattern.DOTALL);
+        }
+    }
+}
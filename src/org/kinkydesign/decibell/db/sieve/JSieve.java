@@ -48,6 +48,12 @@ import org.kinkydesign.decibell.Component;
  * Users can implement the method {@link JSieve#sieve(org.kinkydesign.decibell.Component) sieve}
  * of this class to build their own sieve.
  * </p>
+ * <p  align="justify" style="width:60%">
+ * A sieve is applied to fully retrieved components. Sieves which inspect only the
+ * simple fields of the components should implement {@link EarlySieve} so that
+ * rejected rows cost no further queries, while conditions on the values of fields
+ * are best expressed as a {@link Criterion}, which is checked by the database.
+ * </p>
  * @author Pantelis Sopasakis
  * @author Charalampos Chomenides
  */
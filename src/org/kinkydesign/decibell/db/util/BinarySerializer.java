@@ -0,0 +1,104 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.db.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.sql.Blob;
+import java.sql.SQLException;
+import org.kinkydesign.decibell.collections.SQLType;
+import org.kinkydesign.decibell.db.interfaces.JSerializer;
+
+/**
+ * <p  align="justify" style="width:60%">
+ * Stores values using the Java serialization mechanism in <code>LONG VARCHAR
+ * FOR BIT DATA</code> columns (up to 32,700 bytes). The values must implement
+ * {@link Serializable }. Binary serialization is much faster and more compact
+ * than XML, but binary columns cannot take part in searches: the value of such
+ * a field in a search prototype is ignored.
+ * </p>
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+public class BinarySerializer implements JSerializer {
+
+    public SQLType getSQLType() {
+        return SQLType.LONG_VARBINARY;
+    }
+
+    public Object serialize(Object value) {
+        if (!(value instanceof Serializable)) {
+            throw new IllegalArgumentException("The value " + value + " of type " + value.getClass().getName()
+                    + " cannot be stored using " + getClass().getSimpleName() + " as it is not Serializable.");
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(value);
+            out.close();
+            return bytes.toByteArray();
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    public Object deserialize(Object stored) {
+        if (stored == null) {
+            return null;
+        }
+        try {
+            byte[] bytes = stored instanceof Blob
+                    ? ((Blob) stored).getBytes(1, (int) ((Blob) stored).length())
+                    : (byte[]) stored;
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+            try {
+                return in.readObject();
+            } finally {
+                in.close();
+            }
+        } catch (SQLException ex) {
+            throw new RuntimeException(ex);
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        } catch (ClassNotFoundException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
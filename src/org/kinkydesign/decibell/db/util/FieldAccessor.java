@@ -0,0 +1,317 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.db.util;
+
+import java.lang.reflect.Field;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * <p  align="justify" style="width:60%">
+ * Reads and writes the value of a field of a component on behalf of the engines.
+ * An accessor is created once per table column (see {@link FieldAccessor#forField(java.lang.reflect.Field)
+ * forField}); fields of type <code>int</code>, <code>long</code> and <code>double</code>
+ * get specialized accessors which read and bind their values without boxing them,
+ * so that checking for the numeric null value of a column and binding the value to
+ * a prepared statement do not create any objects.
+ * </p>
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+public abstract class FieldAccessor {
+
+    protected final Field field;
+
+    private FieldAccessor(Field field) {
+        field.setAccessible(true);
+        this.field = field;
+    }
+
+    /**
+     * Create an accessor for the given field. The field is made accessible.
+     * @param field
+     *      A field of some component class.
+     * @return
+     *      Accessor for the field.
+     */
+    public static FieldAccessor forField(Field field) {
+        Class<?> type = field.getType();
+        if (type == int.class) {
+            return new IntAccessor(field);
+        } else if (type == long.class) {
+            return new LongAccessor(field);
+        } else if (type == double.class) {
+            return new DoubleAccessor(field);
+        }
+        return new ObjectAccessor(field);
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    /**
+     * The value of the field in the given object (primitives are boxed).
+     */
+    public Object get(Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Set the field of the given object. Numeric values are converted to the
+     * type of the field.
+     */
+    public void set(Object target, Object value) {
+        try {
+            field.set(target, value);
+        } catch (IllegalAccessException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Whether the field of the given object is <code>null</code> (never for
+     * primitive fields).
+     */
+    public boolean isNull(Object target) {
+        return get(target) == null;
+    }
+
+    /**
+     * The numeric value of the field in the given object.
+     * @throws NullPointerException
+     *      If the field is <code>null</code>.
+     */
+    public abstract double getDouble(Object target);
+
+    /**
+     * Whether the field of the given object holds the given numeric null value.
+     * A <code>null</code> field does not hold any numeric null value.
+     */
+    public boolean isNumericNull(Object target, double numericNull) {
+        return getDouble(target) == numericNull;
+    }
+
+    /**
+     * Set the value of the field of the given object as parameter of a prepared
+     * statement.
+     * @param ps
+     *      The prepared statement.
+     * @param index
+     *      The index of the parameter (starting from 1).
+     * @param target
+     *      The object holding the field.
+     * @param sqlType
+     *      The SQL type of the parameter as in {@link Types }.
+     */
+    public void bind(PreparedStatement ps, int index, Object target, int sqlType) throws SQLException {
+        ps.setObject(index, get(target), sqlType);
+    }
+
+    private static final class ObjectAccessor extends FieldAccessor {
+
+        ObjectAccessor(Field field) {
+            super(field);
+        }
+
+        @Override
+        public double getDouble(Object target) {
+            Object value = get(target);
+            if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            }
+            return Double.parseDouble(value.toString());
+        }
+
+        @Override
+        public boolean isNumericNull(Object target, double numericNull) {
+            Object value = get(target);
+            if (value == null) {
+                return false;
+            }
+            if (value instanceof Number) {
+                return ((Number) value).doubleValue() == numericNull;
+            }
+            return Double.parseDouble(value.toString()) == numericNull;
+        }
+    }
+
+    private static final class IntAccessor extends FieldAccessor {
+
+        IntAccessor(Field field) {
+            super(field);
+        }
+
+        @Override
+        public void set(Object target, Object value) {
+            try {
+                if (value instanceof Number) {
+                    field.setInt(target, ((Number) value).intValue());
+                } else {
+                    field.set(target, value);
+                }
+            } catch (IllegalAccessException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+
+        @Override
+        public boolean isNull(Object target) {
+            return false;
+        }
+
+        @Override
+        public double getDouble(Object target) {
+            try {
+                return field.getInt(target);
+            } catch (IllegalAccessException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+
+        @Override
+        public void bind(PreparedStatement ps, int index, Object target, int sqlType) throws SQLException {
+            if (sqlType != Types.INTEGER) {
+                super.bind(ps, index, target, sqlType);
+                return;
+            }
+            try {
+                ps.setInt(index, field.getInt(target));
+            } catch (IllegalAccessException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    private static final class LongAccessor extends FieldAccessor {
+
+        LongAccessor(Field field) {
+            super(field);
+        }
+
+        @Override
+        public void set(Object target, Object value) {
+            try {
+                if (value instanceof Number) {
+                    field.setLong(target, ((Number) value).longValue());
+                } else {
+                    field.set(target, value);
+                }
+            } catch (IllegalAccessException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+
+        @Override
+        public boolean isNull(Object target) {
+            return false;
+        }
+
+        @Override
+        public double getDouble(Object target) {
+            try {
+                return field.getLong(target);
+            } catch (IllegalAccessException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+
+        @Override
+        public void bind(PreparedStatement ps, int index, Object target, int sqlType) throws SQLException {
+            if (sqlType != Types.BIGINT) {
+                super.bind(ps, index, target, sqlType);
+                return;
+            }
+            try {
+                ps.setLong(index, field.getLong(target));
+            } catch (IllegalAccessException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    private static final class DoubleAccessor extends FieldAccessor {
+
+        DoubleAccessor(Field field) {
+            super(field);
+        }
+
+        @Override
+        public void set(Object target, Object value) {
+            try {
+                if (value instanceof Number) {
+                    field.setDouble(target, ((Number) value).doubleValue());
+                } else {
+                    field.set(target, value);
+                }
+            } catch (IllegalAccessException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+
+        @Override
+        public boolean isNull(Object target) {
+            return false;
+        }
+
+        @Override
+        public double getDouble(Object target) {
+            try {
+                return field.getDouble(target);
+            } catch (IllegalAccessException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+
+        @Override
+        public void bind(PreparedStatement ps, int index, Object target, int sqlType) throws SQLException {
+            if (sqlType != Types.DOUBLE) {
+                super.bind(ps, index, target, sqlType);
+                return;
+            }
+            try {
+                ps.setDouble(index, field.getDouble(target));
+            } catch (IllegalAccessException ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+}
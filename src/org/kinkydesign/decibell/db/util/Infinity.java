@@ -40,29 +40,21 @@ package org.kinkydesign.decibell.db.util;
 
 import org.kinkydesign.decibell.DeciBell;
 import org.kinkydesign.decibell.collections.Qualifier;
+import org.kinkydesign.decibell.collections.SQLType;
 import org.kinkydesign.decibell.db.DbConnector;
-import org.kinkydesign.decibell.db.derby.DerbyConnector;
-import org.kinkydesign.decibell.db.derby.util.DerbyInfinity;
+import org.kinkydesign.decibell.db.interfaces.JDialect;
 import org.kinkydesign.decibell.db.query.Proposition;
 
 /**
  * This class is used for getting the infinite values on various sql types for
- * each database server that DeciBell supports.
+ * each database server that DeciBell supports. The values are provided by the
+ * {@link JDialect dialect} of the database.
  * @author Charalampos Chomenides
  * @author Pantelis Sopasakis
  */
 public class Infinity {
 
-    /**
-     * an Enumeration of Database Servers that DeciBell supports.
-     */
-    private enum Connection{
-        DERBY,
-        MYSQL,
-        ORACLE
-    }
-
-    private Connection con;
+    private final JDialect dialect;
 
     /**
      * Constructs a new Infinity object given a DbConnector. The DbConnector
@@ -70,11 +62,7 @@ public class Infinity {
      * @param con a DbConnector that decides the database server values to be returned.
      */
     public Infinity(final DbConnector con){
-        if(con.getClass().equals(DerbyConnector.class)){
-            this.con = Connection.DERBY;
-        }else{
-
-        }
+        this.dialect = con.getDialect();
     }
 
     public Infinity(final DeciBell db){
@@ -139,12 +127,7 @@ public class Infinity {
      * @return the lowest int value the database can take.
      */
     public int getLeftInt(){
-        switch (con){
-            case DERBY:
-                return DerbyInfinity.getLeftInt();
-            default:
-                return Integer.MIN_VALUE;
-        }
+        return dialect.getLeftInfinity(SQLType.INTEGER).intValue();
     }
 
     /**
@@ -152,12 +135,7 @@ public class Infinity {
      * @return the highest int value the database can take.
      */
     public int getRightInt(){
-        switch(con){
-            case DERBY:
-                return DerbyInfinity.getRightInt();
-            default:
-                return Integer.MAX_VALUE;
-        }
+        return dialect.getRightInfinity(SQLType.INTEGER).intValue();
     }
 
     /**
@@ -165,12 +143,7 @@ public class Infinity {
      * @return the lowest float value the database can take.
      */
     public double getLeftFloat(){
-        switch (con){
-            case DERBY:
-                return DerbyInfinity.getLeftFloat();
-            default:
-                return Float.MIN_VALUE;
-        }
+        return dialect.getLeftInfinity(SQLType.REAL).doubleValue();
     }
 
     /**
@@ -178,12 +151,7 @@ public class Infinity {
      * @return the highest float value the database can take.
      */
     public double getRightFloat(){
-        switch (con){
-            case DERBY:
-                return DerbyInfinity.getRightFloat();
-            default:
-                return Float.MAX_VALUE;
-        }
+        return dialect.getRightInfinity(SQLType.REAL).doubleValue();
     }
 
     /**
@@ -191,12 +159,7 @@ public class Infinity {
      * @return the lowest double value the database can take.
      */
     public double getLeftDouble(){
-        switch (con){
-            case DERBY:
-                return DerbyInfinity.getLeftDouble();
-            default:
-                return Double.MIN_VALUE;
-        }
+        return dialect.getLeftInfinity(SQLType.DOUBLE).doubleValue();
     }
 
     /**
@@ -204,12 +167,7 @@ public class Infinity {
      * @return the highest double value the database can take.
      */
     public double getRightDouble(){
-        switch (con){
-            case DERBY:
-                return DerbyInfinity.getRightDouble();
-            default:
-                return Double.MAX_VALUE;
-        }
+        return dialect.getRightInfinity(SQLType.DOUBLE).doubleValue();
     }
 
     /**
@@ -217,12 +175,7 @@ public class Infinity {
      * @return the lowest long value the database can take.
      */
     public long getLeftLong(){
-        switch (con){
-            case DERBY:
-                return DerbyInfinity.getLeftLong();
-            default:
-                return Long.MIN_VALUE;
-        }
+        return dialect.getLeftInfinity(SQLType.BIGINT).longValue();
     }
 
     /**
@@ -230,12 +183,7 @@ public class Infinity {
      * @return the highest long value the database can take.
      */
     public long getRightLong(){
-        switch (con){
-            case DERBY:
-                return DerbyInfinity.getRightLong();
-            default:
-                return Long.MAX_VALUE;
-        }
+        return dialect.getRightInfinity(SQLType.BIGINT).longValue();
     }
 
 }
@@ -37,15 +37,21 @@ package org.kinkydesign.decibell.db.util;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
 import org.kinkydesign.decibell.db.DbConnector;
-import org.kinkydesign.decibell.db.derby.query.DerbySelectQuery;
+import org.kinkydesign.decibell.db.TableColumn;
 import org.kinkydesign.decibell.db.query.SelectQuery;
-import org.kinkydesign.decibell.db.derby.query.DerbyDeleteQuery;
-import org.kinkydesign.decibell.db.derby.query.DerbyInsertQuery;
-import org.kinkydesign.decibell.db.derby.query.DerbyUpdateQuery;
+import org.kinkydesign.decibell.collections.Qualifier;
+import org.kinkydesign.decibell.db.interfaces.JRelationalTable;
 import org.kinkydesign.decibell.db.interfaces.JTable;
+import org.kinkydesign.decibell.db.interfaces.JTableColumn;
 import org.kinkydesign.decibell.db.query.DeleteQuery;
 import org.kinkydesign.decibell.db.query.InsertQuery;
+import org.kinkydesign.decibell.db.query.Join;
+import org.kinkydesign.decibell.db.query.Proposition;
 import org.kinkydesign.decibell.db.query.SQLQuery;
 import org.kinkydesign.decibell.db.query.UpdateQuery;
 
@@ -57,6 +63,16 @@ import org.kinkydesign.decibell.db.query.UpdateQuery;
  */
 public class StatementFactory {
 
+    /**
+     * Prefix for the correlation names of the tables joined in a search statement.
+     */
+    private static final String JOIN_ALIAS = "DB_JOIN_";
+    /**
+     * Upper bound for the number of tables joined to the master table in a single
+     * search statement.
+     */
+    private static final int MAX_JOINS = 32;
+
     /**
      * Creates a prepared statement for searching in an SQL table.
      * @param table
@@ -67,7 +83,7 @@ public class StatementFactory {
      *      PreparedStatement for searching.
      */
     public static Pair<PreparedStatement,SQLQuery> createSearch(JTable table, DbConnector con) {
-        SelectQuery query = new DerbySelectQuery(table);
+        SelectQuery query = con.getDialect().newSelectQuery(table);
         try {
             PreparedStatement ps = con.prepareStatement(query.getSQL());
             Pair pair = new Pair(ps, query);
@@ -88,7 +104,7 @@ public class StatementFactory {
      *      PreparedStatement for searching by primary key only.
      */
     public static Pair<PreparedStatement,SQLQuery> createSearchPK(JTable table, DbConnector con) {
-        SelectQuery query = new DerbySelectQuery(table);
+        SelectQuery query = con.getDialect().newSelectQuery(table);
         try {
             PreparedStatement ps = con.prepareStatement(query.getSQL(true));
             Pair pair = new Pair(ps, query);
@@ -99,6 +115,187 @@ public class StatementFactory {
         }
     }
 
+    /**
+     * <p  align="justify" style="width:60%">
+     * Creates a prepared statement for searching in an SQL table whose propositions
+     * are described by a search mask (see {@link SelectQuery#setSearchMask(java.util.BitSet)
+     * setSearchMask}): only the columns which are actually given by the prototype
+     * of a search appear in the <code>WHERE</code> clause. If the bit {@link SelectQuery#MASK_JOINED}
+     * of the mask is set, the statement also fetches all rows pointed by the foreign
+     * keys of the master row (recursively), using <code>LEFT OUTER JOIN</code>s.
+     * Foreign keys that lead back to a table which is already on the join path
+     * (e.g. self-references) are not joined.
+     * </p>
+     * @param table
+     *      A database table.
+     * @param searchMask
+     *      The search mask.
+     * @param con
+     *      A {@link DbConnector } object, that is a pointer to a database connection.
+     * @return
+     *      PreparedStatement for searching and the corresponding query which holds
+     *      the propositions and the joins.
+     */
+    public static Pair<PreparedStatement,SQLQuery> createSearch(JTable table, BitSet searchMask, DbConnector con) {
+        return createSearch(table, searchMask, null, con);
+    }
+
+    /**
+     * Creates a prepared statement for searching in an SQL table like {@link StatementFactory#createSearch(
+     * org.kinkydesign.decibell.db.interfaces.JTable, java.util.BitSet, org.kinkydesign.decibell.db.DbConnector)
+     * createSearch}, with an additional condition in its <code>WHERE</code> clause
+     * (see {@link SelectQuery#setCondition(java.lang.String) setCondition}).
+     * @param table
+     *      A database table.
+     * @param searchMask
+     *      The search mask.
+     * @param condition
+     *      A boolean SQL expression or <code>null</code>.
+     * @param con
+     *      A {@link DbConnector } object, that is a pointer to a database connection.
+     * @return
+     *      PreparedStatement for searching and the corresponding query.
+     */
+    public static Pair<PreparedStatement,SQLQuery> createSearch(JTable table, BitSet searchMask, String condition,
+            DbConnector con) {
+        return createSearch(table, searchMask, condition, null, false, false, con);
+    }
+
+    /**
+     * Creates a prepared statement for searching in an SQL table like {@link StatementFactory#createSearch(
+     * org.kinkydesign.decibell.db.interfaces.JTable, java.util.BitSet, java.lang.String,
+     * org.kinkydesign.decibell.db.DbConnector) createSearch}, which returns the rows in
+     * the given order and optionally a single page of them.
+     * @param table
+     *      A database table.
+     * @param searchMask
+     *      The search mask.
+     * @param condition
+     *      A boolean SQL expression or <code>null</code>.
+     * @param ordering
+     *      The <code>ORDER BY</code> list (see {@link SelectQuery#setOrdering(java.lang.String)
+     *      setOrdering}) or <code>null</code>.
+     * @param offset
+     *      Whether the number of skipped rows is a parameter of the statement.
+     * @param fetch
+     *      Whether the maximum number of rows is a parameter of the statement.
+     * @param con
+     *      A {@link DbConnector } object, that is a pointer to a database connection.
+     * @return
+     *      PreparedStatement for searching and the corresponding query.
+     */
+    public static Pair<PreparedStatement,SQLQuery> createSearch(JTable table, BitSet searchMask, String condition,
+            String ordering, boolean offset, boolean fetch, DbConnector con) {
+        SelectQuery query = con.getDialect().newSelectQuery(table);
+        query.setSearchMask(searchMask);
+        query.setCondition(condition);
+        query.setOrdering(ordering);
+        query.setOffset(offset);
+        query.setFetch(fetch);
+        if (searchMask.get(SelectQuery.MASK_JOINED)) {
+            List<JTable> path = new ArrayList<JTable>();
+            path.add(table);
+            addForeignKeyJoins(query, table, null, path, con);
+        }
+        try {
+            PreparedStatement ps = con.prepareStatement(query.getSQL());
+            Pair pair = new Pair(ps, query);
+            return pair;
+        } catch (SQLException ex) {
+            System.out.println("DeciBell >>> Buggy SQL statement: "+query.getSQL());
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Creates a prepared statement which fetches up to <code>batchSize</code> rows
+     * of a table given their primary keys (see {@link SelectQuery#setKeyBatchSize(int)
+     * setKeyBatchSize}). Like the joined statements produced by {@link StatementFactory#createSearch(
+     * org.kinkydesign.decibell.db.interfaces.JTable, java.util.BitSet, org.kinkydesign.decibell.db.DbConnector)
+     * createSearch}, the referenced rows are fetched as well.
+     * </p>
+     * @param table
+     *      A database table.
+     * @param batchSize
+     *      Number of primary keys the statement looks up.
+     * @param con
+     *      A {@link DbConnector } object, that is a pointer to a database connection.
+     * @return
+     *      PreparedStatement for searching by a batch of primary keys.
+     */
+    public static Pair<PreparedStatement,SQLQuery> createSearchKeys(JTable table, int batchSize, DbConnector con) {
+        SelectQuery query = con.getDialect().newSelectQuery(table);
+        query.setKeyBatchSize(batchSize);
+        List<JTable> path = new ArrayList<JTable>();
+        path.add(table);
+        addForeignKeyJoins(query, table, null, path, con);
+        try {
+            PreparedStatement ps = con.prepareStatement(query.getSQL());
+            Pair pair = new Pair(ps, query);
+            return pair;
+        } catch (SQLException ex) {
+            System.out.println("DeciBell >>> Buggy SQL statement: "+query.getSQL());
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static void addForeignKeyJoins(SelectQuery query, JTable table, String alias, List<JTable> path,
+            DbConnector con) {
+        for (Set<JTableColumn> group : table.getForeignColumnsByGroup()) {
+            JTable remoteTable = group.iterator().next().getReferenceTable();
+            if (path.contains(remoteTable) || query.getJoins().size() >= MAX_JOINS) {
+                continue;
+            }
+            Join join = con.getDialect().newJoin();
+            join.setJoinType(Join.JOIN_TYPE.LEFT);
+            join.setBaseAlias(alias);
+            join.setRemoteAlias(JOIN_ALIAS + (query.getJoins().size() + 1));
+            for (JTableColumn column : group) {
+                join.addColumns((TableColumn) column, (TableColumn) column.getReferenceColumn());
+            }
+            query.addJoin(join);
+            path.add(remoteTable);
+            addForeignKeyJoins(query, remoteTable, join.getRemoteAlias(), path, con);
+            path.remove(path.size() - 1);
+        }
+    }
+
+    /**
+     * <p  align="justify" style="width:60%">
+     * Creates a prepared statement that retrieves the rows of a relational table
+     * which belong to a certain master component. The propositions of the statement
+     * are equalities on the {@link JRelationalTable#getMasterColumns() master columns}
+     * of the relational table.
+     * </p>
+     * @param table
+     *      A relational table.
+     * @param con
+     *      A {@link DbConnector } object, that is a pointer to a database connection.
+     * @return
+     *      PreparedStatement for searching by master key.
+     */
+    public static Pair<PreparedStatement,SQLQuery> createSearchMaster(JRelationalTable table, DbConnector con) {
+        SelectQuery query = con.getDialect().newSelectQuery(table);
+        ArrayList<Proposition> propositions = new ArrayList<Proposition>();
+        for (JTableColumn column : table.getMasterColumns()) {
+            Proposition proposition = new Proposition();
+            proposition.setTableColumn(column);
+            proposition.setQualifier(Qualifier.EQUAL);
+            proposition.setUnknown();
+            propositions.add(proposition);
+        }
+        query.setPropositions(propositions);
+        try {
+            PreparedStatement ps = con.prepareStatement(query.getSQL());
+            Pair pair = new Pair(ps, query);
+            return pair;
+        } catch (SQLException ex) {
+            System.out.println("DeciBell >>> Buggy SQL statement: "+query.getSQL());
+            throw new RuntimeException(ex);
+        }
+    }
+
     /**
      * Creates a prepared statement for updating rows in an SQL table.
      * @param table
@@ -109,7 +306,7 @@ public class StatementFactory {
      *      PreparedStatement for updating.
      */
     public static Pair<PreparedStatement,SQLQuery> createUpdate(JTable table, DbConnector con) {
-        UpdateQuery query= new DerbyUpdateQuery(table);
+        UpdateQuery query= con.getDialect().newUpdateQuery(table);
         try {
             PreparedStatement ps = con.prepareStatement(query.getSQL());
             Pair pair = new Pair(ps, query);
@@ -130,7 +327,7 @@ public class StatementFactory {
      *      PreparedStatement for registering.
      */
     public static Pair<PreparedStatement,SQLQuery> createRegister(JTable table, DbConnector con) {
-        InsertQuery query= new DerbyInsertQuery(table);
+        InsertQuery query= con.getDialect().newInsertQuery(table);
         try {
             PreparedStatement ps = con.prepareStatement(query.getSQL());
             Pair pair = new Pair(ps, query);
@@ -153,7 +350,7 @@ public class StatementFactory {
      *      PreparedStatement for the deletion.
      */
     public static Pair<PreparedStatement,SQLQuery> createDelete(JTable table, DbConnector con) {
-        DeleteQuery query= new DerbyDeleteQuery(table);
+        DeleteQuery query= con.getDialect().newDeleteQuery(table);
         try {
             PreparedStatement ps = con.prepareStatement(query.getSQL());
             Pair pair = new Pair(ps, query);
@@ -0,0 +1,78 @@
+/**
+ *   .       .     ..
+ *  _| _  _.*|_  _ ||
+ * (_](/,(_.|[_)(/,||
+ *
+ * DeciBell : A Java Tool for creating and managing relational databases.
+ *  DeciBell is a Object - Relation database mapper for java applications providing
+ * an easy-to-use interface making it easy for the developer to build a relational
+ * database and moreover perform database operations easily!
+ *  This project was developed at the Automatic Control Lab in the Chemical Engineering
+ * School of the National Technical University of Athens. Please read README for more
+ * information.
+ *
+ * Copyright (C) 2009-2010 Charalampos Chomenides & Pantelis Sopasakis
+ *                         kinkyDesign ~ OpenSource Development
+
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contact:
+ * hampos Att yahoo d0t c0m
+ * chvng att mail D0t ntua dd0T gr
+ * Address: Iroon Politechniou St. 9, Zografou, Athens Greece
+ * tel. +30 210 7723236
+ */
+package org.kinkydesign.decibell.db.util;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.xml.DomDriver;
+import org.kinkydesign.decibell.collections.SQLType;
+import org.kinkydesign.decibell.db.interfaces.JSerializer;
+
+/**
+ * <p  align="justify" style="width:60%">
+ * The default serializer: values are stored as XML in <code>LONG VARCHAR</code>
+ * columns. All instances share a single XStream object, as XStream is expensive
+ * to set up but thread-safe once configured. Columns serialized this way can be
+ * used in searches (the XML is compared to the XML of the prototype's value).
+ * </p>
+ * @author Pantelis Sopasakis
+ * @author Charalampos Chomenides
+ */
+public class XStreamSerializer implements JSerializer {
+
+    /**
+     * Holds the shared XStream object, created upon first use. The DOM driver
+     * relies only on the XML parser of the JRE.
+     */
+    private static final class XStreamHolder {
+
+        private static final XStream xstream = new XStream(new DomDriver());
+    }
+
+    public SQLType getSQLType() {
+        return SQLType.LONG_VARCHAR;
+    }
+
+    public Object serialize(Object value) {
+        return XStreamHolder.xstream.toXML(value);
+    }
+
+    public Object deserialize(Object stored) {
+        if (stored == null) {
+            return null;
+        }
+        return XStreamHolder.xstream.fromXML(stored.toString());
+    }
+}
@@ -0,0 +1,74 @@
+package org.kinkydesign.decibell.alpha.collect;
+
+import java.util.*;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.DeciBell;
+import static org.junit.Assert.*;
+import org.kinkydesign.decibell.exceptions.DeciBellException;
+import org.kinkydesign.decibell.exceptions.DuplicateKeyException;
+
+public class BatchRegisterTest {
+
+    private static DeciBell db = new DeciBell();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        db.setDbName("my/dvb/b4tch91");
+        db.attach(Master.class);
+        db.attach(Slave.class);
+        db.start();
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        db.reset();
+        db.stop();
+    }
+
+    @Test
+    public void testRegisterAll() throws DeciBellException {
+        new Master().delete(db);
+        new Slave().delete(db);
+
+        List<Slave> slaves = new ArrayList<Slave>();
+        for (int i = 0; i < 1500; i++) {
+            slaves.add(new Slave(i, "batch" + i, "entry" + i));
+        }
+        Master master = new Master("batch master", slaves);
+
+        /*
+         * The master is given before its slaves; registerAll must register
+         * the slaves first.
+         */
+        List<Component> components = new ArrayList<Component>();
+        components.add(master);
+        components.addAll(slaves);
+        db.registerAll(components);
+
+        assertEquals(1500, new Slave().search(db).size());
+        ArrayList<Master> mastersFound = new Master().search(db);
+        assertEquals(1, mastersFound.size());
+        assertEquals(master, mastersFound.get(0));
+        assertEquals(1500, mastersFound.get(0).getSlaves().size());
+        assertTrue(mastersFound.get(0).getSlaves().containsAll(slaves));
+
+        /*
+         * A duplicate key rolls back the whole batch
+         */
+        List<Slave> more = new ArrayList<Slave>();
+        more.add(new Slave(5000, "fresh1", "x"));
+        more.add(new Slave(7, "batch7", "x"));
+        more.add(new Slave(5002, "fresh2", "x"));
+        try {
+            db.registerAll(more);
+            fail("A duplicate key should be reported");
+        } catch (DuplicateKeyException ex) {
+            assertTrue(ex.getMessage().contains("batch7"));
+        }
+        assertEquals(1500, new Slave().search(db).size());
+        assertTrue(new Slave(5000, null, null).search(db).isEmpty());
+    }
+}
@@ -0,0 +1,46 @@
+package org.kinkydesign.decibell.alpha.collect;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kinkydesign.decibell.DeciBell;
+import static org.junit.Assert.*;
+import org.kinkydesign.decibell.exceptions.DeciBellException;
+
+public class EmbeddedTest {
+
+    private static DeciBell db = new DeciBell();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        db.setDbName("my/dvb/3mb3dd3d");
+        db.setEmbedded(true);
+        db.attach(Master.class);
+        db.attach(Slave.class);
+        db.start();
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        db.reset();
+        db.stop();
+    }
+
+    @Test
+    public void testEmbedded() throws DeciBellException {
+        assertTrue(db.getDatabaseUrl().startsWith("jdbc:derby:my/dvb/3mb3dd3d"));
+        new Slave().delete(db);
+        List<Slave> slaves = new ArrayList<Slave>();
+        for (int i = 0; i < 10; i++) {
+            slaves.add(new Slave(i, "embedded" + i, "entry" + i));
+        }
+        db.registerAll(slaves);
+        assertEquals(10, new Slave().search(db).size());
+        assertEquals("entry3", new Slave(3, "embedded3", null).search(db).get(0).getMyEntry());
+
+        db.restart();
+        assertEquals(10, new Slave().search(db).size());
+    }
+}
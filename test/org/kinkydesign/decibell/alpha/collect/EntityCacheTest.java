@@ -0,0 +1,142 @@
+package org.kinkydesign.decibell.alpha.collect;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.*;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kinkydesign.decibell.DeciBell;
+import org.kinkydesign.decibell.core.ComponentRegistry;
+import org.kinkydesign.decibell.db.EntityCache;
+import org.kinkydesign.decibell.db.engine.Crawler;
+import org.kinkydesign.decibell.db.interfaces.JTable;
+import static org.junit.Assert.*;
+import org.kinkydesign.decibell.exceptions.DeciBellException;
+
+public class EntityCacheTest {
+
+    private static DeciBell db = new DeciBell();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        db.setDbName("my/dvb/c4ch3d");
+        db.attach(Master.class);
+        db.attach(Slave.class);
+        db.start();
+        db.getEntityCache().enable(Slave.class, 5, 0);
+        db.getEntityCache().enable(Master.class, 5, 0);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        db.reset();
+        db.stop();
+    }
+
+    @Test
+    public void testEntityCache() throws DeciBellException {
+        EntityCache cache = db.getEntityCache();
+        new Master().delete(db);
+        new Slave().delete(db);
+
+        List<Slave> slaves = new ArrayList<Slave>();
+        for (int i = 0; i < 10; i++) {
+            slaves.add(new Slave(i, "cached" + i, "entry" + i));
+        }
+        db.registerAll(slaves);
+        new Master("cache master", new ArrayList<Slave>(slaves.subList(0, 2))).register(db);
+
+        Slave first = new Slave(1, "cached1", null).search(db).get(0);
+        long hits = cache.getHitCount(Slave.class);
+        Slave second = new Slave(1, "cached1", null).search(db).get(0);
+        assertSame(first, second);
+        assertEquals(hits + 1, cache.getHitCount(Slave.class));
+
+        /*
+         * The region is bounded
+         */
+        assertEquals(10, new Slave().search(db).size());
+        assertEquals(5, cache.getSize(Slave.class));
+        assertTrue(cache.getEvictionCount() >= 5);
+
+        /*
+         * Updating a slave evicts it, as well as the masters holding it
+         */
+        Master master = new Master("cache master", null).search(db).get(0);
+        assertEquals(1, cache.getSize(Master.class));
+        Slave changed = new Slave(1, "cached1", "changed");
+        changed.update(db);
+        assertEquals(0, cache.getSize(Master.class));
+        assertEquals("changed", new Slave(1, "cached1", null).search(db).get(0).getMyEntry());
+        Master reloaded = new Master("cache master", null).search(db).get(0);
+        assertNotSame(master, reloaded);
+
+        new Slave().delete(db);
+        assertEquals(0, cache.getSize(Slave.class));
+    }
+
+    @Test
+    public void testStaleRead() throws Exception {
+        EntityCache cache = db.getEntityCache();
+        new Master().delete(db);
+        new Slave().delete(db);
+        new Slave(1, "stale1", "entry").register(db);
+        JTable table = ComponentRegistry.getRegistry(db.getDbConnector()).get(Slave.class);
+
+        /*
+         * A component read before its class is invalidated is not cached
+         */
+        Crawler crawler = new Crawler(db);
+        Statement stmt = db.getDbConnector().createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT * FROM " + table.getFullTableName());
+        assertTrue(rs.next());
+        cache.invalidateAll(Slave.class);
+        assertNotNull(crawler.crawlDatabase(rs, Slave.class, table));
+        assertEquals(0, cache.getSize(Slave.class));
+        rs.close();
+
+        crawler = new Crawler(db);
+        rs = stmt.executeQuery("SELECT * FROM " + table.getFullTableName());
+        assertTrue(rs.next());
+        crawler.crawlDatabase(rs, Slave.class, table);
+        assertEquals(1, cache.getSize(Slave.class));
+        rs.close();
+        stmt.close();
+        new Slave().delete(db);
+    }
+
+    @Test
+    public void testQueryCache() throws DeciBellException {
+        EntityCache cache = db.getEntityCache();
+        cache.enableQueries(Slave.class, 10, 0);
+        try {
+            new Master().delete(db);
+            new Slave().delete(db);
+            List<Slave> slaves = new ArrayList<Slave>();
+            for (int i = 0; i < 4; i++) {
+                slaves.add(new Slave(i, "query" + i, i % 2 == 0 ? "even" : "odd"));
+            }
+            db.registerAll(slaves);
+
+            List<Slave> even = new Slave(-1, null, "even").search(db);
+            assertEquals(2, even.size());
+            long hits = cache.getQueryHitCount();
+            assertEquals(even, new Slave(-1, null, "even").search(db));
+            assertEquals(hits + 1, cache.getQueryHitCount());
+
+            /*
+             * Writes to the table drop the cached results
+             */
+            new Slave(4, "query4", "even").register(db);
+            assertEquals(3, new Slave(-1, null, "even").search(db).size());
+            new Slave(0, "query0", "odd").update(db);
+            assertEquals(2, new Slave(-1, null, "even").search(db).size());
+            new Slave().delete(db);
+            assertTrue(new Slave(-1, null, "even").search(db).isEmpty());
+            assertEquals(hits + 1, cache.getQueryHitCount());
+        } finally {
+            cache.disableQueries(Slave.class);
+        }
+    }
+}
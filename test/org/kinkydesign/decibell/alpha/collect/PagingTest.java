@@ -0,0 +1,129 @@
+package org.kinkydesign.decibell.alpha.collect;
+
+import java.util.*;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kinkydesign.decibell.DeciBell;
+import org.kinkydesign.decibell.collections.Qualifier;
+import org.kinkydesign.decibell.db.EntityCache;
+import org.kinkydesign.decibell.db.engine.SearchOptions;
+import org.kinkydesign.decibell.db.sieve.Criterion;
+import org.kinkydesign.decibell.db.sieve.JSieve;
+import static org.junit.Assert.*;
+import org.kinkydesign.decibell.exceptions.DeciBellException;
+
+public class PagingTest {
+
+    private static DeciBell db = new DeciBell();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        db.setDbName("my/dvb/p4g1ng");
+        db.attach(Master.class);
+        db.attach(Slave.class);
+        db.start();
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        db.reset();
+        db.stop();
+    }
+
+    @Test
+    public void testPaging() throws DeciBellException {
+        new Master().delete(db);
+        new Slave().delete(db);
+        List<Slave> slaves = new ArrayList<Slave>();
+        for (int i = 0; i < 20; i++) {
+            slaves.add(new Slave(i, "page" + i, i % 5 == 0 ? null : "entry" + (char) ('z' - i)));
+        }
+        db.registerAll(slaves);
+
+        List<Slave> page = new Slave().search(db, new SearchOptions().orderBy("vInt").page(1, 5));
+        assertEquals(5, page.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(5 + i, page.get(i).getvInt());
+        }
+        page = new Slave().search(db, new SearchOptions().orderBy("vInt", false).limit(3));
+        assertEquals(19, page.get(0).getvInt());
+        assertEquals(17, page.get(2).getvInt());
+
+        /*
+         * Keyset pagination visits every slave once, in order
+         */
+        SearchOptions options = new SearchOptions().orderBy("myEntry").limit(6);
+        List<Slave> visited = new ArrayList<Slave>();
+        int pages = 0;
+        page = new Slave().search(db, options);
+        while (!page.isEmpty()) {
+            pages++;
+            visited.addAll(page);
+            page = new Slave().search(db, options.after(page.get(page.size() - 1)));
+        }
+        assertEquals(4, pages);
+        assertEquals(new HashSet<Slave>(slaves), new HashSet<Slave>(visited));
+        assertNull(visited.get(3).getMyEntry());
+        assertEquals("entryg", visited.get(4).getMyEntry());
+        assertEquals("entryy", visited.get(19).getMyEntry());
+
+        /*
+         * Paging in memory when part of the sieve is not translated to SQL
+         */
+        Criterion<Slave> notNull = Criterion.where("myEntry", Qualifier.IS_NOT, null);
+        page = new Slave().search(db, notNull, new SearchOptions().orderBy("vInt").page(1, 5));
+        assertEquals(5, page.size());
+        assertEquals(7, page.get(0).getvInt());
+        assertEquals(12, page.get(4).getvInt());
+    }
+
+    @Test
+    public void testLimitedQueryCache() throws DeciBellException {
+        EntityCache cache = db.getEntityCache();
+        cache.enableQueries(Slave.class, 10, 0);
+        try {
+            new Master().delete(db);
+            new Slave().delete(db);
+            List<Slave> slaves = new ArrayList<Slave>();
+            for (int i = 0; i < 4; i++) {
+                slaves.add(new Slave(i, "limit" + i, i % 2 == 0 ? "even" : "odd"));
+            }
+            db.registerAll(slaves);
+
+            /*
+             * Pages fetched by the database are cached
+             */
+            SearchOptions first = new SearchOptions().orderBy("vInt").limit(1);
+            assertEquals(0, new Slave(-1, null, "even").search(db, first).get(0).getvInt());
+            long hits = cache.getQueryHitCount();
+            assertEquals(0, new Slave(-1, null, "even").search(db, first).get(0).getvInt());
+            assertEquals(hits + 1, cache.getQueryHitCount());
+
+            /*
+             * Searches whose limit is applied after an in-memory sieve are not
+             * cached, as they do not read all the rows
+             */
+            hits = cache.getQueryHitCount();
+            assertEquals(0, new Slave(-1, null, "even").search(db, new VIntSieve(0), first).get(0).getvInt());
+            assertEquals(2, new Slave(-1, null, "even").search(db, new VIntSieve(2), first).get(0).getvInt());
+            assertEquals(2, new Slave(-1, null, "even").search(db, new VIntSieve(2), first).get(0).getvInt());
+            assertEquals(hits, cache.getQueryHitCount());
+        } finally {
+            cache.disableQueries(Slave.class);
+        }
+    }
+
+    private static class VIntSieve implements JSieve<Slave> {
+
+        private final int vInt;
+
+        VIntSieve(int vInt) {
+            this.vInt = vInt;
+        }
+
+        public boolean sieve(Slave component) {
+            return component.getvInt() == vInt;
+        }
+    }
+}
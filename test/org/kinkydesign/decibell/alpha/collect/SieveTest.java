@@ -0,0 +1,85 @@
+package org.kinkydesign.decibell.alpha.collect;
+
+import java.util.*;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kinkydesign.decibell.DeciBell;
+import org.kinkydesign.decibell.collections.Qualifier;
+import org.kinkydesign.decibell.db.sieve.Criterion;
+import org.kinkydesign.decibell.db.sieve.EarlySieve;
+import static org.junit.Assert.*;
+import org.kinkydesign.decibell.exceptions.DeciBellException;
+
+public class SieveTest {
+
+    private static DeciBell db = new DeciBell();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        db.setDbName("my/dvb/s13v3");
+        db.attach(Master.class);
+        db.attach(Slave.class);
+        db.start();
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        db.reset();
+        db.stop();
+    }
+
+    @Test
+    public void testCriterion() throws DeciBellException {
+        new Master().delete(db);
+        new Slave().delete(db);
+        List<Slave> slaves = new ArrayList<Slave>();
+        for (int i = 0; i < 20; i++) {
+            slaves.add(new Slave(i, "sieve" + i, i % 5 == 0 ? null : "entry" + i));
+        }
+        db.registerAll(slaves);
+
+        Criterion<Slave> range = Criterion.where("vInt", Qualifier.GREATER_EQUAL, 5);
+        range.and("vInt", Qualifier.LESS_THAN, 10);
+        assertEquals(5, new Slave().search(db, range).size());
+
+        Criterion<Slave> either = Criterion.where("vInt", Qualifier.LESS_THAN, 2);
+        either.or("vString", Qualifier.LIKE, "sieve1_");
+        assertEquals(12, new Slave().search(db, either).size());
+
+        /*
+         * Strings which are null never satisfy comparisons
+         */
+        Criterion<Slave> notEntry1 = Criterion.where("myEntry", Qualifier.NOT_EQUAL, "entry1");
+        assertEquals(15, new Slave().search(db, notEntry1).size());
+        Criterion<Slave> nullEntry = Criterion.where("myEntry", Qualifier.IS, null);
+        assertEquals(4, new Slave().search(db, nullEntry).size());
+
+        Criterion<Slave> negated = Criterion.not(Criterion.<Slave>where("vInt", Qualifier.GREATER_THAN, 2));
+        negated.and("myEntry", Qualifier.IS_NOT, null);
+        assertEquals(2, new Slave().search(db, negated).size());
+
+        Criterion<Slave> withPrototype = Criterion.where("vInt", Qualifier.GREATER_THAN, 14);
+        assertEquals(1, new Slave(-1, null, "entry16").search(db, withPrototype).size());
+        assertTrue(new Slave(-1, null, "entry6").search(db, withPrototype).isEmpty());
+
+        int streamed = 0;
+        Iterator<Slave> cursor = new Slave().stream(db, range);
+        while (cursor.hasNext()) {
+            assertTrue(range.sieve(cursor.next()));
+            streamed++;
+        }
+        assertEquals(5, streamed);
+
+        final int[] sieved = {0};
+        EarlySieve<Slave> early = new EarlySieve<Slave>() {
+
+            public boolean sieve(Slave component) {
+                sieved[0]++;
+                return component.getvInt() % 2 == 0;
+            }
+        };
+        assertEquals(10, new Slave().search(db, early).size());
+        assertEquals(20, sieved[0]);
+    }
+}
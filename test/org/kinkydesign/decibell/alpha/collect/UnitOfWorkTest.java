@@ -0,0 +1,97 @@
+package org.kinkydesign.decibell.alpha.collect;
+
+import java.util.*;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kinkydesign.decibell.DeciBell;
+import static org.junit.Assert.*;
+import org.kinkydesign.decibell.exceptions.DeciBellException;
+import org.kinkydesign.decibell.exceptions.DuplicateKeyException;
+
+public class UnitOfWorkTest {
+
+    private static DeciBell db = new DeciBell();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        db.setDbName("my/dvb/uow4k17");
+        db.attach(Master.class);
+        db.attach(Slave.class);
+        db.start();
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        db.reset();
+        db.stop();
+    }
+
+    @Test
+    public void testUnitOfWork() throws DeciBellException {
+        new Master().delete(db);
+        new Slave().delete(db);
+
+        List<Slave> slaves = new ArrayList<Slave>();
+        for (int i = 0; i < 20; i++) {
+            slaves.add(new Slave(i, "uow" + i, "entry" + i));
+        }
+        Master master = new Master("uow master", slaves);
+
+        /*
+         * Nothing is written before commit and nothing after rollback
+         */
+        db.begin();
+        assertTrue(db.isInTransaction());
+        master.register(db);
+        for (Slave s : slaves) {
+            s.register(db);
+        }
+        assertEquals(21, db.getUnitOfWork().size());
+        assertTrue(new Slave().search(db).isEmpty());
+        db.rollback();
+        assertFalse(db.isInTransaction());
+        assertTrue(new Slave().search(db).isEmpty());
+        assertTrue(new Master().search(db).isEmpty());
+
+        db.begin();
+        master.register(db);
+        for (Slave s : slaves) {
+            s.register(db);
+        }
+        db.commit();
+        assertEquals(20, new Slave().search(db).size());
+        assertEquals(1, new Master().search(db).size());
+
+        /*
+         * A failing operation rolls back the whole unit of work
+         */
+        db.begin();
+        new Slave(100, "uow100", "x").register(db);
+        Slave updated = slaves.get(3);
+        updated.setMyEntry("changed");
+        updated.update(db);
+        new Slave(5, "uow5", "x").register(db);
+        try {
+            db.commit();
+            fail("A duplicate key should be reported");
+        } catch (DuplicateKeyException ex) {
+        }
+        assertFalse(db.isInTransaction());
+        assertTrue(new Slave(100, null, null).search(db).isEmpty());
+        assertEquals("entry3", new Slave(3, "uow3", null).search(db).get(0).getMyEntry());
+        updated.setMyEntry("entry3");
+
+        /*
+         * Deletions are flushed after the referencing components
+         */
+        db.begin();
+        for (Slave s : slaves) {
+            s.delete(db);
+        }
+        master.delete(db);
+        db.commit();
+        assertTrue(new Slave().search(db).isEmpty());
+        assertTrue(new Master().search(db).isEmpty());
+    }
+}
@@ -0,0 +1,48 @@
+package org.kinkydesign.decibell.alpha.h2;
+
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.annotations.*;
+
+public class Book extends Component<Book> {
+
+    @PrimaryKey
+    private String isbn;
+
+    @Entry(unique = true)
+    private String title;
+
+    @Entry
+    @Index
+    @Constraint(low = "1", high = "5000")
+    @NumericNull("-1")
+    private int pages = -1;
+
+    @ForeignKey
+    private Shelf shelf;
+
+    public Book() {
+    }
+
+    public Book(String isbn, String title, int pages, Shelf shelf) {
+        this.isbn = isbn;
+        this.title = title;
+        this.pages = pages;
+        this.shelf = shelf;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public int getPages() {
+        return pages;
+    }
+
+    public Shelf getShelf() {
+        return shelf;
+    }
+}
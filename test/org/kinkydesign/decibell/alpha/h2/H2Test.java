@@ -0,0 +1,124 @@
+package org.kinkydesign.decibell.alpha.h2;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kinkydesign.decibell.DeciBell;
+import org.kinkydesign.decibell.core.ComponentRegistry;
+import org.kinkydesign.decibell.db.h2.H2Dialect;
+import org.kinkydesign.decibell.db.sieve.Criterion;
+import org.kinkydesign.decibell.collections.Qualifier;
+import static org.junit.Assert.*;
+import org.kinkydesign.decibell.exceptions.DuplicateKeyException;
+
+public class H2Test {
+
+    private static DeciBell db = new DeciBell(new H2Dialect());
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        db.setDbName("my/dvb/h2t35t");
+        db.attach(Shelf.class);
+        db.attach(Book.class);
+        db.start();
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        db.reset();
+        db.stop();
+    }
+
+    @Test
+    public void testRegisterAndSearch() throws Exception {
+        assertTrue(db.getDatabaseUrl().startsWith("jdbc:h2:"));
+        new Book().delete(db);
+        new Shelf().delete(db);
+        Shelf top = new Shelf("top", 2);
+        top.register(db);
+        for (int i = 1; i <= 5; i++) {
+            new Book("isbn" + i, "title" + i, 100 * i, top).register(db);
+        }
+
+        List<Book> found = new Book("isbn3", null, -1, null).search(db);
+        assertEquals(1, found.size());
+        assertEquals("title3", found.get(0).getTitle());
+        assertEquals(2, found.get(0).getShelf().getFloor());
+        assertEquals(2, new Book().search(db, Criterion.<Book>where("pages", Qualifier.GREATER_THAN, 300)).size());
+
+        try {
+            new Book("isbn6", "title6", 6000, top).register(db);
+            fail("The check constraint of pages should be violated");
+        } catch (RuntimeException ex) {
+            /* expected */
+        }
+        assertEquals(5, new Book().search(db).size());
+    }
+
+    @Test
+    public void testDuplicateKey() throws Exception {
+        new Book().delete(db);
+        new Shelf().delete(db);
+        Shelf shelf = new Shelf("bottom", 0);
+        shelf.register(db);
+        new Book("dup", "first", 10, shelf).register(db);
+        try {
+            new Book("dup", "second", 20, shelf).register(db);
+            fail("A duplicate primary key should be reported");
+        } catch (DuplicateKeyException ex) {
+            /* expected */
+        }
+        try {
+            new Book("other", "first", 20, shelf).register(db);
+            fail("A duplicate unique entry should be reported");
+        } catch (DuplicateKeyException ex) {
+            /* expected */
+        }
+        assertEquals(1, new Book().search(db).size());
+    }
+
+    @Test
+    public void testWarmStart() throws Exception {
+        new Book().delete(db);
+        new Shelf().delete(db);
+        Shelf shelf = new Shelf("warm", 1);
+        shelf.register(db);
+        new Book("warm1", "warm", 10, shelf).register(db);
+        String bookTable = ComponentRegistry.getRegistry(db.getDbConnector()).get(Book.class).getTableName();
+        String fingerprint = getFingerprint(bookTable);
+
+        /*
+         * A warm start keeps the tables and their rows
+         */
+        db.stop();
+        db.start();
+        assertEquals(fingerprint, getFingerprint(bookTable));
+        assertEquals("warm", new Book("warm1", null, -1, null).search(db).get(0).getTitle());
+
+        /*
+         * A table whose fingerprint differs is compared with the model (columns,
+         * keys, indexes and check constraints); as nothing differs, it is stamped
+         * again without changes
+         */
+        Statement stmt = db.getDbConnector().createStatement();
+        stmt.execute("UPDATE " + db.getUser() + ".DECIBELL_SCHEMA_TAB SET FINGERPRINT='old' WHERE TAB_NAME='" + bookTable + "'");
+        stmt.close();
+        db.stop();
+        db.start();
+        assertEquals(fingerprint, getFingerprint(bookTable));
+        assertEquals(1, new Book().search(db).size());
+    }
+
+    private String getFingerprint(String tableName) throws Exception {
+        Statement stmt = db.getDbConnector().createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT FINGERPRINT FROM " + db.getUser() + ".DECIBELL_SCHEMA_TAB WHERE TAB_NAME='" + tableName + "'");
+        assertTrue(rs.next());
+        String fingerprint = rs.getString(1);
+        rs.close();
+        stmt.close();
+        return fingerprint;
+    }
+}
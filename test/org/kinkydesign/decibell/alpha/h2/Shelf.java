@@ -0,0 +1,30 @@
+package org.kinkydesign.decibell.alpha.h2;
+
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.annotations.Entry;
+import org.kinkydesign.decibell.annotations.PrimaryKey;
+
+public class Shelf extends Component<Shelf> {
+
+    @PrimaryKey
+    private String name;
+
+    @Entry(notNull = true, defaultValue = "0")
+    private int floor;
+
+    public Shelf() {
+    }
+
+    public Shelf(String name, int floor) {
+        this.name = name;
+        this.floor = floor;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getFloor() {
+        return floor;
+    }
+}
@@ -0,0 +1,39 @@
+package org.kinkydesign.decibell.alpha.hydrate;
+
+import java.util.List;
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.annotations.ForeignKey;
+import org.kinkydesign.decibell.annotations.PrimaryKey;
+
+public class Basket extends Component<Basket> {
+
+    @PrimaryKey
+    private String id;
+
+    @ForeignKey
+    private Item featured;
+
+    @ForeignKey
+    private List<Item> items;
+
+    public Basket() {
+    }
+
+    public Basket(String id, Item featured, List<Item> items) {
+        this.id = id;
+        this.featured = featured;
+        this.items = items;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Item getFeatured() {
+        return featured;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+}
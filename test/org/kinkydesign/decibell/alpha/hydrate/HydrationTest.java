@@ -0,0 +1,97 @@
+package org.kinkydesign.decibell.alpha.hydrate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kinkydesign.decibell.DeciBell;
+import org.kinkydesign.decibell.collections.HydrationMode;
+import org.kinkydesign.decibell.db.StatementPool;
+import static org.junit.Assert.*;
+
+public class HydrationTest {
+
+    private static DeciBell db = new DeciBell();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        db.setDbName("my/dvb/hydr4t3");
+        db.attach(Owner.class);
+        db.attach(Item.class);
+        db.attach(Basket.class);
+        db.start();
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        db.setHydrationMode(HydrationMode.JOIN);
+        db.reset();
+        db.stop();
+    }
+
+    @Test
+    public void testHydrationModes() throws Exception {
+        new Basket().delete(db);
+        new Item().delete(db);
+        new Owner().delete(db);
+
+        /*
+         * The featured item of each basket (and its owner) is not in the collection
+         * of the basket, so it is hydrated through the nested foreign keys.
+         */
+        Owner shared = new Owner("shared", "anywhere");
+        shared.register(db);
+        List<Item> extras = new ArrayList<Item>();
+        for (int i = 0; i < 3; i++) {
+            Item extra = new Item("extra" + i, "extra" + i, shared);
+            extra.register(db);
+            extras.add(extra);
+        }
+        for (int i = 0; i < 3; i++) {
+            Owner owner = new Owner("owner" + i, "city" + i);
+            owner.register(db);
+            Item item = new Item("item" + i, "label" + i, owner);
+            item.register(db);
+            new Basket("basket" + i, item, new ArrayList<Item>(extras.subList(0, i + 1))).register(db);
+        }
+
+        StatementPool pool = StatementPool.getPool(db);
+
+        db.setHydrationMode(HydrationMode.NESTED_SELECT);
+        long before = pool.getPreparedCount() + pool.getReusedCount();
+        List<Basket> nested = new Basket().search(db);
+        long nestedStatements = pool.getPreparedCount() + pool.getReusedCount() - before;
+
+        db.setHydrationMode(HydrationMode.JOIN);
+        before = pool.getPreparedCount() + pool.getReusedCount();
+        List<Basket> joined = new Basket().search(db);
+        long joinedStatements = pool.getPreparedCount() + pool.getReusedCount() - before;
+
+        assertEquals(3, nested.size());
+        assertEquals(describe(nested), describe(joined));
+        assertTrue(describe(joined).contains("basket2:item2/label2/owner2/city2:[extra0, extra1, extra2]"));
+        assertTrue("joined: " + joinedStatements + ", nested: " + nestedStatements,
+                joinedStatements < nestedStatements);
+    }
+
+    /**
+     * The whole graph of the baskets, in the order of their ids.
+     */
+    private List<String> describe(List<Basket> baskets) {
+        List<String> description = new ArrayList<String>();
+        for (Basket basket : baskets) {
+            Item featured = basket.getFeatured();
+            List<String> items = new ArrayList<String>();
+            for (Item item : basket.getItems()) {
+                items.add(item.getCode());
+            }
+            Collections.sort(items);
+            description.add(basket.getId() + ":" + featured.getCode() + "/" + featured.getLabel() + "/"
+                    + featured.getOwner().getName() + "/" + featured.getOwner().getCity() + ":" + items);
+        }
+        Collections.sort(description);
+        return description;
+    }
+}
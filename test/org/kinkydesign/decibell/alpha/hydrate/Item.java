@@ -0,0 +1,39 @@
+package org.kinkydesign.decibell.alpha.hydrate;
+
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.annotations.Entry;
+import org.kinkydesign.decibell.annotations.ForeignKey;
+import org.kinkydesign.decibell.annotations.PrimaryKey;
+
+public class Item extends Component<Item> {
+
+    @PrimaryKey
+    private String code;
+
+    @Entry
+    private String label;
+
+    @ForeignKey
+    private Owner owner;
+
+    public Item() {
+    }
+
+    public Item(String code, String label, Owner owner) {
+        this.code = code;
+        this.label = label;
+        this.owner = owner;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public Owner getOwner() {
+        return owner;
+    }
+}
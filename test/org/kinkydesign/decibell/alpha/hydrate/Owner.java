@@ -0,0 +1,30 @@
+package org.kinkydesign.decibell.alpha.hydrate;
+
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.annotations.Entry;
+import org.kinkydesign.decibell.annotations.PrimaryKey;
+
+public class Owner extends Component<Owner> {
+
+    @PrimaryKey
+    private String name;
+
+    @Entry
+    private String city;
+
+    public Owner() {
+    }
+
+    public Owner(String name, String city) {
+        this.name = name;
+        this.city = city;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getCity() {
+        return city;
+    }
+}
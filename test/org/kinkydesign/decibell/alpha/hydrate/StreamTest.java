@@ -0,0 +1,128 @@
+package org.kinkydesign.decibell.alpha.hydrate;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kinkydesign.decibell.DeciBell;
+import org.kinkydesign.decibell.collections.HydrationMode;
+import org.kinkydesign.decibell.db.StatementPool;
+import org.kinkydesign.decibell.db.engine.SearchCursor;
+import org.kinkydesign.decibell.db.engine.SearchOptions;
+import org.kinkydesign.decibell.db.interfaces.JConnectionPool;
+import static org.junit.Assert.*;
+
+public class StreamTest {
+
+    private static DeciBell db = new DeciBell();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        db.setDbName("my/dvb/5tr34m");
+        db.attach(Owner.class);
+        db.attach(Item.class);
+        db.attach(Basket.class);
+        db.start();
+
+        Owner shared = new Owner("shared", "anywhere");
+        shared.register(db);
+        List<Item> extras = new ArrayList<Item>();
+        for (int i = 0; i < 5; i++) {
+            Item extra = new Item("extra" + i, "extra" + i, shared);
+            extra.register(db);
+            extras.add(extra);
+        }
+        for (int i = 0; i < 5; i++) {
+            Owner owner = new Owner("owner" + i, "city" + i);
+            owner.register(db);
+            Item item = new Item("item" + i, "label" + i, owner);
+            item.register(db);
+            new Basket("basket" + i, item, new ArrayList<Item>(extras.subList(0, i + 1))).register(db);
+        }
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        db.setHydrationMode(HydrationMode.JOIN);
+        db.reset();
+        db.stop();
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        for (HydrationMode mode : HydrationMode.values()) {
+            db.setHydrationMode(mode);
+            List<Basket> streamed = new ArrayList<Basket>();
+            SearchCursor<Basket> cursor = new Basket().stream(db, new SearchOptions().orderBy("id"));
+            try {
+                while (cursor.hasNext()) {
+                    streamed.add(cursor.next());
+                }
+            } finally {
+                cursor.close();
+            }
+            assertTrue(cursor.isClosed());
+            assertEquals(5, streamed.size());
+            for (int i = 0; i < 5; i++) {
+                Basket basket = streamed.get(i);
+                assertEquals(mode.toString(), "basket" + i, basket.getId());
+                assertEquals("label" + i, basket.getFeatured().getLabel());
+                assertEquals("city" + i, basket.getFeatured().getOwner().getCity());
+                assertEquals(i + 1, basket.getItems().size());
+                for (Item item : basket.getItems()) {
+                    assertEquals("anywhere", item.getOwner().getCity());
+                }
+            }
+            assertNull(getConnectionPool().getCurrentConnection());
+        }
+    }
+
+    @Test
+    public void testEarlyClose() throws Exception {
+        StatementPool pool = StatementPool.getPool(db);
+        SearchCursor<Basket> cursor = new Basket().stream(db);
+        assertTrue(cursor.hasNext());
+        assertNotNull(cursor.next().getFeatured().getOwner());
+        /* The cursor holds a connection and a statement while it is open */
+        assertNotNull(getConnectionPool().getCurrentConnection());
+        assertTrue(pool.getActiveCount() > 0);
+
+        cursor.close();
+        assertTrue(cursor.isClosed());
+        assertFalse(cursor.hasNext());
+        assertNull(getConnectionPool().getCurrentConnection());
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(5, new Basket().search(db).size());
+    }
+
+    @Test
+    public void testFailedCheckout() throws Exception {
+        /*
+         * Statements cannot be prepared on a closed connection; the search mask
+         * is used for the first time so that no cached statement is found
+         */
+        Connection connection = db.getDbConnector().acquireConnection();
+        try {
+            connection.close();
+            try {
+                new Basket("basket0", null, null).stream(db, new SearchOptions().orderBy("id", false));
+                fail("The search statement should not be prepared");
+            } catch (RuntimeException ex) {
+                /* expected */
+            }
+            assertSame(connection, getConnectionPool().getCurrentConnection());
+            assertEquals(0, StatementPool.getPool(db).getActiveCount());
+        } finally {
+            db.getDbConnector().releaseConnection();
+        }
+        /* The lease taken by the stream has been released along with ours */
+        assertNull(getConnectionPool().getCurrentConnection());
+        assertEquals(5, new Basket().search(db).size());
+    }
+
+    private JConnectionPool getConnectionPool() {
+        return db.getDbConnector().getConnectionPool();
+    }
+}
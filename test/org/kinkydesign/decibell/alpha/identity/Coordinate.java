@@ -0,0 +1,46 @@
+package org.kinkydesign.decibell.alpha.identity;
+
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.annotations.Entry;
+import org.kinkydesign.decibell.annotations.PrimaryKey;
+
+public class Coordinate extends Component<Coordinate> {
+
+    @PrimaryKey
+    private String region;
+
+    @PrimaryKey
+    private Integer number;
+
+    @PrimaryKey
+    private String suffix;
+
+    @Entry
+    private String label;
+
+    public Coordinate() {
+    }
+
+    public Coordinate(String region, Integer number, String suffix, String label) {
+        this.region = region;
+        this.number = number;
+        this.suffix = suffix;
+        this.label = label;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public Integer getNumber() {
+        return number;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,100 @@
+package org.kinkydesign.decibell.alpha.identity;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kinkydesign.decibell.DeciBell;
+import static org.junit.Assert.*;
+
+public class IdentityTest {
+
+    private static DeciBell db = new DeciBell();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        db.setDbName("my/dvb/1d3nt1ty");
+        db.attach(Coordinate.class);
+        db.attach(Ticket.class);
+        db.start();
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        db.reset();
+        db.stop();
+    }
+
+    @Test
+    public void testEqualKeys() {
+        Coordinate a = new Coordinate("north", 1, "x", "a label");
+        Coordinate b = new Coordinate("north", 1, "x", "another label");
+        Coordinate c = new Coordinate("north", 1, "y", "a label");
+        assertEquals(a, b);
+        assertEquals(b, a);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertFalse(a.equals(c));
+        assertFalse(a.equals(null));
+        assertFalse(a.equals(new Ticket("north")));
+    }
+
+    @Test
+    public void testLoadedCopies() throws Exception {
+        new Coordinate().delete(db);
+        for (int i = 0; i < 3; i++) {
+            new Coordinate("south", i, "z", "label" + i).register(db);
+        }
+        Set<Coordinate> first = new HashSet<Coordinate>(new Coordinate().search(db));
+        List<Coordinate> second = new Coordinate().search(db);
+        assertEquals(3, first.size());
+        assertEquals(3, second.size());
+        for (Coordinate copy : second) {
+            assertTrue(first.contains(copy));
+        }
+        assertTrue(first.contains(new Coordinate("south", 2, "z", null)));
+        assertFalse(first.contains(new Coordinate("south", 3, "z", null)));
+        first.addAll(second);
+        assertEquals(3, first.size());
+    }
+
+    @Test
+    public void testNullKeyComponent() {
+        /*
+         * Key fields are compared (and hashed) up to the first null one, so the
+         * components below only differ after the null component
+         */
+        Coordinate a = new Coordinate("east", null, "x", null);
+        Coordinate b = new Coordinate("east", null, "y", null);
+        assertEquals(a, b);
+        assertEquals(a.hashCode(), b.hashCode());
+        assertEquals(a.hashCode(), new Coordinate("east", null, null, null).hashCode());
+
+        Coordinate c = new Coordinate("west", null, "x", null);
+        assertFalse(a.equals(c));
+        Coordinate d = new Coordinate("east", 1, "x", null);
+        assertFalse(a.equals(d));
+        assertFalse(d.equals(a));
+
+        Set<Coordinate> set = new HashSet<Coordinate>();
+        set.add(a);
+        assertTrue(set.contains(b));
+        assertFalse(set.contains(d));
+    }
+
+    @Test
+    public void testImmutableKeyHash() {
+        Ticket ticket = new Ticket("t1");
+        Set<Ticket> set = new HashSet<Ticket>();
+        set.add(ticket);
+        int hash = ticket.hashCode();
+        assertTrue(set.contains(new Ticket("t1")));
+
+        /* The hash code is cached the first time it is requested */
+        ticket.setCode("t2");
+        assertEquals(hash, ticket.hashCode());
+        assertFalse(hash == new Ticket("t2").hashCode());
+        assertTrue(set.contains(ticket));
+    }
+}
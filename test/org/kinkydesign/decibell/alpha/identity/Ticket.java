@@ -0,0 +1,27 @@
+package org.kinkydesign.decibell.alpha.identity;
+
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.annotations.ImmutableKey;
+import org.kinkydesign.decibell.annotations.PrimaryKey;
+
+@ImmutableKey
+public class Ticket extends Component<Ticket> {
+
+    @PrimaryKey
+    private String code;
+
+    public Ticket() {
+    }
+
+    public Ticket(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+}
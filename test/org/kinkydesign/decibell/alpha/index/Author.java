@@ -0,0 +1,58 @@
+package org.kinkydesign.decibell.alpha.index;
+
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.annotations.Entry;
+import org.kinkydesign.decibell.annotations.Index;
+import org.kinkydesign.decibell.annotations.PrimaryKey;
+
+@Index(name = "byName", fields = {"lastName", "firstName"})
+public class Author extends Component<Author> {
+
+    @PrimaryKey
+    private String id;
+
+    @Entry
+    private String firstName;
+
+    @Entry
+    private String lastName;
+
+    @Entry
+    @Index
+    private String country;
+
+    @Entry
+    @Index(unique = true)
+    private String email;
+
+    public Author() {
+    }
+
+    public Author(String id, String firstName, String lastName, String country, String email) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.country = country;
+        this.email = email;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+}
@@ -0,0 +1,33 @@
+package org.kinkydesign.decibell.alpha.index;
+
+import java.util.List;
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.annotations.ForeignKey;
+import org.kinkydesign.decibell.annotations.PrimaryKey;
+import org.kinkydesign.decibell.annotations.TableName;
+
+@TableName("CIT")
+public class Citation extends Component<Citation> {
+
+    @PrimaryKey
+    private String id;
+
+    @ForeignKey
+    private List<Citation> cites;
+
+    public Citation() {
+    }
+
+    public Citation(String id, List<Citation> cites) {
+        this.id = id;
+        this.cites = cites;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public List<Citation> getCites() {
+        return cites;
+    }
+}
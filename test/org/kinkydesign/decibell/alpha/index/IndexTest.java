@@ -0,0 +1,105 @@
+package org.kinkydesign.decibell.alpha.index;
+
+import java.sql.ResultSet;
+import java.util.*;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kinkydesign.decibell.DeciBell;
+import org.kinkydesign.decibell.core.ComponentRegistry;
+import org.kinkydesign.decibell.db.interfaces.JTable;
+import static org.junit.Assert.*;
+
+public class IndexTest {
+
+    private static DeciBell db = new DeciBell();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        db.setDbName("my/dvb/1nd3x");
+        db.attach(Author.class);
+        db.attach(Library.class);
+        db.attach(Citation.class);
+        db.start();
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        db.reset();
+        db.stop();
+    }
+
+    @Test
+    public void testIndexes() throws Exception {
+        JTable authorTable = ComponentRegistry.getRegistry(db.getDbConnector()).get(Author.class);
+        assertEquals(3, authorTable.getIndexes().size());
+        Map<String, List<String>> indexes = getIndexes(authorTable);
+        assertEquals(Arrays.asList("COUNTRY"), indexes.get(authorTable.getIndexName("country").toUpperCase()));
+        assertEquals(Arrays.asList("LASTNAME", "FIRSTNAME"), indexes.get(authorTable.getIndexName("byName").toUpperCase()));
+        assertEquals(Arrays.asList("EMAIL"), indexes.get(authorTable.getIndexName("email").toUpperCase()));
+        assertTrue(authorTable.isUniqueIndex("email"));
+        assertFalse(authorTable.isUniqueIndex("country"));
+    }
+
+    @Test
+    public void testRelationIndexes() throws Exception {
+        /*
+         * Each index leads with the columns of one side of the relation, followed
+         * by those of the other side
+         */
+        Map<String, List<String>> libraryIndexes = getIndexes(getRelationTable("LIB"));
+        String prefix = getRelationTable("LIB").getTableName().toUpperCase();
+        List<String> master = libraryIndexes.get(prefix + "_MASTER_IDX");
+        List<String> slave = libraryIndexes.get(prefix + "_SLAVE_IDX");
+        assertEquals(2, master.size());
+        assertEquals("LIB_NAME_MASTER", master.get(0));
+        assertTrue(master.get(1).endsWith("_ID_SLAVE"));
+        assertEquals(Arrays.asList(master.get(1), master.get(0)), slave);
+    }
+
+    @Test
+    public void testSelfReferencingRelationIndexes() throws Exception {
+        /*
+         * The master and slave columns of a collection of the same class refer
+         * to the same table; each index still leads with its own side
+         */
+        Map<String, List<String>> citationIndexes = getIndexes(getRelationTable("CIT"));
+        String prefix = getRelationTable("CIT").getTableName().toUpperCase();
+        assertEquals(Arrays.asList("CIT_ID_MASTER", "CIT_ID_SLAVE"), citationIndexes.get(prefix + "_MASTER_IDX"));
+        assertEquals(Arrays.asList("CIT_ID_SLAVE", "CIT_ID_MASTER"), citationIndexes.get(prefix + "_SLAVE_IDX"));
+    }
+
+    /**
+     * The relational table of the collection of the table with the given name.
+     */
+    private JTable getRelationTable(String tableName) {
+        for (JTable table : ComponentRegistry.getRegistry(db.getDbConnector()).getRelationTables()) {
+            if (table.getTableName().toUpperCase().startsWith(tableName)) {
+                return table;
+            }
+        }
+        throw new AssertionError("No relational table for " + tableName);
+    }
+
+    /**
+     * The columns of the indexes of a table, in order, by index name.
+     */
+    private Map<String, List<String>> getIndexes(JTable table) throws Exception {
+        Map<String, SortedMap<Short, String>> positions = new HashMap<String, SortedMap<Short, String>>();
+        ResultSet rs = db.getDbConnector().getConnection().getMetaData().getIndexInfo(null,
+                table.getTableSchema().toUpperCase(), table.getTableName().toUpperCase(), false, false);
+        while (rs.next()) {
+            String index = rs.getString("INDEX_NAME");
+            if (!positions.containsKey(index)) {
+                positions.put(index, new TreeMap<Short, String>());
+            }
+            positions.get(index).put(rs.getShort("ORDINAL_POSITION"), rs.getString("COLUMN_NAME").toUpperCase());
+        }
+        rs.close();
+        Map<String, List<String>> indexes = new HashMap<String, List<String>>();
+        for (Map.Entry<String, SortedMap<Short, String>> index : positions.entrySet()) {
+            indexes.put(index.getKey(), new ArrayList<String>(index.getValue().values()));
+        }
+        return indexes;
+    }
+}
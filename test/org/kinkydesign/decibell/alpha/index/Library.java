@@ -0,0 +1,33 @@
+package org.kinkydesign.decibell.alpha.index;
+
+import java.util.List;
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.annotations.ForeignKey;
+import org.kinkydesign.decibell.annotations.PrimaryKey;
+import org.kinkydesign.decibell.annotations.TableName;
+
+@TableName("LIB")
+public class Library extends Component<Library> {
+
+    @PrimaryKey
+    private String name;
+
+    @ForeignKey
+    private List<Author> authors;
+
+    public Library() {
+    }
+
+    public Library(String name, List<Author> authors) {
+        this.name = name;
+        this.authors = authors;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Author> getAuthors() {
+        return authors;
+    }
+}
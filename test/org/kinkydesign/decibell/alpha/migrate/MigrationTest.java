@@ -0,0 +1,127 @@
+package org.kinkydesign.decibell.alpha.migrate;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kinkydesign.decibell.DeciBell;
+import org.kinkydesign.decibell.core.ComponentRegistry;
+import org.kinkydesign.decibell.db.interfaces.JTable;
+import static org.junit.Assert.*;
+import org.kinkydesign.decibell.exceptions.ImproperDatabaseException;
+
+public class MigrationTest {
+
+    private static DeciBell db = new DeciBell();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        db.setDbName("my/dvb/m1gr4t3");
+        db.setEmbedded(true);
+        db.attach(Record.class);
+        db.start();
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        db.reset();
+        db.stop();
+    }
+
+    @Test
+    public void testWarmStart() throws Exception {
+        String recordTable = getTable().getTableName();
+        Statement stmt = db.getDbConnector().createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + db.getUser() + ".DECIBELL_SCHEMA_TAB");
+        assertTrue(rs.next());
+        assertEquals(1, rs.getInt(1));
+        rs.close();
+
+        /*
+         * A dropped column is added again
+         */
+        new Record().delete(db);
+        stmt.execute("ALTER TABLE " + db.getUser() + "." + recordTable + " DROP COLUMN note");
+        stmt.execute("UPDATE " + db.getUser() + ".DECIBELL_SCHEMA_TAB SET FINGERPRINT='old' WHERE TAB_NAME='" + recordTable + "'");
+        stmt.close();
+
+        db.stop();
+        db.start();
+        new Record("warm", "label", "note").register(db);
+        assertEquals(1, new Record(null, null, "note").search(db).size());
+        assertFalse("old".equals(getFingerprint(recordTable)));
+    }
+
+    @Test
+    public void testMigration() throws Exception {
+        JTable recordTable = getTable();
+        String table = db.getUser() + "." + recordTable.getTableName();
+        String index = db.getUser() + "." + recordTable.getIndexName("label");
+        new Record().delete(db);
+
+        /*
+         * An index redefined under the same name is recreated.
+         */
+        Statement stmt = db.getDbConnector().createStatement();
+        stmt.execute("DROP INDEX " + index);
+        stmt.execute("CREATE INDEX " + index + " ON " + table + " (note)");
+        stmt.execute("UPDATE " + db.getUser() + ".DECIBELL_SCHEMA_TAB SET FINGERPRINT='old' WHERE TAB_NAME='" + recordTable.getTableName() + "'");
+        stmt.close();
+        db.stop();
+        db.start();
+        assertFalse("old".equals(getFingerprint(recordTable.getTableName())));
+        ResultSet rs = db.getDbConnector().getConnection().getMetaData().getIndexInfo(null,
+                db.getUser().toUpperCase(), recordTable.getTableName().toUpperCase(), false, false);
+        boolean found = false;
+        while (rs.next()) {
+            if (recordTable.getIndexName("label").equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                assertEquals("LABEL", rs.getString("COLUMN_NAME").toUpperCase());
+                found = true;
+            }
+        }
+        rs.close();
+        assertTrue(found);
+
+        /*
+         * A change which cannot be migrated is reported by start and keeps the
+         * old fingerprint until the table matches the model again.
+         */
+        stmt = db.getDbConnector().createStatement();
+        stmt.execute("ALTER TABLE " + table + " ALTER COLUMN label NOT NULL");
+        stmt.execute("UPDATE " + db.getUser() + ".DECIBELL_SCHEMA_TAB SET FINGERPRINT='old' WHERE TAB_NAME='" + recordTable.getTableName() + "'");
+        stmt.close();
+        db.stop();
+        try {
+            db.start();
+            fail("The unmigrated table should be reported");
+        } catch (ImproperDatabaseException ex) {
+            assertTrue(ex.getMessage().contains(recordTable.getFullTableName()));
+            assertTrue(ex.getMessage().contains("NOT NULL"));
+        }
+        assertEquals("old", getFingerprint(recordTable.getTableName()));
+        new Record("started", "label", null).register(db);
+        assertEquals(1, new Record().search(db).size());
+
+        stmt = db.getDbConnector().createStatement();
+        stmt.execute("ALTER TABLE " + table + " ALTER COLUMN label NULL");
+        stmt.close();
+        db.stop();
+        db.start();
+        assertFalse("old".equals(getFingerprint(recordTable.getTableName())));
+    }
+
+    private JTable getTable() {
+        return ComponentRegistry.getRegistry(db.getDbConnector()).get(Record.class);
+    }
+
+    private String getFingerprint(String tableName) throws Exception {
+        Statement stmt = db.getDbConnector().createStatement();
+        ResultSet rs = stmt.executeQuery("SELECT FINGERPRINT FROM " + db.getUser() + ".DECIBELL_SCHEMA_TAB WHERE TAB_NAME='" + tableName + "'");
+        assertTrue(rs.next());
+        String fingerprint = rs.getString(1);
+        rs.close();
+        stmt.close();
+        return fingerprint;
+    }
+}
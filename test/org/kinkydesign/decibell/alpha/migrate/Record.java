@@ -0,0 +1,40 @@
+package org.kinkydesign.decibell.alpha.migrate;
+
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.annotations.Entry;
+import org.kinkydesign.decibell.annotations.Index;
+import org.kinkydesign.decibell.annotations.PrimaryKey;
+
+public class Record extends Component<Record> {
+
+    @PrimaryKey
+    private String id;
+
+    @Entry
+    @Index
+    private String label;
+
+    @Entry
+    private String note;
+
+    public Record() {
+    }
+
+    public Record(String id, String label, String note) {
+        this.id = id;
+        this.label = label;
+        this.note = note;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getNote() {
+        return note;
+    }
+}
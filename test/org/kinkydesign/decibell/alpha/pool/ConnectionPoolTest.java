@@ -0,0 +1,143 @@
+package org.kinkydesign.decibell.alpha.pool;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kinkydesign.decibell.DeciBell;
+import org.kinkydesign.decibell.core.ComponentRegistry;
+import org.kinkydesign.decibell.db.ConnectionPool;
+import static org.junit.Assert.*;
+
+public class ConnectionPoolTest {
+
+    private static DeciBell db = new DeciBell();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        db.setDbName("my/dvb/p00l");
+        db.attach(Token.class);
+        db.start();
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        db.reset();
+        db.stop();
+    }
+
+    @Test
+    public void testNestedCheckout() throws Exception {
+        ConnectionPool pool = new ConnectionPool(db.getDbConnector());
+        try {
+            Connection outer = pool.checkout();
+            Connection inner = pool.checkout();
+            assertSame(outer, inner);
+            assertEquals(1, pool.getSize());
+
+            pool.release();
+            assertSame(outer, pool.getCurrentConnection());
+            assertFalse(outer.isClosed());
+            assertEquals(0, pool.getIdleCount());
+
+            pool.release();
+            assertNull(pool.getCurrentConnection());
+            assertEquals(1, pool.getIdleCount());
+
+            /* The idle connection is handed out again */
+            assertSame(outer, pool.checkout());
+            pool.release();
+            assertEquals(1, pool.getSize());
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testSaturation() throws Exception {
+        final ConnectionPool pool = new ConnectionPool(db.getDbConnector());
+        pool.setMaxSize(1);
+        pool.setCheckoutTimeout(100);
+        final CountDownLatch leased = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread holder = new Thread() {
+
+            @Override
+            public void run() {
+                pool.checkout();
+                try {
+                    leased.countDown();
+                    done.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    pool.release();
+                }
+            }
+        };
+        holder.start();
+        try {
+            leased.await();
+            Connection held = null;
+            try {
+                pool.checkout();
+                fail("The checkout should have timed out");
+            } catch (RuntimeException ex) {
+                assertTrue(ex.getMessage().startsWith("Timed out"));
+            }
+            assertNull(pool.getCurrentConnection());
+            assertEquals(1, pool.getTimeoutCount());
+            assertEquals(1, pool.getWaitCount());
+            assertTrue(pool.getMaxWaitTime() >= 100);
+
+            pool.setOverflow(true);
+            pool.setCheckoutTimeout(0);
+            Connection extra = pool.checkout();
+            assertEquals(1, pool.getOverflowCount());
+            assertEquals(1, pool.getSize());
+            pool.release();
+            /* Overflow connections are closed rather than pooled */
+            assertTrue(extra.isClosed());
+            assertEquals(0, pool.getIdleCount());
+
+            done.countDown();
+            holder.join();
+            assertEquals(1, pool.getIdleCount());
+            held = pool.checkout();
+            assertFalse(held == extra);
+            pool.release();
+        } finally {
+            done.countDown();
+            holder.join();
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testRollbackOnRelease() throws Exception {
+        ConnectionPool pool = new ConnectionPool(db.getDbConnector());
+        try {
+            new Token().delete(db);
+            String table = db.getUser() + "."
+                    + ComponentRegistry.getRegistry(db.getDbConnector()).get(Token.class).getTableName();
+
+            Connection connection = pool.checkout();
+            connection.setAutoCommit(false);
+            Statement statement = connection.createStatement();
+            statement.executeUpdate("INSERT INTO " + table + " VALUES (1)");
+            statement.close();
+            /* The transaction is left open */
+            pool.release();
+
+            Connection again = pool.checkout();
+            assertSame(connection, again);
+            assertTrue(again.getAutoCommit());
+            pool.release();
+            assertTrue(new Token().search(db).isEmpty());
+        } finally {
+            pool.close();
+        }
+    }
+}
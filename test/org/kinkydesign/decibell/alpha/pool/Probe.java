@@ -0,0 +1,46 @@
+package org.kinkydesign.decibell.alpha.pool;
+
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.annotations.Entry;
+import org.kinkydesign.decibell.annotations.PrimaryKey;
+
+public class Probe extends Component<Probe> {
+
+    @PrimaryKey
+    private String id;
+
+    @Entry
+    private String name;
+
+    @Entry
+    private String color;
+
+    @Entry
+    private String shape;
+
+    public Probe() {
+    }
+
+    public Probe(String id, String name, String color, String shape) {
+        this.id = id;
+        this.name = name;
+        this.color = color;
+        this.shape = shape;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getColor() {
+        return color;
+    }
+
+    public String getShape() {
+        return shape;
+    }
+}
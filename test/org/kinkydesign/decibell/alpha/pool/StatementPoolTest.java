@@ -0,0 +1,70 @@
+package org.kinkydesign.decibell.alpha.pool;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kinkydesign.decibell.DeciBell;
+import org.kinkydesign.decibell.collections.StatementType;
+import org.kinkydesign.decibell.db.StatementPool;
+import static org.junit.Assert.*;
+
+public class StatementPoolTest {
+
+    private static DeciBell db = new DeciBell();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        db.setDbName("my/dvb/5tmtp00l");
+        db.attach(Probe.class);
+        db.start();
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        db.reset();
+        db.stop();
+    }
+
+    @Test
+    public void testSearchEviction() throws Exception {
+        new Probe().delete(db);
+        new Probe("p1", "first", "red", "round").register(db);
+        new Probe("p2", "second", "blue", "square").register(db);
+
+        StatementPool pool = StatementPool.getPool(db);
+        int limit = pool.getLimit(StatementType.SEARCH);
+        pool.setLimit(StatementType.SEARCH, 2);
+        try {
+            Probe byName = new Probe(null, "first", null, null);
+            Probe byColor = new Probe(null, null, "blue", null);
+            Probe byShape = new Probe(null, null, null, "round");
+            long prepared = pool.getPreparedCount();
+            long reused = pool.getReusedCount();
+            long evicted = pool.getEvictedCount();
+
+            /* Three distinct search masks; the least recently used one is evicted */
+            assertEquals(1, byName.search(db).size());
+            assertEquals(1, byColor.search(db).size());
+            assertEquals(1, byShape.search(db).size());
+            assertEquals(3, pool.getPreparedCount() - prepared);
+            assertEquals(0, pool.getReusedCount() - reused);
+            assertEquals(1, pool.getEvictedCount() - evicted);
+
+            /* Cached statements are reused and become the most recently used */
+            assertEquals("p2", byColor.search(db).get(0).getId());
+            assertEquals(1, pool.getReusedCount() - reused);
+            assertEquals(3, pool.getPreparedCount() - prepared);
+
+            /* The evicted statement is prepared again, evicting the next least recently used */
+            assertEquals("p1", byName.search(db).get(0).getId());
+            assertEquals(4, pool.getPreparedCount() - prepared);
+            assertEquals(2, pool.getEvictedCount() - evicted);
+            assertEquals("p2", byColor.search(db).get(0).getId());
+            assertEquals(2, pool.getReusedCount() - reused);
+            assertEquals(2, pool.getEvictedCount() - evicted);
+            assertEquals(0, pool.getActiveCount());
+        } finally {
+            pool.setLimit(StatementType.SEARCH, limit);
+        }
+    }
+}
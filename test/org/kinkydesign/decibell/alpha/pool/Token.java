@@ -0,0 +1,21 @@
+package org.kinkydesign.decibell.alpha.pool;
+
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.annotations.PrimaryKey;
+
+public class Token extends Component<Token> {
+
+    @PrimaryKey
+    private int id;
+
+    public Token() {
+    }
+
+    public Token(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+}
@@ -0,0 +1,44 @@
+package org.kinkydesign.decibell.alpha.serial;
+
+import java.util.ArrayList;
+import org.kinkydesign.decibell.Component;
+import org.kinkydesign.decibell.annotations.*;
+import org.kinkydesign.decibell.db.util.BinarySerializer;
+
+public class Document extends Component<Document> {
+
+    @PrimaryKey
+    @NumericNull("-1")
+    private int id = -1;
+
+    @Entry
+    private double[] measurements;
+
+    @Entry(serializer = BinarySerializer.class)
+    private ArrayList<String> tags;
+
+    public Document() {
+    }
+
+    public Document(int id, double[] values, ArrayList<String> tags) {
+        this.id = id;
+        this.measurements = values;
+        this.tags = tags;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public double[] getValues() {
+        return measurements;
+    }
+
+    public ArrayList<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(ArrayList<String> tags) {
+        this.tags = tags;
+    }
+}
@@ -0,0 +1,55 @@
+package org.kinkydesign.decibell.alpha.serial;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kinkydesign.decibell.DeciBell;
+import org.kinkydesign.decibell.exceptions.DeciBellException;
+import static org.junit.Assert.*;
+
+public class SerializerTest {
+
+    private static DeciBell db = new DeciBell();
+
+    @BeforeClass
+    public static void beforeClass() throws Exception {
+        db.setDbName("my/dvb/s3r1al");
+        db.attach(Document.class);
+        db.start();
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        db.reset();
+        db.stop();
+    }
+
+    @Test
+    public void testSerializers() throws DeciBellException {
+        new Document().delete(db);
+
+        double[] values = {1.5, 2.5, 3.5};
+        ArrayList<String> tags = new ArrayList<String>(Arrays.asList("a", "b"));
+        new Document(1, values, tags).register(db);
+        new Document(2, new double[]{7}, new ArrayList<String>()).register(db);
+
+        Document found = new Document(1, null, null).search(db).get(0);
+        assertTrue(Arrays.equals(values, found.getValues()));
+        assertEquals(tags, found.getTags());
+
+        /*
+         * Text-serialized fields take part in searches, binary ones are ignored
+         */
+        assertEquals(1, new Document(-1, new double[]{7}, null).search(db).size());
+        assertEquals(2, new Document(-1, null, tags).search(db).size());
+
+        found.setTags(new ArrayList<String>(Arrays.asList("c")));
+        found.update(db);
+        assertEquals(Arrays.asList("c"), new Document(1, null, null).search(db).get(0).getTags());
+
+        found.delete(db);
+        assertEquals(1, new Document().search(db).size());
+    }
+}